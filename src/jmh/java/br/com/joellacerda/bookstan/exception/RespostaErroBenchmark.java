@@ -0,0 +1,65 @@
+package br.com.joellacerda.bookstan.exception;
+
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+// Montagem do corpo de erro pelo RestExceptionHandler (404 e 400 de validação), que roda a cada resposta de erro.
+// Fica no pacote das exceções para chamar o handler de validação, que é protected.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RespostaErroBenchmark {
+
+    private RestExceptionHandler handler;
+    private WebRequest request;
+    private LivroNaoEncontradoException naoEncontrado;
+    private MethodArgumentNotValidException validacao;
+
+    @Setup
+    public void preparar() throws Exception {
+        handler = new RestExceptionHandler();
+        request = new ServletWebRequest(new MockHttpServletRequest("POST", "/api/livros"));
+        naoEncontrado = new LivroNaoEncontradoException("Livro não encontrado com ID: 42");
+
+        BeanPropertyBindingResult erros = new BeanPropertyBindingResult(new LivroRequestDTO(), "livroRequestDTO");
+        erros.addError(new FieldError("livroRequestDTO", "titulo", "O título não pode estar em branco."));
+        erros.addError(new FieldError("livroRequestDTO", "anoPublicacao", "O ano de publicação não pode ser nulo."));
+        erros.addError(new FieldError("livroRequestDTO", "isbn", "Formato de ISBN inválido."));
+        MethodParameter parametro = new MethodParameter(
+                RespostaErroBenchmark.class.getDeclaredMethod("alvo", LivroRequestDTO.class), 0);
+        validacao = new MethodArgumentNotValidException(parametro, erros);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> naoEncontrado() {
+        return handler.handleLivroNaoEncontradoException(naoEncontrado, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> errosDeValidacao() {
+        return handler.handleMethodArgumentNotValid(validacao, new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    }
+
+    // Só para o MethodParameter da exceção de validação
+    @SuppressWarnings("unused")
+    private void alvo(LivroRequestDTO livroRequestDTO) {
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.joellacerda.bookstan.jmh;
+
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.dto.PaginaDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialização da resposta do GET /api/livros (PaginaDTO<LivroResponseDTO>) em vários tamanhos de página,
+// em JSON (padrão) e em CBOR (Accept: application/cbor). O tamanho de cada payload sai no log do setup.
+// serializarPageSpringData mede, para comparação, o Page do Spring Data que o endpoint devolvia antes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializacaoPaginaBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int tamanhoPagina;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
+    private PaginaDTO<LivroResponseDTO> pagina;
+    private Page<LivroResponseDTO> pageSpringData;
+
+    // Um só @Setup: JMH não garante a ordem entre métodos de setup do mesmo nível
+    @Setup
+    public void preparar() throws Exception {
+        // Mesma configuração base que o Spring Boot usa no MappingJackson2HttpMessageConverter
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        // O mesmo builder com a fábrica CBOR, como em ConfiguracaoFormatos
+        cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        List<LivroResponseDTO> livros = new ArrayList<>(tamanhoPagina);
+        for (int i = 0; i < tamanhoPagina; i++) {
+            livros.add(new LivroResponseDTO((long) i, "Título do livro número " + i, "Autor " + (i % 50),
+                    "Gênero " + (i % 7), 1900 + i % 120, 9780000000000L + i, 0L));
+        }
+        pagina = PaginaDTO.de(livros, 3, tamanhoPagina, 1_000_000);
+        pageSpringData = new PageImpl<>(livros, PageRequest.of(3, tamanhoPagina), 1_000_000);
+
+        int json = objectMapper.writeValueAsBytes(pagina).length;
+        int cbor = cborMapper.writeValueAsBytes(pagina).length;
+        System.out.printf("Página com %d livros: JSON %d bytes, CBOR %d bytes (%.0f%%)%n",
+                tamanhoPagina, json, cbor, 100.0 * cbor / json);
+    }
+
+    @Benchmark
+    public byte[] serializarPagina() throws Exception {
+        return objectMapper.writeValueAsBytes(pagina);
+    }
+
+    @Benchmark
+    public byte[] serializarPaginaCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(pagina);
+    }
+
+    @Benchmark
+    public byte[] serializarPageSpringData() throws Exception {
+        return objectMapper.writeValueAsBytes(pageSpringData);
+    }
+}
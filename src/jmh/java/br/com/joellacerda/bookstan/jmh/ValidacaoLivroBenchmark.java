@@ -0,0 +1,80 @@
+package br.com.joellacerda.bookstan.jmh;
+
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.model.Isbn;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Bean Validation do LivroRequestDTO (o que o @Valid faz em cada POST/PUT) e a validação de ISBN isolada.
+// "regexLegada" é o @Pattern que o DTO usava antes do @IsbnValido: fica aqui como referência, porque os
+// quantificadores aninhados fazem o custo crescer com entradas longas e quase válidas.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidacaoLivroBenchmark {
+
+    private static final Pattern ISBN_LEGADO =
+            Pattern.compile("(ISBN-*(1[03])* *(: )?)*(([0-9Xx][- ]*){13}|([0-9Xx][- ]*){10})");
+
+    @Param({"valido", "hifenizado", "quaseValido"})
+    private String caso;
+
+    private ValidatorFactory fabrica;
+    private Validator validator;
+    private LivroRequestDTO requisicao;
+    private String isbn;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        fabrica = Validation.buildDefaultValidatorFactory();
+        validator = fabrica.getValidator();
+        isbn = switch (caso) {
+            case "valido" -> "9780618640157";
+            case "hifenizado" -> "ISBN-13: 978-0-618-64015-7";
+            // Muitos dígitos separados e um caractere inválido no fim: força o regex a testar todas as divisões
+            default -> "1-2-3-4-5-6-7-8-9-0-1-2-3-4-5-6-7-8-9-0-1-2-3-4-5-6-7-8-9-0-1-2-3-4-5-6-7-8-9-0-!";
+        };
+        requisicao = new LivroRequestDTO();
+        requisicao.setTitulo("O Senhor dos Anéis");
+        requisicao.setAutor("J.R.R. Tolkien");
+        requisicao.setGenero("Fantasia");
+        requisicao.setAnoPublicacao(1954);
+        requisicao.setIsbn(isbn);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        fabrica.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<LivroRequestDTO>> validarRequisicao() {
+        return validator.validate(requisicao);
+    }
+
+    @Benchmark
+    public Long normalizarIsbn() {
+        return Isbn.normalizar(isbn);
+    }
+
+    @Benchmark
+    public boolean regexLegada() {
+        return ISBN_LEGADO.matcher(isbn).matches();
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.model.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Custo dos mapeamentos entre DTO e entidade feitos a cada requisição (no pacote do serviço para
+// acessar toEntity/toResponseDTO, que são visíveis só no pacote)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapeamentoLivroBenchmark {
+
+    private LivroRequestDTO requisicao;
+    private Livro livro;
+
+    @Setup
+    public void preparar() {
+        requisicao = new LivroRequestDTO();
+        requisicao.setTitulo("O Senhor dos Anéis");
+        requisicao.setAutor("J.R.R. Tolkien");
+        requisicao.setGenero("Fantasia");
+        requisicao.setAnoPublicacao(1954);
+        requisicao.setIsbn("978-0-618-64015-7");
+
+        livro = new Livro(42L, "O Senhor dos Anéis", "J.R.R. Tolkien", "Fantasia", 1954, 9780618640157L);
+        livro.setVersao(3L);
+    }
+
+    // Inclui a normalização do ISBN
+    @Benchmark
+    public Livro toEntity() {
+        return LivroService.toEntity(requisicao);
+    }
+
+    @Benchmark
+    public LivroResponseDTO toResponseDTO() {
+        return LivroService.toResponseDTO(livro);
+    }
+
+    // Construtor usado pelas consultas com projeção (sem entidade)
+    @Benchmark
+    public LivroResponseDTO projecao() {
+        return new LivroResponseDTO(livro.getId(), livro.getTitulo(), livro.getAutor(), livro.getGenero(),
+                livro.getAnoPublicacao(), livro.getIsbn(), livro.getVersao());
+    }
+}
@@ -2,8 +2,11 @@ package br.com.joellacerda.bookstan;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// R2dbcAutoConfiguration fica de fora: a ConnectionFactory que ela criaria faria o DataSource JDBC (JPA) deixar
+// de ser configurado. A API reativa cria a sua própria, só quando habilitada (ver LivroReativoRepository).
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class BookstanApplication {
 
     public static void main(String[] args) {
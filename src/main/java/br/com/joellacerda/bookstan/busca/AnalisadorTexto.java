@@ -0,0 +1,41 @@
+package br.com.joellacerda.bookstan.busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Quebra textos em termos para o índice de busca: remove acentos ("Revolução" -> "revolucao"),
+// converte para minúsculas e descarta palavras muito comuns que não ajudam a diferenciar livros.
+final class AnalisadorTexto {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> PALAVRAS_IGNORADAS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "de", "da", "do", "das", "dos",
+            "e", "em", "na", "no", "nas", "nos", "para", "por", "com", "the", "of", "and");
+
+    private AnalisadorTexto() {
+    }
+
+    static String normalizar(String texto) {
+        String semAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcentos.toLowerCase(Locale.ROOT); // Sem Locale.ROOT, "I" viraria "ı" com o locale turco
+    }
+
+    static List<String> termos(String texto) {
+        List<String> termos = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return termos;
+        }
+        for (String termo : SEPARADORES.split(normalizar(texto))) {
+            if (!termo.isEmpty() && !PALAVRAS_IGNORADAS.contains(termo)) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+}
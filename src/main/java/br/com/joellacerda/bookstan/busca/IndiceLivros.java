@@ -0,0 +1,473 @@
+package br.com.joellacerda.bookstan.busca;
+
+import br.com.joellacerda.bookstan.dto.ContagemFacetaDTO;
+import br.com.joellacerda.bookstan.dto.FacetasDTO;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.event.LivroAlteradoEvent;
+import br.com.joellacerda.bookstan.model.Livro;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Índice invertido em memória para a busca textual (GET /api/livros/search) sobre titulo, autor e genero.
+//
+// Cada termo aponta para os livros que o contêm e um peso (título vale mais que autor, que vale mais que gênero).
+// A consulta exige todos os termos (AND); cada termo casa de forma exata ou como prefixo (com peso menor) e a
+// relevância soma peso x IDF dos termos, de modo que palavras raras pesam mais que palavras comuns.
+// Por não depender de recursos do banco, funciona igual no PostgreSQL e no H2.
+//
+// O índice é montado na inicialização a partir do banco e mantido em dia pelos LivroAlteradoEvent publicados
+// pelos serviços depois de cada commit. Cada remoção deixa uma lápide por "bookstan.busca.retencao-remocoes":
+// um evento de gravação atrasado (PUT concorrente ao DELETE) ou a leitura do catálogo durante a reconstrução
+// não trazem de volta um livro já removido.
+//
+// Junto com os termos, mantém contadores por gênero, década e autor (GET /api/livros/facetas), do catálogo inteiro
+// e separados por gênero normalizado. Eles são ajustados a cada indexação/remoção, então as facetas sem filtro ou
+// só com o filtro de gênero saem sem varrer os livros; com a busca textual, só os livros encontrados são contados.
+@Component
+public class IndiceLivros implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceLivros.class);
+
+    private static final float PESO_TITULO = 3f;
+    private static final float PESO_AUTOR = 2f;
+    private static final float PESO_GENERO = 1f;
+    private static final float PESO_PREFIXO = 0.6f; // Casar "tolk" com "tolkien" vale menos que casar a palavra inteira
+    private static final int TAMANHO_MINIMO_PREFIXO = 2;
+    private static final int MAXIMO_EXPANSOES_PREFIXO = 200;
+    private static final int INTERVALO_LIMPEZA = 1000;
+
+    // termo -> (id do livro -> peso do termo naquele livro). TreeMap para percorrer os termos por prefixo.
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, DocumentoIndexado> documentos = new HashMap<>();
+    // Livros removidos (em ordem de remoção), protegidos pelo mesmo lock
+    private final LinkedHashMap<Long, Lapide> lapides = new LinkedHashMap<>();
+    private boolean reconstruindo; // Durante a reconstrução nenhuma lápide expira
+    // Contadores das facetas (do catálogo e por gênero normalizado), alterados sob o mesmo lock de escrita que os postings
+    private final Contagens contagens = new Contagens();
+    private final Map<String, Contagens> contagensPorGenero = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LivroRepository livroRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean indexarNaInicializacao;
+    private final long retencaoRemocoesNanos;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public IndiceLivros(LivroRepository livroRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${bookstan.busca.indexar-na-inicializacao:true}") boolean indexarNaInicializacao,
+                        @Value("${bookstan.busca.retencao-remocoes:1h}") Duration retencaoRemocoes) {
+        this.livroRepository = livroRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.indexarNaInicializacao = indexarNaInicializacao;
+        this.retencaoRemocoesNanos = retencaoRemocoes.toNanos();
+    }
+
+    // O que o índice guarda de cada livro: a versão, os pesos dos termos e os valores das facetas
+    // (para poder removê-los depois). O gênero normalizado é o usado pelo filtro de gênero das facetas.
+    record DocumentoIndexado(Long id, Long versao, Map<String, Float> pesos, String genero, String generoNormalizado,
+                             Integer decada, String autor) {
+    }
+
+    // Contadores de um conjunto de livros: quantos são e quantos há por gênero, década e autor
+    private static final class Contagens {
+        private long total;
+        private final Map<String, Long> generos = new HashMap<>();
+        private final Map<Integer, Long> decadas = new HashMap<>();
+        private final Map<String, Long> autores = new HashMap<>();
+
+        void contar(DocumentoIndexado documento, int delta) {
+            total += delta;
+            incrementar(generos, documento.genero(), delta);
+            incrementar(decadas, documento.decada(), delta);
+            incrementar(autores, documento.autor(), delta);
+        }
+
+        void limpar() {
+            total = 0;
+            generos.clear();
+            decadas.clear();
+            autores.clear();
+        }
+
+        FacetasDTO facetas(int limiteAutores) {
+            return montarFacetas(total, generos, decadas, autores, limiteAutores);
+        }
+    }
+
+    // Um livro removido: a última versão indexada (se havia) e quando foi removido, em System.nanoTime.
+    // Como os ids vêm de uma sequence e nunca se repetem, nenhuma gravação depois da remoção é legítima:
+    // todo evento desse id é de uma versão igual ou anterior à removida.
+    record Lapide(Long versao, long removidoEm) {
+    }
+
+    // Resultado de uma busca: os IDs da página pedida, em ordem de relevância, e o total de livros encontrados
+    public record ResultadoBusca(List<Long> ids, long total) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (indexarNaInicializacao) {
+            reconstruir();
+        }
+    }
+
+    // Lê o catálogo inteiro em streaming e monta o índice do zero
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        limpar();
+        definirReconstruindo(true);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Livro> livros = livroRepository.streamTodosOrdenadosPorId()) {
+                    Iterator<Livro> iterator = livros.iterator();
+                    long total = 0;
+                    while (iterator.hasNext()) {
+                        Livro livro = iterator.next();
+                        indexar(livro.getId(), livro.getVersao(), livro.getTitulo(), livro.getAutor(),
+                                livro.getGenero(), livro.getAnoPublicacao());
+                        if (++total % INTERVALO_LIMPEZA == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+            });
+        } finally {
+            definirReconstruindo(false);
+        }
+        log.info("Índice de busca montado: {} livros, {} termos em {} ms",
+                totalDocumentos(), totalTermos(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterarLivro(LivroAlteradoEvent evento) {
+        if (evento.isRemocao()) {
+            remover(evento.id());
+        } else {
+            indexar(evento.livro());
+        }
+    }
+
+    public void indexar(LivroResponseDTO livro) {
+        indexar(livro.getId(), livro.getVersao(), livro.getTitulo(), livro.getAutor(),
+                livro.getGenero(), livro.getAnoPublicacao());
+    }
+
+    public void indexar(Long id, Long versao, String titulo, String autor, String genero, Integer anoPublicacao) {
+        Map<String, Float> pesos = new HashMap<>();
+        AnalisadorTexto.termos(titulo).forEach(t -> pesos.merge(t, PESO_TITULO, Float::sum));
+        AnalisadorTexto.termos(autor).forEach(t -> pesos.merge(t, PESO_AUTOR, Float::sum));
+        AnalisadorTexto.termos(genero).forEach(t -> pesos.merge(t, PESO_GENERO, Float::sum));
+        String generoFaceta = valorFaceta(genero);
+        DocumentoIndexado documento = new DocumentoIndexado(id, versao, pesos, generoFaceta,
+                generoFaceta == null ? null : AnalisadorTexto.normalizar(generoFaceta),
+                anoPublicacao == null ? null : Math.floorDiv(anoPublicacao, 10) * 10, valorFaceta(autor));
+
+        lock.writeLock().lock();
+        try {
+            if (lapides.containsKey(id)) {
+                return; // Já removido: evento atrasado ou livro lido antes da remoção
+            }
+            DocumentoIndexado anterior = documentos.get(id);
+            // Eventos de commits concorrentes podem chegar fora de ordem: nunca troca uma versão mais nova por uma antiga
+            if (anterior != null && anterior.versao() != null && versao != null && anterior.versao() > versao) {
+                return;
+            }
+            if (anterior != null) {
+                removerPostings(anterior);
+                contar(anterior, -1);
+            }
+            pesos.forEach((termo, peso) -> postings.computeIfAbsent(termo, t -> new HashMap<>()).put(id, peso));
+            documentos.put(id, documento);
+            contar(documento, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(Long id) {
+        long agora = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            DocumentoIndexado anterior = documentos.remove(id);
+            if (anterior != null) {
+                removerPostings(anterior);
+                contar(anterior, -1);
+            }
+            lapides.put(id, new Lapide(anterior != null ? anterior.versao() : null, agora));
+            expirarLapides(agora);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ResultadoBusca buscar(String consulta, int pagina, int tamanho) {
+        List<String> termosConsulta = new ArrayList<>(new LinkedHashSet<>(AnalisadorTexto.termos(consulta)));
+        if (termosConsulta.isEmpty() || tamanho <= 0) {
+            return new ResultadoBusca(List.of(), 0);
+        }
+
+        Map<Long, Float> pontuacao;
+        lock.readLock().lock();
+        try {
+            pontuacao = pontuar(termosConsulta);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Seleciona só os K primeiros com um heap em vez de ordenar todos os resultados
+        long limite = (long) (pagina + 1) * tamanho;
+        if (limite > Integer.MAX_VALUE) {
+            return new ResultadoBusca(List.of(), pontuacao.size());
+        }
+        Comparator<Map.Entry<Long, Float>> relevancia = Map.Entry.<Long, Float>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<Long, Float>> melhores = new PriorityQueue<>(relevancia);
+        for (Map.Entry<Long, Float> entrada : pontuacao.entrySet()) {
+            if (melhores.size() < limite) {
+                melhores.add(entrada);
+            } else if (relevancia.compare(entrada, melhores.peek()) > 0) {
+                melhores.poll();
+                melhores.add(entrada);
+            }
+        }
+
+        List<Long> ordenados = new ArrayList<>(melhores.size());
+        while (!melhores.isEmpty()) {
+            ordenados.add(melhores.poll().getKey());
+        }
+        Collections.reverse(ordenados);
+        int inicio = (int) Math.min((long) pagina * tamanho, ordenados.size());
+        return new ResultadoBusca(List.copyOf(ordenados.subList(inicio, ordenados.size())), pontuacao.size());
+    }
+
+    // Facetas de gênero, década e autor. Sem a busca textual, saem direto dos contadores (do catálogo ou do gênero
+    // informado); com ela, são contadas só sobre os livros encontrados que também são do gênero informado.
+    public FacetasDTO facetas(String consulta, String genero, int limiteAutores) {
+        List<String> termosConsulta = new ArrayList<>(new LinkedHashSet<>(AnalisadorTexto.termos(consulta)));
+        String generoFiltro = genero == null || genero.isBlank() ? null : AnalisadorTexto.normalizar(genero.strip());
+
+        lock.readLock().lock();
+        try {
+            if (termosConsulta.isEmpty()) {
+                Contagens doFiltro = generoFiltro == null ? contagens : contagensPorGenero.get(generoFiltro);
+                return doFiltro == null ? new Contagens().facetas(limiteAutores) : doFiltro.facetas(limiteAutores);
+            }
+
+            Contagens encontrados = new Contagens();
+            for (Long id : pontuar(termosConsulta).keySet()) {
+                DocumentoIndexado documento = documentos.get(id);
+                if (generoFiltro == null || generoFiltro.equals(documento.generoNormalizado())) {
+                    encontrados.contar(documento, 1);
+                }
+            }
+            return encontrados.facetas(limiteAutores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int totalDocumentos() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int totalTermos() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void limpar() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentos.clear();
+            lapides.clear(); // A reconstrução parte de uma leitura nova do banco, que já não tem os removidos
+            contagens.limpar();
+            contagensPorGenero.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void definirReconstruindo(boolean valor) {
+        lock.writeLock().lock();
+        try {
+            reconstruindo = valor;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Descarta as lápides mais antigas que a retenção (a ordem de inserção é a ordem de remoção).
+    // Precisa ser chamado com o lock de escrita adquirido.
+    private void expirarLapides(long agora) {
+        if (reconstruindo) {
+            return;
+        }
+        Iterator<Lapide> iterator = lapides.values().iterator();
+        while (iterator.hasNext() && agora - iterator.next().removidoEm() > retencaoRemocoesNanos) {
+            iterator.remove();
+        }
+    }
+
+    // Precisa ser chamado com o lock de leitura adquirido
+    private Map<Long, Float> pontuar(List<String> termosConsulta) {
+        int totalDocs = Math.max(documentos.size(), 1);
+        Map<Long, Float> pontuacao = null;
+        for (String termo : termosConsulta) {
+            // Melhor pontuação de cada livro para este termo da consulta (exato ou por prefixo)
+            Map<Long, Float> doTermo = new HashMap<>();
+            Map<Long, Float> exatos = postings.get(termo);
+            if (exatos != null) {
+                acumular(doTermo, exatos, idf(totalDocs, exatos.size()));
+            }
+            if (termo.length() >= TAMANHO_MINIMO_PREFIXO) {
+                int expansoes = 0;
+                for (Map.Entry<String, Map<Long, Float>> entrada :
+                        postings.subMap(termo, false, termo + Character.MAX_VALUE, false).entrySet()) {
+                    if (++expansoes > MAXIMO_EXPANSOES_PREFIXO) {
+                        break;
+                    }
+                    acumular(doTermo, entrada.getValue(), idf(totalDocs, entrada.getValue().size()) * PESO_PREFIXO);
+                }
+            }
+
+            if (pontuacao == null) {
+                pontuacao = doTermo;
+            } else {
+                // AND: mantém só os livros que casaram com todos os termos até aqui
+                Map<Long, Float> anterior = pontuacao;
+                doTermo.keySet().retainAll(anterior.keySet());
+                doTermo.replaceAll((id, valor) -> valor + anterior.get(id));
+                pontuacao = doTermo;
+            }
+            if (pontuacao.isEmpty()) {
+                break;
+            }
+        }
+        return pontuacao;
+    }
+
+    private static void acumular(Map<Long, Float> destino, Map<Long, Float> origem, float idf) {
+        origem.forEach((id, peso) -> destino.merge(id, peso * idf, Math::max));
+    }
+
+    private static float idf(int totalDocs, int docsComTermo) {
+        return (float) Math.log(1 + (double) totalDocs / docsComTermo);
+    }
+
+    // Precisa ser chamado com o lock de escrita adquirido
+    private void contar(DocumentoIndexado documento, int delta) {
+        contagens.contar(documento, delta);
+        if (documento.generoNormalizado() != null) {
+            Contagens doGenero = contagensPorGenero.computeIfAbsent(documento.generoNormalizado(), g -> new Contagens());
+            doGenero.contar(documento, delta);
+            if (doGenero.total <= 0) {
+                contagensPorGenero.remove(documento.generoNormalizado()); // Gênero que saiu do catálogo
+            }
+        }
+    }
+
+    private static <K> void incrementar(Map<K, Long> contagem, K chave, int delta) {
+        if (chave != null) {
+            // Remove a chave quando chega a zero, para que valores que sumiram do catálogo não apareçam nas facetas
+            contagem.compute(chave, (k, atual) -> {
+                long novo = (atual == null ? 0 : atual) + delta;
+                return novo <= 0 ? null : novo;
+            });
+        }
+    }
+
+    private static FacetasDTO montarFacetas(long total, Map<String, Long> generos, Map<Integer, Long> decadas,
+                                            Map<String, Long> autores, int limiteAutores) {
+        List<ContagemFacetaDTO> porDecada = decadas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> new ContagemFacetaDTO(String.valueOf(e.getKey()), e.getValue()))
+                .toList();
+        return new FacetasDTO(total, maisFrequentes(generos, Integer.MAX_VALUE), porDecada,
+                maisFrequentes(autores, limiteAutores));
+    }
+
+    // Os N valores mais frequentes (empate desfeito pela ordem alfabética), selecionados com um heap
+    private static List<ContagemFacetaDTO> maisFrequentes(Map<String, Long> contagem, int limite) {
+        if (limite <= 0) {
+            return List.of();
+        }
+        Comparator<Map.Entry<String, Long>> frequencia = Map.Entry.<String, Long>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<String, Long>> melhores = new PriorityQueue<>(frequencia);
+        for (Map.Entry<String, Long> entrada : contagem.entrySet()) {
+            if (melhores.size() < limite) {
+                melhores.add(entrada);
+            } else if (frequencia.compare(entrada, melhores.peek()) > 0) {
+                melhores.poll();
+                melhores.add(entrada);
+            }
+        }
+        List<ContagemFacetaDTO> resultado = new ArrayList<>(melhores.size());
+        while (!melhores.isEmpty()) {
+            Map.Entry<String, Long> entrada = melhores.poll();
+            resultado.add(new ContagemFacetaDTO(entrada.getKey(), entrada.getValue()));
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    private static String valorFaceta(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.strip();
+    }
+
+    private void removerPostings(DocumentoIndexado documento) {
+        for (String termo : documento.pesos().keySet()) {
+            Map<Long, Float> livros = postings.get(termo);
+            if (livros != null) {
+                livros.remove(documento.id());
+                if (livros.isEmpty()) {
+                    postings.remove(termo);
+                }
+            }
+        }
+    }
+}
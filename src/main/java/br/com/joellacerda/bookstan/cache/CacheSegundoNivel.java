@@ -0,0 +1,49 @@
+package br.com.joellacerda.bookstan.cache;
+
+import br.com.joellacerda.bookstan.dto.EstatisticasRegiaoCacheDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// Estatísticas das regiões do cache de segundo nível do Hibernate (entidade Livro e consultas em cache),
+// a partir dos contadores de hibernate.generate_statistics. As mesmas regiões aparecem nas métricas
+// hibernate.second.level.cache.* do Micrometer, com a tag "region".
+@Component
+public class CacheSegundoNivel {
+
+    private final Statistics statistics;
+
+    @Autowired
+    public CacheSegundoNivel(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public List<EstatisticasRegiaoCacheDTO> estatisticas() {
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(regiao -> {
+                    CacheRegionStatistics stats = statistics.getCacheRegionStatistics(regiao);
+                    return stats == null ? null : new EstatisticasRegiaoCacheDTO(
+                            regiao,
+                            stats.getHitCount(),
+                            stats.getMissCount(),
+                            stats.getPutCount(),
+                            taxaAcerto(stats.getHitCount(), stats.getMissCount()),
+                            Math.max(stats.getElementCountInMemory(), -1));
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static double taxaAcerto(long acertos, long faltas) {
+        long total = acertos + faltas;
+        return total == 0 ? 0.0 : (double) acertos / total;
+    }
+}
@@ -0,0 +1,172 @@
+package br.com.joellacerda.bookstan.cache;
+
+import br.com.joellacerda.bookstan.dto.EstatisticasCacheDTO;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+// Cache em memória dos livros buscados por ID (GET /api/livros/{id}).
+//
+// Guarda o LivroResponseDTO pronto, com limite de tamanho e expiração (TTL), e também guarda por pouco tempo
+// os IDs que não existem ("cache negativo"), para que uma rajada de 404 não chegue ao banco.
+// As escritas em LivroService invalidam o ID alterado imediatamente e de novo após o commit. A invalidação também
+// descarta o carregamento em andamento para o ID: uma leitura que começou antes do commit (e pode ter lido a versão
+// antiga) entrega o resultado a quem esperava por ele, mas não o guarda no cache.
+// Os DTOs guardados são compartilhados entre requisições e não devem ser alterados por quem os recebe.
+// As estatísticas dos dois caches também são exportadas como métricas (cache.gets, cache.evictions etc.).
+@Component
+public class LivroCache implements MeterBinder {
+
+    private final Cache<Long, LivroResponseDTO> encontrados;
+    private final Cache<Long, Boolean> naoEncontrados;
+    // Carregamentos em andamento, para que buscas simultâneas pelo mesmo ID esperem a primeira
+    private final ConcurrentMap<Long, CompletableFuture<Optional<LivroResponseDTO>>> carregamentos =
+            new ConcurrentHashMap<>();
+
+    @Autowired
+    public LivroCache(@Value("${bookstan.cache.livros.tamanho-maximo:10000}") long tamanhoMaximo,
+                      @Value("${bookstan.cache.livros.ttl:10m}") Duration ttl,
+                      @Value("${bookstan.cache.livros.tamanho-maximo-nao-encontrados:10000}") long tamanhoMaximoNaoEncontrados,
+                      @Value("${bookstan.cache.livros.ttl-nao-encontrados:30s}") Duration ttlNaoEncontrados) {
+        this.encontrados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.naoEncontrados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoNaoEncontrados)
+                .expireAfterWrite(ttlNaoEncontrados)
+                .recordStats()
+                .build();
+    }
+
+    // Busca no cache e, se não houver, usa o carregador. Buscas simultâneas pelo mesmo ID
+    // que não está no cache resultam em uma única ida ao banco.
+    //
+    // O carregador roda fora de qualquer lock: o Cache.get(chave, funcao) do Caffeine executaria a consulta
+    // dentro do ConcurrentHashMap.compute (um bloco synchronized), o que no Java 21 prende a virtual thread
+    // à thread portadora durante toda a ida ao banco. Aqui só o registro do carregamento é atômico; quem chega
+    // depois espera o CompletableFuture, e essa espera libera a thread portadora.
+    public Optional<LivroResponseDTO> buscar(Long id, Function<Long, Optional<LivroResponseDTO>> carregador) {
+        if (naoEncontrados.getIfPresent(id) != null) {
+            return Optional.empty();
+        }
+        LivroResponseDTO emCache = encontrados.getIfPresent(id);
+        if (emCache != null) {
+            return Optional.of(emCache);
+        }
+
+        CompletableFuture<Optional<LivroResponseDTO>> novo = new CompletableFuture<>();
+        CompletableFuture<Optional<LivroResponseDTO>> emAndamento = carregamentos.putIfAbsent(id, novo);
+        if (emAndamento != null) {
+            return aguardar(emAndamento);
+        }
+        try {
+            Optional<LivroResponseDTO> livro = carregador.apply(id);
+            // Só guarda se o carregamento ainda está registrado, isto é, se nenhuma invalidação aconteceu durante
+            // a consulta. A verificação e a gravação são atômicas em relação ao removerEntradas.
+            carregamentos.computeIfPresent(id, (chave, atual) -> {
+                if (atual == novo) {
+                    if (livro.isPresent()) {
+                        encontrados.put(id, livro.get());
+                    } else {
+                        naoEncontrados.put(id, Boolean.TRUE);
+                    }
+                }
+                return atual;
+            });
+            novo.complete(livro);
+            return livro;
+        } catch (RuntimeException | Error e) {
+            novo.completeExceptionally(e);
+            throw e;
+        } finally {
+            carregamentos.remove(id, novo);
+        }
+    }
+
+    // Retorna o livro apenas se ele já estiver no cache (não conta como falta nas estatísticas)
+    public Optional<LivroResponseDTO> consultar(Long id) {
+        return Optional.ofNullable(encontrados.asMap().get(id));
+    }
+
+    // Indica se o ID está no cache de livros inexistentes
+    public boolean naoEncontrado(Long id) {
+        return naoEncontrados.asMap().containsKey(id);
+    }
+
+    // Remove o ID agora e, se houver uma transação em andamento, de novo depois do commit
+    public void invalidar(Long id) {
+        removerEntradas(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removerEntradas(id);
+                }
+            });
+        }
+    }
+
+    public void limpar() {
+        carregamentos.clear();
+        encontrados.invalidateAll();
+        naoEncontrados.invalidateAll();
+    }
+
+    public EstatisticasCacheDTO estatisticas() {
+        CacheStats stats = encontrados.stats();
+        CacheStats statsNegativo = naoEncontrados.stats();
+        EstatisticasCacheDTO dto = new EstatisticasCacheDTO();
+        dto.setTamanho(encontrados.estimatedSize());
+        dto.setAcertos(stats.hitCount());
+        dto.setFaltas(stats.missCount());
+        dto.setRemocoes(stats.evictionCount());
+        dto.setTaxaAcerto(stats.hitRate());
+        dto.setTamanhoNaoEncontrados(naoEncontrados.estimatedSize());
+        dto.setAcertosNaoEncontrados(statsNegativo.hitCount());
+        dto.setRemocoesNaoEncontrados(statsNegativo.evictionCount());
+        return dto;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, encontrados, "livros");
+        CaffeineCacheMetrics.monitor(registry, naoEncontrados, "livros-nao-encontrados");
+    }
+
+    private static Optional<LivroResponseDTO> aguardar(CompletableFuture<Optional<LivroResponseDTO>> carregamento) {
+        try {
+            return carregamento.join();
+        } catch (CompletionException e) {
+            // Repassa a falha original de quem fez a consulta (ex: banco indisponível)
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private void removerEntradas(Long id) {
+        carregamentos.remove(id); // Antes do cache: um carregamento que ainda não gravou não grava mais
+        encontrados.invalidate(id);
+        naoEncontrados.invalidate(id);
+    }
+}
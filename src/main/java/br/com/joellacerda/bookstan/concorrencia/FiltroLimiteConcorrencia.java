@@ -0,0 +1,151 @@
+package br.com.joellacerda.bookstan.concorrencia;
+
+import br.com.joellacerda.bookstan.exception.CorpoErro;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Limita as requisições simultâneas aos endpoints /api/livros, com um LimiteAdaptativo para leituras
+// (GET, HEAD, OPTIONS) e outro para escritas, já que as duas pesam de forma diferente no banco.
+//
+// Acima do limite, a requisição é recusada na hora com 503 e Retry-After, sem ocupar uma conexão do banco
+// nem esperar na fila do Tomcat além do timeout do cliente.
+//
+// Cada endpoint (método + padrão da rota, ex: "POST /api/livros/import") é julgado pela sua própria latência de
+// referência (LatenciaBase), não só pela latência alvo do tipo: a importação ou um lote de milhares de livros,
+// lentos por natureza, não derrubam o limite das escritas avulsas. Nas respostas assíncronas (exportação, long-poll
+// do feed de alterações) só conta a parte síncrona: a vaga é liberada quando a thread da requisição é devolvida.
+//
+// Métricas, com a tag tipo=leitura|escrita: bookstan.concorrencia.limite, bookstan.concorrencia.em-voo e
+// bookstan.concorrencia.recusadas.
+@Component
+@ConditionalOnProperty(name = "bookstan.limite-concorrencia.habilitado", havingValue = "true", matchIfMissing = true)
+public class FiltroLimiteConcorrencia extends OncePerRequestFilter {
+
+    // Marcado pelo RestExceptionHandler quando o banco recusou o trabalho (pool esgotado, banco fora do ar)
+    public static final String ATRIBUTO_BANCO_SOBRECARREGADO = FiltroLimiteConcorrencia.class.getName() + ".bancoSobrecarregado";
+
+    private static final String PREFIXO = "/api/livros";
+    private static final Set<String> METODOS_LEITURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final LimiteAdaptativo leituras;
+    private final LimiteAdaptativo escritas;
+    private final Counter leiturasRecusadas;
+    private final Counter escritasRecusadas;
+    private final ObjectMapper objectMapper;
+    // Latência de referência por endpoint; as chaves são os padrões das rotas, então o mapa não cresce sem limite
+    private final ConcurrentMap<String, LatenciaBase> latenciasBase = new ConcurrentHashMap<>();
+    private final double pesoBase;
+    private final double toleranciaBase;
+
+    @Autowired
+    public FiltroLimiteConcorrencia(MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                                    @Value("${bookstan.limite-concorrencia.leitura.inicial:50}") int leituraInicial,
+                                    @Value("${bookstan.limite-concorrencia.leitura.maximo:200}") int leituraMaximo,
+                                    @Value("${bookstan.limite-concorrencia.leitura.latencia-alvo:200ms}") Duration leituraLatenciaAlvo,
+                                    @Value("${bookstan.limite-concorrencia.escrita.inicial:20}") int escritaInicial,
+                                    @Value("${bookstan.limite-concorrencia.escrita.maximo:100}") int escritaMaximo,
+                                    @Value("${bookstan.limite-concorrencia.escrita.latencia-alvo:500ms}") Duration escritaLatenciaAlvo,
+                                    @Value("${bookstan.limite-concorrencia.minimo:2}") int minimo,
+                                    @Value("${bookstan.limite-concorrencia.fator-reducao:0.9}") double fatorReducao,
+                                    @Value("${bookstan.limite-concorrencia.base.peso:0.05}") double pesoBase,
+                                    @Value("${bookstan.limite-concorrencia.base.tolerancia:2.0}") double toleranciaBase) {
+        this.objectMapper = objectMapper;
+        this.pesoBase = pesoBase;
+        this.toleranciaBase = toleranciaBase;
+        this.leituras = new LimiteAdaptativo(leituraInicial, minimo, leituraMaximo, leituraLatenciaAlvo.toNanos(), fatorReducao);
+        this.escritas = new LimiteAdaptativo(escritaInicial, minimo, escritaMaximo, escritaLatenciaAlvo.toNanos(), fatorReducao);
+        this.leiturasRecusadas = registrarMetricas(meterRegistry, "leitura", leituras);
+        this.escritasRecusadas = registrarMetricas(meterRegistry, "escrita", escritas);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        return !uri.equals(PREFIXO) && !uri.startsWith(PREFIXO + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean leitura = METODOS_LEITURA.contains(request.getMethod());
+        LimiteAdaptativo limite = leitura ? leituras : escritas;
+        if (!limite.tentarAdquirir()) {
+            (leitura ? leiturasRecusadas : escritasRecusadas).increment();
+            recusar(request, response);
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long fim = System.nanoTime();
+            // Pool de conexões esgotado ou banco fora do ar também é sinal de sobrecarga. Pelo atributo, não pelo
+            // status: o 503 da fila cheia do cadastro assíncrono (FilaCheiaException) sai em 1 ms com o banco ocioso
+            // e, contado aqui, derrubaria o limite das escritas a cada recusa
+            boolean bancoSobrecarregado = Boolean.TRUE.equals(request.getAttribute(ATRIBUTO_BANCO_SOBRECARREGADO));
+            limite.registrar(inicio, fim, bancoSobrecarregado, latenciaAlvo(request, limite, fim - inicio));
+        }
+    }
+
+    // O padrão da rota só é conhecido depois de o Spring MVC escolher o controller; sem ele (ex: 404 de rota
+    // inexistente), vale a latência alvo do tipo
+    private long latenciaAlvo(HttpServletRequest request, LimiteAdaptativo limite, long latencia) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (padrao == null) {
+            return limite.getLatenciaAlvoNanos();
+        }
+        return latenciasBase.computeIfAbsent(request.getMethod() + " " + padrao,
+                        endpoint -> new LatenciaBase(pesoBase, toleranciaBase))
+                .alvo(latencia, limite.getLatenciaAlvoNanos());
+    }
+
+    private void recusar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Map<String, Object> body = CorpoErro.de(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+                "O servidor está no limite de requisições simultâneas. Tente novamente em instantes.",
+                request.getRequestURI());
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static Counter registrarMetricas(MeterRegistry registry, String tipo, LimiteAdaptativo limite) {
+        Gauge.builder("bookstan.concorrencia.limite", limite, LimiteAdaptativo::getLimite)
+                .description("Limite atual de requisições simultâneas")
+                .tag("tipo", tipo)
+                .register(registry);
+        Gauge.builder("bookstan.concorrencia.em-voo", limite, LimiteAdaptativo::getEmVoo)
+                .description("Requisições em andamento")
+                .tag("tipo", tipo)
+                .register(registry);
+        return Counter.builder("bookstan.concorrencia.recusadas")
+                .description("Requisições recusadas por excederem o limite")
+                .tag("tipo", tipo)
+                .register(registry);
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.joellacerda.bookstan.concorrencia;
+
+// Latência de referência de um endpoint: média móvel exponencial das respostas consideradas normais.
+//
+// Endpoints lentos por natureza (importação, lote, operações em massa) levam segundos mesmo com o banco folgado.
+// Comparados com a mesma latência alvo das escritas avulsas, derrubariam o limite de todas as escritas a cada
+// chamada. Com a referência, uma resposta só é lenta quando passa da latência alvo do tipo (leitura/escrita) E de
+// "tolerância" vezes o que aquele endpoint costuma levar.
+//
+// Respostas lentas não entram na média: numa sobrecarga longa a referência não sobe junto com a latência,
+// e a sobrecarga continua sendo percebida.
+public class LatenciaBase {
+
+    private final double peso;
+    private final double tolerancia;
+
+    private double media = -1; // Sem amostras ainda; protegido pelo lock do objeto
+
+    public LatenciaBase(double peso, double tolerancia) {
+        this.peso = peso;
+        this.tolerancia = tolerancia;
+    }
+
+    // Latência alvo desta resposta (a referência anterior a ela) e atualização da média, se a resposta foi normal.
+    // A primeira resposta de um endpoint vira a referência e nunca é considerada lenta.
+    public synchronized long alvo(long latenciaNanos, long latenciaAlvoMinimaNanos) {
+        if (media < 0) {
+            media = latenciaNanos;
+            return Math.max(latenciaAlvoMinimaNanos, latenciaNanos);
+        }
+        long alvo = Math.max(latenciaAlvoMinimaNanos, (long) (media * tolerancia));
+        if (latenciaNanos <= alvo) {
+            media += peso * (latenciaNanos - media);
+        }
+        return alvo;
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.joellacerda.bookstan.concorrencia;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Limite de requisições simultâneas ajustado pela latência observada (AIMD: aumento aditivo, redução multiplicativa).
+//
+// Enquanto as respostas saem dentro da latência alvo e o limite está sendo usado, ele cresce devagar
+// (cerca de +1 a cada "limite" requisições). Quando uma resposta passa do alvo, ou o banco recusou o trabalho
+// (503), o limite cai para "limite x fator de redução" — no máximo uma vez a cada intervalo igual à latência
+// observada, para que uma única rajada lenta não o derrube várias vezes seguidas.
+//
+// Assim o limite acompanha a capacidade real do banco: com ele lento, menos requisições ficam presas nas threads
+// do Tomcat esperando conexão, e o excedente é recusado na hora em vez de esperar mais que o cliente.
+public class LimiteAdaptativo {
+
+    private final int minimo;
+    private final int maximo;
+    private final long latenciaAlvoNanos;
+    private final double fatorReducao;
+
+    private final AtomicInteger emVoo = new AtomicInteger();
+    private volatile double limite;
+    private long ultimaReducao; // Protegido pelo lock de registrar
+
+    public LimiteAdaptativo(int inicial, int minimo, int maximo, long latenciaAlvoNanos, double fatorReducao) {
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.latenciaAlvoNanos = latenciaAlvoNanos;
+        this.fatorReducao = fatorReducao;
+        this.limite = Math.max(minimo, Math.min(inicial, maximo));
+        this.ultimaReducao = System.nanoTime() - latenciaAlvoNanos;
+    }
+
+    // Ocupa uma vaga, se houver. Quem recebe true deve chamar registrar ao terminar.
+    public boolean tentarAdquirir() {
+        while (true) {
+            int atual = emVoo.get();
+            if (atual >= (int) limite) {
+                return false;
+            }
+            if (emVoo.compareAndSet(atual, atual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Libera a vaga e ajusta o limite pela latência da requisição (de inicio a fim, em System.nanoTime)
+    public void registrar(long inicioNanos, long fimNanos, boolean sobrecarga) {
+        registrar(inicioNanos, fimNanos, sobrecarga, latenciaAlvoNanos);
+    }
+
+    // O mesmo, com a latência alvo do endpoint chamado (ver LatenciaBase) no lugar da configurada
+    public synchronized void registrar(long inicioNanos, long fimNanos, boolean sobrecarga, long latenciaAlvoNanos) {
+        int ocupadas = emVoo.getAndDecrement();
+        long latencia = fimNanos - inicioNanos;
+        if (sobrecarga || latencia > latenciaAlvoNanos) {
+            if (fimNanos - ultimaReducao >= latencia) {
+                limite = Math.max(minimo, limite * fatorReducao);
+                ultimaReducao = fimNanos;
+            }
+        } else if (ocupadas * 2 >= limite) {
+            // Só cresce quando está sendo usado: um limite ocioso não prova que o banco aguentaria mais
+            limite = Math.min(maximo, limite + 1 / limite);
+        }
+    }
+
+    public long getLatenciaAlvoNanos() {
+        return latenciaAlvoNanos;
+    }
+
+    public int getLimite() {
+        return (int) limite;
+    }
+
+    public int getEmVoo() {
+        return emVoo.get();
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.joellacerda.bookstan.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Acrescenta "Vary: Accept" às respostas escritas pelo Jackson (JSON ou CBOR, ver ConfiguracaoFormatos).
+// Como o corpo da mesma URL muda com o Accept, caches HTTP (navegador, proxy, CDN) precisam guardar uma cópia por
+// formato; sem o Vary, um cliente JSON poderia receber a cópia em CBOR guardada para outro cliente.
+@ControllerAdvice
+public class CabecalhoVary implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        HttpHeaders cabecalhos = response.getHeaders();
+        List<String> vary = cabecalhos.getVary();
+        if (vary.stream().noneMatch(valor -> valor.equalsIgnoreCase(HttpHeaders.ACCEPT) || valor.equals("*"))) {
+            List<String> novo = new ArrayList<>(vary);
+            novo.add(HttpHeaders.ACCEPT);
+            cabecalhos.setVary(novo);
+        }
+        return body;
+    }
+}
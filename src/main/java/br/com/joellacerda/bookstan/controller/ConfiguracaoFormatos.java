@@ -0,0 +1,23 @@
+package br.com.joellacerda.bookstan.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+// Formatos de resposta além do JSON, escolhidos pelo cabeçalho Accept.
+//
+// Com "Accept: application/cbor" os endpoints respondem em CBOR (RFC 8949): os mesmos campos do JSON, em binário,
+// sem aspas, vírgulas nem números em texto. Sem o cabeçalho (ou com application/json) a resposta continua em JSON,
+// que vem antes na lista de conversores. As respostas levam "Vary: Accept" (CabecalhoVary) e o ETag do livro muda
+// com o formato ("3" e "3-cbor", ver LivroController). O conversor usa o ObjectMapper configurado pelo Spring Boot
+// (módulos e spring.jackson.*), para o CBOR ter exatamente os mesmos campos do JSON; o padrão do Spring MVC montaria outro.
+@Configuration
+public class ConfiguracaoFormatos {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -1,7 +1,29 @@
 package br.com.joellacerda.bookstan.controller;
 
+import br.com.joellacerda.bookstan.cache.CacheSegundoNivel;
+import br.com.joellacerda.bookstan.dto.AlteracoesDTO;
+import br.com.joellacerda.bookstan.dto.AtualizacaoEmMassaDTO;
+import br.com.joellacerda.bookstan.dto.CriacaoAssincronaDTO;
+import br.com.joellacerda.bookstan.dto.EstatisticasCacheDTO;
+import br.com.joellacerda.bookstan.dto.EstatisticasRegiaoCacheDTO;
+import br.com.joellacerda.bookstan.dto.FacetasDTO;
+import br.com.joellacerda.bookstan.dto.FiltroLivrosDTO;
+import br.com.joellacerda.bookstan.dto.ImportacaoResultadoDTO;
 import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
 import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.dto.LoteResultadoDTO;
+import br.com.joellacerda.bookstan.dto.OperacaoEmMassaResultadoDTO;
+import br.com.joellacerda.bookstan.dto.PaginaCursorDTO;
+import br.com.joellacerda.bookstan.dto.PaginaDTO;
+import br.com.joellacerda.bookstan.exception.CabecalhoInvalidoException;
+import br.com.joellacerda.bookstan.exception.VersaoConflitanteException;
+import br.com.joellacerda.bookstan.service.FormatoArquivo;
+import br.com.joellacerda.bookstan.service.LivroAlteracoesService;
+import br.com.joellacerda.bookstan.service.LivroCriacaoAssincronaService;
+import br.com.joellacerda.bookstan.service.LivroEmMassaService;
+import br.com.joellacerda.bookstan.service.LivroExportacaoService;
+import br.com.joellacerda.bookstan.service.LivroImportacaoService;
+import br.com.joellacerda.bookstan.service.LivroLoteService;
 import br.com.joellacerda.bookstan.service.LivroService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,23 +33,62 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController // Combina @Controller e @ResponseBody, indicando que os retornos dos métodos serão o corpo da resposta HTTP
 @RequestMapping("/api/livros") // Define o caminho base para todos os endpoints neste controller
 @Tag(name = "Livros", description = "API para gerenciamento de livros") // Agrupa os endpoints
 public class LivroController {
 
+    private static final int MAXIMO_AUTORES_FACETA = 100;
+    private static final String MEDIA_TYPE_MERGE_PATCH = "application/merge-patch+json";
+    private static final String SUFIXO_ETAG_CBOR = "-cbor";
+    private static final String CABECALHO_TOKEN_ALTERACOES = "X-Alteracoes-Token";
+
     private final LivroService livroService;
+    private final LivroLoteService livroLoteService;
+    private final LivroCriacaoAssincronaService livroCriacaoAssincronaService;
+    private final LivroExportacaoService livroExportacaoService;
+    private final LivroImportacaoService livroImportacaoService;
+    private final LivroEmMassaService livroEmMassaService;
+    private final LivroAlteracoesService livroAlteracoesService;
+    private final CacheSegundoNivel cacheSegundoNivel;
 
-    @Autowired // Injeção de dependência do serviço
-    public LivroController(LivroService livroService) {
+    @Autowired // Injeção de dependência dos serviços
+    public LivroController(LivroService livroService, LivroLoteService livroLoteService,
+                           LivroCriacaoAssincronaService livroCriacaoAssincronaService,
+                           LivroExportacaoService livroExportacaoService,
+                           LivroImportacaoService livroImportacaoService,
+                           LivroEmMassaService livroEmMassaService,
+                           LivroAlteracoesService livroAlteracoesService,
+                           CacheSegundoNivel cacheSegundoNivel) {
         this.livroService = livroService;
+        this.livroLoteService = livroLoteService;
+        this.livroCriacaoAssincronaService = livroCriacaoAssincronaService;
+        this.livroExportacaoService = livroExportacaoService;
+        this.livroImportacaoService = livroImportacaoService;
+        this.livroEmMassaService = livroEmMassaService;
+        this.livroAlteracoesService = livroAlteracoesService;
+        this.cacheSegundoNivel = cacheSegundoNivel;
     }
 
     // Endpoint para CRIAR um novo livro
@@ -38,7 +99,9 @@ public class LivroController {
             @ApiResponse(responseCode = "201", description = "Livro criado com sucesso", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = LivroResponseDTO.class)) }),
             @ApiResponse(responseCode = "400", description = "Dados inválidos fornecidos",
-                    content = @Content) // Você pode detalhar o schema do erro 400 se quiser
+                    content = @Content), // Você pode detalhar o schema do erro 400 se quiser
+            @ApiResponse(responseCode = "409", description = "Já existe um livro com o mesmo ISBN",
+                    content = @Content)
     })
     @PostMapping
     public ResponseEntity<LivroResponseDTO> criarLivro(@Valid @RequestBody LivroRequestDTO livroRequestDTO) {
@@ -48,6 +111,96 @@ public class LivroController {
         return new ResponseEntity<>(novoLivro, HttpStatus.CREATED);
     }
 
+    // Endpoint para CRIAR um livro de forma assíncrona
+    // HTTP POST para /api/livros/async
+    @Operation(summary = "Cria um livro de forma assíncrona (commit agrupado)",
+            description = "Valida o livro como o `POST /api/livros`, coloca-o numa fila e responde `202` na hora, " +
+                    "com o protocolo e o cabeçalho `Location` para consultar a situação. Os pedidos da fila são " +
+                    "gravados em lotes, cada lote num único commit. Com a fila cheia, responde `503` com `Retry-After`.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Livro aceito para gravação", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = CriacaoAssincronaDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Dados inválidos fornecidos", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Fila de gravação cheia", content = @Content)
+    })
+    @PostMapping("/async")
+    public ResponseEntity<CriacaoAssincronaDTO> criarLivroAssincrono(@Valid @RequestBody LivroRequestDTO livroRequestDTO) {
+        CriacaoAssincronaDTO pendente = livroCriacaoAssincronaService.enfileirar(livroRequestDTO);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/livros/async/" + pendente.getProtocolo()))
+                .body(pendente);
+    }
+
+    // Endpoint para CONSULTAR um cadastro assíncrono
+    // HTTP GET para /api/livros/async/{protocolo}
+    @Operation(summary = "Consulta a situação de um cadastro assíncrono",
+            description = "`PENDENTE` enquanto o livro está na fila; depois `CRIADO` (com o `id`), `DUPLICADO` " +
+                    "(ISBN já cadastrado) ou `ERRO`. A situação fica disponível por " +
+                    "`bookstan.criacao-assincrona.retencao` depois da gravação.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Situação do cadastro", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = CriacaoAssincronaDTO.class)) }),
+            @ApiResponse(responseCode = "404", description = "Protocolo desconhecido ou expirado", content = @Content)
+    })
+    @GetMapping("/async/{protocolo}")
+    public ResponseEntity<CriacaoAssincronaDTO> buscarCriacaoAssincrona(
+            @Parameter(description = "Protocolo devolvido pelo `POST /api/livros/async`", required = true)
+            @PathVariable String protocolo) {
+        return ResponseEntity.ok(livroCriacaoAssincronaService.consultar(protocolo));
+    }
+
+    // Endpoint para CRIAR vários livros de uma vez
+    // HTTP POST para /api/livros/batch
+    @Operation(summary = "Cria vários livros em lote",
+            description = "Recebe uma lista de livros, valida cada item e grava os válidos em blocos com INSERTs agrupados. " +
+                    "Itens inválidos ou com ISBN já cadastrado não impedem a gravação dos demais: " +
+                    "o resultado de cada item é informado na mesma posição em que foi enviado.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado (veja o status de cada item)", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = LoteResultadoDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou acima do limite permitido",
+                    content = @Content)
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<LoteResultadoDTO> criarLivros(@RequestBody List<LivroRequestDTO> livrosRequestDTO) {
+        // Sem @Valid aqui: a validação é feita item a item pelo serviço para não rejeitar o lote inteiro
+        LoteResultadoDTO resultado = livroLoteService.criarLivros(livrosRequestDTO);
+        return ResponseEntity.ok(resultado);
+    }
+
+    // Endpoint para DELETAR em massa os livros que atendem a um filtro
+    // HTTP POST para /api/livros/bulk-delete
+    @Operation(summary = "Remove todos os livros que atendem a um filtro",
+            description = "Filtra por `autor`, `genero`, faixa de ano (`anoInicial`/`anoFinal`) e/ou lista de `ids`, " +
+                    "combinados com E. Os livros são removidos em blocos, cada um em sua transação, sem carregar " +
+                    "as entidades. Retorna quantos livros foram removidos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Remoção concluída", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = OperacaoEmMassaResultadoDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Filtro vazio ou inconsistente", content = @Content)
+    })
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<OperacaoEmMassaResultadoDTO> deletarLivros(@RequestBody FiltroLivrosDTO filtro) {
+        return ResponseEntity.ok(livroEmMassaService.deletarLivros(filtro));
+    }
+
+    // Endpoint para ATUALIZAR em massa os livros que atendem a um filtro
+    // HTTP POST para /api/livros/bulk-update
+    @Operation(summary = "Altera todos os livros que atendem a um filtro",
+            description = "Recebe `filtro` (o mesmo do bulk-delete) e `alteracoes` (no formato do PATCH, exceto `isbn`). " +
+                    "Ex: `{\"filtro\": {\"genero\": \"Ficção\"}, \"alteracoes\": {\"genero\": \"Ficção Científica\"}}`. " +
+                    "Os livros são alterados em blocos, com UPDATEs que não carregam as entidades; a versão (ETag) " +
+                    "de cada livro alterado muda.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Atualização concluída", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = OperacaoEmMassaResultadoDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Filtro vazio ou alterações inválidas", content = @Content)
+    })
+    @PostMapping("/bulk-update")
+    public ResponseEntity<OperacaoEmMassaResultadoDTO> atualizarLivros(@RequestBody AtualizacaoEmMassaDTO atualizacao) {
+        return ResponseEntity.ok(livroEmMassaService.atualizarLivros(atualizacao));
+    }
+
     // Endpoint para BUSCAR todos os livros
     // HTTP GET para /api/livros
     @Operation(summary = "Lista todos os livros de forma paginada e ordenada",
@@ -55,51 +208,313 @@ public class LivroController {
                     "Você pode controlar a paginação e ordenação através de query params: " +
                     "`page` (número da página, começando em 0), " +
                     "`size` (tamanho da página), e " +
-                    "`sort` (ex: `titulo,asc` ou `autor,desc`).")
+                    "`sort` (ex: `titulo,asc` ou `autor,desc`). " +
+                    "Com `withTotal=false` a página não traz `totalElements`/`totalPages` e dispensa o COUNT(*); " +
+                    "use `hasNext` para saber se há mais livros. " +
+                    "Com `Accept: application/cbor` a página vem em CBOR, menor e mais barata de gerar que o JSON.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de livros recuperada com sucesso",
                     content = { @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = Page.class)) })
+                            schema = @Schema(implementation = PaginaDTO.class)),
+                            @Content(mediaType = "application/cbor", schema = @Schema(implementation = PaginaDTO.class)) })
     })
     @GetMapping
-    public ResponseEntity<Page<LivroResponseDTO>> buscarTodosLivros(Pageable pageable) {
-            Page<LivroResponseDTO> livrosPaginados = livroService.buscarTodosLivros(pageable);
+    public ResponseEntity<PaginaDTO<LivroResponseDTO>> buscarTodosLivros(
+            @Parameter(description = "Calcula `totalElements` e `totalPages` (um COUNT(*) por página, ou o total " +
+                    "em cache quando `bookstan.paginacao.total-em-cache` está ligado)")
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            Pageable pageable) {
+            PaginaDTO<LivroResponseDTO> livrosPaginados = livroService.buscarTodosLivros(pageable, withTotal);
             return ResponseEntity.ok(livrosPaginados);
     }
 
+    // Endpoint para BUSCAR livros com paginação por cursor
+    // HTTP GET para /api/livros/cursor
+    @Operation(summary = "Lista livros com paginação por cursor (keyset)",
+            description = "Alternativa à listagem paginada para percorrer catálogos grandes. " +
+                    "Use `size` e `sort` (apenas um campo: `titulo`, `autor` ou `anoPublicacao`, ex: `autor,desc`) " +
+                    "na primeira chamada e depois repita a requisição enviando o valor de `next` no parâmetro `cursor`. " +
+                    "A latência não aumenta com a profundidade e não há contagem total.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de livros recuperada com sucesso",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PaginaCursorDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido ou ordenação não suportada",
+                    content = @Content)
+    })
+    @GetMapping("/cursor")
+    public ResponseEntity<PaginaCursorDTO<LivroResponseDTO>> buscarLivrosPorCursor(
+            @Parameter(description = "Token `next` devolvido pela página anterior")
+            @RequestParam(required = false) String cursor,
+            Pageable pageable) {
+        PaginaCursorDTO<LivroResponseDTO> pagina = livroService.buscarLivrosPorCursor(cursor, pageable);
+        return ResponseEntity.ok(pagina);
+    }
+
+    // Endpoint para ACOMPANHAR as alterações do catálogo
+    // HTTP GET para /api/livros/changes
+    @Operation(summary = "Feed de alterações do catálogo",
+            description = "Devolve, em ordem, as alterações feitas depois do token `since`: `UPSERT` com o livro como " +
+                    "ficou ou `DELETE` só com o `id`. Repita a requisição com o valor de `next` até `hasMore` ser " +
+                    "`false`. Com `wait` (segundos), a resposta sem novidades aguarda a próxima alteração em vez " +
+                    "de voltar vazia (long-poll). Para montar a cópia inicial, use o cabeçalho `X-Alteracoes-Token` " +
+                    "de `GET /api/livros/export` como primeiro `since`. Registros mais antigos que " +
+                    "`bookstan.alteracoes.retencao` são apagados; um `since` anterior a eles recebe `410` e a cópia " +
+                    "precisa ser refeita.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote de alterações (possivelmente vazio)",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = AlteracoesDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Token inválido", content = @Content),
+            @ApiResponse(responseCode = "410", description = "Alterações posteriores ao token já apagadas pela retenção",
+                    content = @Content)
+    })
+    @GetMapping("/changes")
+    public DeferredResult<AlteracoesDTO> buscarAlteracoes(
+            @Parameter(description = "Token `next` da resposta anterior (sem ele, desde o início do log)")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Máximo de alterações no lote")
+            @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "Segundos de espera quando não há alterações novas (0 = responde na hora)")
+            @RequestParam(defaultValue = "0") int wait) {
+        // Sem espera o resultado já vem preenchido; com espera, a thread da requisição é liberada
+        return livroAlteracoesService.aguardarAlteracoes(since, limit, Duration.ofSeconds(wait));
+    }
+
+    // Endpoint para BUSCAR livros por texto
+    // HTTP GET para /api/livros/search
+    @Operation(summary = "Busca livros por texto",
+            description = "Busca em `titulo`, `autor` e `genero`, ignorando acentos e maiúsculas/minúsculas. " +
+                    "Todas as palavras precisam aparecer, inteiras ou como início de palavra (ex: `tolk hobb`). " +
+                    "Os resultados vêm ordenados por relevância e paginados com `page` e `size`.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultados da busca",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PaginaDTO.class)),
+                            @Content(mediaType = "application/cbor", schema = @Schema(implementation = PaginaDTO.class)) })
+    })
+    @GetMapping("/search")
+    public ResponseEntity<PaginaDTO<LivroResponseDTO>> buscarLivrosPorTexto(
+            @Parameter(description = "Texto a ser buscado", required = true, example = "senhor aneis")
+            @RequestParam("q") String consulta,
+            Pageable pageable) {
+        return ResponseEntity.ok(livroService.buscarLivrosPorTexto(consulta, pageable));
+    }
+
+    // Endpoint para CONTAR livros por gênero, década e autor
+    // HTTP GET para /api/livros/facetas
+    @Operation(summary = "Facetas do catálogo",
+            description = "Quantidade de livros por `genero`, por década de `anoPublicacao` e pelos autores mais frequentes. " +
+                    "Pode ser restrita aos livros que casam com uma busca textual (`q`, mesma sintaxe de `/search`) " +
+                    "e/ou a um `genero`. Os valores vêm de contadores em memória, sem varrer a tabela.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Facetas calculadas",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = FacetasDTO.class)) })
+    })
+    @GetMapping("/facetas")
+    public ResponseEntity<FacetasDTO> buscarFacetas(
+            @Parameter(description = "Busca textual para restringir os livros contados", example = "tolkien")
+            @RequestParam(value = "q", required = false) String consulta,
+            @Parameter(description = "Gênero para restringir os livros contados (ignora acentos e maiúsculas)", example = "Fantasia")
+            @RequestParam(value = "genero", required = false) String genero,
+            @Parameter(description = "Quantos autores mais frequentes retornar (máximo " + MAXIMO_AUTORES_FACETA + ")")
+            @RequestParam(value = "autores", defaultValue = "10") int limiteAutores) {
+        int limite = Math.max(0, Math.min(limiteAutores, MAXIMO_AUTORES_FACETA));
+        return ResponseEntity.ok(livroService.buscarFacetas(consulta, genero, limite));
+    }
+
+    // Endpoint para EXPORTAR o catálogo inteiro
+    // HTTP GET para /api/livros/export
+    @Operation(summary = "Exporta todos os livros em streaming",
+            description = "Gera um arquivo com todo o catálogo, ordenado por ID, em `ndjson` (um JSON por linha, padrão), " +
+                    "`csv` ou `cbor` (objetos CBOR em sequência, RFC 8742). Sem o parâmetro `formato`, o formato vem " +
+                    "do cabeçalho `Accept` (ex: `application/cbor-seq`). Os livros são enviados à medida que são lidos " +
+                    "do banco, sem paginação e com consumo de memória constante — use no lugar de percorrer " +
+                    "`GET /api/livros?page=N`. O cabeçalho `X-Alteracoes-Token` traz o ponto do feed " +
+                    "`GET /api/livros/changes` de onde continuar depois da cópia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportação iniciada", content = {
+                    @Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv"),
+                    @Content(mediaType = "application/cbor-seq") }),
+            @ApiResponse(responseCode = "400", description = "Formato não suportado", content = @Content)
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarLivros(
+            @Parameter(description = "Formato do arquivo: `ndjson`, `csv` ou `cbor`", example = "ndjson")
+            @RequestParam(required = false) String formato,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        FormatoArquivo formatoArquivo = formato != null
+                ? FormatoArquivo.deParametro(formato)
+                : FormatoArquivo.deAccept(accept);
+        // O corpo é escrito depois que o metodo retorna, numa thread do executor assíncrono do Spring MVC
+        StreamingResponseBody corpo = saida -> livroExportacaoService.exportar(formatoArquivo, saida);
+        // Lido antes da exportação: seguindo o feed a partir dele, nenhuma alteração feita durante a cópia se perde
+        String tokenAlteracoes = livroAlteracoesService.tokenAtual();
+        return ResponseEntity.ok()
+                .contentType(formatoArquivo.getMediaType())
+                .header(CABECALHO_TOKEN_ALTERACOES, tokenAlteracoes)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"livros." + formatoArquivo.getExtensao() + "\"")
+                .body(corpo);
+    }
+
+    // Endpoint para IMPORTAR um arquivo grande de livros
+    // HTTP POST para /api/livros/import
+    @Operation(summary = "Importa livros a partir de um arquivo NDJSON ou CSV",
+            description = "O corpo da requisição é lido em streaming (pode ter vários GB): cada registro é validado " +
+                    "com as mesmas regras do `POST /api/livros` e os válidos são gravados em blocos, cada bloco numa " +
+                    "transação. Registros inválidos ou com ISBN já cadastrado são rejeitados sem interromper a importação. " +
+                    "O CSV deve ter cabeçalho com as colunas `titulo`, `autor`, `anoPublicacao` e, opcionalmente, `genero` e `isbn`.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importação concluída (veja as rejeições)", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ImportacaoResultadoDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Formato não suportado ou cabeçalho CSV inválido", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Importação interrompida por falha de leitura ou gravação", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ImportacaoResultadoDTO.class)) })
+    })
+    @PostMapping("/import")
+    public ResponseEntity<ImportacaoResultadoDTO> importarLivros(
+            @Parameter(description = "Formato do arquivo: `ndjson` ou `csv`", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String formato,
+            InputStream corpo) {
+        ImportacaoResultadoDTO resultado = livroImportacaoService.importar(FormatoArquivo.deParametro(formato), corpo);
+        HttpStatus status = resultado.getEstado() == ImportacaoResultadoDTO.Estado.FALHOU
+                ? HttpStatus.INTERNAL_SERVER_ERROR
+                : HttpStatus.OK;
+        return new ResponseEntity<>(resultado, status);
+    }
+
+    // Endpoint para ACOMPANHAR as importações
+    // HTTP GET para /api/livros/import
+    @Operation(summary = "Lista as importações em andamento e as mais recentes",
+            description = "Mostra o progresso (lidos, importados, rejeitados, livros por segundo) de cada importação.")
+    @GetMapping("/import")
+    public ResponseEntity<List<ImportacaoResultadoDTO>> listarImportacoes() {
+        return ResponseEntity.ok(livroImportacaoService.listarImportacoes());
+    }
+
+    // Endpoint para CONSULTAR as estatísticas do cache de livros por ID
+    // HTTP GET para /api/livros/cache/estatisticas
+    @Operation(summary = "Estatísticas do cache de livros por ID",
+            description = "Acertos, faltas, remoções por tamanho/expiração e 404s respondidos pelo cache negativo.")
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<EstatisticasCacheDTO> buscarEstatisticasCache() {
+        return ResponseEntity.ok(livroService.buscarEstatisticasCache());
+    }
+
+    // Endpoint para CONSULTAR as estatísticas do cache de segundo nível do Hibernate
+    // HTTP GET para /api/livros/cache/segundo-nivel
+    @Operation(summary = "Estatísticas do cache de segundo nível",
+            description = "Acertos, faltas, gravações e taxa de acerto de cada região do cache do Hibernate: " +
+                    "`livro` (entidades por ID) e `livros-paginas` (páginas e contagens da listagem).")
+    @GetMapping("/cache/segundo-nivel")
+    public ResponseEntity<List<EstatisticasRegiaoCacheDTO>> buscarEstatisticasSegundoNivel() {
+        return ResponseEntity.ok(cacheSegundoNivel.estatisticas());
+    }
+
+    // Endpoint para BUSCAR um livro pelo ISBN
+    // HTTP GET para /api/livros/isbn/{isbn}
+    @Operation(summary = "Busca um livro pelo ISBN",
+            description = "Aceita ISBN-10 ou ISBN-13, com ou sem hífens (ex: `0-261-10221-4` ou `978-0261102217`). " +
+                    "A busca usa o índice único do ISBN canônico de 13 dígitos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Livro encontrado",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = LivroResponseDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "ISBN com formato ou dígito verificador inválido",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Nenhum livro com o ISBN fornecido",
+                    content = @Content)
+    })
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<LivroResponseDTO> buscarLivroPorIsbn(
+            @Parameter(description = "ISBN-10 ou ISBN-13 do livro", required = true, example = "978-0261102217")
+            @PathVariable String isbn) {
+        return ResponseEntity.ok(livroService.buscarLivroPorIsbn(isbn));
+    }
+
     // Endpoint para BUSCAR um livro por ID
     // HTTP GET para /api/livros/{id}
-    @Operation(summary = "Busca um livro por ID", description = "Retorna um livro específico baseado no seu ID.")
+    @Operation(summary = "Busca um livro por ID",
+            description = "Retorna um livro específico baseado no seu ID. A resposta traz um ETag com a versão do livro; " +
+                    "envie-o em `If-None-Match` para receber `304 Not Modified` (sem corpo) enquanto o livro não mudar. " +
+                    "Com `Accept: application/cbor` o livro vem em CBOR.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Livro encontrado",
                     content = { @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = LivroResponseDTO.class)) }),
+                            schema = @Schema(implementation = LivroResponseDTO.class)),
+                            @Content(mediaType = "application/cbor",
+                                    schema = @Schema(implementation = LivroResponseDTO.class)) }),
+            @ApiResponse(responseCode = "304", description = "O livro não mudou desde o ETag informado",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Livro não encontrado com o ID fornecido",
                     content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<LivroResponseDTO> buscarLivroPorId(
             @Parameter(description = "ID do livro a ser buscado", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean cbor = respostaEmCbor(accept);
+        if (ifNoneMatch != null) {
+            // Compara só a versão: o DTO não é montado nem serializado quando o cliente já tem a versão atual
+            Long versaoAtual = livroService.buscarVersaoLivro(id);
+            if (etagCorresponde(ifNoneMatch, versaoAtual, cbor)) {
+                // Sem corpo, a resposta não passa pelos conversores (e por CabecalhoVary): o Vary vai aqui
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(versaoAtual, cbor))
+                        .varyBy(HttpHeaders.ACCEPT).build();
+            }
+        }
         LivroResponseDTO livro = livroService.buscarLivroPorId(id);
-        return ResponseEntity.ok(livro);
+        return ResponseEntity.ok().eTag(etag(livro.getVersao(), cbor)).body(livro);
     }
 
     // Endpoint para ATUALIZAR um livro existente
     // HTTP PUT para /api/livros/{id}
-    @Operation(summary = "Atualiza um livro existente", description = "Atualiza os dados de um livro existente baseado no seu ID.")
+    @Operation(summary = "Atualiza um livro existente",
+            description = "Atualiza os dados de um livro existente baseado no seu ID. Envie em `If-Match` o ETag recebido " +
+                    "na leitura para só atualizar se ninguém tiver alterado o livro nesse meio tempo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Livro atualizado com sucesso", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = LivroResponseDTO.class))}),
             @ApiResponse(responseCode = "400", description = "Dados inválidos fornecidos"),
-            @ApiResponse(responseCode = "404", description = "Livro não encontrado com o ID fornecido")
+            @ApiResponse(responseCode = "404", description = "Livro não encontrado com o ID fornecido"),
+            @ApiResponse(responseCode = "409", description = "Atualização concorrente detectada (sem If-Match) ou ISBN já cadastrado"),
+            @ApiResponse(responseCode = "412", description = "O ETag de If-Match não corresponde à versão atual")
     })
     @PutMapping("/{id}")
     public ResponseEntity<LivroResponseDTO> atualizarLivro(
             @Parameter(description = "ID do livro a ser atualizado", required = true) @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             @Valid @RequestBody LivroRequestDTO livroRequestDTO) {
-        LivroResponseDTO livroAtualizado = livroService.atualizarLivro(id, livroRequestDTO);
-        return ResponseEntity.ok(livroAtualizado);
+        LivroResponseDTO livroAtualizado = livroService.atualizarLivro(id, livroRequestDTO, versaoDoIfMatch(id, ifMatch));
+        return ResponseEntity.ok().eTag(etag(livroAtualizado.getVersao(), respostaEmCbor(accept))).body(livroAtualizado);
+    }
+
+    // Endpoint para ATUALIZAR parcialmente um livro existente
+    // HTTP PATCH para /api/livros/{id}, com JSON Merge Patch (RFC 7396)
+    @Operation(summary = "Atualiza parcialmente um livro existente",
+            description = "Altera só os campos enviados (JSON Merge Patch): campos ausentes ficam como estão e um " +
+                    "campo com `null` é apagado. Ex: `{\"genero\": \"Fantasia\"}`. Aceita `If-Match` como o PUT.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Livro atualizado com sucesso", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = LivroResponseDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Campo desconhecido ou valor inválido"),
+            @ApiResponse(responseCode = "404", description = "Livro não encontrado com o ID fornecido"),
+            @ApiResponse(responseCode = "409", description = "ISBN já cadastrado"),
+            @ApiResponse(responseCode = "412", description = "O ETag de If-Match não corresponde à versão atual")
+    })
+    @PatchMapping(value = "/{id}", consumes = {MEDIA_TYPE_MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<LivroResponseDTO> atualizarLivroParcialmente(
+            @Parameter(description = "ID do livro a ser atualizado", required = true) @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestBody Map<String, Object> patch) {
+        LivroResponseDTO livroAtualizado = livroService.atualizarLivroParcialmente(id, patch, versaoDoIfMatch(id, ifMatch));
+        return ResponseEntity.ok().eTag(etag(livroAtualizado.getVersao(), respostaEmCbor(accept))).body(livroAtualizado);
     }
 
     // Endpoint para DELETAR um livro por ID
@@ -115,4 +530,100 @@ public class LivroController {
         livroService.deletarLivro(id);
         return ResponseEntity.noContent().build();
     }
+
+    // ETag forte com a versão do livro e o formato da representação: "3" em JSON e "3-cbor" em CBOR.
+    // Um ETag forte identifica os bytes da resposta, então o JSON e o CBOR da mesma versão não podem compartilhá-lo.
+    private static String etag(Long versao, boolean cbor) {
+        return "\"" + versao + (cbor ? SUFIXO_ETAG_CBOR : "") + "\"";
+    }
+
+    // O formato que a negociação do Spring MVC vai escolher: o primeiro tipo do Accept (por qualidade e
+    // especificidade) que o JSON ou o CBOR atendem. Sem Accept, ou com */*, o JSON (primeiro conversor).
+    private static boolean respostaEmCbor(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> tipos;
+        try {
+            tipos = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MimeTypeUtils.sortBySpecificity(tipos);
+        for (MediaType tipo : tipos) {
+            if (tipo.getQualityValue() == 0) {
+                continue;
+            }
+            if (tipo.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (tipo.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-None-Match pode trazer "*", vários ETags separados por vírgula ou ETags fracos (W/"3")
+    private static boolean etagCorresponde(String ifNoneMatch, Long versao, boolean cbor) {
+        String esperado = etag(versao, cbor);
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(esperado)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-Match: "*" (ou ausente) aceita qualquer versão; senão, uma lista de ETags separados por vírgula, e a
+    // atualização segue se algum deles for a versão atual. ETags fracos (W/"3") nunca correspondem em If-Match
+    // (RFC 9110), nem ETags que não são de versão. Vale o ETag de qualquer formato: o que importa é a versão.
+    // Com mais de uma versão na lista, a atual é lida aqui e passada adiante: se o livro mudar antes do UPDATE,
+    // a atualização condicional ainda recusa com 412.
+    private Long versaoDoIfMatch(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versoes = new LinkedHashSet<>();
+        for (String candidato : ifMatch.split(",")) {
+            String valor = candidato.trim();
+            boolean fraco = valor.startsWith("W/");
+            if (fraco) {
+                valor = valor.substring(2);
+            }
+            if (valor.length() < 2 || !valor.startsWith("\"") || !valor.endsWith("\"")
+                    || valor.indexOf('"', 1) != valor.length() - 1) {
+                throw new CabecalhoInvalidoException("If-Match inválido: " + ifMatch);
+            }
+            Long versao = versaoDoEtag(valor.substring(1, valor.length() - 1));
+            if (!fraco && versao != null) {
+                versoes.add(versao);
+            }
+        }
+        if (versoes.size() == 1) {
+            return versoes.iterator().next();
+        }
+        if (!versoes.isEmpty()) {
+            Long versaoAtual = livroService.buscarVersaoLivro(id);
+            if (versoes.contains(versaoAtual)) {
+                return versaoAtual;
+            }
+        }
+        throw new VersaoConflitanteException("Nenhum ETag de If-Match corresponde à versão atual do livro com ID " + id + ".");
+    }
+
+    // A versão de um ETag emitido por esta API ("3" ou "3-cbor", sem as aspas), ou null se não for um deles
+    private static Long versaoDoEtag(String etag) {
+        String versao = etag.endsWith(SUFIXO_ETAG_CBOR)
+                ? etag.substring(0, etag.length() - SUFIXO_ETAG_CBOR.length()) : etag;
+        try {
+            return Long.valueOf(versao);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
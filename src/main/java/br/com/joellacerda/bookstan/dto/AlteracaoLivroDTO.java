@@ -0,0 +1,40 @@
+package br.com.joellacerda.bookstan.dto;
+
+import br.com.joellacerda.bookstan.model.AlteracaoLivro;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Um item do feed de alterações: o livro como ficou (UPSERT) ou só o ID do livro removido (DELETE)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlteracaoLivroDTO {
+    private long seq;
+    private AlteracaoLivro.Tipo tipo;
+    private Long id;
+    @JsonInclude(JsonInclude.Include.NON_NULL) // Ausente no DELETE
+    private LivroResponseDTO livro;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long versao; // Versão do livro depois da alteração (o ETag), para descartar alterações já aplicadas
+    private Instant alteradoEm;
+
+    public static AlteracaoLivroDTO de(AlteracaoLivro alteracao) {
+        LivroResponseDTO livro = null;
+        if (alteracao.getTipo() == AlteracaoLivro.Tipo.UPSERT) {
+            livro = new LivroResponseDTO();
+            livro.setId(alteracao.getLivroId());
+            livro.setTitulo(alteracao.getTitulo());
+            livro.setAutor(alteracao.getAutor());
+            livro.setGenero(alteracao.getGenero());
+            livro.setAnoPublicacao(alteracao.getAnoPublicacao());
+            livro.setIsbn(alteracao.getIsbn());
+            livro.setVersao(alteracao.getVersao());
+        }
+        return new AlteracaoLivroDTO(alteracao.getSeq(), alteracao.getTipo(), alteracao.getLivroId(), livro,
+                alteracao.getVersao(), alteracao.getAlteradoEm());
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resposta do feed de alterações: um lote em ordem de sequência e o token para continuar dali.
+// "next" vem sempre preenchido (num lote vazio, é o próprio token recebido); hasMore indica que já há
+// outro lote à espera e o cliente pode pedir de novo sem long-poll.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlteracoesDTO {
+    private List<AlteracaoLivroDTO> changes;
+    private String next;
+    private boolean hasMore;
+}
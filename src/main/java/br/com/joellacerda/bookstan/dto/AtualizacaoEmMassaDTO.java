@@ -0,0 +1,16 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// Corpo do POST /api/livros/bulk-update: quais livros e o que muda neles
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtualizacaoEmMassaDTO {
+    private FiltroLivrosDTO filtro;
+    private Map<String, Object> alteracoes; // Mesmo formato do PATCH (JSON Merge Patch), exceto o ISBN
+}
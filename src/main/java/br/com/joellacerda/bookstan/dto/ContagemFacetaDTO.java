@@ -0,0 +1,14 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Um valor de uma faceta (um gênero, uma década ou um autor) e quantos livros têm esse valor
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContagemFacetaDTO {
+    private String valor;
+    private long quantidade;
+}
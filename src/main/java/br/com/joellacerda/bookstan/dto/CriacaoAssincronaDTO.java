@@ -0,0 +1,21 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Situação de um cadastro feito por POST /api/livros/async, consultada pelo protocolo devolvido no 202
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CriacaoAssincronaDTO {
+
+    public enum Estado { PENDENTE, CRIADO, DUPLICADO, ERRO }
+
+    private String protocolo;
+    private Estado estado;
+    private Long id; // Preenchido apenas quando CRIADO
+    private List<String> erros;
+}
@@ -0,0 +1,16 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.Data;
+
+// Contadores do cache de livros por ID (acumulados desde a inicialização)
+@Data
+public class EstatisticasCacheDTO {
+    private long tamanho;
+    private long acertos;
+    private long faltas;
+    private long remocoes; // Entradas removidas por tamanho ou expiração (não conta invalidações)
+    private double taxaAcerto;
+    private long tamanhoNaoEncontrados;
+    private long acertosNaoEncontrados; // 404s respondidos sem ir ao banco
+    private long remocoesNaoEncontrados;
+}
@@ -0,0 +1,18 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Contadores de uma região do cache de segundo nível do Hibernate (acumulados desde a inicialização)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstatisticasRegiaoCacheDTO {
+    private String regiao;
+    private long acertos;
+    private long faltas;
+    private long gravacoes;
+    private double taxaAcerto;
+    private long elementos; // Entradas na memória (-1 quando a implementação não informa)
+}
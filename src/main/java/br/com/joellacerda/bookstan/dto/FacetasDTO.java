@@ -0,0 +1,18 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Contagem de livros por gênero, por década de publicação e por autor (só os mais frequentes)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetasDTO {
+    private long total; // Livros considerados (todos, ou só os que passaram pelo filtro)
+    private List<ContagemFacetaDTO> generos;  // Do mais para o menos frequente
+    private List<ContagemFacetaDTO> decadas;  // Em ordem cronológica, ex: "1940"
+    private List<ContagemFacetaDTO> autores;  // Do mais para o menos frequente
+}
@@ -0,0 +1,24 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Filtro das operações em massa (POST /api/livros/bulk-delete e /bulk-update).
+// Os critérios informados são combinados com E; pelo menos um é obrigatório.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroLivrosDTO {
+    private String autor; // Igual ao nome do autor
+    private String genero; // Igual ao gênero
+    private Integer anoInicial; // anoPublicacao >= anoInicial
+    private Integer anoFinal; // anoPublicacao <= anoFinal
+    private List<Long> ids;
+
+    public boolean vazio() {
+        return autor == null && genero == null && anoInicial == null && anoFinal == null && ids == null;
+    }
+}
@@ -0,0 +1,25 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Progresso/resultado de uma importação em streaming
+@Data
+public class ImportacaoResultadoDTO {
+
+    public enum Estado { EM_ANDAMENTO, CONCLUIDA, FALHOU }
+
+    private String id;
+    private Estado estado;
+    private String formato;
+    private LocalDateTime inicio;
+    private long lidos;
+    private long importados;
+    private long rejeitados;
+    private long duracaoMs;
+    private double livrosPorSegundo;
+    private List<RejeicaoImportacaoDTO> rejeicoes; // Apenas as primeiras; o total está em "rejeitados"
+    private String erro; // Motivo quando estado = FALHOU
+}
@@ -0,0 +1,21 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resultado de um item do lote, na mesma posição (indice) em que foi enviado
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemLoteResultadoDTO {
+
+    public enum Status { CRIADO, INVALIDO, DUPLICADO, ERRO }
+
+    private int indice;
+    private Status status;
+    private Long id; // Preenchido apenas quando CRIADO
+    private List<String> erros;
+}
@@ -1,8 +1,8 @@
 package br.com.joellacerda.bookstan.dto;
 
+import br.com.joellacerda.bookstan.validation.IsbnValido;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
@@ -22,8 +22,6 @@ public class LivroRequestDTO {
     @NotNull(message = "O ano de publicação não pode ser nulo.")
     private Integer anoPublicacao;
 
-    @Pattern(regexp = "(ISBN-*(1[03])* *(: )?)*(([0-9Xx][- ]*){13}|([0-9Xx][- ]*){10})",
-            message = "Formato de ISBN inválido.")
-    @Size(max = 20, message = "ISBN deve ter no máximo 20 caracteres.")
+    @IsbnValido // ISBN-10 ou ISBN-13 com dígito verificador correto; é gravado na forma canônica de 13 dígitos
     private String isbn;
 }
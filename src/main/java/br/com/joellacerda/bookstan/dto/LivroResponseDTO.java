@@ -1,13 +1,33 @@
 package br.com.joellacerda.bookstan.dto;
 
+import br.com.joellacerda.bookstan.model.Isbn;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class LivroResponseDTO {
     private Long id;
     private String titulo;
     private String autor;
     private String genero;
     private Integer anoPublicacao;
-    private String isbn;
+    private String isbn; // Forma canônica: os 13 dígitos do ISBN-13, sem hífens
+
+    @JsonIgnore // Não vai no corpo: é enviada ao cliente no cabeçalho ETag
+    private Long versao;
+
+    // Usado pelas consultas com projeção ("select new ...LivroResponseDTO(...)" no LivroRepository),
+    // que montam o DTO direto das colunas, sem carregar a entidade Livro
+    public LivroResponseDTO(Long id, String titulo, String autor, String genero, Integer anoPublicacao,
+                            Long isbn, Long versao) {
+        this.id = id;
+        this.titulo = titulo;
+        this.autor = autor;
+        this.genero = genero;
+        this.anoPublicacao = anoPublicacao;
+        this.isbn = Isbn.formatar(isbn);
+        this.versao = versao;
+    }
 }
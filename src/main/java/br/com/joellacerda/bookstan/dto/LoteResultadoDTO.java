@@ -0,0 +1,18 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resposta do POST /api/livros/batch: totais e o resultado de cada item
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoteResultadoDTO {
+    private int total;
+    private int criados;
+    private int rejeitados;
+    private List<ItemLoteResultadoDTO> itens;
+}
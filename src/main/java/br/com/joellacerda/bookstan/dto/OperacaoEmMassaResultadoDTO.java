@@ -0,0 +1,15 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resposta das operações em massa
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacaoEmMassaResultadoDTO {
+    private long afetados; // Livros removidos ou alterados
+    private int blocos; // Transações executadas (cada uma com até "bookstan.em-massa.tamanho-bloco" livros)
+    private long duracaoMs;
+}
@@ -0,0 +1,18 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resposta da listagem por cursor: só o conteúdo e o token da próxima página.
+// Não há totalElements/totalPages de propósito — calcular isso exigiria um COUNT(*) a cada página.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorDTO<T> {
+    private List<T> content;
+    private int size;
+    private String next; // null quando não há mais livros
+}
@@ -0,0 +1,37 @@
+package br.com.joellacerda.bookstan.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Página de resultados com formato estável: só o conteúdo e os dados da página, sem o pageable/sort do Page
+// do Spring Data. Usada pelo GET /api/livros (nas duas APIs). Sem total (withTotal=false), totalElements e
+// totalPages não aparecem e hasNext diz se há mais livros.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaDTO<T> {
+    private List<T> content;
+    private int number; // Número da página, começando em 0
+    private int size;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
+    private boolean hasNext;
+
+    public static <T> PaginaDTO<T> de(List<T> conteudo, int pagina, int tamanho, long total) {
+        return de(conteudo, pagina, tamanho, total, (long) (pagina + 1) * tamanho < total);
+    }
+
+    public static <T> PaginaDTO<T> de(List<T> conteudo, int pagina, int tamanho, long total, boolean temProxima) {
+        return new PaginaDTO<>(conteudo, pagina, tamanho, total, (int) ((total + tamanho - 1) / tamanho), temProxima);
+    }
+
+    public static <T> PaginaDTO<T> semTotal(List<T> conteudo, int pagina, int tamanho, boolean temProxima) {
+        return new PaginaDTO<>(conteudo, pagina, tamanho, null, null, temProxima);
+    }
+}
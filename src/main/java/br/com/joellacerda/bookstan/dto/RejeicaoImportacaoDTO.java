@@ -0,0 +1,16 @@
+package br.com.joellacerda.bookstan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Registro do arquivo de importação que não foi gravado e o motivo
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejeicaoImportacaoDTO {
+    private long registro; // Posição do registro no arquivo, começando em 1 (sem contar o cabeçalho do CSV)
+    private List<String> erros;
+}
@@ -0,0 +1,21 @@
+package br.com.joellacerda.bookstan.event;
+
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+
+// Publicado pelos serviços sempre que um livro é criado, atualizado ou removido.
+// Os ouvintes (índice de busca, contadores, etc.) o recebem depois do commit da transação.
+// livro == null indica que o livro com o ID informado foi removido.
+public record LivroAlteradoEvent(Long id, LivroResponseDTO livro) {
+
+    public static LivroAlteradoEvent salvo(LivroResponseDTO livro) {
+        return new LivroAlteradoEvent(livro.getId(), livro);
+    }
+
+    public static LivroAlteradoEvent removido(Long id) {
+        return new LivroAlteradoEvent(id, null);
+    }
+
+    public boolean isRemocao() {
+        return livro == null;
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GONE) // Token do feed de alterações anterior aos registros ainda guardados
+public class AlteracoesExpiradasException extends RuntimeException {
+    public AlteracoesExpiradasException(String message) {
+        super(message);
+    }
+}
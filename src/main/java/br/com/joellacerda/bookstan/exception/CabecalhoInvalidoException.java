@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST) // Cabeçalho condicional (If-Match) com sintaxe inválida
+public class CabecalhoInvalidoException extends RuntimeException {
+    public CabecalhoInvalidoException(String message) {
+        super(message);
+    }
+}
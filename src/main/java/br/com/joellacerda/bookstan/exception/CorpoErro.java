@@ -0,0 +1,25 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Corpo das respostas de erro da API: usado pelo RestExceptionHandler, pelo FiltroLimiteConcorrencia (que
+// responde antes do Spring MVC) e pela API reativa, para que os três não divirjam no formato
+public final class CorpoErro {
+
+    private CorpoErro() {
+    }
+
+    public static Map<String, Object> de(HttpStatus status, String error, String message, String path) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", error);
+        body.put("message", message);
+        body.put("path", path);
+        return body;
+    }
+}
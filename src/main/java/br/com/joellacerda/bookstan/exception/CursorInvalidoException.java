@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST) // Cursor adulterado, expirado de versão ou incompatível com a ordenação pedida
+public class CursorInvalidoException extends RuntimeException {
+    public CursorInvalidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE) // Fila de gravação assíncrona cheia: o cliente deve tentar mais tarde
+public class FilaCheiaException extends RuntimeException {
+    public FilaCheiaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST) // Filtro vazio (atingiria o catálogo inteiro) ou com critérios inconsistentes
+public class FiltroInvalidoException extends RuntimeException {
+    public FiltroInvalidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST) // Formato de arquivo desconhecido na exportação/importação
+public class FormatoInvalidoException extends RuntimeException {
+    public FormatoInvalidoException(String message) {
+        super(message);
+    }
+}
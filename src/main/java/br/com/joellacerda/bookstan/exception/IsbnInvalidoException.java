@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST) // ISBN com formato ou dígito verificador inválido
+public class IsbnInvalidoException extends RuntimeException {
+    public IsbnInvalidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT) // Já existe um livro com o mesmo ISBN
+public class LivroDuplicadoException extends RuntimeException {
+    public LivroDuplicadoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST) // Lote vazio ou acima do limite permitido
+public class LoteInvalidoException extends RuntimeException {
+    public LoteInvalidoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST) // Campo desconhecido, tipo errado ou valor que não passa nas validações do cadastro
+public class PatchInvalidoException extends RuntimeException {
+
+    private final List<String> erros; // No formato "campo: mensagem", como nos erros de validação do POST/PUT
+
+    public PatchInvalidoException(List<String> erros) {
+        super(String.join("; ", erros));
+        this.erros = List.copyOf(erros);
+    }
+
+    public List<String> getErros() {
+        return erros;
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND) // Protocolo de cadastro assíncrono desconhecido ou já expirado
+public class ProtocoloNaoEncontradoException extends RuntimeException {
+    public ProtocoloNaoEncontradoException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,18 @@
 package br.com.joellacerda.bookstan.exception;
 
+import br.com.joellacerda.bookstan.concorrencia.FiltroLimiteConcorrencia;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
@@ -24,14 +30,129 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     public ResponseEntity<Object> handleLivroNaoEncontradoException(
             LivroNaoEncontradoException ex, WebRequest request) {
 
+        return criarRespostaErro(HttpStatus.NOT_FOUND, "Not Found", ex.getMessage(), request);
+    }
+
+    // Handler para cursores de paginação inválidos ou incompatíveis com a ordenação
+    @ExceptionHandler(CursorInvalidoException.class)
+    public ResponseEntity<Object> handleCursorInvalidoException(
+            CursorInvalidoException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+    }
+
+    // Handler para tokens do feed de alterações cujos registros seguintes já foram apagados pela retenção:
+    // o cliente precisa refazer a cópia inicial (GET /api/livros/export)
+    @ExceptionHandler(AlteracoesExpiradasException.class)
+    public ResponseEntity<Object> handleAlteracoesExpiradasException(
+            AlteracoesExpiradasException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.GONE, "Gone", ex.getMessage(), request);
+    }
+
+    // Handler para lotes vazios ou grandes demais
+    @ExceptionHandler(LoteInvalidoException.class)
+    public ResponseEntity<Object> handleLoteInvalidoException(
+            LoteInvalidoException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+    }
+
+    // Handler para filtros de operações em massa vazios ou inconsistentes
+    @ExceptionHandler(FiltroInvalidoException.class)
+    public ResponseEntity<Object> handleFiltroInvalidoException(
+            FiltroInvalidoException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+    }
+
+    // Handler para formatos de arquivo não suportados
+    @ExceptionHandler(FormatoInvalidoException.class)
+    public ResponseEntity<Object> handleFormatoInvalidoException(
+            FormatoInvalidoException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+    }
+
+    // Handler para PATCH com campos inválidos: mesmo corpo dos erros de validação do POST/PUT
+    @ExceptionHandler(PatchInvalidoException.class)
+    public ResponseEntity<Object> handlePatchInvalidoException(
+            PatchInvalidoException ex, WebRequest request) {
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.NOT_FOUND.value());
-        body.put("error", "Not Found");
-        body.put("message", ex.getMessage());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("error", "Validation Error");
+        body.put("messages", ex.getErros());
         body.put("path", request.getDescription(false).replace("uri=", ""));
+        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    }
+
+    // Handler para protocolo de cadastro assíncrono desconhecido ou expirado
+    @ExceptionHandler(ProtocoloNaoEncontradoException.class)
+    public ResponseEntity<Object> handleProtocoloNaoEncontradoException(
+            ProtocoloNaoEncontradoException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.NOT_FOUND, "Not Found", ex.getMessage(), request);
+    }
+
+    // Handler para fila de cadastro assíncrono cheia: 503 com Retry-After, para o cliente reduzir o ritmo.
+    // Não marca o banco como sobrecarregado: a recusa é da fila em memória e não diz nada sobre o banco
+    @ExceptionHandler(FilaCheiaException.class)
+    public ResponseEntity<Object> handleFilaCheiaException(FilaCheiaException ex, WebRequest request) {
+        ResponseEntity<Object> resposta = criarRespostaErro(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+                ex.getMessage(), request);
+        return ResponseEntity.status(resposta.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(resposta.getBody());
+    }
 
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    // Handler para If-Match malformado: erro do cliente, não uma versão desatualizada
+    @ExceptionHandler(CabecalhoInvalidoException.class)
+    public ResponseEntity<Object> handleCabecalhoInvalidoException(
+            CabecalhoInvalidoException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+    }
+
+    // Handler para If-Match desatualizado (atualização concorrente)
+    @ExceptionHandler(VersaoConflitanteException.class)
+    public ResponseEntity<Object> handleVersaoConflitanteException(
+            VersaoConflitanteException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.PRECONDITION_FAILED, "Precondition Failed", ex.getMessage(), request);
+    }
+
+    // Handler para atualizações concorrentes detectadas pelo @Version quando o cliente não enviou If-Match
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailure(
+            ObjectOptimisticLockingFailureException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.CONFLICT, "Conflict",
+                "O livro foi alterado por outra requisição. Busque a versão atual e tente novamente.", request);
+    }
+
+    // Handler para ISBN inválido informado na URL
+    @ExceptionHandler(IsbnInvalidoException.class)
+    public ResponseEntity<Object> handleIsbnInvalidoException(
+            IsbnInvalidoException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+    }
+
+    // Handler para ISBN já cadastrado
+    @ExceptionHandler(LivroDuplicadoException.class)
+    public ResponseEntity<Object> handleLivroDuplicadoException(
+            LivroDuplicadoException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.CONFLICT, "Conflict", ex.getMessage(), request);
+    }
+
+    // Handler para violações de restrição do banco que não foram traduzidas pelo serviço
+    // (sem ele cairiam no handler genérico e virariam 500)
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleDataIntegrityViolation(
+            DataIntegrityViolationException ex, WebRequest request) {
+        return criarRespostaErro(HttpStatus.CONFLICT, "Conflict",
+                "A operação viola uma restrição de unicidade ou integridade dos dados.", request);
+    }
+
+    // Handler para pool de conexões esgotado ou banco fora do ar: 503 em vez de 500, para o cliente tentar de novo
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Object> handleBancoIndisponivel(Exception ex, WebRequest request) {
+        // Sinal de sobrecarga para o FiltroLimiteConcorrencia reduzir o limite
+        request.setAttribute(FiltroLimiteConcorrencia.ATRIBUTO_BANCO_SOBRECARREGADO, Boolean.TRUE,
+                RequestAttributes.SCOPE_REQUEST);
+        return criarRespostaErro(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable",
+                "O banco de dados está sobrecarregado ou indisponível. Tente novamente em instantes.", request);
     }
 
     // Sobrescreve o handler padrão para MethodArgumentNotValidException (erros de validação)
@@ -63,15 +184,18 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
     public ResponseEntity<Object> handleGenericException(
             Exception ex, WebRequest request) {
 
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-        body.put("error", "Internal Server Error");
-        body.put("message", "Ocorreu um erro inesperado. Tente novamente mais tarde.");
         // Em ambiente de desenvolvimento, você pode querer logar ex.getMessage() ou a stacktrace
         // log.error("Erro inesperado:", ex);
-        body.put("path", request.getDescription(false).replace("uri=", ""));
+        return criarRespostaErro(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error",
+                "Ocorreu um erro inesperado. Tente novamente mais tarde.", request);
+    }
+
+    // Monta o corpo de erro no formato comum da API (CorpoErro)
+    private ResponseEntity<Object> criarRespostaErro(
+            HttpStatus status, String error, String message, WebRequest request) {
 
-        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+        Map<String, Object> body = CorpoErro.de(status, error, message,
+                request.getDescription(false).replace("uri=", ""));
+        return new ResponseEntity<>(body, status);
     }
 }
@@ -0,0 +1,11 @@
+package br.com.joellacerda.bookstan.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED) // O If-Match enviado não corresponde mais à versão atual do livro
+public class VersaoConflitanteException extends RuntimeException {
+    public VersaoConflitanteException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.joellacerda.bookstan.metricas;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Contagem e tempo dos comandos SQL executados pela thread atual entre iniciar() e finalizar().
+//
+// Quem mede é o FiltroMetricasSql (uma medição por requisição HTTP) e o OrcamentoSql dos testes.
+// Os comandos são registrados pelo InspetorSql (texto do SQL) e pelo CronometroSqlListener (tempo no JDBC),
+// ambos configurados no Hibernate. Fora de uma medição (tarefas em outras threads, inicialização) nada é guardado.
+public final class ContadorSql {
+
+    private static final ThreadLocal<Medicao> ATUAL = new ThreadLocal<>();
+
+    private ContadorSql() {
+    }
+
+    public static Medicao iniciar() {
+        Medicao medicao = new Medicao();
+        ATUAL.set(medicao);
+        return medicao;
+    }
+
+    public static Medicao finalizar() {
+        Medicao medicao = ATUAL.get();
+        ATUAL.remove();
+        return medicao;
+    }
+
+    static void registrarStatement(String sql) {
+        Medicao medicao = ATUAL.get();
+        if (medicao != null) {
+            medicao.registrar(sql);
+        }
+    }
+
+    static void registrarExecucao(long nanos) {
+        Medicao medicao = ATUAL.get();
+        if (medicao != null) {
+            medicao.nanos += nanos;
+        }
+    }
+
+    public static final class Medicao {
+
+        // Guarda o texto de no máximo tantos comandos distintos, para não crescer sem limite
+        // em requisições longas (ex: exportação)
+        private static final int MAXIMO_DISTINTOS = 100;
+
+        private int statements;
+        private long nanos;
+        private final Map<String, Integer> repeticoes = new LinkedHashMap<>();
+
+        private void registrar(String sql) {
+            statements++;
+            if (repeticoes.size() < MAXIMO_DISTINTOS || repeticoes.containsKey(sql)) {
+                repeticoes.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public double getTempoMs() {
+            return nanos / 1_000_000.0;
+        }
+
+        // Quantas vezes o comando mais repetido foi executado: o sinal típico de N+1
+        public int getMaiorRepeticao() {
+            return repeticoes.values().stream().max(Integer::compare).orElse(0);
+        }
+
+        public String getSqlMaisRepetido() {
+            return repeticoes.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+        }
+
+        // Comandos distintos na ordem da primeira execução, com a quantidade de vezes de cada um
+        public List<String> getResumo() {
+            List<String> resumo = new ArrayList<>(repeticoes.size());
+            repeticoes.forEach((sql, vezes) -> resumo.add(vezes + "x " + sql));
+            return Collections.unmodifiableList(resumo);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package br.com.joellacerda.bookstan.metricas;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Acrescenta à métrica http.server.requests a tag "metodo", com o nome do método do controller que atendeu a
+// requisição (ex: buscarLivroPorId). As tags padrão (uri, method, status, outcome, exception) continuam lá;
+// a nova tag só facilita agrupar por operação nos painéis, sem depender do formato da URI.
+// Requisições que não chegam a um controller (404 de rota, recursos estáticos, actuator) ficam com "none".
+@Component
+public class ConvencaoMetricasRequisicao extends DefaultServerRequestObservationConvention {
+
+    static final String TAG_METODO = "metodo";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(metodo(context));
+    }
+
+    private static KeyValue metodo(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return KeyValue.of(TAG_METODO, handlerMethod.getMethod().getName());
+        }
+        return KeyValue.of(TAG_METODO, KeyValue.NONE_VALUE);
+    }
+}
@@ -0,0 +1,31 @@
+package br.com.joellacerda.bookstan.metricas;
+
+import org.hibernate.SessionEventListener;
+
+// Soma no ContadorSql o tempo gasto executando comandos no JDBC (hibernate.session.events.auto).
+// O StatementInspector só é chamado antes da execução, por isso o tempo vem destes eventos da sessão.
+// O Hibernate cria uma instância por sessão, e uma sessão é usada por uma thread de cada vez.
+public class CronometroSqlListener implements SessionEventListener {
+
+    private long inicio;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        inicio = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        ContadorSql.registrarExecucao(System.nanoTime() - inicio);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        inicio = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        ContadorSql.registrarExecucao(System.nanoTime() - inicio);
+    }
+}
@@ -0,0 +1,148 @@
+package br.com.joellacerda.bookstan.metricas;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+// Mede os comandos SQL de cada requisição (ver ContadorSql).
+//
+// Em DEBUG, registra no log a quantidade e o tempo de SQL de toda requisição. Em WARN, as que passam de
+// "bookstan.sql.limite-statements" comandos ou repetem o mesmo comando "bookstan.sql.limite-repeticoes" vezes
+// (suspeita de N+1). Com "bookstan.sql.cabecalho-resposta" (desligado no perfil prod), a resposta traz os
+// cabeçalhos X-SQL-Statements e X-SQL-Tempo-Ms, escritos antes do primeiro byte do corpo.
+//
+// Requisições assíncronas (a exportação em StreamingResponseBody, o long-poll do feed de alterações) não são
+// medidas: o SQL delas roda depois de a thread da requisição sair do filtro, em outra thread. Elas ficam sem os
+// cabeçalhos e sem o log, em vez de mostrarem só a parte síncrona como se fosse o custo todo.
+@Component
+public class FiltroMetricasSql extends OncePerRequestFilter {
+
+    static final String CABECALHO_STATEMENTS = "X-SQL-Statements";
+    static final String CABECALHO_TEMPO = "X-SQL-Tempo-Ms";
+
+    private static final Logger log = LoggerFactory.getLogger(FiltroMetricasSql.class);
+
+    private final boolean cabecalhoResposta;
+    private final int limiteStatements;
+    private final int limiteRepeticoes;
+
+    @Autowired
+    public FiltroMetricasSql(@Value("${bookstan.sql.cabecalho-resposta:false}") boolean cabecalhoResposta,
+                             @Value("${bookstan.sql.limite-statements:20}") int limiteStatements,
+                             @Value("${bookstan.sql.limite-repeticoes:5}") int limiteRepeticoes) {
+        this.cabecalhoResposta = cabecalhoResposta;
+        this.limiteStatements = limiteStatements;
+        this.limiteRepeticoes = limiteRepeticoes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContadorSql.Medicao medicao = ContadorSql.iniciar();
+        RespostaComCabecalhoSql resposta = cabecalhoResposta ? new RespostaComCabecalhoSql(response, medicao) : null;
+        try {
+            filterChain.doFilter(request, resposta != null ? resposta : response);
+        } finally {
+            ContadorSql.finalizar();
+            if (request.isAsyncStarted()) {
+                if (resposta != null) {
+                    resposta.descartarCabecalhos(); // O corpo é escrito depois, com a medição já encerrada
+                }
+            } else {
+                if (resposta != null) {
+                    resposta.escreverCabecalhos(); // Respostas sem corpo (204, 304)
+                }
+                registrar(request, response, medicao);
+            }
+        }
+    }
+
+    private void registrar(HttpServletRequest request, HttpServletResponse response, ContadorSql.Medicao medicao) {
+        if (medicao.getStatements() > limiteStatements || medicao.getMaiorRepeticao() >= limiteRepeticoes) {
+            log.warn("{} {} -> {}: {} comandos SQL em {} ms; mais repetido ({}x): {}",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(), medicao.getStatements(),
+                    tempo(medicao), medicao.getMaiorRepeticao(), medicao.getSqlMaisRepetido());
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} {} -> {}: {} comandos SQL em {} ms", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), medicao.getStatements(), tempo(medicao));
+        }
+    }
+
+    private static String tempo(ContadorSql.Medicao medicao) {
+        return String.format(Locale.ROOT, "%.3f", medicao.getTempoMs());
+    }
+
+    // Acrescenta os cabeçalhos no último momento possível: quando o corpo começa a ser escrito
+    // (ou a resposta é enviada sem corpo), depois de o controller já ter feito seus acessos ao banco
+    private static final class RespostaComCabecalhoSql extends HttpServletResponseWrapper {
+
+        private final ContadorSql.Medicao medicao;
+        private boolean escritos;
+
+        RespostaComCabecalhoSql(HttpServletResponse response, ContadorSql.Medicao medicao) {
+            super(response);
+            this.medicao = medicao;
+        }
+
+        void escreverCabecalhos() {
+            if (!escritos && !isCommitted()) {
+                setHeader(CABECALHO_STATEMENTS, Integer.toString(medicao.getStatements()));
+                setHeader(CABECALHO_TEMPO, tempo(medicao));
+            }
+            escritos = true;
+        }
+
+        void descartarCabecalhos() {
+            escritos = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            escreverCabecalhos();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            escreverCabecalhos();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            escreverCabecalhos();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            escreverCabecalhos();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            escreverCabecalhos();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            escreverCabecalhos();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.joellacerda.bookstan.metricas;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Registra no ContadorSql cada comando SQL preparado pelo Hibernate (hibernate.session_factory.statement_inspector).
+// Não altera o SQL. Um lote de INSERTs agrupados (hibernate.jdbc.batch_size) conta como um comando.
+public class InspetorSql implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        ContadorSql.registrarStatement(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,67 @@
+package br.com.joellacerda.bookstan.model;
+
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.event.LivroAlteradoEvent;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Registro do log de alterações do catálogo (tabela "outbox"), lido por GET /api/livros/changes.
+// É gravado na mesma transação que altera o livro, então o log nunca diverge da tabela livros.
+//
+// A sequência é atribuída no fim da transação, já com o contador travado (ver LivroAlteracoesService): a ordem
+// das sequências é a ordem dos commits, e um consumidor que leu até N nunca vê aparecer depois um registro < N.
+// Cada registro guarda o livro como ficou (UPSERT) ou só o ID (DELETE, o "tombstone").
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "livros_alteracoes")
+public class AlteracaoLivro {
+
+    public enum Tipo { UPSERT, DELETE }
+
+    @Id // Atribuída pelo serviço, não gerada: com o ID já conhecido, os INSERTs são agrupados em lotes JDBC
+    private Long seq;
+
+    @Column(name = "livro_id", nullable = false)
+    private Long livroId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 6)
+    private Tipo tipo;
+
+    // Estado do livro depois da alteração (nulos no DELETE)
+    private String titulo;
+    private String autor;
+    private String genero;
+    @Column(name = "ano_publicacao")
+    private Integer anoPublicacao;
+    @Column(length = 13)
+    private String isbn;
+    private Long versao;
+
+    @Column(name = "alterado_em", nullable = false)
+    private Instant alteradoEm;
+
+    public static AlteracaoLivro de(long seq, LivroAlteradoEvent evento, Instant alteradoEm) {
+        AlteracaoLivro alteracao = new AlteracaoLivro();
+        alteracao.seq = seq;
+        alteracao.livroId = evento.id();
+        alteracao.alteradoEm = alteradoEm;
+        if (evento.isRemocao()) {
+            alteracao.tipo = Tipo.DELETE;
+            return alteracao;
+        }
+        LivroResponseDTO livro = evento.livro();
+        alteracao.tipo = Tipo.UPSERT;
+        alteracao.titulo = livro.getTitulo();
+        alteracao.autor = livro.getAutor();
+        alteracao.genero = livro.getGenero();
+        alteracao.anoPublicacao = livro.getAnoPublicacao();
+        alteracao.isbn = livro.getIsbn();
+        alteracao.versao = livro.getVersao();
+        return alteracao;
+    }
+}
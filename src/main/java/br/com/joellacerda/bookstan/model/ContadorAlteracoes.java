@@ -0,0 +1,29 @@
+package br.com.joellacerda.bookstan.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Linha única com a última sequência usada no log de alterações (AlteracaoLivro).
+// Uma sequence do banco não serviria: ela entrega os números na ordem em que são pedidos, não na ordem dos
+// commits, e um consumidor poderia pular um registro de uma transação mais lenta. O UPDATE nesta linha trava
+// os commits concorrentes só pelo instante final da transação.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "livros_alteracoes_contador")
+public class ContadorAlteracoes {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long valor;
+
+    public ContadorAlteracoes(Long valor) {
+        this.id = ID;
+        this.valor = valor;
+    }
+}
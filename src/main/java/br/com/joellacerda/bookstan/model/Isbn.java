@@ -0,0 +1,100 @@
+package br.com.joellacerda.bookstan.model;
+
+import java.util.Locale;
+
+// Normalização de ISBN para a forma canônica usada no banco: o ISBN-13 como número (ex: 9780618640157).
+// Aceita ISBN-10 ou ISBN-13, com ou sem hífens/espaços e com prefixo "ISBN", "ISBN-10:" ou "ISBN-13:".
+// O ISBN-10 é convertido para ISBN-13 (prefixo 978), então as duas formas do mesmo livro viram o mesmo valor
+// e o índice único do banco passa a pegar todas as duplicatas.
+public final class Isbn {
+
+    private static final int TAMANHO_MAXIMO_ENTRADA = 32;
+
+    private Isbn() {
+    }
+
+    // Retorna o ISBN-13 canônico, ou null se o texto não for um ISBN-10/ISBN-13 com dígito verificador correto
+    public static Long normalizar(String texto) {
+        if (texto == null || texto.length() > TAMANHO_MAXIMO_ENTRADA) {
+            return null;
+        }
+        String semPrefixo = removerPrefixo(texto.strip().toUpperCase(Locale.ROOT));
+
+        char[] digitos = new char[13];
+        int quantidade = 0;
+        for (int i = 0; i < semPrefixo.length(); i++) {
+            char c = semPrefixo.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            boolean digito = c >= '0' && c <= '9';
+            // "X" (valor 10) só é permitido como dígito verificador do ISBN-10
+            if ((!digito && !(c == 'X' && quantidade == 9)) || quantidade == digitos.length) {
+                return null;
+            }
+            digitos[quantidade++] = c;
+        }
+
+        if (quantidade == 10) {
+            return isbn10Valido(digitos) ? converterIsbn10(digitos) : null;
+        }
+        if (quantidade == 13 && digitos[9] != 'X' && isbn13Valido(digitos)) {
+            long valor = Long.parseLong(new String(digitos));
+            return valor / 10_000_000_000L == 978 || valor / 10_000_000_000L == 979 ? valor : null;
+        }
+        return null;
+    }
+
+    // Forma de exibição: os 13 dígitos, sem hífens. Todo valor canônico começa com 978 ou 979, então já tem
+    // 13 dígitos e não precisa de zeros à esquerda (String.format custaria microssegundos por livro serializado)
+    public static String formatar(Long isbn) {
+        return isbn == null ? null : Long.toString(isbn);
+    }
+
+    private static String removerPrefixo(String texto) {
+        if (!texto.startsWith("ISBN")) {
+            return texto;
+        }
+        String resto = texto.substring(4);
+        if (resto.startsWith("-13") || resto.startsWith("-10")) {
+            resto = resto.substring(3);
+        } else if (resto.startsWith("13") || resto.startsWith("10")) {
+            // "ISBN13 978..." mas não "ISBN 1234..." (aí o 1 já faz parte do número)
+            String depois = resto.substring(2);
+            if (depois.startsWith(":") || depois.startsWith(" ")) {
+                resto = depois;
+            }
+        }
+        resto = resto.stripLeading();
+        return resto.startsWith(":") ? resto.substring(1) : resto;
+    }
+
+    private static boolean isbn10Valido(char[] digitos) {
+        int soma = 0;
+        for (int i = 0; i < 10; i++) {
+            int valor = digitos[i] == 'X' ? 10 : digitos[i] - '0';
+            soma += valor * (10 - i);
+        }
+        return soma % 11 == 0;
+    }
+
+    private static boolean isbn13Valido(char[] digitos) {
+        int soma = 0;
+        for (int i = 0; i < 13; i++) {
+            soma += (digitos[i] - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return soma % 10 == 0;
+    }
+
+    // 978 + os 9 primeiros dígitos do ISBN-10 + novo dígito verificador
+    private static long converterIsbn10(char[] digitos) {
+        long valor = 978;
+        int soma = 9 + 7 * 3 + 8; // Contribuição do prefixo 978
+        for (int i = 0; i < 9; i++) {
+            int digito = digitos[i] - '0';
+            valor = valor * 10 + digito;
+            soma += digito * ((i + 3) % 2 == 0 ? 1 : 3);
+        }
+        return valor * 10 + (10 - soma % 10) % 10;
+    }
+}
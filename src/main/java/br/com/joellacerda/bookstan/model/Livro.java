@@ -5,18 +5,39 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data // Lombok: Gera getters, setters, toString, equals, hashCode
 @NoArgsConstructor // Lombok: Gera um construtor sem argumentos
-@AllArgsConstructor // Lombok: Gera um construtor com todos os argumentos
 @Entity // JPA: Indica que esta classe é uma entidade JPA (mapeada para uma tabela)
-@Table(name = "livros") // JPA: Especifica o nome da tabela no banco de dados
+@Table(name = "livros", // JPA: Especifica o nome da tabela no banco de dados
+        // Índices compostos (campo, id) usados pela paginação por cursor: WHERE (campo, id) > (?, ?) ORDER BY campo, id
+        indexes = {
+                @Index(name = "idx_livros_titulo_id", columnList = "titulo, id"),
+                @Index(name = "idx_livros_autor_id", columnList = "autor, id"),
+                @Index(name = "idx_livros_ano_publicacao_id", columnList = "ano_publicacao, id")
+        },
+        // Com nome fixo, para distinguir um ISBN repetido de outras violações (ver LivroService.isbnDuplicado)
+        uniqueConstraints = @UniqueConstraint(name = Livro.RESTRICAO_ISBN, columnNames = "isbn13"))
+// Hibernate: entidade no cache de segundo nível (região "livro", configurada em application.conf).
+// READ_WRITE trava a entrada durante a atualização, então nenhuma transação lê do cache uma versão já substituída.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "livro")
 @Schema(description = "Representa um livro na aplicação")
 public class Livro {
 
+    public static final String SEQUENCIA_ID = "livros_seq";
+    public static final int TAMANHO_ALOCACAO_ID = 50;
+    public static final String RESTRICAO_ISBN = "uk_livros_isbn13";
+
     @Id // JPA: Indica que este atributo é a chave primária
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // JPA: Define como a chave primária é gerada (auto-incremento pelo banco)
+    // JPA: Chave gerada por sequence com otimizador "pooled" (allocationSize > 1): o Hibernate reserva 50 ids
+    // por ida ao banco e, ao contrário de IDENTITY, consegue agrupar os INSERTs em lotes JDBC (hibernate.jdbc.batch_size).
+    // Em bancos que já tinham livros, a sequence é posta depois do maior id na inicialização (MigracaoLivros).
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCIA_ID)
+    @SequenceGenerator(name = SEQUENCIA_ID, sequenceName = SEQUENCIA_ID, allocationSize = TAMANHO_ALOCACAO_ID)
     @Schema(description = "ID único do livro gerado automaticamente", accessMode = Schema.AccessMode.READ_ONLY)
     private Long id;
 
@@ -36,12 +57,27 @@ public class Livro {
     @Schema(description = "Ano em que o livro foi publicado", example = "1954")
     private Integer anoPublicacao;
 
-    @Column(unique = true) // JPA: Garante que o valor nesta coluna seja único
-    @Schema(description = "Código ISBN do livro (único)", example = "978-0618640157")
-    private String isbn; // Opcional
+    // Único (restrição RESTRICAO_ISBN, declarada em @Table). O ISBN é guardado na forma canônica (ISBN-13 como número,
+    // ver Isbn.normalizar): ocupa 8 bytes, é comparado como inteiro e as formas ISBN-10 e ISBN-13 do mesmo
+    // livro não viram dois cadastros. A coluna tem nome novo porque a antiga (texto livre) não pode ser convertida pelo ddl-auto.
+    @Column(name = "isbn13")
+    @Schema(description = "Código ISBN-13 do livro (único)", example = "9780618640157")
+    private Long isbn; // Opcional
+
+    @Version // JPA: Controle de concorrência otimista; incrementado a cada UPDATE e usado como ETag na API
+    @ColumnDefault("0") // Permite adicionar a coluna em tabelas que já têm livros
+    @Column(nullable = false)
+    @Schema(description = "Versão do registro (muda a cada atualização)", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long versao;
+
+    // Construtor com todos os dados do livro (a versão é sempre controlada pelo Hibernate)
+    public Livro(Long id, String titulo, String autor, String genero, Integer anoPublicacao, Long isbn) {
+        this(titulo, autor, genero, anoPublicacao, isbn);
+        this.id = id;
+    }
 
     // Construtor opcional para facilitar a criação a partir do DTO no serviço
-    public Livro(String titulo, String autor, String genero, Integer anoPublicacao, String isbn) {
+    public Livro(String titulo, String autor, String genero, Integer anoPublicacao, Long isbn) {
         this.titulo = titulo;
         this.autor = autor;
         this.genero = genero;
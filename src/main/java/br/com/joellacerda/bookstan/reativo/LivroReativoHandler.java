@@ -0,0 +1,166 @@
+package br.com.joellacerda.bookstan.reativo;
+
+import br.com.joellacerda.bookstan.busca.IndiceLivros;
+import br.com.joellacerda.bookstan.cache.LivroCache;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.dto.PaginaDTO;
+import br.com.joellacerda.bookstan.exception.CorpoErro;
+import br.com.joellacerda.bookstan.exception.LivroNaoEncontradoException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+// Rotas de leitura da API reativa: mesmos caminhos, parâmetros e formato de resposta do LivroController,
+// servidos pelo ServidorReativo em outra porta. Só leitura: cadastro e alterações continuam na API bloqueante,
+// que é quem invalida o cache e mantém o índice de busca.
+@Component
+@ConditionalOnProperty(name = "bookstan.reativo.habilitado", havingValue = "true")
+public class LivroReativoHandler {
+
+    // Mesmos padrões do Spring Data na API bloqueante
+    private static final int TAMANHO_PADRAO = 20;
+    private static final int TAMANHO_MAXIMO = 2000;
+
+    private final LivroReativoRepository livroReativoRepository;
+    private final LivroCache livroCache;
+    private final IndiceLivros indiceLivros;
+
+    @Autowired
+    public LivroReativoHandler(LivroReativoRepository livroReativoRepository,
+                               LivroCache livroCache,
+                               IndiceLivros indiceLivros) {
+        this.livroReativoRepository = livroReativoRepository;
+        this.livroCache = livroCache;
+        this.indiceLivros = indiceLivros;
+    }
+
+    public RouterFunction<ServerResponse> rotas() {
+        return RouterFunctions.route()
+                .GET("/api/livros", adiado(this::buscarTodosLivros))
+                .GET("/api/livros/stream", adiado(this::streamLivros))
+                .GET("/api/livros/search", adiado(this::buscarLivrosPorTexto))
+                .GET("/api/livros/{id}", adiado(this::buscarLivroPorId))
+                .onError(LivroNaoEncontradoException.class,
+                        (ex, request) -> criarRespostaErro(HttpStatus.NOT_FOUND, "Not Found", ex.getMessage(), request))
+                .onError(IllegalArgumentException.class,
+                        (ex, request) -> criarRespostaErro(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request))
+                .build();
+    }
+
+    // GET /api/livros/{id}: consulta o cache da API bloqueante antes do banco. O cache não é preenchido
+    // daqui: só a API bloqueante, que também o invalida, grava nele.
+    Mono<ServerResponse> buscarLivroPorId(ServerRequest request) {
+        Long id = parametroLong(request.pathVariable("id"), "id");
+        if (livroCache.naoEncontrado(id)) {
+            return Mono.error(new LivroNaoEncontradoException("Livro não encontrado com ID: " + id));
+        }
+        return livroCache.consultar(id)
+                .map(Mono::just)
+                .orElseGet(() -> livroReativoRepository.buscarPorId(id))
+                .switchIfEmpty(Mono.error(() -> new LivroNaoEncontradoException("Livro não encontrado com ID: " + id)))
+                .flatMap(livro -> {
+                    String etag = "\"" + livro.getVersao() + "\"";
+                    return request.checkNotModified(etag)
+                            .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(etag).bodyValue(livro)));
+                });
+    }
+
+    // GET /api/livros?page=0&size=20&sort=titulo,desc: página e contagem em paralelo, em conexões diferentes
+    Mono<ServerResponse> buscarTodosLivros(ServerRequest request) {
+        int pagina = pagina(request);
+        int tamanho = tamanho(request);
+        String[] ordenacao = request.queryParam("sort").orElse("id").split(",");
+        String campo = ordenacao[0].trim();
+        if (!LivroReativoRepository.COLUNAS_ORDENACAO.containsKey(campo)) {
+            throw new IllegalArgumentException("Ordenação não suportada: " + campo
+                    + ". Use um de " + LivroReativoRepository.COLUNAS_ORDENACAO.keySet() + ".");
+        }
+        boolean ascendente = ordenacao.length < 2 || !ordenacao[1].trim().equalsIgnoreCase("desc");
+
+        return Mono.zip(
+                        livroReativoRepository.buscarPagina(campo, ascendente, tamanho, (long) pagina * tamanho).collectList(),
+                        livroReativoRepository.contar())
+                .flatMap(resultado -> ServerResponse.ok().bodyValue(
+                        PaginaDTO.de(resultado.getT1(), pagina, tamanho, resultado.getT2())));
+    }
+
+    // GET /api/livros/search?q=...: o índice em memória resolve a busca e o banco só traz os livros da página
+    Mono<ServerResponse> buscarLivrosPorTexto(ServerRequest request) {
+        String consulta = request.queryParam("q")
+                .orElseThrow(() -> new IllegalArgumentException("Informe o parâmetro q."));
+        int pagina = pagina(request);
+        int tamanho = tamanho(request);
+        IndiceLivros.ResultadoBusca resultado = indiceLivros.buscar(consulta, pagina, tamanho);
+
+        return livroReativoRepository.buscarPorIds(resultado.ids())
+                .collectMap(LivroResponseDTO::getId, Function.identity())
+                .map(livrosPorId -> resultado.ids().stream()
+                        .map(livrosPorId::get)
+                        .filter(Objects::nonNull) // Removido do banco depois de a busca ser resolvida
+                        .toList())
+                .flatMap(conteudo -> ServerResponse.ok().bodyValue(
+                        PaginaDTO.de(conteudo, pagina, tamanho, resultado.total())));
+    }
+
+    // GET /api/livros/stream: o catálogo inteiro em NDJSON (um livro por linha), escrito conforme o cliente lê
+    Mono<ServerResponse> streamLivros(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(livroReativoRepository.streamTodos(), LivroResponseDTO.class);
+    }
+
+    // Parâmetros inválidos são lançados direto pelos handlers; com o defer eles viram um Mono de erro e
+    // passam pelos onError das rotas
+    private static HandlerFunction<ServerResponse> adiado(HandlerFunction<ServerResponse> handler) {
+        return request -> Mono.defer(() -> handler.handle(request));
+    }
+
+    private static int pagina(ServerRequest request) {
+        int pagina = request.queryParam("page").map(valor -> parametroInt(valor, "page")).orElse(0);
+        if (pagina < 0) {
+            throw new IllegalArgumentException("page não pode ser negativo.");
+        }
+        return pagina;
+    }
+
+    private static int tamanho(ServerRequest request) {
+        int tamanho = request.queryParam("size").map(valor -> parametroInt(valor, "size")).orElse(TAMANHO_PADRAO);
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO) {
+            throw new IllegalArgumentException("size deve estar entre 1 e " + TAMANHO_MAXIMO + ".");
+        }
+        return tamanho;
+    }
+
+    private static int parametroInt(String valor, String nome) {
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + nome + ": " + valor);
+        }
+    }
+
+    private static Long parametroLong(String valor, String nome) {
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + nome + ": " + valor);
+        }
+    }
+
+    private static Mono<ServerResponse> criarRespostaErro(HttpStatus status, String error, String message,
+                                                          ServerRequest request) {
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(CorpoErro.de(status, error, message, request.path()));
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.joellacerda.bookstan.reativo;
+
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Consultas de leitura da API reativa, por R2DBC: nenhuma thread fica bloqueada esperando o banco.
+//
+// A ConnectionFactory é criada aqui dentro e não exposta como bean de propósito: com um bean desse tipo no
+// contexto o Spring Boot deixaria de configurar o DataSource JDBC usado pelo JPA. O pool R2DBC é separado do
+// Hikari e deve entrar na conta de conexões do banco ("bookstan.reativo.r2dbc.pool-maximo").
+// Com o driver do H2 as consultas rodam na própria thread que as assina (o H2 embarcado não tem I/O de rede);
+// o ganho de verdade aparece com o PostgreSQL.
+@Repository
+@ConditionalOnProperty(name = "bookstan.reativo.habilitado", havingValue = "true")
+public class LivroReativoRepository {
+
+    private static final String COLUNAS = "id, titulo, autor, genero, ano_publicacao, isbn13, versao";
+    // Ordenações aceitas na listagem (atributo -> coluna); o nome vai direto para o SQL
+    static final Map<String, String> COLUNAS_ORDENACAO = Map.of(
+            "id", "id", "titulo", "titulo", "autor", "autor", "anoPublicacao", "ano_publicacao");
+    private static final int FETCH_SIZE = 500;
+
+    private final ConnectionPool pool;
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public LivroReativoRepository(@Value("${bookstan.reativo.r2dbc.url}") String url,
+                                  @Value("${bookstan.reativo.r2dbc.username:}") String usuario,
+                                  @Value("${bookstan.reativo.r2dbc.password:}") String senha,
+                                  @Value("${bookstan.reativo.r2dbc.pool-maximo:10}") int poolMaximo) {
+        ConnectionFactoryOptions opcoes = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, usuario)
+                .option(ConnectionFactoryOptions.PASSWORD, senha)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(opcoes))
+                .initialSize(Math.min(2, poolMaximo))
+                .maxSize(poolMaximo)
+                .name("bookstan-reativo")
+                .build());
+        this.databaseClient = DatabaseClient.create(pool);
+    }
+
+    public Mono<LivroResponseDTO> buscarPorId(Long id) {
+        return databaseClient.sql("select " + COLUNAS + " from livros where id = :id")
+                .bind("id", id)
+                .map(LivroReativoRepository::mapear)
+                .one();
+    }
+
+    public Flux<LivroResponseDTO> buscarPorIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("select " + COLUNAS + " from livros where id in (:ids)")
+                .bind("ids", ids)
+                .map(LivroReativoRepository::mapear)
+                .all();
+    }
+
+    // Página da listagem. O id entra como desempate para a ordem ser estável entre páginas.
+    public Flux<LivroResponseDTO> buscarPagina(String ordenacao, boolean ascendente, int limite, long deslocamento) {
+        String coluna = COLUNAS_ORDENACAO.get(ordenacao);
+        if (coluna == null) {
+            throw new IllegalArgumentException("Ordenação não suportada: " + ordenacao);
+        }
+        String direcao = ascendente ? "asc" : "desc";
+        String ordem = coluna.equals("id") ? "id " + direcao : coluna + " " + direcao + ", id " + direcao;
+        return databaseClient.sql("select " + COLUNAS + " from livros order by " + ordem
+                        + " limit :limite offset :deslocamento")
+                .bind("limite", limite)
+                .bind("deslocamento", deslocamento)
+                .map(LivroReativoRepository::mapear)
+                .all();
+    }
+
+    public Mono<Long> contar() {
+        return databaseClient.sql("select count(*) from livros")
+                .map(linha -> linha.get(0, Long.class))
+                .one();
+    }
+
+    // Catálogo inteiro em ordem de ID. As linhas são pedidas ao banco conforme o cliente consome
+    // (fetch size + backpressure): um consumidor lento não faz o servidor acumular o resultado em memória.
+    public Flux<LivroResponseDTO> streamTodos() {
+        return databaseClient.sql("select " + COLUNAS + " from livros order by id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(LivroReativoRepository::mapear)
+                .all();
+    }
+
+    @PreDestroy
+    public void fechar() {
+        pool.dispose();
+    }
+
+    private static LivroResponseDTO mapear(Readable linha) {
+        return new LivroResponseDTO(
+                linha.get("id", Long.class),
+                linha.get("titulo", String.class),
+                linha.get("autor", String.class),
+                linha.get("genero", String.class),
+                linha.get("ano_publicacao", Integer.class),
+                linha.get("isbn13", Long.class),
+                linha.get("versao", Long.class));
+    }
+}
@@ -0,0 +1,94 @@
+package br.com.joellacerda.bookstan.reativo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+
+// Servidor Reactor Netty da API reativa, ao lado do Tomcat da API bloqueante (que continua em server.port).
+//
+// Um punhado de threads de event loop ("bookstan.reativo.threads", padrão: uma por núcleo) atende todas as
+// conexões: nenhuma fica parada esperando o banco, então milhares de leituras simultâneas não exigem milhares
+// de threads. Ligado por "bookstan.reativo.habilitado" e exposto em "bookstan.reativo.porta" (0 = porta livre).
+@Component
+@ConditionalOnProperty(name = "bookstan.reativo.habilitado", havingValue = "true")
+public class ServidorReativo implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ServidorReativo.class);
+
+    private final LivroReativoHandler livroReativoHandler;
+    private final ObjectMapper objectMapper;
+    private final int porta;
+    private final int threads;
+
+    private volatile LoopResources loops;
+    private volatile DisposableServer servidor;
+
+    @Autowired
+    public ServidorReativo(LivroReativoHandler livroReativoHandler,
+                           ObjectMapper objectMapper,
+                           @Value("${bookstan.reativo.porta:8081}") int porta,
+                           @Value("${bookstan.reativo.threads:0}") int threads) {
+        this.livroReativoHandler = livroReativoHandler;
+        this.objectMapper = objectMapper;
+        this.porta = porta;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void start() {
+        // Mesmo ObjectMapper da API bloqueante: as respostas saem com a mesma serialização
+        HandlerStrategies estrategias = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(livroReativoHandler.rotas(), estrategias);
+
+        loops = LoopResources.create("bookstan-reativo", threads, true);
+        servidor = HttpServer.create()
+                .port(porta)
+                .runOn(loops)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("API reativa escutando na porta {} ({} threads de event loop)", servidor.port(), threads);
+    }
+
+    @Override
+    public void stop() {
+        if (servidor != null) {
+            servidor.disposeNow(Duration.ofSeconds(10));
+            servidor = null;
+        }
+        if (loops != null) {
+            loops.disposeLater().block(Duration.ofSeconds(10));
+            loops = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return servidor != null;
+    }
+
+    // Porta em que o servidor de fato está escutando (útil com bookstan.reativo.porta=0)
+    public int getPorta() {
+        return servidor != null ? servidor.port() : porta;
+    }
+}
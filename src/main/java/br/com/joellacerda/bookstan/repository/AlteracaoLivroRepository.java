@@ -0,0 +1,40 @@
+package br.com.joellacerda.bookstan.repository;
+
+import br.com.joellacerda.bookstan.model.AlteracaoLivro;
+import br.com.joellacerda.bookstan.model.ContadorAlteracoes;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+// Log de alterações do catálogo (GET /api/livros/changes)
+@Repository
+public interface AlteracaoLivroRepository extends JpaRepository<AlteracaoLivro, Long>, AlteracaoLivroRepositoryCustom {
+
+    // Os registros depois da sequência informada, em ordem, pela chave primária (sem índice extra)
+    List<AlteracaoLivro> findBySeqGreaterThanOrderBySeq(Long seq, Limit limite);
+
+    // Última sequência confirmada (vazio antes da primeira inicialização do contador)
+    @Query("select c.valor from ContadorAlteracoes c where c.id = " + ContadorAlteracoes.ID)
+    Optional<Long> ultimaSequencia();
+
+    // Menor sequência ainda guardada (vazio com o log vazio), pelo início do índice da chave primária
+    @Query("select min(a.seq) from AlteracaoLivro a")
+    Optional<Long> primeiraSequencia();
+
+    // Maior sequência anterior a "ate" gravada antes de "corte": limita a busca a um trecho da chave primária,
+    // sem depender de um índice em alterado_em
+    @Query("select max(a.seq) from AlteracaoLivro a where a.seq < :ate and a.alteradoEm < :corte")
+    Optional<Long> ultimaSequenciaAntesDe(@Param("ate") long ate, @Param("corte") Instant corte);
+
+    // Apaga os registros anteriores à sequência informada
+    @Modifying
+    @Query("delete from AlteracaoLivro a where a.seq < :seq")
+    int deleteBySeqLessThan(@Param("seq") long seq);
+}
@@ -0,0 +1,9 @@
+package br.com.joellacerda.bookstan.repository;
+
+// Fragmento do AlteracaoLivroRepository com o acesso ao contador de sequências, feito em SQL nativo
+public interface AlteracaoLivroRepositoryCustom {
+
+    // Avança o contador em "quantidade" e retorna o novo valor: as sequências reservadas são as "quantidade"
+    // anteriores a ele, inclusive. A linha do contador fica travada até o fim da transação.
+    long reservarSequencias(int quantidade);
+}
@@ -0,0 +1,57 @@
+package br.com.joellacerda.bookstan.repository;
+
+import br.com.joellacerda.bookstan.model.ContadorAlteracoes;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+
+import java.util.Locale;
+
+// Implementação do fragmento AlteracaoLivroRepositoryCustom
+public class AlteracaoLivroRepositoryCustomImpl implements AlteracaoLivroRepositoryCustom {
+
+    private static final String UPDATE = "update livros_alteracoes_contador set valor = valor + :quantidade where id = "
+            + ContadorAlteracoes.ID;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile String nomeDoBanco;
+
+    @Override
+    public long reservarSequencias(int quantidade) {
+        // Como no PATCH (LivroRepositoryCustomImpl): o banco devolve o valor novo no próprio UPDATE
+        String banco = nomeDoBanco();
+        String sql;
+        if (banco.equals("postgresql")) {
+            sql = UPDATE + " returning valor";
+        } else if (banco.equals("h2")) {
+            sql = "select valor from final table (" + UPDATE + ")";
+        } else {
+            nativa(UPDATE).setParameter("quantidade", quantidade).executeUpdate();
+            return ((Number) nativa("select valor from livros_alteracoes_contador where id = " + ContadorAlteracoes.ID)
+                    .getSingleResult()).longValue();
+        }
+        return ((Number) nativa(sql).setParameter("quantidade", quantidade).getSingleResult()).longValue();
+    }
+
+    private NativeQuery<?> nativa(String sql) {
+        // Sincronizada só com o contador: sem isso, o Hibernate trataria o comando como capaz de alterar
+        // qualquer tabela e invalidaria todo o cache de segundo nível
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(ContadorAlteracoes.class);
+    }
+
+    // Pelo driver JDBC, não pelo dialeto do Hibernate (ver LivroRepositoryCustomImpl)
+    private String nomeDoBanco() {
+        String banco = nomeDoBanco;
+        if (banco == null) {
+            banco = entityManager.unwrap(Session.class)
+                    .doReturningWork(conexao -> conexao.getMetaData().getDatabaseProductName())
+                    .toLowerCase(Locale.ROOT);
+            nomeDoBanco = banco;
+        }
+        return banco;
+    }
+}
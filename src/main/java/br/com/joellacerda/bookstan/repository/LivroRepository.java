@@ -1,16 +1,90 @@
 package br.com.joellacerda.bookstan.repository;
 
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
 import br.com.joellacerda.bookstan.model.Livro;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface LivroRepository extends JpaRepository<Livro, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface LivroRepository extends JpaRepository<Livro, Long>, LivroRepositoryCustom {
     // JpaRepository<TipoDaEntidade, TipoDoIdDaEntidade>
+    // LivroRepositoryCustom: consultas escritas à mão (ex: paginação por cursor)
+
+    // Colunas na ordem do construtor de projeção do LivroResponseDTO
+    String COLUNAS_DTO = "l.id, l.titulo, l.autor, l.genero, l.anoPublicacao, l.isbn, l.versao";
 
     // O Spring Data JPA automaticamente fornecerá implementações para métodos CRUD básicos:
     // save(), findById(), findAll(), deleteById(), etc.
 
+    // Leituras da API sem entidades: o DTO é montado direto das colunas (constructor expression), então nada
+    // entra no contexto de persistência e não há snapshot para dirty checking nem cópia campo a campo.
+    // A ordenação do Pageable é aplicada sobre o alias "l".
+    // Página e contagem ficam no cache de consultas do Hibernate (região "livros-paginas"): a mesma página com a
+    // mesma ordenação não vai ao banco de novo até a próxima escrita na tabela livros.
+    @Transactional(readOnly = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "livros-paginas")
+    })
+    @Query(value = "select new br.com.joellacerda.bookstan.dto.LivroResponseDTO(" + COLUNAS_DTO + ") from Livro l",
+            countQuery = "select count(l) from Livro l")
+    Page<LivroResponseDTO> findAllProjetado(Pageable pageable);
+
+    // A mesma listagem sem COUNT(*): busca um livro a mais que o tamanho da página só para saber se há próxima
+    @Transactional(readOnly = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "livros-paginas")
+    })
+    @Query("select new br.com.joellacerda.bookstan.dto.LivroResponseDTO(" + COLUNAS_DTO + ") from Livro l")
+    Slice<LivroResponseDTO> findSliceProjetado(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("select new br.com.joellacerda.bookstan.dto.LivroResponseDTO(" + COLUNAS_DTO + ") from Livro l where l.id = :id")
+    Optional<LivroResponseDTO> findProjetadoById(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query("select new br.com.joellacerda.bookstan.dto.LivroResponseDTO(" + COLUNAS_DTO + ") from Livro l where l.id in :ids")
+    List<LivroResponseDTO> findProjetadosByIds(@Param("ids") Collection<Long> ids);
+
+    // Busca só a versão do livro (para responder If-None-Match sem carregar a linha inteira)
+    @Query("select l.versao from Livro l where l.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Long id);
+
+    // Retorna, entre os ISBNs informados, os que já estão cadastrados (uma única consulta por bloco do lote)
+    @Query("select l.isbn from Livro l where l.isbn in :isbns")
+    List<Long> findIsbnsExistentes(@Param("isbns") Collection<Long> isbns);
+
+    // Busca pelo ISBN canônico (ver Isbn.normalizar), usando o índice único da coluna
+    Optional<Livro> findByIsbn(Long isbn);
+
+    // Percorre o catálogo inteiro sem paginação (usado pela exportação e pela reconstrução do índice de busca).
+    // O fetch size faz o driver buscar as linhas em blocos em vez de carregar tudo na memória
+    // (no PostgreSQL isso exige uma transação aberta) e read-only evita os snapshots de dirty checking.
+    // CacheMode.IGNORE: a varredura não grava o catálogo inteiro no cache de segundo nível, o que expulsaria
+    // os livros realmente acessados.
+    // O Stream precisa ser fechado por quem chamar (try-with-resources).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select l from Livro l order by l.id")
+    Stream<Livro> streamTodosOrdenadosPorId();
+
     // Você pode adicionar métodos de consulta personalizados aqui, se necessário.
     // Exemplo:
     // List<Livro> findByAutor(String autor);
-    // Optional<Livro> findByIsbn(String isbn);
 }
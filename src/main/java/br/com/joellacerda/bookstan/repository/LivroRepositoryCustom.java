@@ -0,0 +1,42 @@
+package br.com.joellacerda.bookstan.repository;
+
+import br.com.joellacerda.bookstan.dto.FiltroLivrosDTO;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.model.Livro;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Fragmento com consultas que o Spring Data não consegue derivar a partir do nome do metodo.
+// A implementação fica em LivroRepositoryCustomImpl e é combinada automaticamente ao LivroRepository.
+public interface LivroRepositoryCustom {
+
+    // Paginação por cursor (keyset): busca os livros que vêm DEPOIS do par (valor, id) na ordenação informada.
+    // Usa WHERE (campo, id) > (?, ?) em vez de OFFSET, então o custo não cresce com a "profundidade" da página
+    // e nenhum COUNT(*) é executado. Se id for nulo, retorna o início da listagem; com id e valor nulo, o cursor
+    // está entre os livros sem valor no campo (que vêm por último no ASC e primeiro no DESC).
+    List<Livro> buscarAposCursor(String campo, Sort.Direction direcao, Object valor, Long id, int limite);
+
+    // Atualiza só as colunas informadas (nome do atributo -> novo valor, já convertido para o tipo da entidade)
+    // e incrementa a versão, com um único UPDATE e sem ler o livro antes. Com versaoEsperada, só atualiza se o
+    // livro ainda estiver nessa versão. Retorna o livro como ficou, ou vazio se nenhuma linha foi alterada.
+    Optional<LivroResponseDTO> atualizarCampos(Long id, Map<String, Object> campos, Long versaoEsperada);
+
+    // Remove o livro com um único DELETE e retorna quantas linhas foram apagadas (0 se o ID não existe).
+    // O deleteById do JpaRepository carrega a entidade antes de removê-la (SELECT + DELETE), e um DELETE
+    // executado pelo Hibernate (JPQL ou nativo) esvaziaria a região inteira do Livro no cache de segundo nível.
+    int deletarPorId(Long id);
+
+    // Operações em massa, em blocos: primeiro os IDs do próximo bloco (em ordem de ID, depois de aposId),
+    // depois um DELETE/UPDATE sobre esses IDs que repete o filtro, para não atingir um livro que deixou de
+    // atendê-lo entre as duas consultas. Retornam a quantidade de linhas afetadas.
+    List<Long> buscarIdsPorFiltro(FiltroLivrosDTO filtro, Long aposId, int limite);
+
+    int deletarPorIds(Collection<Long> ids, FiltroLivrosDTO filtro);
+
+    // campos: nome do atributo -> novo valor, já convertido para o tipo da entidade (como em atualizarCampos)
+    int atualizarPorIds(Collection<Long> ids, FiltroLivrosDTO filtro, Map<String, Object> campos);
+}
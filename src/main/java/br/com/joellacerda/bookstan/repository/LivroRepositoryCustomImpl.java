@@ -0,0 +1,323 @@
+package br.com.joellacerda.bookstan.repository;
+
+import br.com.joellacerda.bookstan.dto.FiltroLivrosDTO;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.model.Livro;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Sort;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Implementação do fragmento LivroRepositoryCustom (o sufixo "Impl" é a convenção do Spring Data)
+public class LivroRepositoryCustomImpl implements LivroRepositoryCustom {
+
+    // Campos que podem ser usados como chave do cursor. O nome vai direto para o JPQL,
+    // por isso só aceitamos valores conhecidos (nunca texto vindo do cliente sem checagem).
+    private static final Set<String> CAMPOS_PERMITIDOS = Set.of("id", "titulo", "autor", "anoPublicacao");
+    // Dos campos acima, os que podem ser nulos no banco (a comparação de tupla não alcança os nulos)
+    private static final Set<String> CAMPOS_NULAVEIS = Set.of("anoPublicacao");
+
+    // Colunas que o PATCH pode alterar, por nome do atributo, e o tipo Java de cada uma (para ligar nulos)
+    private static final Map<String, String> COLUNAS_ATUALIZAVEIS = Map.of(
+            "titulo", "titulo", "autor", "autor", "genero", "genero",
+            "anoPublicacao", "ano_publicacao", "isbn", "isbn13");
+    private static final Map<String, Class<?>> TIPOS_ATUALIZAVEIS = Map.of(
+            "titulo", String.class, "autor", String.class, "genero", String.class,
+            "anoPublicacao", Integer.class, "isbn", Long.class);
+    // Na ordem do construtor de projeção do LivroResponseDTO
+    private static final String COLUNAS_RETORNO = "id, titulo, autor, genero, ano_publicacao, isbn13, versao";
+
+    // Tabelas da entidade Livro, como o Hibernate as registra no cache de consultas
+    private static final String[] ESPACOS_LIVRO = {"livros"};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile String nomeDoBanco; // Descoberto na primeira atualização
+
+    @Override
+    public List<Livro> buscarAposCursor(String campo, Sort.Direction direcao, Object valor, Long id, int limite) {
+        if (!CAMPOS_PERMITIDOS.contains(campo)) {
+            throw new IllegalArgumentException("Campo de ordenação não suportado: " + campo);
+        }
+        if (!CAMPOS_NULAVEIS.contains(campo)) {
+            return buscarAposCursor(campo, direcao, valor, id, limite, false);
+        }
+
+        // Campo nulável: os livros sem valor formam um trecho à parte da ordenação, depois dos demais no ASC e
+        // antes no DESC (nulos como maiores que qualquer valor, como no PostgreSQL). Cada trecho é uma consulta
+        // própria, sem depender da posição padrão dos nulos em cada banco (que o dialeto nem sempre escreve no SQL)
+        // e sem OR no WHERE, então as duas continuam usando o índice (campo, id).
+        boolean nulosPrimeiro = !direcao.isAscending();
+        boolean cursorNosNulos = id != null && valor == null;
+        boolean cursorNosValores = id != null && valor != null;
+        List<Livro> livros = new ArrayList<>();
+        if (cursorNosNulos || (nulosPrimeiro && !cursorNosValores)) {
+            livros.addAll(buscarAposCursor(campo, direcao, null, cursorNosNulos ? id : null, limite, true));
+        }
+        if (livros.size() < limite && !(cursorNosNulos && !nulosPrimeiro)) {
+            // Trecho com valor: continua do cursor, ou começa do início se o cursor estava no trecho dos nulos
+            livros.addAll(buscarAposCursor(campo, direcao, valor, cursorNosNulos ? null : id,
+                    limite - livros.size(), false));
+            if (livros.size() < limite && !nulosPrimeiro) {
+                livros.addAll(buscarAposCursor(campo, direcao, null, null, limite - livros.size(), true));
+            }
+        }
+        return livros;
+    }
+
+    // Um trecho da ordenação: só os livros com o campo nulo (ordenados pelo id) ou só os com valor
+    private List<Livro> buscarAposCursor(String campo, Sort.Direction direcao, Object valor, Long id, int limite,
+                                         boolean nulos) {
+        String ordem = direcao.isAscending() ? "asc" : "desc";
+        String comparador = direcao.isAscending() ? ">" : "<";
+        boolean ordenadoPorId = "id".equals(campo) || nulos;
+
+        List<String> condicoes = new ArrayList<>();
+        if (nulos) {
+            condicoes.add("l." + campo + " is null");
+        } else if (CAMPOS_NULAVEIS.contains(campo) && id == null) {
+            condicoes.add("l." + campo + " is not null"); // Com cursor, a comparação de tupla já deixa os nulos de fora
+        }
+        if (id != null) {
+            // Comparação de tupla: o Hibernate gera "(titulo, id) > (?, ?)" nos bancos que suportam
+            // (PostgreSQL, H2), o que permite usar o índice composto (campo, id) diretamente.
+            condicoes.add(ordenadoPorId ? "l.id " + comparador + " :id"
+                    : "(l." + campo + ", l.id) " + comparador + " (:valor, :id)");
+        }
+
+        StringBuilder jpql = new StringBuilder("select l from Livro l");
+        if (!condicoes.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", condicoes));
+        }
+        jpql.append(" order by ");
+        if (!ordenadoPorId) {
+            jpql.append("l.").append(campo).append(' ').append(ordem).append(", ");
+        }
+        // O id sempre entra como desempate para que a ordem seja total e o cursor não pule/repita livros
+        jpql.append("l.id ").append(ordem);
+
+        TypedQuery<Livro> query = entityManager.createQuery(jpql.toString(), Livro.class);
+        if (id != null) {
+            query.setParameter("id", id);
+            if (!ordenadoPorId) {
+                query.setParameter("valor", valor);
+            }
+        }
+        return query.setMaxResults(limite).getResultList();
+    }
+
+    @Override
+    public Optional<LivroResponseDTO> atualizarCampos(Long id, Map<String, Object> campos, Long versaoEsperada) {
+        StringBuilder update = new StringBuilder("update livros set ");
+        campos.keySet().forEach(campo -> {
+            String coluna = COLUNAS_ATUALIZAVEIS.get(campo);
+            if (coluna == null) {
+                throw new IllegalArgumentException("Campo não atualizável: " + campo);
+            }
+            update.append(coluna).append(" = :").append(campo).append(", ");
+        });
+        update.append("versao = versao + 1 where id = :id");
+        if (versaoEsperada != null) {
+            update.append(" and versao = :versaoEsperada");
+        }
+
+        // O banco devolve a linha alterada no próprio UPDATE; nos demais, uma leitura pela chave logo depois
+        String banco = nomeDoBanco();
+        String sql;
+        if (banco.equals("postgresql")) {
+            sql = "with alterado as (" + update + " returning " + COLUNAS_RETORNO + ") select * from alterado";
+        } else if (banco.equals("h2")) {
+            sql = "select " + COLUNAS_RETORNO + " from final table (" + update + ")";
+        } else {
+            int alterados = parametros(entityManager.createNativeQuery(update.toString()), id, campos, versaoEsperada)
+                    .executeUpdate();
+            return alterados == 0 ? Optional.empty()
+                    : Optional.ofNullable(entityManager.createQuery("select new br.com.joellacerda.bookstan.dto.LivroResponseDTO("
+                            + LivroRepository.COLUNAS_DTO + ") from Livro l where l.id = :id", LivroResponseDTO.class)
+                    .setParameter("id", id).getSingleResult());
+        }
+
+        List<?> linhas = parametros(entityManager.createNativeQuery(sql), id, campos, versaoEsperada).getResultList();
+        if (linhas.isEmpty()) {
+            return Optional.empty();
+        }
+        invalidarCacheSegundoNivel(id);
+        Object[] linha = (Object[]) linhas.get(0);
+        return Optional.of(new LivroResponseDTO(
+                ((Number) linha[0]).longValue(),
+                (String) linha[1],
+                (String) linha[2],
+                (String) linha[3],
+                linha[4] != null ? ((Number) linha[4]).intValue() : null,
+                linha[5] != null ? ((Number) linha[5]).longValue() : null,
+                ((Number) linha[6]).longValue()));
+    }
+
+    // O DELETE vai pelo JDBC da própria sessão (passa pelo InspetorSql e pelas métricas como os demais comandos),
+    // fora do executeUpdate do Hibernate: assim só o livro removido sai do cache de segundo nível, junto com as
+    // consultas em cache sobre a tabela, como no atualizarCampos.
+    @Override
+    public int deletarPorId(Long id) {
+        String sql = "delete from livros where id = ?";
+        SessionImplementor sessao = entityManager.unwrap(SessionImplementor.class);
+        sessao.flush(); // O flush automático que o Hibernate faria antes de um DELETE seu
+        JdbcCoordinator jdbc = sessao.getJdbcCoordinator();
+        PreparedStatement delete = jdbc.getStatementPreparer().prepareStatement(sql);
+        int removidos;
+        try {
+            delete.setLong(1, id);
+            removidos = jdbc.getResultSetReturn().executeUpdate(delete, sql);
+        } catch (SQLException e) {
+            throw sessao.getJdbcServices().getSqlExceptionHelper().convert(e, "Não foi possível remover o livro", sql);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(delete);
+            jdbc.afterStatementExecution();
+        }
+        if (removidos > 0) {
+            invalidarCacheSegundoNivel(id);
+        }
+        return removidos;
+    }
+
+    @Override
+    public List<Long> buscarIdsPorFiltro(FiltroLivrosDTO filtro, Long aposId, int limite) {
+        StringBuilder jpql = new StringBuilder("select l.id from Livro l where ");
+        condicoes(jpql, filtro);
+        if (aposId != null) {
+            jpql.append(" and l.id > :aposId");
+        }
+        jpql.append(" order by l.id");
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class);
+        parametrosFiltro(query, filtro);
+        if (aposId != null) {
+            query.setParameter("aposId", aposId);
+        }
+        return query.setMaxResults(limite).getResultList();
+    }
+
+    @Override
+    public int deletarPorIds(Collection<Long> ids, FiltroLivrosDTO filtro) {
+        StringBuilder jpql = new StringBuilder("delete from Livro l where l.id in :idsBloco and ");
+        condicoes(jpql, filtro);
+        Query query = entityManager.createQuery(jpql.toString()).setParameter("idsBloco", ids);
+        parametrosFiltro(query, filtro);
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int atualizarPorIds(Collection<Long> ids, FiltroLivrosDTO filtro, Map<String, Object> campos) {
+        StringBuilder jpql = new StringBuilder("update Livro l set ");
+        campos.keySet().forEach(campo -> {
+            if (!COLUNAS_ATUALIZAVEIS.containsKey(campo)) {
+                throw new IllegalArgumentException("Campo não atualizável: " + campo);
+            }
+            jpql.append("l.").append(campo).append(" = :novo_").append(campo).append(", ");
+        });
+        // O UPDATE em JPQL não mexe na versão sozinho: sem isto, os ETags antigos continuariam valendo
+        jpql.append("l.versao = l.versao + 1 where l.id in :idsBloco and ");
+        condicoes(jpql, filtro);
+        Query query = entityManager.createQuery(jpql.toString()).setParameter("idsBloco", ids);
+        campos.forEach((campo, valor) -> query.setParameter("novo_" + campo, valor));
+        parametrosFiltro(query, filtro);
+        return query.executeUpdate();
+    }
+
+    // Critérios do filtro combinados com "and" (quem chama garante que há pelo menos um)
+    private static void condicoes(StringBuilder jpql, FiltroLivrosDTO filtro) {
+        StringBuilder condicoes = new StringBuilder();
+        if (filtro.getAutor() != null) {
+            condicoes.append(" and l.autor = :autor");
+        }
+        if (filtro.getGenero() != null) {
+            condicoes.append(" and l.genero = :genero");
+        }
+        if (filtro.getAnoInicial() != null) {
+            condicoes.append(" and l.anoPublicacao >= :anoInicial");
+        }
+        if (filtro.getAnoFinal() != null) {
+            condicoes.append(" and l.anoPublicacao <= :anoFinal");
+        }
+        if (filtro.getIds() != null) {
+            condicoes.append(" and l.id in :ids");
+        }
+        jpql.append(condicoes.substring(" and ".length()));
+    }
+
+    private static void parametrosFiltro(Query query, FiltroLivrosDTO filtro) {
+        if (filtro.getAutor() != null) {
+            query.setParameter("autor", filtro.getAutor());
+        }
+        if (filtro.getGenero() != null) {
+            query.setParameter("genero", filtro.getGenero());
+        }
+        if (filtro.getAnoInicial() != null) {
+            query.setParameter("anoInicial", filtro.getAnoInicial());
+        }
+        if (filtro.getAnoFinal() != null) {
+            query.setParameter("anoFinal", filtro.getAnoFinal());
+        }
+        if (filtro.getIds() != null) {
+            query.setParameter("ids", filtro.getIds());
+        }
+    }
+
+    // Para o Hibernate, a consulta com o UPDATE dentro (e o DELETE pelo JDBC) não é uma escrita: ele não tira o
+    // livro do cache de segundo nível nem invalida as consultas em cache sobre a tabela, como faz num executeUpdate.
+    // Aqui isso é feito à mão: agora e de novo ao fim da transação, porque uma leitura concorrente pode ter
+    // guardado nesse meio tempo a versão anterior ao commit.
+    private void invalidarCacheSegundoNivel(Long id) {
+        SessionImplementor sessao = entityManager.unwrap(SessionImplementor.class);
+        CacheImplementor cache = sessao.getFactory().getCache();
+        cache.getTimestampsCache().preInvalidate(ESPACOS_LIVRO, sessao);
+        cache.evictEntityData(Livro.class, id);
+        sessao.getActionQueue().registerProcess((sucesso, sessaoAtual) -> {
+            cache.evictEntityData(Livro.class, id);
+            cache.getTimestampsCache().invalidate(ESPACOS_LIVRO, sessaoAtual);
+        });
+    }
+
+    // Pelo driver JDBC, não pelo dialeto do Hibernate: o dialeto pode ser fixado na configuração
+    // (ex: PostgreSQLDialect em application.properties) mesmo quando a conexão é de outro banco
+    private String nomeDoBanco() {
+        String banco = nomeDoBanco;
+        if (banco == null) {
+            banco = entityManager.unwrap(Session.class)
+                    .doReturningWork(conexao -> conexao.getMetaData().getDatabaseProductName())
+                    .toLowerCase(Locale.ROOT);
+            nomeDoBanco = banco;
+        }
+        return banco;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static NativeQuery<?> parametros(Query query, Long id, Map<String, Object> campos,
+                                             Long versaoEsperada) {
+        NativeQuery nativeQuery = query.unwrap(NativeQuery.class);
+        // Só o cache (e o flush automático) da entidade Livro são afetados, não todas as regiões
+        nativeQuery.addSynchronizedEntityClass(Livro.class);
+        // Com o tipo explícito, um valor nulo (campo removido no PATCH) é ligado com o tipo certo da coluna
+        campos.forEach((campo, valor) -> nativeQuery.setParameter(campo, valor, (Class) TIPOS_ATUALIZAVEIS.get(campo)));
+        nativeQuery.setParameter("id", id);
+        if (versaoEsperada != null) {
+            nativeQuery.setParameter("versaoEsperada", versaoEsperada);
+        }
+        return nativeQuery;
+    }
+}
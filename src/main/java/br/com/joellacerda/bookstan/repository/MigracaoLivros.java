@@ -0,0 +1,166 @@
+package br.com.joellacerda.bookstan.repository;
+
+import br.com.joellacerda.bookstan.model.Isbn;
+import br.com.joellacerda.bookstan.model.Livro;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Ajustes nos dados que o ddl-auto não faz sozinho ao evoluir a tabela de livros.
+// Roda na inicialização, depois de o Hibernate atualizar o esquema e antes de o servidor web aceitar requisições.
+// Cada passo só altera o que ainda não foi ajustado, então rodar de novo (ou em outra instância) não muda nada.
+@Component
+public class MigracaoLivros implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracaoLivros.class);
+
+    static final String COLUNA_ISBN_ANTIGA = "isbn";
+    private static final int TAMANHO_BLOCO = 1000;
+
+    private final TransactionTemplate transacao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public MigracaoLivros(PlatformTransactionManager transactionManager) {
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transacao.executeWithoutResult(status -> alinharSequencia());
+        migrarIsbnAntigo();
+    }
+
+    // Resultado de um bloco da cópia do ISBN: o último id lido (vazio quando não há mais livros),
+    // quantos foram copiados e quantos ficaram na coluna antiga
+    private record BlocoIsbn(Long ultimoId, int copiados, int rejeitados) {
+    }
+
+    // A chave passou de IDENTITY para a sequence livros_seq, que o ddl-auto cria começando em 1 mesmo com livros
+    // na tabela: os ids novos repetiriam os antigos. Se o próximo bloco reservado (o otimizador "pooled" usa os
+    // TAMANHO_ALOCACAO_ID valores até o devolvido pela sequence) alcança o maior id gravado, a sequence é
+    // reiniciada logo depois dele. Consome um bloco de ids a cada inicialização, o que só deixa um intervalo.
+    void alinharSequencia() {
+        long maiorId = ((Number) entityManager.createNativeQuery("select coalesce(max(id), 0) from livros")
+                .getSingleResult()).longValue();
+        if (maiorId == 0) {
+            return;
+        }
+        // O mesmo comando que o Hibernate usa para reservar ids, então vale para o banco que ele está usando
+        String proximoSql = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(Livro.SEQUENCIA_ID);
+        long proximo = ((Number) entityManager.createNativeQuery(proximoSql).getSingleResult()).longValue();
+        if (proximo - Livro.TAMANHO_ALOCACAO_ID < maiorId) {
+            long reinicio = maiorId + Livro.TAMANHO_ALOCACAO_ID;
+            entityManager.createNativeQuery("alter sequence " + Livro.SEQUENCIA_ID + " restart with " + reinicio)
+                    .executeUpdate();
+            log.info("Sequence {} reiniciada em {} (maior id em livros: {})", Livro.SEQUENCIA_ID, reinicio, maiorId);
+        }
+    }
+
+    // O ISBN passou da coluna de texto livre "isbn" para isbn13 (ISBN-13 canônico, ver Isbn.normalizar), que o
+    // ddl-auto cria vazia. Copia, em blocos de TAMANHO_BLOCO livros por transação, cada ISBN antigo normalizado e
+    // limpa o valor antigo. Ficam na coluna antiga (com um WARN por livro), para correção manual, os valores que
+    // não são um ISBN-10/ISBN-13 com dígito verificador correto e os que repetem o ISBN de outro livro.
+    // Livros que já têm isbn13 (gravado pela API depois da atualização) ficam com ele e só perdem o valor antigo.
+    // Quando a coluna antiga fica vazia, ela é removida; enquanto não fica, nenhum código a lê ou grava.
+    void migrarIsbnAntigo() {
+        if (!Boolean.TRUE.equals(transacao.execute(status -> colunaAntigaExiste()))) {
+            return;
+        }
+        long copiados = 0;
+        long rejeitados = 0;
+        Long aposId = Long.MIN_VALUE;
+        while (true) {
+            Long apos = aposId;
+            BlocoIsbn bloco = transacao.execute(status -> migrarBlocoIsbn(apos));
+            if (bloco.ultimoId() == null) {
+                break;
+            }
+            copiados += bloco.copiados();
+            rejeitados += bloco.rejeitados();
+            aposId = bloco.ultimoId();
+        }
+        if (copiados > 0) {
+            log.info("ISBN de {} livros copiado da coluna {} para isbn13", copiados, COLUNA_ISBN_ANTIGA);
+        }
+        if (rejeitados > 0) {
+            log.warn("{} livros ficaram com o ISBN apenas na coluna {} (inválido ou repetido): corrija pela API "
+                    + "ou limpe a coluna para que ela seja removida", rejeitados, COLUNA_ISBN_ANTIGA);
+            return;
+        }
+        transacao.executeWithoutResult(status -> entityManager
+                .createNativeQuery("alter table livros drop column " + COLUNA_ISBN_ANTIGA).executeUpdate());
+        log.info("Coluna {} removida da tabela livros", COLUNA_ISBN_ANTIGA);
+    }
+
+    private boolean colunaAntigaExiste() {
+        // information_schema existe no PostgreSQL e no H2; os nomes são comparados sem diferenciar maiúsculas
+        Number quantidade = (Number) entityManager.createNativeQuery(
+                        "select count(*) from information_schema.columns where table_schema = current_schema"
+                                + " and lower(table_name) = 'livros' and lower(column_name) = :coluna")
+                .setParameter("coluna", COLUNA_ISBN_ANTIGA)
+                .getSingleResult();
+        return quantidade.longValue() > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private BlocoIsbn migrarBlocoIsbn(Long aposId) {
+        List<Object[]> linhas = entityManager.createNativeQuery("select id, " + COLUNA_ISBN_ANTIGA + ", isbn13"
+                        + " from livros where " + COLUNA_ISBN_ANTIGA + " is not null and id > :aposId order by id")
+                .setParameter("aposId", aposId)
+                .setMaxResults(TAMANHO_BLOCO)
+                .getResultList();
+        if (linhas.isEmpty()) {
+            return new BlocoIsbn(null, 0, 0);
+        }
+        int copiados = 0;
+        int rejeitados = 0;
+        for (Object[] linha : linhas) {
+            long id = ((Number) linha[0]).longValue();
+            String antigo = linha[1].toString();
+            if (linha[2] != null) {
+                limparIsbnAntigo(id);
+                continue;
+            }
+            Long canonico = Isbn.normalizar(antigo);
+            if (canonico == null) {
+                log.warn("Livro {}: ISBN antigo '{}' inválido, mantido na coluna {}", id, antigo, COLUNA_ISBN_ANTIGA);
+                rejeitados++;
+                continue;
+            }
+            // Só copia se nenhum outro livro já tem esse ISBN (o ISBN-10 e o ISBN-13 do mesmo livro viram o mesmo valor)
+            int alterados = entityManager.createNativeQuery("update livros set isbn13 = :isbn, "
+                            + COLUNA_ISBN_ANTIGA + " = null where id = :id and not exists"
+                            + " (select 1 from livros outro where outro.isbn13 = :isbn)")
+                    .setParameter("isbn", canonico)
+                    .setParameter("id", id)
+                    .executeUpdate();
+            if (alterados == 0) {
+                log.warn("Livro {}: ISBN antigo '{}' repete o de outro livro, mantido na coluna {}",
+                        id, antigo, COLUNA_ISBN_ANTIGA);
+                rejeitados++;
+            } else {
+                copiados++;
+            }
+        }
+        return new BlocoIsbn(((Number) linhas.get(linhas.size() - 1)[0]).longValue(), copiados, rejeitados);
+    }
+
+    private void limparIsbnAntigo(long id) {
+        entityManager.createNativeQuery("update livros set " + COLUNA_ISBN_ANTIGA + " = null where id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.joellacerda.bookstan.roteamento;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Roteamento de leituras para réplicas, ligado quando "bookstan.replicas.urls" está definido.
+//
+// O DataSource usado pelo JPA passa a ser o DataSourceRoteado (atrás de um LazyConnectionDataSourceProxy):
+// transações somente leitura vão para as réplicas, o resto para o principal. O principal continua sendo
+// configurado por spring.datasource.* (inclusive spring.datasource.hikari.*); cada réplica tem seu próprio pool.
+// O gerenciador de transações usa o DialetoJpaRoteado, que não deixa leituras da réplica entrarem nos caches do Hibernate.
+@Configuration
+@ConditionalOnProperty(name = "bookstan.replicas.urls")
+public class ConfiguracaoRoteamento {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public DataSourceReplicas dataSourceReplicas(
+            @Qualifier("dataSourcePrimario") DataSource primario,
+            @Value("${bookstan.replicas.urls}") List<String> urls,
+            @Value("${bookstan.replicas.username:${spring.datasource.username:}}") String usuario,
+            @Value("${bookstan.replicas.password:${spring.datasource.password:}}") String senha,
+            @Value("${bookstan.replicas.pool-maximo:10}") int poolMaximo,
+            @Value("${bookstan.replicas.timeout-conexao:1s}") Duration timeoutConexao,
+            @Value("${bookstan.replicas.intervalo-verificacao:5s}") Duration intervaloVerificacao,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(usuario);
+            replica.setPassword(senha);
+            replica.setMaximumPoolSize(poolMaximo);
+            replica.setReadOnly(true);
+            // Réplica fora do ar: falha rápido (e a leitura vai para outra) em vez de esperar os 30s padrão
+            replica.setConnectionTimeout(timeoutConexao.toMillis());
+            // Não impede a aplicação de subir com uma réplica fora do ar
+            replica.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.add(replica);
+        }
+        return new DataSourceReplicas(replicas, primario, intervaloVerificacao);
+    }
+
+    // Substitui o JpaTransactionManager do Spring Boot só para trocar o dialeto (ver DialetoJpaRoteado)
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                    ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager() {
+            @Override
+            public void afterPropertiesSet() {
+                super.afterPropertiesSet(); // Copia o dialeto do EntityManagerFactory, por isso o nosso vem depois
+                setJpaDialect(new DialetoJpaRoteado());
+            }
+        };
+        transactionManager.setEntityManagerFactory(entityManagerFactory);
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario, DataSourceReplicas replicas) {
+        return new LazyConnectionDataSourceProxy(new DataSourceRoteado(primario, replicas));
+    }
+}
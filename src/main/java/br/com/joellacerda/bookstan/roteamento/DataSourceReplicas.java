@@ -0,0 +1,122 @@
+package br.com.joellacerda.bookstan.roteamento;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Conjunto de réplicas de leitura, usadas em rodízio (round-robin).
+//
+// Uma réplica que falha ao entregar uma conexão sai do rodízio na hora e a leitura tenta a próxima; sem
+// nenhuma réplica saudável, a conexão vem do principal. Uma verificação periódica (Connection.isValid) tira
+// réplicas fora do ar do rodízio antes que alguma requisição sofra o timeout e devolve as que voltaram.
+public class DataSourceReplicas extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceReplicas.class);
+    private static final int TIMEOUT_VERIFICACAO_SEGUNDOS = 2;
+
+    private final List<Replica> replicas;
+    private final DataSource primario;
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final ScheduledExecutorService verificador;
+
+    public DataSourceReplicas(List<HikariDataSource> replicas, DataSource primario, Duration intervaloVerificacao) {
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.primario = primario;
+        this.verificador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "bookstan-verificacao-replicas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalo = intervaloVerificacao.toMillis();
+        verificador.scheduleWithFixedDelay(this::verificarReplicas, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int inicio = Math.floorMod(proxima.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (!replica.saudavel) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException | RuntimeException e) {
+                replica.marcarFora(e);
+            }
+        }
+        log.debug("Nenhuma réplica disponível; leitura no banco principal");
+        return primario.getConnection();
+    }
+
+    // Os pools do Hikari só abrem conexões com as credenciais configuradas. Com as mesmas das réplicas, vale o
+    // rodízio (com a troca de réplica em caso de falha); com outras, a conexão é pedida ao principal com elas.
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        HikariDataSource configuracao = replicas.get(0).dataSource; // Todas as réplicas usam as mesmas credenciais
+        if (Objects.equals(username, configuracao.getUsername())
+                && Objects.toString(password, "").equals(Objects.toString(configuracao.getPassword(), ""))) {
+            return getConnection();
+        }
+        log.debug("Credenciais diferentes das réplicas; conexão no banco principal");
+        return primario.getConnection(username, password);
+    }
+
+    // Réplicas no rodízio neste momento (para testes e diagnóstico)
+    public List<String> getReplicasSaudaveis() {
+        return replicas.stream().filter(replica -> replica.saudavel).map(replica -> replica.nome).toList();
+    }
+
+    void verificarReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection conexao = replica.dataSource.getConnection()) {
+                if (!conexao.isValid(TIMEOUT_VERIFICACAO_SEGUNDOS)) {
+                    throw new SQLException("Connection.isValid retornou false");
+                }
+                if (!replica.saudavel) {
+                    log.info("Réplica {} de volta ao rodízio de leituras", replica.nome);
+                    replica.saudavel = true;
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.marcarFora(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        verificador.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+        private final String nome;
+        private final HikariDataSource dataSource;
+        private volatile boolean saudavel = true;
+
+        Replica(HikariDataSource dataSource) {
+            this.nome = dataSource.getPoolName();
+            this.dataSource = dataSource;
+        }
+
+        void marcarFora(Exception e) {
+            if (saudavel) {
+                log.warn("Réplica {} fora do rodízio de leituras: {}", nome, e.getMessage());
+                saudavel = false;
+            }
+        }
+    }
+}
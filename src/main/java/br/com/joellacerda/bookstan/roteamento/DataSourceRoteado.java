@@ -0,0 +1,30 @@
+package br.com.joellacerda.bookstan.roteamento;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Manda as transações somente leitura (@Transactional(readOnly = true)) para as réplicas e todo o resto
+// (escritas, leituras fora de transação, RoteamentoLeitura.noPrimario) para o principal.
+//
+// Precisa ficar atrás de um LazyConnectionDataSourceProxy: o JpaTransactionManager pede a conexão antes de
+// marcar a transação como somente leitura, e o proxy adia a escolha do banco até o primeiro comando SQL.
+class DataSourceRoteado extends AbstractRoutingDataSource {
+
+    enum Destino { PRIMARIO, REPLICA }
+
+    DataSourceRoteado(DataSource primario, DataSource replicas) {
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replicas));
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !RoteamentoLeitura.usarPrimario()
+                ? Destino.REPLICA
+                : Destino.PRIMARIO;
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.joellacerda.bookstan.roteamento;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+// Impede que leituras feitas numa réplica alimentem o cache de segundo nível e o cache de consultas do Hibernate.
+//
+// Uma réplica atrasada devolve dados anteriores à última escrita; guardados no cache, eles seriam servidos
+// como atuais (inclusive para quem mandou o X-Consistencia-Token) até a próxima escrita ou a expiração.
+// Nas transações que vão para a réplica o EntityManager ignora os caches (CacheRetrieveMode e CacheStoreMode
+// BYPASS), que ficam só para as leituras e escritas no principal. Só o BYPASS na gravação não basta: numa falta
+// no cache de consultas, o Hibernate grava o resultado sempre que a leitura do cache está ligada.
+class DialetoJpaRoteado extends HibernateJpaDialect {
+
+    private static final String CACHE_RETRIEVE_MODE = "jakarta.persistence.cache.retrieveMode";
+    private static final String CACHE_STORE_MODE = "jakarta.persistence.cache.storeMode";
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object dadosTransacao = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly() || RoteamentoLeitura.usarPrimario()) {
+            return dadosTransacao;
+        }
+        Map<String, Object> propriedades = entityManager.getProperties();
+        CacheRetrieveMode leituraAnterior = propriedades.get(CACHE_RETRIEVE_MODE) instanceof CacheRetrieveMode modo
+                ? modo : CacheRetrieveMode.USE;
+        CacheStoreMode gravacaoAnterior = propriedades.get(CACHE_STORE_MODE) instanceof CacheStoreMode modo
+                ? modo : CacheStoreMode.USE;
+        entityManager.setProperty(CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+        entityManager.setProperty(CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        return new TransacaoNaReplica(dadosTransacao, entityManager, leituraAnterior, gravacaoAnterior);
+    }
+
+    @Override
+    public void cleanupTransaction(Object dadosTransacao) {
+        if (dadosTransacao instanceof TransacaoNaReplica transacao) {
+            // O EntityManager pode continuar aberto depois da transação (open-in-view) e servir a uma escrita
+            if (transacao.entityManager().isOpen()) {
+                transacao.entityManager().setProperty(CACHE_RETRIEVE_MODE, transacao.leituraAnterior());
+                transacao.entityManager().setProperty(CACHE_STORE_MODE, transacao.gravacaoAnterior());
+            }
+            super.cleanupTransaction(transacao.dadosOriginais());
+        } else {
+            super.cleanupTransaction(dadosTransacao);
+        }
+    }
+
+    private record TransacaoNaReplica(Object dadosOriginais, EntityManager entityManager,
+                                      CacheRetrieveMode leituraAnterior, CacheStoreMode gravacaoAnterior) {
+    }
+}
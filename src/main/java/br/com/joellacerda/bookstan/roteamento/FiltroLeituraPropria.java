@@ -0,0 +1,72 @@
+package br.com.joellacerda.bookstan.roteamento;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+// Garante que o cliente leia as próprias escritas mesmo com réplicas atrasadas (read-your-writes).
+//
+// Toda resposta de escrita (POST, PUT, PATCH, DELETE) traz o cabeçalho X-Consistencia-Token com o instante
+// da escrita. Reenviado numa leitura, ele faz a requisição inteira ler do principal enquanto não tiver passado
+// "bookstan.replicas.janela-leitura-propria" (dimensionada pelo atraso máximo de replicação). Depois disso,
+// ou sem o cabeçalho, as leituras seguem para as réplicas normalmente.
+@Component
+@ConditionalOnProperty(name = "bookstan.replicas.urls")
+public class FiltroLeituraPropria extends OncePerRequestFilter {
+
+    static final String CABECALHO_TOKEN = "X-Consistencia-Token";
+
+    private static final Set<String> METODOS_LEITURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final long janelaMs;
+
+    @Autowired
+    public FiltroLeituraPropria(@Value("${bookstan.replicas.janela-leitura-propria:5s}") Duration janela) {
+        this.janelaMs = janela.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean escrita = !METODOS_LEITURA.contains(request.getMethod());
+        if (escrita) {
+            // Já antes da escrita, para o caso de o corpo da resposta ser enviado antes do fim do filtro
+            response.setHeader(CABECALHO_TOKEN, Long.toString(System.currentTimeMillis()));
+        }
+        if (tokenRecente(request.getHeader(CABECALHO_TOKEN))) {
+            RoteamentoLeitura.forcarPrimario();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RoteamentoLeitura.liberar();
+            if (escrita && !response.isCommitted()) {
+                // Depois do commit: a janela conta a partir do fim da escrita
+                response.setHeader(CABECALHO_TOKEN, Long.toString(System.currentTimeMillis()));
+            }
+        }
+    }
+
+    private boolean tokenRecente(String token) {
+        if (token == null || token.isBlank()) {
+            return false;
+        }
+        try {
+            long escritaEm = Long.parseLong(token.trim());
+            // Em módulo: o token pode vir de outra instância, com o relógio um pouco adiantado
+            return Math.abs(System.currentTimeMillis() - escritaEm) <= janelaMs;
+        } catch (NumberFormatException e) {
+            return false; // Token inválido: segue o roteamento normal
+        }
+    }
+}
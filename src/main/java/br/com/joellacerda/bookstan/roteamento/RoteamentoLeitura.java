@@ -0,0 +1,41 @@
+package br.com.joellacerda.bookstan.roteamento;
+
+import java.util.function.Supplier;
+
+// Indica, por thread, que as leituras devem ir ao banco principal mesmo em transações somente leitura
+// (ver DataSourceRoteado). Sem réplicas configuradas não tem efeito: tudo já vai ao principal.
+public final class RoteamentoLeitura {
+
+    private static final ThreadLocal<Boolean> PRIMARIO = new ThreadLocal<>();
+
+    private RoteamentoLeitura() {
+    }
+
+    // Executa a leitura no principal. Para o que não pode ver dados atrasados da réplica, como o que vai
+    // para o cache (um valor antigo lido logo depois de uma invalidação ficaria lá até expirar)
+    public static <T> T noPrimario(Supplier<T> leitura) {
+        Boolean anterior = PRIMARIO.get();
+        PRIMARIO.set(Boolean.TRUE);
+        try {
+            return leitura.get();
+        } finally {
+            if (anterior == null) {
+                PRIMARIO.remove();
+            } else {
+                PRIMARIO.set(anterior);
+            }
+        }
+    }
+
+    static void forcarPrimario() {
+        PRIMARIO.set(Boolean.TRUE);
+    }
+
+    static void liberar() {
+        PRIMARIO.remove();
+    }
+
+    static boolean usarPrimario() {
+        return Boolean.TRUE.equals(PRIMARIO.get());
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Total de livros da listagem paginada (GET /api/livros) guardado em memória, no lugar de um COUNT(*) por página.
+//
+// Ligado por "bookstan.paginacao.total-em-cache". Só a primeira leitura espera o COUNT(*); depois, passado
+// "bookstan.paginacao.intervalo-total", a próxima leitura ainda recebe o valor guardado e dispara a nova contagem
+// em segundo plano (refreshAfterWrite do Caffeine, no pool comum). O total pode ficar atrasado em relação às
+// escritas por até esse intervalo; na última página o LivroService usa o total exato, que ela mesma revela.
+@Component
+public class ContagemLivros {
+
+    private static final String CHAVE = "livros";
+
+    private final boolean habilitada;
+    private final LoadingCache<String, Long> total;
+
+    @Autowired
+    public ContagemLivros(LivroRepository livroRepository,
+                          @Value("${bookstan.paginacao.total-em-cache:false}") boolean habilitada,
+                          @Value("${bookstan.paginacao.intervalo-total:30s}") Duration intervalo) {
+        this.habilitada = habilitada;
+        this.total = Caffeine.newBuilder()
+                .refreshAfterWrite(intervalo)
+                .build(chave -> livroRepository.count());
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    public long total() {
+        return total.get(CHAVE);
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.exception.FormatoInvalidoException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+// Formatos de arquivo aceitos na exportação/importação do catálogo
+public enum FormatoArquivo {
+
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"), // Um objeto JSON por linha
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv"),
+    CBOR(MediaType.parseMediaType("application/cbor-seq"), "cbor"); // Objetos CBOR em sequência (RFC 8742), só na exportação
+
+    private final MediaType mediaType;
+    private final String extensao;
+
+    FormatoArquivo(MediaType mediaType, String extensao) {
+        this.mediaType = mediaType;
+        this.extensao = extensao;
+    }
+
+    // Converte o valor do parâmetro "formato" (ex: "csv", "ndjson"), ignorando maiúsculas/minúsculas
+    public static FormatoArquivo deParametro(String valor) {
+        for (FormatoArquivo formato : values()) {
+            if (formato.extensao.equalsIgnoreCase(valor)) {
+                return formato;
+            }
+        }
+        throw new FormatoInvalidoException("Formato não suportado: " + valor + ". Use ndjson, csv ou cbor.");
+    }
+
+    // Escolhe o formato pelo cabeçalho Accept (ex: "application/cbor-seq" ou "text/csv"), na ordem em que os tipos
+    // aparecem; sem cabeçalho, com "*/*" ou com um tipo que não é de nenhum formato, fica o NDJSON
+    public static FormatoArquivo deAccept(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return NDJSON;
+        }
+        List<MediaType> aceitos;
+        try {
+            aceitos = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return NDJSON;
+        }
+        for (MediaType aceito : aceitos) {
+            for (FormatoArquivo formato : values()) {
+                // application/cbor também serve: quem pede CBOR recebe a sequência de objetos
+                if (formato.mediaType.isCompatibleWith(aceito)
+                        || (formato == CBOR && MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(aceito))) {
+                    return formato;
+                }
+            }
+        }
+        return NDJSON;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+}
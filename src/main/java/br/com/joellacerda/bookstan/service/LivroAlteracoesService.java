@@ -0,0 +1,345 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.dto.AlteracaoLivroDTO;
+import br.com.joellacerda.bookstan.dto.AlteracoesDTO;
+import br.com.joellacerda.bookstan.event.LivroAlteradoEvent;
+import br.com.joellacerda.bookstan.exception.AlteracoesExpiradasException;
+import br.com.joellacerda.bookstan.exception.CursorInvalidoException;
+import br.com.joellacerda.bookstan.model.AlteracaoLivro;
+import br.com.joellacerda.bookstan.model.ContadorAlteracoes;
+import br.com.joellacerda.bookstan.repository.AlteracaoLivroRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Feed de alterações do catálogo (GET /api/livros/changes), para quem mantém uma cópia dos livros
+// (índice de busca externo, recomendações) sincronizar só o que mudou, em vez de reler a listagem inteira.
+//
+// Gravação: cada LivroAlteradoEvent publicado pelos serviços é acumulado na transação corrente e, no fim dela
+// (beforeCommit), vira um registro em livros_alteracoes, na mesma transação que alterou o livro. As sequências
+// são reservadas nesse momento, com a linha do contador travada até o commit: elas seguem a ordem dos commits.
+// Várias alterações do mesmo livro na mesma transação viram um registro só (o estado final).
+//
+// Leitura: lotes em ordem de sequência a partir do token "since". Com espera (long-poll), a requisição sem
+// novidades fica estacionada, sem ocupar thread, até um commit desta instância ou o fim da espera; com várias
+// instâncias, as escritas feitas nas outras só aparecem na consulta feita ao fim da espera.
+//
+// Retenção: os registros mais antigos que "bookstan.alteracoes.retencao" são apagados periodicamente, em blocos
+// (um DELETE por transação, sempre no banco principal). Um token anterior ao registro mais antigo que sobrou
+// recebe 410 Gone: o consumidor perdeu alterações e precisa refazer a cópia pelo /export.
+@Service
+public class LivroAlteracoesService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LivroAlteracoesService.class);
+
+    private final AlteracaoLivroRepository alteracaoLivroRepository;
+    private final AsyncTaskExecutor executor;
+    private final TransactionTemplate transacaoLeitura;
+    private final TransactionTemplate transacaoEscrita;
+    private final int limiteMaximo;
+    private final Duration esperaMaxima;
+    private final Duration retencao;
+    private final int tamanhoBlocoLimpeza;
+    private final ScheduledExecutorService limpeza;
+
+    // Maior sequência já commitada por esta instância e as requisições em long-poll à espera de uma nova
+    private final AtomicLong ultimaConfirmada = new AtomicLong();
+    private final Set<Espera> esperas = ConcurrentHashMap.newKeySet();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public LivroAlteracoesService(AlteracaoLivroRepository alteracaoLivroRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                                  @Value("${bookstan.alteracoes.limite-maximo:1000}") int limiteMaximo,
+                                  @Value("${bookstan.alteracoes.espera-maxima:30s}") Duration esperaMaxima,
+                                  @Value("${bookstan.alteracoes.retencao:7d}") Duration retencao,
+                                  @Value("${bookstan.alteracoes.intervalo-limpeza:10m}") Duration intervaloLimpeza,
+                                  @Value("${bookstan.alteracoes.tamanho-bloco-limpeza:10000}") int tamanhoBlocoLimpeza) {
+        this.alteracaoLivroRepository = alteracaoLivroRepository;
+        this.executor = executor;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+        this.transacaoEscrita = new TransactionTemplate(transactionManager);
+        this.limiteMaximo = limiteMaximo;
+        this.esperaMaxima = esperaMaxima;
+        this.retencao = retencao;
+        this.tamanhoBlocoLimpeza = tamanhoBlocoLimpeza;
+        this.limpeza = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "bookstan-limpeza-alteracoes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalo = intervaloLimpeza.toMillis();
+        limpeza.scheduleWithFixedDelay(this::limparComSeguranca, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        limpeza.shutdownNow();
+    }
+
+    // Uma requisição em long-poll: de onde o cliente quer continuar e quantos registros aceita
+    private record Espera(long since, int limite, DeferredResult<AlteracoesDTO> resultado) {
+    }
+
+    // Cria a linha do contador na primeira inicialização (o ddl-auto cria só a tabela), partindo da
+    // maior sequência já gravada
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            Long valor = transacaoEscrita.execute(status -> {
+                ContadorAlteracoes contador = entityManager.find(ContadorAlteracoes.class, ContadorAlteracoes.ID);
+                if (contador == null) {
+                    Long maior = entityManager.createQuery("select coalesce(max(a.seq), 0) from AlteracaoLivro a", Long.class)
+                            .getSingleResult();
+                    contador = new ContadorAlteracoes(maior);
+                    entityManager.persist(contador);
+                }
+                return contador.getValor();
+            });
+            ultimaConfirmada.accumulateAndGet(valor, Math::max);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Contador do log de alterações criado por outra instância");
+        }
+    }
+
+    @EventListener
+    public void aoAlterarLivro(LivroAlteradoEvent evento) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Os serviços publicam dentro da transação; fora dela, o registro ganha uma transação própria
+            transacaoEscrita.executeWithoutResult(status -> aoAlterarLivro(evento));
+            return;
+        }
+        AlteracoesDaTransacao pendentes = (AlteracoesDaTransacao) TransactionSynchronizationManager.getResource(this);
+        if (pendentes == null) {
+            pendentes = new AlteracoesDaTransacao();
+            TransactionSynchronizationManager.bindResource(this, pendentes);
+            TransactionSynchronizationManager.registerSynchronization(pendentes);
+        }
+        pendentes.adicionar(evento);
+    }
+
+    // Lote de até "limite" alterações depois do token. Sem novidades e com espera, a resposta aguarda até
+    // "espera" (limitada a "bookstan.alteracoes.espera-maxima") por um commit e devolve o lote novo
+    // (ou vazio, no fim da espera). Sem espera, o DeferredResult já volta preenchido.
+    public DeferredResult<AlteracoesDTO> aguardarAlteracoes(String token, int limite, Duration espera) {
+        long since = decodificar(token);
+        int limiteEfetivo = limitar(limite);
+        Duration esperaEfetiva = espera.compareTo(esperaMaxima) > 0 ? esperaMaxima : espera;
+
+        long confirmadaAntes = ultimaConfirmada.get();
+        AlteracoesDTO lote = buscar(since, limiteEfetivo);
+        if (!lote.getChanges().isEmpty() || esperaEfetiva.isZero() || esperaEfetiva.isNegative()) {
+            DeferredResult<AlteracoesDTO> resultado = new DeferredResult<>();
+            resultado.setResult(lote);
+            return resultado;
+        }
+
+        DeferredResult<AlteracoesDTO> resultado = new DeferredResult<>(esperaEfetiva.toMillis());
+        Espera registro = new Espera(since, limiteEfetivo, resultado);
+        resultado.onTimeout(() -> responder(registro, true));
+        resultado.onCompletion(() -> esperas.remove(registro));
+        estacionar(registro, confirmadaAntes);
+        return resultado;
+    }
+
+    // Última sequência confirmada: quem vai copiar o catálogo inteiro guarda este token antes e depois segue o
+    // feed a partir dele (as alterações feitas durante a cópia podem vir repetidas, nunca perdidas)
+    public String tokenAtual() {
+        Long ultima = transacaoLeitura.execute(status -> alteracaoLivroRepository.ultimaSequencia().orElse(0L));
+        return Long.toString(ultima);
+    }
+
+    private AlteracoesDTO buscar(long since, int limite) {
+        List<AlteracaoLivro> registros = transacaoLeitura.execute(status -> {
+            List<AlteracaoLivro> lote = alteracaoLivroRepository.findBySeqGreaterThanOrderBySeq(since, Limit.of(limite + 1));
+            // As sequências não têm buracos: se o lote começa logo depois do token, nada foi apagado entre eles
+            if (lote.isEmpty() || lote.get(0).getSeq() != since + 1) {
+                verificarRetencao(since);
+            }
+            return lote;
+        });
+        boolean temMais = registros.size() > limite; // Um registro a mais só para saber se há outro lote
+        List<AlteracaoLivroDTO> alteracoes = registros.stream()
+                .limit(limite)
+                .map(AlteracaoLivroDTO::de)
+                .toList();
+        long proximo = alteracoes.isEmpty() ? since : alteracoes.get(alteracoes.size() - 1).getSeq();
+        return new AlteracoesDTO(alteracoes, Long.toString(proximo), temMais);
+    }
+
+    // 410 se a retenção já apagou registros posteriores ao token. O contador é lido antes do registro mais antigo:
+    // assim um commit entre as duas consultas não faz um consumidor em dia parecer atrasado
+    private void verificarRetencao(long since) {
+        long ultima = alteracaoLivroRepository.ultimaSequencia().orElse(0L);
+        long apagadasAte = alteracaoLivroRepository.primeiraSequencia().map(primeira -> primeira - 1).orElse(ultima);
+        if (since < apagadasAte) {
+            throw new AlteracoesExpiradasException("O token de alterações é anterior aos registros guardados. " +
+                    "Refaça a cópia por GET /api/livros/export e continue do cabeçalho X-Alteracoes-Token.");
+        }
+    }
+
+    // Apaga os registros mais antigos que a retenção, em blocos de sequências consecutivas, cada um na sua
+    // transação de escrita (no banco principal, mesmo com réplicas). Retorna quantos foram apagados.
+    public int limparAlteracoesAntigas() {
+        Instant corte = Instant.now().minus(retencao);
+        int apagados = 0;
+        while (true) {
+            Integer bloco = transacaoEscrita.execute(status -> alteracaoLivroRepository.primeiraSequencia()
+                    .flatMap(primeira -> alteracaoLivroRepository.ultimaSequenciaAntesDe(primeira + tamanhoBlocoLimpeza, corte))
+                    .map(ultima -> alteracaoLivroRepository.deleteBySeqLessThan(ultima + 1))
+                    .orElse(0));
+            apagados += bloco;
+            if (bloco < tamanhoBlocoLimpeza) {
+                return apagados; // Bloco incompleto: o restante ainda está dentro da retenção
+            }
+        }
+    }
+
+    private void limparComSeguranca() {
+        try {
+            int apagados = limparAlteracoesAntigas();
+            if (apagados > 0) {
+                log.info("{} registros do log de alterações apagados pela retenção", apagados);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao apagar registros antigos do log de alterações", e); // Tenta de novo no próximo ciclo
+        }
+    }
+
+    // Deixa a requisição à espera. Se um commit aconteceu desde a última consulta dela (confirmadaAntes),
+    // o aviso pode ter passado antes do registro: consulta de novo em vez de esperar pelo próximo
+    private void estacionar(Espera espera, long confirmadaAntes) {
+        esperas.add(espera);
+        if (espera.resultado().isSetOrExpired()) {
+            esperas.remove(espera); // Terminou (timeout) enquanto era registrada
+        } else if (ultimaConfirmada.get() != confirmadaAntes) {
+            acordar();
+        }
+    }
+
+    private void responder(Espera espera, boolean fimDaEspera) {
+        try {
+            long confirmadaAntes = ultimaConfirmada.get();
+            AlteracoesDTO lote = buscar(espera.since(), espera.limite());
+            if (lote.getChanges().isEmpty() && !fimDaEspera) {
+                // O commit ainda não é visível para esta leitura (ex: réplica atrasada): espera o próximo
+                estacionar(espera, confirmadaAntes);
+                return;
+            }
+            espera.resultado().setResult(lote);
+        } catch (RuntimeException e) {
+            espera.resultado().setErrorResult(e);
+        }
+    }
+
+    // Responde, numa thread do executor, as esperas que o último commit pode atender
+    private void acordar() {
+        long confirmada = ultimaConfirmada.get();
+        for (Espera espera : esperas) {
+            if (espera.since() < confirmada && esperas.remove(espera)) {
+                executor.execute(() -> responder(espera, false));
+            }
+        }
+    }
+
+    private long gravar(Collection<LivroAlteradoEvent> eventos) {
+        // Primeiro as alterações dos livros: a transação já tem todos os seus locks quando trava o contador,
+        // que fica preso só pelos INSERTs do log e pelo commit (e não há espera circular com outra transação)
+        alteracaoLivroRepository.flush();
+        long ultima = alteracaoLivroRepository.reservarSequencias(eventos.size());
+        long seq = ultima - eventos.size();
+        Instant agora = Instant.now();
+        for (LivroAlteradoEvent evento : eventos) {
+            // persist, não save: com o ID atribuído, o save faria um SELECT antes para decidir entre INSERT e UPDATE
+            entityManager.persist(AlteracaoLivro.de(++seq, evento, agora));
+        }
+        return ultima;
+    }
+
+    private int limitar(int limite) {
+        return Math.max(1, Math.min(limite, limiteMaximo));
+    }
+
+    private static long decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return 0; // Desde o início do log
+        }
+        try {
+            long since = Long.parseLong(token.trim());
+            if (since < 0) {
+                throw new CursorInvalidoException("Token de alterações inválido.");
+            }
+            return since;
+        } catch (NumberFormatException e) {
+            throw new CursorInvalidoException("Token de alterações inválido.");
+        }
+    }
+
+    // Alterações acumuladas numa transação, gravadas no fim dela
+    private final class AlteracoesDaTransacao implements TransactionSynchronization {
+
+        private final Map<Long, LivroAlteradoEvent> eventos = new LinkedHashMap<>();
+        private long ultima;
+
+        void adicionar(LivroAlteradoEvent evento) {
+            eventos.remove(evento.id()); // Vai para o fim: a ordem é a da última alteração de cada livro
+            eventos.put(evento.id(), evento);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!eventos.isEmpty()) {
+                ultima = gravar(eventos.values());
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (ultima > 0) {
+                ultimaConfirmada.accumulateAndGet(ultima, Math::max);
+                if (!esperas.isEmpty()) {
+                    acordar();
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LivroAlteracoesService.this);
+        }
+    }
+}
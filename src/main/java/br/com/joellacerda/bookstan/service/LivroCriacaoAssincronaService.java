@@ -0,0 +1,240 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.dto.CriacaoAssincronaDTO;
+import br.com.joellacerda.bookstan.dto.ItemLoteResultadoDTO;
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.exception.FilaCheiaException;
+import br.com.joellacerda.bookstan.exception.ProtocoloNaoEncontradoException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Cadastro assíncrono com commit agrupado (POST /api/livros/async), para cargas de muitos cadastros avulsos.
+//
+// A requisição só valida o livro, coloca-o numa fila limitada ("bookstan.criacao-assincrona.capacidade-fila")
+// e responde 202 com um protocolo. Uma thread gravadora junta os pedidos em lotes de até
+// "bookstan.criacao-assincrona.tamanho-lote" livros ou do que chegou em "bookstan.criacao-assincrona.espera-lote"
+// depois do primeiro, o que vier antes, e grava cada lote numa transação (LivroLoteService): um commit e
+// INSERTs agrupados para centenas de cadastros, em vez de um commit por requisição.
+//
+// Com a fila cheia a requisição é recusada na hora (503 com Retry-After), em vez de a latência crescer sem limite.
+// Os protocolos ainda não gravados ficam num mapa próprio, limitado pela capacidade da fila (mais o lote em
+// gravação), e nunca são descartados. Ao chegar à situação final, o protocolo passa para um cache que o guarda
+// por "bookstan.criacao-assincrona.retencao", com no máximo "bookstan.criacao-assincrona.maximo-situacoes"
+// protocolos; acima disso o Caffeine descarta os menos consultados, não necessariamente os mais antigos.
+// Os pedidos ainda na fila quando a aplicação para são gravados antes de a thread terminar; os que chegam depois
+// do início do encerramento são recusados, mesmo os que entraram na fila depois de a gravadora sair.
+//
+// Métricas: bookstan.criacao.fila (pedidos à espera), bookstan.criacao.gravacao (tempo de gravação de cada lote),
+// bookstan.criacao.lote (livros por lote) e bookstan.criacao.recusados (pedidos recusados com a fila cheia).
+@Service
+public class LivroCriacaoAssincronaService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LivroCriacaoAssincronaService.class);
+
+    private static final long INTERVALO_VERIFICACAO_MS = 100;
+
+    private final LivroLoteService livroLoteService;
+    private final BlockingQueue<Pedido> fila;
+    private final Map<String, CriacaoAssincronaDTO> pendentes = new ConcurrentHashMap<>();
+    private final Cache<String, CriacaoAssincronaDTO> situacoes; // Só situações finais
+    private final int tamanhoLote;
+    private final long esperaLoteNanos;
+    private final Timer tempoGravacao;
+    private final DistributionSummary tamanhoDosLotes;
+    private final Counter recusados;
+
+    private volatile boolean rodando;
+    private Thread gravadora;
+
+    @Autowired
+    public LivroCriacaoAssincronaService(LivroLoteService livroLoteService,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${bookstan.criacao-assincrona.capacidade-fila:10000}") int capacidadeFila,
+                                         @Value("${bookstan.criacao-assincrona.tamanho-lote:500}") int tamanhoLote,
+                                         @Value("${bookstan.criacao-assincrona.espera-lote:50ms}") Duration esperaLote,
+                                         @Value("${bookstan.criacao-assincrona.retencao:10m}") Duration retencao,
+                                         @Value("${bookstan.criacao-assincrona.maximo-situacoes:100000}") long maximoSituacoes) {
+        this.livroLoteService = livroLoteService;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.situacoes = Caffeine.newBuilder().maximumSize(maximoSituacoes).expireAfterWrite(retencao).build();
+        this.tamanhoLote = tamanhoLote;
+        this.esperaLoteNanos = esperaLote.toNanos();
+        Gauge.builder("bookstan.criacao.fila", fila, BlockingQueue::size)
+                .description("Cadastros assíncronos à espera de gravação")
+                .register(meterRegistry);
+        this.tempoGravacao = Timer.builder("bookstan.criacao.gravacao")
+                .description("Tempo de gravação de cada lote de cadastros assíncronos")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.tamanhoDosLotes = DistributionSummary.builder("bookstan.criacao.lote")
+                .description("Livros gravados por lote")
+                .register(meterRegistry);
+        this.recusados = Counter.builder("bookstan.criacao.recusados")
+                .description("Cadastros assíncronos recusados com a fila cheia")
+                .register(meterRegistry);
+    }
+
+    // Um cadastro à espera na fila
+    private record Pedido(String protocolo, LivroRequestDTO livro) {
+    }
+
+    // Coloca o livro (já validado) na fila e devolve a situação inicial (PENDENTE) com o protocolo
+    public CriacaoAssincronaDTO enfileirar(LivroRequestDTO livroRequestDTO) {
+        String protocolo = UUID.randomUUID().toString();
+        CriacaoAssincronaDTO pendente = new CriacaoAssincronaDTO(protocolo, CriacaoAssincronaDTO.Estado.PENDENTE, null, null);
+        // Registrada antes de entrar na fila: a gravadora pode terminar antes de esta thread continuar
+        pendentes.put(protocolo, pendente);
+        Pedido pedido = new Pedido(protocolo, livroRequestDTO);
+        if (!rodando) {
+            throw recusar(protocolo, "O cadastro assíncrono está sendo encerrado. Tente novamente em instantes.");
+        }
+        if (!fila.offer(pedido)) {
+            throw recusar(protocolo, "A fila de cadastros está cheia. Tente novamente em instantes.");
+        }
+        // O stop() pode ter começado entre a verificação acima e o offer, e a gravadora já ter saído com a fila
+        // vazia. Se o pedido ainda está na fila, ninguém vai gravá-lo: sai da fila e é recusado. Se já saiu,
+        // a gravadora o pegou e vai gravá-lo antes de terminar.
+        if (!rodando && fila.remove(pedido)) {
+            throw recusar(protocolo, "O cadastro assíncrono está sendo encerrado. Tente novamente em instantes.");
+        }
+        return pendente;
+    }
+
+    private FilaCheiaException recusar(String protocolo, String mensagem) {
+        pendentes.remove(protocolo);
+        recusados.increment();
+        return new FilaCheiaException(mensagem);
+    }
+
+    // Primeiro os pendentes: a gravadora grava a situação final antes de tirar o protocolo de lá, então quem não o
+    // encontra entre os pendentes o encontra no cache
+    public CriacaoAssincronaDTO consultar(String protocolo) {
+        CriacaoAssincronaDTO situacao = pendentes.get(protocolo);
+        if (situacao == null) {
+            situacao = situacoes.getIfPresent(protocolo);
+        }
+        if (situacao == null) {
+            throw new ProtocoloNaoEncontradoException("Cadastro não encontrado ou expirado: " + protocolo);
+        }
+        return situacao;
+    }
+
+    @Override
+    public void start() {
+        rodando = true;
+        gravadora = new Thread(this::gravarContinuamente, "bookstan-criacao-assincrona");
+        gravadora.setDaemon(true);
+        gravadora.start();
+    }
+
+    @Override
+    public void stop() {
+        rodando = false; // Novos pedidos são recusados; a gravadora esvazia a fila e termina
+        try {
+            gravadora.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return rodando;
+    }
+
+    // Para depois do servidor web (fase menor), quando não chegam mais requisições, e antes do banco
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void gravarContinuamente() {
+        List<Pedido> lote = new ArrayList<>(tamanhoLote);
+        try {
+            while (rodando || !fila.isEmpty()) {
+                // Sem prazo infinito: acorda de tempos em tempos para perceber o fim da aplicação
+                Pedido primeiro = fila.poll(INTERVALO_VERIFICACAO_MS, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                lote.add(primeiro);
+                completarLote(lote);
+                gravar(lote);
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Gravação assíncrona interrompida com {} cadastros na fila", fila.size() + lote.size());
+        }
+    }
+
+    // Junta ao lote o que já está na fila e o que chegar até o prazo, contado a partir do primeiro pedido
+    private void completarLote(List<Pedido> lote) throws InterruptedException {
+        long prazo = System.nanoTime() + esperaLoteNanos;
+        while (lote.size() < tamanhoLote) {
+            if (fila.drainTo(lote, tamanhoLote - lote.size()) > 0) {
+                continue;
+            }
+            long restante = prazo - System.nanoTime();
+            Pedido proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : null;
+            if (proximo == null) {
+                return;
+            }
+            lote.add(proximo);
+        }
+    }
+
+    private void gravar(List<Pedido> lote) {
+        long inicio = System.nanoTime();
+        try {
+            List<ItemLoteResultadoDTO> resultados = livroLoteService.gravarValidados(
+                    lote.stream().map(Pedido::livro).toList());
+            for (int i = 0; i < lote.size(); i++) {
+                finalizar(situacao(lote.get(i).protocolo(), resultados.get(i)));
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao gravar um lote de {} cadastros assíncronos", lote.size(), e);
+            lote.forEach(pedido -> finalizar(new CriacaoAssincronaDTO(pedido.protocolo(),
+                    CriacaoAssincronaDTO.Estado.ERRO, null, List.of("Falha ao gravar o livro. Tente novamente."))));
+        } finally {
+            tempoGravacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            tamanhoDosLotes.record(lote.size());
+        }
+    }
+
+    // Nesta ordem: o protocolo nunca fica ausente dos dois lugares ao mesmo tempo (ver consultar)
+    private void finalizar(CriacaoAssincronaDTO situacao) {
+        situacoes.put(situacao.getProtocolo(), situacao);
+        pendentes.remove(situacao.getProtocolo());
+    }
+
+    private static CriacaoAssincronaDTO situacao(String protocolo, ItemLoteResultadoDTO resultado) {
+        CriacaoAssincronaDTO.Estado estado = switch (resultado.getStatus()) {
+            case CRIADO -> CriacaoAssincronaDTO.Estado.CRIADO;
+            case DUPLICADO -> CriacaoAssincronaDTO.Estado.DUPLICADO;
+            default -> CriacaoAssincronaDTO.Estado.ERRO;
+        };
+        return new CriacaoAssincronaDTO(protocolo, estado, resultado.getId(), resultado.getErros());
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.joellacerda.bookstan.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Leitura e escrita de linhas CSV (RFC 4180) com as colunas do catálogo de livros
+final class LivroCsv {
+
+    static final String CABECALHO = "id,titulo,autor,genero,anoPublicacao,isbn";
+
+    // Devolvido por lerRegistro no lugar de um registro maior que o limite (comparado por identidade)
+    static final List<String> REGISTRO_GRANDE_DEMAIS = Collections.unmodifiableList(new ArrayList<>(0));
+
+    private LivroCsv() {
+    }
+
+    // Escreve um campo, colocando entre aspas apenas quando necessário
+    static void escreverCampo(Writer saida, Object valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        String texto = valor.toString();
+        boolean precisaAspas = texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0
+                || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0;
+        if (!precisaAspas) {
+            saida.write(texto);
+            return;
+        }
+        saida.write('"');
+        saida.write(texto.replace("\"", "\"\""));
+        saida.write('"');
+    }
+
+    // Lê o próximo registro da entrada. Um registro pode ocupar várias linhas quando há quebras de linha
+    // dentro de um campo entre aspas. Retorna null quando a entrada termina.
+    // Um registro com mais de "maximo" caracteres (ex: aspas nunca fechadas, que engoliriam o resto do arquivo)
+    // é lido até o fim sem ser guardado e vira REGISTRO_GRANDE_DEMAIS, então a memória usada fica limitada.
+    static List<String> lerRegistro(BufferedReader entrada, int maximo) throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        boolean leuAlgo = false;
+        long lidos = 0;
+        int c;
+        while ((c = entrada.read()) != -1) {
+            leuAlgo = true;
+            if (++lidos > maximo) {
+                // Só procura o fim do registro, sem guardar nada
+                campos.clear();
+                atual.setLength(0);
+                if (c == '"') {
+                    entreAspas = !entreAspas; // Aspas duplas ("") se anulam
+                } else if (c == '\n' && !entreAspas) {
+                    break;
+                }
+                continue;
+            }
+            if (entreAspas) {
+                if (c != '"') {
+                    atual.append((char) c);
+                    continue;
+                }
+                // Aspas duplas ("") dentro de um campo entre aspas representam uma aspa literal
+                entrada.mark(1);
+                int proximo = entrada.read();
+                if (proximo == '"') {
+                    atual.append('"');
+                } else {
+                    entreAspas = false;
+                    if (proximo != -1) {
+                        entrada.reset();
+                    }
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                atual.append((char) c);
+            }
+        }
+        if (!leuAlgo) {
+            return null;
+        }
+        if (lidos > maximo) {
+            return REGISTRO_GRANDE_DEMAIS;
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+}
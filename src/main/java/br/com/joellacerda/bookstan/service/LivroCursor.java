@@ -0,0 +1,93 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.exception.CursorInvalidoException;
+import br.com.joellacerda.bookstan.model.Livro;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+// Token de continuação da paginação por cursor.
+// Guarda o campo/direção da ordenação e a chave (valor, id) do último livro entregue.
+// Para o cliente é um texto opaco (Base64 URL-safe); ele só precisa devolvê-lo no próximo pedido.
+@Getter
+public class LivroCursor {
+
+    private static final String VERSAO = "v1";
+    private static final String SEPARADOR = "|";
+
+    // Campos de ordenação aceitos no modo cursor e o tipo Java da chave de cada um
+    private static final Map<String, Class<?>> CAMPOS = Map.of(
+            "id", Long.class,
+            "titulo", String.class,
+            "autor", String.class,
+            "anoPublicacao", Integer.class
+    );
+
+    private final String campo;
+    private final Sort.Direction direcao;
+    private final Object valor;
+    private final Long id;
+
+    public LivroCursor(String campo, Sort.Direction direcao, Object valor, Long id) {
+        this.campo = campo;
+        this.direcao = direcao;
+        this.valor = valor;
+        this.id = id;
+    }
+
+    public static boolean campoSuportado(String campo) {
+        return CAMPOS.containsKey(campo);
+    }
+
+    // Monta o cursor que aponta para logo depois do livro informado
+    public static LivroCursor depoisDe(Livro livro, String campo, Sort.Direction direcao) {
+        Object valor = switch (campo) {
+            case "titulo" -> livro.getTitulo();
+            case "autor" -> livro.getAutor();
+            case "anoPublicacao" -> livro.getAnoPublicacao();
+            default -> livro.getId();
+        };
+        return new LivroCursor(campo, direcao, valor, livro.getId());
+    }
+
+    // Formato interno: v1|campo|ASC|id|valor (o valor vai por último, então pode conter "|").
+    // Valor nulo (livro sem ano de publicação) é a ausência da última parte: v1|campo|ASC|id
+    public String codificar() {
+        String texto = String.join(SEPARADOR, VERSAO, campo, direcao.name(), String.valueOf(id));
+        if (valor != null) {
+            texto += SEPARADOR + valor;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LivroCursor decodificar(String token) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = texto.split("\\" + SEPARADOR, 5);
+            if (partes.length < 4 || !VERSAO.equals(partes[0]) || !campoSuportado(partes[1])) {
+                throw new CursorInvalidoException("Cursor inválido.");
+            }
+            String campo = partes[1];
+            Sort.Direction direcao = Sort.Direction.valueOf(partes[2]);
+            Long id = Long.valueOf(partes[3]);
+            Object valor = partes.length == 5 ? converterValor(CAMPOS.get(campo), partes[4]) : null;
+            return new LivroCursor(campo, direcao, valor, id);
+        } catch (IllegalArgumentException e) {
+            // Base64 malformado, direção desconhecida ou número inválido (NumberFormatException é subclasse)
+            throw new CursorInvalidoException("Cursor inválido.");
+        }
+    }
+
+    private static Object converterValor(Class<?> tipo, String texto) {
+        if (tipo == Long.class) {
+            return Long.valueOf(texto);
+        }
+        if (tipo == Integer.class) {
+            return Integer.valueOf(texto);
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.cache.LivroCache;
+import br.com.joellacerda.bookstan.dto.AtualizacaoEmMassaDTO;
+import br.com.joellacerda.bookstan.dto.FiltroLivrosDTO;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.dto.OperacaoEmMassaResultadoDTO;
+import br.com.joellacerda.bookstan.event.LivroAlteradoEvent;
+import br.com.joellacerda.bookstan.exception.FiltroInvalidoException;
+import br.com.joellacerda.bookstan.exception.PatchInvalidoException;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Serviço para remover ou alterar de uma vez todos os livros que atendem a um filtro (limpeza de catálogo,
+// reclassificação de gênero), sem carregar as entidades.
+//
+// O trabalho é dividido em blocos de até "bookstan.em-massa.tamanho-bloco" livros, percorridos em ordem de ID,
+// e cada bloco roda na sua transação: uma consulta pelos IDs do bloco e um único DELETE/UPDATE sobre eles.
+// Assim nenhuma transação segura milhares de locks por muito tempo, e uma falha no meio preserva os blocos já
+// concluídos. Ao fim de cada bloco o cache é invalidado e o índice de busca recebe os eventos dos livros afetados.
+@Service
+public class LivroEmMassaService {
+
+    private static final Logger log = LoggerFactory.getLogger(LivroEmMassaService.class);
+
+    private final LivroRepository livroRepository;
+    private final LivroService livroService;
+    private final LivroCache livroCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoBloco;
+    private final int maximoIds;
+
+    @Autowired
+    public LivroEmMassaService(LivroRepository livroRepository,
+                               LivroService livroService,
+                               LivroCache livroCache,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bookstan.em-massa.tamanho-bloco:1000}") int tamanhoBloco,
+                               @Value("${bookstan.em-massa.maximo-ids:10000}") int maximoIds) {
+        this.livroRepository = livroRepository;
+        this.livroService = livroService;
+        this.livroCache = livroCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoBloco = tamanhoBloco;
+        this.maximoIds = maximoIds;
+    }
+
+    // Metodo para DELETAR todos os livros que atendem ao filtro
+    public OperacaoEmMassaResultadoDTO deletarLivros(FiltroLivrosDTO filtro) {
+        validarFiltro(filtro);
+        OperacaoEmMassaResultadoDTO resultado = executarEmBlocos(filtro, ids -> {
+            int removidos = livroRepository.deletarPorIds(ids, filtro);
+            // Um livro alterado por outro cliente entre as duas consultas pode não atender mais ao filtro:
+            // nesse caso (raro) uma consulta a mais descobre quais IDs do bloco de fato saíram do banco
+            List<Long> removidosIds = removidos == ids.size() ? ids : idsQueNaoExistemMais(ids);
+            removidosIds.forEach(id -> {
+                livroCache.invalidar(id);
+                eventPublisher.publishEvent(LivroAlteradoEvent.removido(id));
+            });
+            return removidos;
+        });
+        log.info("Remoção em massa com filtro {}: {} livros em {} blocos ({} ms)",
+                filtro, resultado.getAfetados(), resultado.getBlocos(), resultado.getDuracaoMs());
+        return resultado;
+    }
+
+    // Metodo para ATUALIZAR todos os livros que atendem ao filtro (as alterações seguem o formato do PATCH)
+    public OperacaoEmMassaResultadoDTO atualizarLivros(AtualizacaoEmMassaDTO atualizacao) {
+        FiltroLivrosDTO filtro = atualizacao != null ? atualizacao.getFiltro() : null;
+        validarFiltro(filtro);
+        Map<String, Object> alteracoes = atualizacao.getAlteracoes();
+        if (alteracoes != null && alteracoes.containsKey("isbn")) {
+            // O ISBN é único: não faz sentido o mesmo valor em vários livros
+            throw new PatchInvalidoException(List.of("isbn: não pode ser alterado em massa."));
+        }
+        Map<String, Object> campos = livroService.validarPatch(alteracoes);
+        if (campos.isEmpty()) {
+            throw new PatchInvalidoException(List.of("alteracoes: informe pelo menos um campo a alterar."));
+        }
+
+        OperacaoEmMassaResultadoDTO resultado = executarEmBlocos(filtro, ids -> {
+            int alterados = livroRepository.atualizarPorIds(ids, filtro, campos);
+            // Uma consulta por bloco traz os livros como ficaram, para o índice de busca
+            livroRepository.findProjetadosByIds(ids).forEach(livro -> {
+                livroCache.invalidar(livro.getId());
+                eventPublisher.publishEvent(LivroAlteradoEvent.salvo(livro));
+            });
+            return alterados;
+        });
+        log.info("Atualização em massa de {} com filtro {}: {} livros em {} blocos ({} ms)",
+                campos.keySet(), filtro, resultado.getAfetados(), resultado.getBlocos(), resultado.getDuracaoMs());
+        return resultado;
+    }
+
+    private OperacaoEmMassaResultadoDTO executarEmBlocos(FiltroLivrosDTO filtro, Function<List<Long>, Integer> operacao) {
+        long inicio = System.nanoTime();
+        long afetados = 0;
+        int blocos = 0;
+        Long ultimoId = null;
+        while (true) {
+            Long aposId = ultimoId;
+            Bloco bloco = transactionTemplate.execute(status -> {
+                List<Long> ids = livroRepository.buscarIdsPorFiltro(filtro, aposId, tamanhoBloco);
+                return ids.isEmpty() ? null : new Bloco(ids.get(ids.size() - 1), operacao.apply(ids), ids.size());
+            });
+            if (bloco == null) {
+                break;
+            }
+            afetados += bloco.afetados();
+            blocos++;
+            ultimoId = bloco.ultimoId();
+            if (bloco.tamanho() < tamanhoBloco) {
+                break; // Último bloco: evita a consulta que só confirmaria que não há mais nada
+            }
+        }
+        return new OperacaoEmMassaResultadoDTO(afetados, blocos, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private List<Long> idsQueNaoExistemMais(List<Long> ids) {
+        Set<Long> existentes = livroRepository.findProjetadosByIds(ids).stream()
+                .map(LivroResponseDTO::getId)
+                .collect(Collectors.toSet());
+        return ids.stream().filter(id -> !existentes.contains(id)).toList();
+    }
+
+    private void validarFiltro(FiltroLivrosDTO filtro) {
+        if (filtro == null || filtro.vazio()) {
+            throw new FiltroInvalidoException(
+                    "Informe pelo menos um critério no filtro (autor, genero, anoInicial, anoFinal ou ids).");
+        }
+        if (filtro.getIds() != null && (filtro.getIds().isEmpty() || filtro.getIds().size() > maximoIds
+                || filtro.getIds().stream().anyMatch(Objects::isNull))) {
+            throw new FiltroInvalidoException("A lista de ids deve ter entre 1 e " + maximoIds + " IDs válidos.");
+        }
+        if (filtro.getAnoInicial() != null && filtro.getAnoFinal() != null
+                && filtro.getAnoInicial() > filtro.getAnoFinal()) {
+            throw new FiltroInvalidoException("anoInicial não pode ser maior que anoFinal.");
+        }
+    }
+
+    private record Bloco(Long ultimoId, int afetados, int tamanho) {
+    }
+}
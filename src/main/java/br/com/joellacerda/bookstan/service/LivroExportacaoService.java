@@ -0,0 +1,207 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.model.Isbn;
+import br.com.joellacerda.bookstan.model.Livro;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Exportação do catálogo completo em streaming.
+// Os livros são lidos do banco em blocos (fetch size) e escritos direto na resposta, um a um,
+// sem montar Page/List/DTO em memória. O contexto de persistência é limpo periodicamente,
+// então o consumo de heap é o mesmo para mil ou para milhões de livros.
+@Service
+public class LivroExportacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(LivroExportacaoService.class);
+
+    // A cada quantos livros o contexto de persistência é limpo e a saída é descarregada
+    private static final int INTERVALO_LIMPEZA = 1000;
+
+    private static final CBORFactory CBOR = new CBORFactory();
+
+    private final LivroRepository livroRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public LivroExportacaoService(LivroRepository livroRepository, ObjectMapper objectMapper) {
+        this.livroRepository = livroRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // A transação (somente leitura) precisa ficar aberta enquanto o Stream é consumido
+    @Transactional(readOnly = true)
+    public long exportar(FormatoArquivo formato, OutputStream destino) {
+        long inicio = System.nanoTime();
+        long total = 0;
+
+        try (Stream<Livro> livros = livroRepository.streamTodosOrdenadosPorId()) {
+            LinhaWriter escritor = switch (formato) {
+                case CSV -> new CsvWriter(texto(destino));
+                case CBOR -> new CborWriter(new BufferedOutputStream(destino, 64 * 1024));
+                case NDJSON -> new NdjsonWriter(texto(destino));
+            };
+            Iterator<Livro> iterator = livros.iterator();
+            while (iterator.hasNext()) {
+                escritor.escrever(iterator.next());
+                total++;
+                if (total % INTERVALO_LIMPEZA == 0) {
+                    entityManager.clear();  // Libera as entidades já escritas
+                    escritor.descarregar(); // Entrega o bloco ao cliente em vez de acumular no buffer
+                }
+            }
+            escritor.finalizar();
+        } catch (IOException e) {
+            // Normalmente o cliente fechou a conexão no meio da exportação
+            throw new UncheckedIOException("Falha ao escrever a exportação de livros", e);
+        }
+
+        log.info("Exportação {} concluída: {} livros em {} ms", formato, total, (System.nanoTime() - inicio) / 1_000_000);
+        return total;
+    }
+
+    private static Writer texto(OutputStream destino) {
+        return new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private interface LinhaWriter {
+        void escrever(Livro livro) throws IOException;
+
+        void descarregar() throws IOException;
+
+        default void finalizar() throws IOException {
+            descarregar();
+        }
+    }
+
+    // Os campos do LivroResponseDTO, no gerador do formato (JSON ou CBOR)
+    private static void escreverLivro(JsonGenerator gerador, Livro livro) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeNumberField("id", livro.getId());
+        gerador.writeStringField("titulo", livro.getTitulo());
+        gerador.writeStringField("autor", livro.getAutor());
+        gerador.writeStringField("genero", livro.getGenero());
+        if (livro.getAnoPublicacao() != null) {
+            gerador.writeNumberField("anoPublicacao", livro.getAnoPublicacao());
+        } else {
+            gerador.writeNullField("anoPublicacao");
+        }
+        gerador.writeStringField("isbn", Isbn.formatar(livro.getIsbn()));
+        gerador.writeEndObject();
+    }
+
+    // Um objeto JSON por linha, com os mesmos nomes de campo do LivroResponseDTO
+    private class NdjsonWriter implements LinhaWriter {
+        private final Writer saida;
+        private final JsonGenerator gerador;
+
+        NdjsonWriter(Writer saida) throws IOException {
+            this.saida = saida;
+            this.gerador = objectMapper.getFactory().createGenerator(saida)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.gerador.setRootValueSeparator(null); // A separação entre objetos é a quebra de linha
+        }
+
+        @Override
+        public void escrever(Livro livro) throws IOException {
+            escreverLivro(gerador, livro);
+            gerador.flush(); // Passa o objeto para o Writer (bufferizado) antes da quebra de linha
+            saida.write('\n');
+        }
+
+        @Override
+        public void descarregar() throws IOException {
+            saida.flush();
+        }
+
+        @Override
+        public void finalizar() throws IOException {
+            gerador.close();
+            saida.flush();
+        }
+    }
+
+    // Os mesmos objetos do NDJSON em CBOR, um depois do outro, sem separador (CBOR Sequence, RFC 8742)
+    private static class CborWriter implements LinhaWriter {
+        private final OutputStream saida;
+        private final JsonGenerator gerador;
+
+        CborWriter(OutputStream saida) throws IOException {
+            this.saida = saida;
+            this.gerador = CBOR.createGenerator(saida)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        public void escrever(Livro livro) throws IOException {
+            escreverLivro(gerador, livro);
+        }
+
+        @Override
+        public void descarregar() throws IOException {
+            gerador.flush(); // Só passa para o buffer (FLUSH_PASSED_TO_STREAM desligado)
+            saida.flush();
+        }
+
+        @Override
+        public void finalizar() throws IOException {
+            gerador.close();
+            saida.flush();
+        }
+    }
+
+    private static class CsvWriter implements LinhaWriter {
+        private final Writer saida;
+
+        CsvWriter(Writer saida) throws IOException {
+            this.saida = saida;
+            saida.write(LivroCsv.CABECALHO);
+            saida.write("\r\n");
+        }
+
+        @Override
+        public void escrever(Livro livro) throws IOException {
+            LivroCsv.escreverCampo(saida, livro.getId());
+            saida.write(',');
+            LivroCsv.escreverCampo(saida, livro.getTitulo());
+            saida.write(',');
+            LivroCsv.escreverCampo(saida, livro.getAutor());
+            saida.write(',');
+            LivroCsv.escreverCampo(saida, livro.getGenero());
+            saida.write(',');
+            LivroCsv.escreverCampo(saida, livro.getAnoPublicacao());
+            saida.write(',');
+            LivroCsv.escreverCampo(saida, Isbn.formatar(livro.getIsbn()));
+            saida.write("\r\n");
+        }
+
+        @Override
+        public void descarregar() throws IOException {
+            saida.flush();
+        }
+    }
+}
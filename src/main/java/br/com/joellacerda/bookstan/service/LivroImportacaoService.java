@@ -0,0 +1,442 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.dto.ImportacaoResultadoDTO;
+import br.com.joellacerda.bookstan.dto.ItemLoteResultadoDTO;
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.dto.RejeicaoImportacaoDTO;
+import br.com.joellacerda.bookstan.exception.FormatoInvalidoException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Importação de arquivos grandes (NDJSON ou CSV) em streaming.
+//
+// A thread da requisição lê e valida o corpo registro a registro e monta blocos de
+// "bookstan.importacao.tamanho-bloco" livros. Os blocos passam por uma fila limitada
+// ("bookstan.importacao.blocos-em-voo") até uma thread gravadora, que grava cada bloco numa transação própria.
+// Quando o banco fica mais lento que a leitura, a fila enche e a leitura do corpo para: a pressão volta
+// até o cliente pelo TCP, e a memória usada fica limitada a alguns blocos, qualquer que seja o tamanho do arquivo.
+// Pelo mesmo motivo, um registro com mais de "bookstan.importacao.tamanho-maximo-registro" caracteres (ex: um
+// array JSON inteiro enviado como NDJSON) é rejeitado sem ser carregado na memória.
+//
+// Cada importação tem uma thread gravadora própria, e não uma do applicationTaskExecutor: compartilhada com
+// exportações e long-polls, a fila daquele pool pode deixar o gravador esperando enquanto a leitura fica parada.
+// O executor vem do SimpleAsyncTaskExecutorBuilder do Boot, então segue spring.threads.virtual.enabled e
+// spring.task.execution.simple.concurrency-limit (acima do limite, a importação espera um gravador terminar).
+@Service
+public class LivroImportacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(LivroImportacaoService.class);
+
+    private static final int MAXIMO_REJEICOES_DETALHADAS = 1000;
+    private static final int HISTORICO_IMPORTACOES = 20;
+    private static final long INTERVALO_LOG_PROGRESSO = 100_000;
+
+    // Marca o fim do arquivo na fila entre leitor e gravador
+    private static final List<Registro> FIM = List.of();
+
+    private final LivroLoteService livroLoteService;
+    private final ObjectReader leitorJson;
+    private final AsyncTaskExecutor executor;
+    private final int tamanhoBloco;
+    private final int blocosEmVoo;
+    private final int tamanhoMaximoRegistro;
+
+    // Importações em andamento e as últimas concluídas, consultáveis pelo GET /api/livros/import
+    private final Map<String, Importacao> importacoes = new ConcurrentHashMap<>();
+    private final Deque<String> ordemImportacoes = new ConcurrentLinkedDeque<>();
+
+    @Autowired
+    public LivroImportacaoService(LivroLoteService livroLoteService,
+                                  ObjectMapper objectMapper,
+                                  SimpleAsyncTaskExecutorBuilder executorBuilder,
+                                  @Value("${bookstan.importacao.tamanho-bloco:1000}") int tamanhoBloco,
+                                  @Value("${bookstan.importacao.blocos-em-voo:4}") int blocosEmVoo,
+                                  @Value("${bookstan.importacao.tamanho-maximo-registro:65536}") int tamanhoMaximoRegistro) {
+        this.livroLoteService = livroLoteService;
+        this.leitorJson = objectMapper.readerFor(LivroRequestDTO.class);
+        this.executor = executorBuilder.threadNamePrefix("bookstan-importacao-").build(); // Uma thread nova por importação
+        this.tamanhoBloco = tamanhoBloco;
+        this.blocosEmVoo = blocosEmVoo;
+        this.tamanhoMaximoRegistro = tamanhoMaximoRegistro;
+    }
+
+    // Metodo para IMPORTAR livros a partir do corpo da requisição
+    public ImportacaoResultadoDTO importar(FormatoArquivo formato, InputStream corpo) {
+        if (formato == FormatoArquivo.CBOR) {
+            throw new FormatoInvalidoException("A importação aceita só ndjson ou csv.");
+        }
+        BufferedReader entrada = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8), 64 * 1024);
+        LeitorRegistros leitor;
+        try {
+            leitor = formato == FormatoArquivo.CSV ? new LeitorCsv(entrada) : new LeitorNdjson(entrada);
+        } catch (IOException e) {
+            throw new FormatoInvalidoException("Não foi possível ler o cabeçalho do arquivo.");
+        }
+
+        Importacao importacao = registrar(formato);
+        BlockingQueue<List<Registro>> fila = new ArrayBlockingQueue<>(blocosEmVoo);
+        Future<?> gravador = executor.submit(() -> gravar(fila, importacao));
+
+        try {
+            List<Registro> bloco = new ArrayList<>(tamanhoBloco);
+            Registro registro;
+            while ((registro = leitor.proximo()) != null) {
+                importacao.lidos.incrementAndGet();
+                if (!registro.erros().isEmpty()) {
+                    importacao.rejeitar(registro.numero(), registro.erros());
+                    continue;
+                }
+                bloco.add(registro);
+                if (bloco.size() == tamanhoBloco) {
+                    enfileirar(fila, bloco, gravador);
+                    bloco = new ArrayList<>(tamanhoBloco);
+                }
+            }
+            if (!bloco.isEmpty()) {
+                enfileirar(fila, bloco, gravador);
+            }
+            enfileirar(fila, FIM, gravador);
+            gravador.get(); // Espera o último bloco ser gravado
+            importacao.concluir();
+        } catch (IOException e) {
+            importacao.falhar("Falha ao ler o arquivo: " + e.getMessage());
+        } catch (ExecutionException e) {
+            log.error("Importação {} interrompida por falha na gravação", importacao.id, e.getCause());
+            importacao.falhar("Falha ao gravar os livros: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            importacao.falhar("Importação interrompida.");
+        } catch (RuntimeException e) {
+            log.error("Importação {} interrompida por falha inesperada na leitura", importacao.id, e);
+            importacao.falhar("Falha inesperada na importação: " + e);
+        } finally {
+            // Qualquer que seja a saída, o gravador não pode ficar parado no fila.take() para sempre, nem a
+            // importação EM_ANDAMENTO (o histórico deixaria de ser podado a partir dela)
+            if (!gravador.isDone()) {
+                gravador.cancel(true);
+            }
+            if (importacao.estado == ImportacaoResultadoDTO.Estado.EM_ANDAMENTO) {
+                importacao.falhar("Importação interrompida por erro inesperado.");
+            }
+        }
+
+        ImportacaoResultadoDTO resultado = importacao.resumo();
+        log.info("Importação {} {}: {} lidos, {} importados, {} rejeitados em {} ms ({} livros/s)",
+                resultado.getId(), resultado.getEstado(), resultado.getLidos(), resultado.getImportados(),
+                resultado.getRejeitados(), resultado.getDuracaoMs(), Math.round(resultado.getLivrosPorSegundo()));
+        return resultado;
+    }
+
+    public List<ImportacaoResultadoDTO> listarImportacoes() {
+        List<ImportacaoResultadoDTO> resumos = new ArrayList<>();
+        ordemImportacoes.descendingIterator().forEachRemaining(id ->
+                Optional.ofNullable(importacoes.get(id)).ifPresent(i -> resumos.add(i.resumo())));
+        return resumos;
+    }
+
+    // Coloca o bloco na fila; se ela estiver cheia, espera o gravador — sem esperar para sempre caso ele tenha falhado
+    private void enfileirar(BlockingQueue<List<Registro>> fila, List<Registro> bloco, Future<?> gravador)
+            throws InterruptedException, ExecutionException {
+        while (!fila.offer(bloco, 1, TimeUnit.SECONDS)) {
+            if (gravador.isDone()) {
+                gravador.get(); // Propaga a falha do gravador
+                throw new ExecutionException(new IllegalStateException("O gravador terminou antes do fim do arquivo."));
+            }
+        }
+    }
+
+    // Executado na thread gravadora: cada bloco é uma transação
+    private void gravar(BlockingQueue<List<Registro>> fila, Importacao importacao) {
+        try {
+            while (true) {
+                List<Registro> bloco = fila.take();
+                if (bloco == FIM) {
+                    return;
+                }
+                List<ItemLoteResultadoDTO> resultados =
+                        livroLoteService.gravarValidados(bloco.stream().map(Registro::livro).toList());
+                for (int i = 0; i < resultados.size(); i++) {
+                    ItemLoteResultadoDTO resultado = resultados.get(i);
+                    if (resultado.getStatus() == ItemLoteResultadoDTO.Status.CRIADO) {
+                        importacao.importados.incrementAndGet();
+                    } else {
+                        importacao.rejeitar(bloco.get(i).numero(), resultado.getErros());
+                    }
+                }
+                importacao.registrarProgresso();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Importacao registrar(FormatoArquivo formato) {
+        Importacao importacao = new Importacao(UUID.randomUUID().toString(), formato);
+        importacoes.put(importacao.id, importacao);
+        ordemImportacoes.addLast(importacao.id);
+        // Mantém só o histórico recente (as em andamento nunca são descartadas)
+        while (ordemImportacoes.size() > HISTORICO_IMPORTACOES) {
+            String maisAntiga = ordemImportacoes.peekFirst();
+            Importacao antiga = maisAntiga != null ? importacoes.get(maisAntiga) : null;
+            if (antiga != null && antiga.estado == ImportacaoResultadoDTO.Estado.EM_ANDAMENTO) {
+                break;
+            }
+            ordemImportacoes.pollFirst();
+            if (maisAntiga != null) {
+                importacoes.remove(maisAntiga);
+            }
+        }
+        return importacao;
+    }
+
+    // Um registro lido do arquivo: o livro convertido ou os erros que impediram a conversão/validação
+    private record Registro(long numero, LivroRequestDTO livro, List<String> erros) {
+    }
+
+    private interface LeitorRegistros {
+        Registro proximo() throws IOException;
+    }
+
+    private class LeitorNdjson implements LeitorRegistros {
+        private final BufferedReader entrada;
+        private final char[] buffer = new char[8 * 1024];
+        private final StringBuilder linha = new StringBuilder();
+        private int posicao;
+        private int fim;
+        private boolean grandeDemais; // A última linha lida passou do tamanho máximo
+        private long numero;
+
+        LeitorNdjson(BufferedReader entrada) {
+            this.entrada = entrada;
+        }
+
+        @Override
+        public Registro proximo() throws IOException {
+            do {
+                if (!lerLinha()) {
+                    return null;
+                }
+                numero++;
+            } while (!grandeDemais && linha.toString().isBlank());
+
+            if (grandeDemais) {
+                return new Registro(numero, null, List.of("Registro maior que o limite de "
+                        + tamanhoMaximoRegistro + " caracteres."));
+            }
+            try {
+                LivroRequestDTO livro = leitorJson.readValue(linha.toString());
+                return new Registro(numero, livro, livroLoteService.validar(livro));
+            } catch (JsonProcessingException e) {
+                return new Registro(numero, null, List.of("JSON inválido: " + e.getOriginalMessage()));
+            }
+        }
+
+        // Como o readLine, mas guarda no máximo tamanhoMaximoRegistro caracteres: o resto de uma linha maior é
+        // lido e descartado. Retorna false no fim da entrada.
+        private boolean lerLinha() throws IOException {
+            linha.setLength(0);
+            grandeDemais = false;
+            boolean leuAlgo = false;
+            while (true) {
+                if (posicao == fim) {
+                    int lidos = entrada.read(buffer, 0, buffer.length);
+                    if (lidos < 0) {
+                        return leuAlgo;
+                    }
+                    posicao = 0;
+                    fim = lidos;
+                }
+                leuAlgo = true;
+                int inicio = posicao;
+                while (posicao < fim && buffer[posicao] != '\n') {
+                    posicao++;
+                }
+                int espaco = tamanhoMaximoRegistro - linha.length();
+                if (posicao - inicio > espaco) {
+                    grandeDemais = true;
+                    linha.setLength(0);
+                } else if (!grandeDemais) {
+                    linha.append(buffer, inicio, posicao - inicio);
+                }
+                if (posicao < fim) {
+                    posicao++; // Consome o '\n'
+                    if (!linha.isEmpty() && linha.charAt(linha.length() - 1) == '\r') {
+                        linha.setLength(linha.length() - 1);
+                    }
+                    return true;
+                }
+            }
+        }
+    }
+
+    private class LeitorCsv implements LeitorRegistros {
+        private final BufferedReader entrada;
+        private final Map<String, Integer> colunas = new HashMap<>();
+        private long numero;
+
+        LeitorCsv(BufferedReader entrada) throws IOException {
+            this.entrada = entrada;
+            List<String> cabecalho = LivroCsv.lerRegistro(entrada, tamanhoMaximoRegistro);
+            if (cabecalho == null) {
+                throw new FormatoInvalidoException("Arquivo CSV vazio.");
+            }
+            if (cabecalho == LivroCsv.REGISTRO_GRANDE_DEMAIS) {
+                throw new FormatoInvalidoException("O cabeçalho do CSV passa do limite de "
+                        + tamanhoMaximoRegistro + " caracteres.");
+            }
+            for (int i = 0; i < cabecalho.size(); i++) {
+                colunas.put(cabecalho.get(i).trim(), i);
+            }
+            if (!colunas.containsKey("titulo") || !colunas.containsKey("autor") || !colunas.containsKey("anoPublicacao")) {
+                throw new FormatoInvalidoException(
+                        "O cabeçalho do CSV deve conter as colunas titulo, autor e anoPublicacao (genero e isbn são opcionais).");
+            }
+        }
+
+        @Override
+        public Registro proximo() throws IOException {
+            List<String> campos;
+            do {
+                campos = LivroCsv.lerRegistro(entrada, tamanhoMaximoRegistro);
+                if (campos == null) {
+                    return null;
+                }
+                numero++;
+            } while (campos.size() == 1 && campos.get(0).isBlank());
+
+            if (campos == LivroCsv.REGISTRO_GRANDE_DEMAIS) {
+                return new Registro(numero, null, List.of("Registro maior que o limite de "
+                        + tamanhoMaximoRegistro + " caracteres."));
+            }
+
+            LivroRequestDTO livro = new LivroRequestDTO();
+            livro.setTitulo(campo(campos, "titulo"));
+            livro.setAutor(campo(campos, "autor"));
+            livro.setGenero(campo(campos, "genero"));
+            livro.setIsbn(campo(campos, "isbn"));
+            String ano = campo(campos, "anoPublicacao");
+            if (ano != null) {
+                try {
+                    livro.setAnoPublicacao(Integer.valueOf(ano.trim()));
+                } catch (NumberFormatException e) {
+                    return new Registro(numero, null, List.of("anoPublicacao: Valor inválido: " + ano));
+                }
+            }
+            return new Registro(numero, livro, livroLoteService.validar(livro));
+        }
+
+        private String campo(List<String> campos, String nome) {
+            Integer indice = colunas.get(nome);
+            if (indice == null || indice >= campos.size() || campos.get(indice).isEmpty()) {
+                return null;
+            }
+            return campos.get(indice);
+        }
+    }
+
+    // Estado mutável de uma importação, atualizado pelas threads leitora e gravadora
+    private static class Importacao {
+        private final String id;
+        private final FormatoArquivo formato;
+        private final LocalDateTime inicio = LocalDateTime.now();
+        private final long inicioNanos = System.nanoTime();
+        private final AtomicLong lidos = new AtomicLong();
+        private final AtomicLong importados = new AtomicLong();
+        private final AtomicLong rejeitados = new AtomicLong();
+        private final AtomicInteger rejeicoesDetalhadas = new AtomicInteger();
+        private final Queue<RejeicaoImportacaoDTO> rejeicoes = new ConcurrentLinkedQueue<>();
+        private volatile ImportacaoResultadoDTO.Estado estado = ImportacaoResultadoDTO.Estado.EM_ANDAMENTO;
+        private volatile long fimNanos;
+        private volatile String erro;
+        private long proximoLog = INTERVALO_LOG_PROGRESSO;
+
+        Importacao(String id, FormatoArquivo formato) {
+            this.id = id;
+            this.formato = formato;
+        }
+
+        void rejeitar(long registro, List<String> erros) {
+            rejeitados.incrementAndGet();
+            if (rejeicoesDetalhadas.incrementAndGet() <= MAXIMO_REJEICOES_DETALHADAS) {
+                rejeicoes.add(new RejeicaoImportacaoDTO(registro, erros));
+            }
+            log.debug("Importação {}: registro {} rejeitado: {}", id, registro, erros);
+        }
+
+        // Chamado só pela thread gravadora
+        void registrarProgresso() {
+            long processados = importados.get() + rejeitados.get();
+            if (processados >= proximoLog) {
+                proximoLog += INTERVALO_LOG_PROGRESSO;
+                log.info("Importação {}: {} lidos, {} importados, {} rejeitados ({} livros/s)",
+                        id, lidos.get(), importados.get(), rejeitados.get(), Math.round(taxa(System.nanoTime())));
+            }
+        }
+
+        void concluir() {
+            fimNanos = System.nanoTime();
+            estado = ImportacaoResultadoDTO.Estado.CONCLUIDA;
+        }
+
+        void falhar(String motivo) {
+            fimNanos = System.nanoTime();
+            erro = motivo;
+            estado = ImportacaoResultadoDTO.Estado.FALHOU;
+        }
+
+        private double taxa(long agora) {
+            double segundos = (agora - inicioNanos) / 1_000_000_000.0;
+            return segundos > 0 ? importados.get() / segundos : 0;
+        }
+
+        ImportacaoResultadoDTO resumo() {
+            long agora = estado == ImportacaoResultadoDTO.Estado.EM_ANDAMENTO ? System.nanoTime() : fimNanos;
+            ImportacaoResultadoDTO dto = new ImportacaoResultadoDTO();
+            dto.setId(id);
+            dto.setEstado(estado);
+            dto.setFormato(formato.getExtensao());
+            dto.setInicio(inicio);
+            dto.setLidos(lidos.get());
+            dto.setImportados(importados.get());
+            dto.setRejeitados(rejeitados.get());
+            dto.setDuracaoMs((agora - inicioNanos) / 1_000_000);
+            dto.setLivrosPorSegundo(taxa(agora));
+            dto.setRejeicoes(List.copyOf(rejeicoes));
+            dto.setErro(erro);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.cache.LivroCache;
+import br.com.joellacerda.bookstan.dto.ItemLoteResultadoDTO;
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.dto.LoteResultadoDTO;
+import br.com.joellacerda.bookstan.event.LivroAlteradoEvent;
+import br.com.joellacerda.bookstan.exception.LoteInvalidoException;
+import br.com.joellacerda.bookstan.model.Isbn;
+import br.com.joellacerda.bookstan.model.Livro;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+// Serviço para cadastro de livros em lote.
+// Cada bloco de até "bookstan.lote.tamanho-bloco" itens é gravado numa transação própria, com os INSERTs
+// agrupados pelo Hibernate (hibernate.jdbc.batch_size). Um item inválido ou duplicado não derruba o lote:
+// ele é reportado no resultado e os demais seguem normalmente.
+@Service
+public class LivroLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(LivroLoteService.class);
+
+    private final LivroRepository livroRepository;
+    private final LivroCache livroCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoBloco;
+    private final int maximoItens;
+
+    @Autowired
+    public LivroLoteService(LivroRepository livroRepository,
+                            LivroCache livroCache,
+                            ApplicationEventPublisher eventPublisher,
+                            Validator validator,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${bookstan.lote.tamanho-bloco:500}") int tamanhoBloco,
+                            @Value("${bookstan.lote.maximo-itens:10000}") int maximoItens) {
+        this.livroRepository = livroRepository;
+        this.livroCache = livroCache;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoBloco = tamanhoBloco;
+        this.maximoItens = maximoItens;
+    }
+
+    // Metodo para CRIAR vários livros de uma vez
+    public LoteResultadoDTO criarLivros(List<LivroRequestDTO> requisicoes) {
+        if (requisicoes == null || requisicoes.isEmpty()) {
+            throw new LoteInvalidoException("O lote deve conter pelo menos um livro.");
+        }
+        if (requisicoes.size() > maximoItens) {
+            throw new LoteInvalidoException("O lote deve conter no máximo " + maximoItens + " livros.");
+        }
+
+        ItemLoteResultadoDTO[] resultados = new ItemLoteResultadoDTO[requisicoes.size()];
+        List<Integer> pendentes = new ArrayList<>(requisicoes.size());
+        Set<Long> isbnsNoLote = new HashSet<>(); // Na forma canônica: ISBN-10 e ISBN-13 do mesmo livro colidem
+
+        // 1) Validação item a item (as mesmas regras do POST /api/livros) e ISBN repetido dentro do próprio lote
+        for (int i = 0; i < requisicoes.size(); i++) {
+            LivroRequestDTO requisicao = requisicoes.get(i);
+            List<String> erros = validar(requisicao);
+            if (!erros.isEmpty()) {
+                resultados[i] = new ItemLoteResultadoDTO(i, ItemLoteResultadoDTO.Status.INVALIDO, null, erros);
+            } else if (requisicao.getIsbn() != null && !isbnsNoLote.add(Isbn.normalizar(requisicao.getIsbn()))) {
+                resultados[i] = duplicado(i, Isbn.normalizar(requisicao.getIsbn()));
+            } else {
+                pendentes.add(i);
+            }
+        }
+
+        // 2) Gravação em blocos, cada um na sua transação
+        for (int inicio = 0; inicio < pendentes.size(); inicio += tamanhoBloco) {
+            List<Integer> bloco = pendentes.subList(inicio, Math.min(inicio + tamanhoBloco, pendentes.size()));
+            gravarBloco(requisicoes, bloco, resultados);
+        }
+
+        int criados = (int) Arrays.stream(resultados)
+                .filter(r -> r.getStatus() == ItemLoteResultadoDTO.Status.CRIADO)
+                .count();
+        return new LoteResultadoDTO(resultados.length, criados, resultados.length - criados, Arrays.asList(resultados));
+    }
+
+    // Grava itens que já passaram pela validação (usado pela importação em streaming).
+    // O resultado de cada item fica na mesma posição da lista recebida.
+    List<ItemLoteResultadoDTO> gravarValidados(List<LivroRequestDTO> itens) {
+        ItemLoteResultadoDTO[] resultados = new ItemLoteResultadoDTO[itens.size()];
+        gravarBloco(itens, IntStream.range(0, itens.size()).boxed().toList(), resultados);
+        return Arrays.asList(resultados);
+    }
+
+    private void gravarBloco(List<LivroRequestDTO> requisicoes, List<Integer> bloco, ItemLoteResultadoDTO[] resultados) {
+        // Descarta, com uma única consulta, os ISBNs que já existem no banco
+        Map<Integer, Livro> livros = new LinkedHashMap<>();
+        bloco.forEach(i -> livros.put(i, LivroService.toEntity(requisicoes.get(i))));
+        Set<Long> isbns = new HashSet<>();
+        livros.values().forEach(livro -> {
+            if (livro.getIsbn() != null) {
+                isbns.add(livro.getIsbn());
+            }
+        });
+        Set<Long> existentes = isbns.isEmpty()
+                ? Set.of()
+                : new HashSet<>(livroRepository.findIsbnsExistentes(isbns));
+
+        Map<Integer, Livro> aGravar = new LinkedHashMap<>();
+        livros.forEach((i, livro) -> {
+            if (livro.getIsbn() != null && existentes.contains(livro.getIsbn())) {
+                resultados[i] = duplicado(i, livro.getIsbn());
+            } else {
+                aGravar.put(i, livro);
+            }
+        });
+        if (aGravar.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                livroRepository.saveAll(aGravar.values());
+                livroRepository.flush(); // Dispara os INSERTs agrupados ainda dentro do bloco
+                // Entregues aos ouvintes só depois do commit do bloco
+                aGravar.values().forEach(livro ->
+                        eventPublisher.publishEvent(LivroAlteradoEvent.salvo(LivroService.toResponseDTO(livro))));
+            });
+            aGravar.forEach((i, livro) -> {
+                livroCache.invalidar(livro.getId()); // Descarta um eventual 404 guardado para o novo ID
+                resultados[i] = new ItemLoteResultadoDTO(i, ItemLoteResultadoDTO.Status.CRIADO, livro.getId(), List.of());
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Em geral outro cliente gravou o mesmo ISBN entre a consulta e o INSERT: refaz o bloco item a item
+            // para descobrir quais falharam, sem perder os que são válidos
+            log.warn("Violação de integridade no bloco do lote, regravando {} itens individualmente", aGravar.size(), e);
+            aGravar.keySet().forEach(i -> resultados[i] = gravarIndividualmente(i, requisicoes.get(i)));
+        }
+    }
+
+    private ItemLoteResultadoDTO gravarIndividualmente(int indice, LivroRequestDTO requisicao) {
+        try {
+            Livro salvo = transactionTemplate.execute(status -> {
+                Livro livro = livroRepository.saveAndFlush(LivroService.toEntity(requisicao));
+                eventPublisher.publishEvent(LivroAlteradoEvent.salvo(LivroService.toResponseDTO(livro)));
+                return livro;
+            });
+            livroCache.invalidar(Objects.requireNonNull(salvo).getId());
+            return new ItemLoteResultadoDTO(indice, ItemLoteResultadoDTO.Status.CRIADO, Objects.requireNonNull(salvo).getId(), List.of());
+        } catch (DataIntegrityViolationException e) {
+            if (requisicao.getIsbn() != null && LivroService.isbnDuplicado(e)) {
+                return duplicado(indice, Isbn.normalizar(requisicao.getIsbn()));
+            }
+            // Outra restrição (ex: chave primária): não é culpa do cliente, então não é reportada como duplicado
+            log.error("Violação de integridade inesperada ao gravar item {} do lote", indice, e);
+            return new ItemLoteResultadoDTO(indice, ItemLoteResultadoDTO.Status.ERRO, null,
+                    List.of("Ocorreu um erro inesperado ao gravar este livro."));
+        } catch (RuntimeException e) {
+            log.error("Erro inesperado ao gravar item {} do lote", indice, e);
+            return new ItemLoteResultadoDTO(indice, ItemLoteResultadoDTO.Status.ERRO, null,
+                    List.of("Ocorreu um erro inesperado ao gravar este livro."));
+        }
+    }
+
+    List<String> validar(LivroRequestDTO requisicao) {
+        if (requisicao == null) {
+            return List.of("Item do lote não pode ser nulo.");
+        }
+        Set<ConstraintViolation<LivroRequestDTO>> violacoes = validator.validate(requisicao);
+        // Mesmo formato "campo: mensagem" usado pelo RestExceptionHandler
+        return violacoes.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    private static ItemLoteResultadoDTO duplicado(int indice, Long isbn) {
+        return new ItemLoteResultadoDTO(indice, ItemLoteResultadoDTO.Status.DUPLICADO, null,
+                List.of("isbn: Já existe um livro com o ISBN " + Isbn.formatar(isbn) + "."));
+    }
+}
@@ -1,45 +1,101 @@
 package br.com.joellacerda.bookstan.service;
 
+import br.com.joellacerda.bookstan.busca.IndiceLivros;
+import br.com.joellacerda.bookstan.cache.LivroCache;
+import br.com.joellacerda.bookstan.dto.EstatisticasCacheDTO;
+import br.com.joellacerda.bookstan.dto.FacetasDTO;
 import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
 import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.dto.PaginaCursorDTO;
+import br.com.joellacerda.bookstan.dto.PaginaDTO;
+import br.com.joellacerda.bookstan.event.LivroAlteradoEvent;
+import br.com.joellacerda.bookstan.exception.CursorInvalidoException;
+import br.com.joellacerda.bookstan.exception.IsbnInvalidoException;
+import br.com.joellacerda.bookstan.exception.LivroDuplicadoException;
+import br.com.joellacerda.bookstan.exception.PatchInvalidoException;
+import br.com.joellacerda.bookstan.exception.VersaoConflitanteException;
+import br.com.joellacerda.bookstan.model.Isbn;
 import br.com.joellacerda.bookstan.model.Livro;
 import br.com.joellacerda.bookstan.repository.LivroRepository;
+import br.com.joellacerda.bookstan.roteamento.RoteamentoLeitura;
 import br.com.joellacerda.bookstan.exception.LivroNaoEncontradoException;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
 @Service // Indica ao Spring que esta classe é um componente de serviço
 public class LivroService {
 
     private final LivroRepository livroRepository;
+    private final LivroCache livroCache;
+    private final IndiceLivros indiceLivros;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ContagemLivros contagemLivros;
 
     @Autowired // Injeção de dependência via construtor
-    public LivroService(LivroRepository livroRepository) {
+    public LivroService(LivroRepository livroRepository, LivroCache livroCache,
+                        IndiceLivros indiceLivros, ApplicationEventPublisher eventPublisher,
+                        Validator validator, ContagemLivros contagemLivros) {
         this.livroRepository = livroRepository;
+        this.livroCache = livroCache;
+        this.indiceLivros = indiceLivros;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.contagemLivros = contagemLivros;
+    }
+
+    // Se a violação é a do ISBN único (e não, por exemplo, de chave primária): o PostgreSQL informa o nome da
+    // restrição e o H2 o do índice criado para ela, os dois na mensagem do erro
+    static boolean isbnDuplicado(DataIntegrityViolationException e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa.getMessage() != null
+                    && causa.getMessage().toLowerCase(Locale.ROOT).contains(Livro.RESTRICAO_ISBN)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    // Métodos de Mapeamento (privados ou em uma classe Mapper separada)
-    private Livro toEntity(LivroRequestDTO dto) {
+    // Métodos de Mapeamento (estáticos e visíveis no pacote para serem reaproveitados pelos outros serviços de livro)
+    static Livro toEntity(LivroRequestDTO dto) {
         return new Livro(
                 dto.getTitulo(),
                 dto.getAutor(),
                 dto.getGenero(),
                 dto.getAnoPublicacao(),
-                dto.getIsbn()
+                Isbn.normalizar(dto.getIsbn()) // Já validado por @IsbnValido no DTO
         );
     }
 
-    private LivroResponseDTO toResponseDTO(Livro entity) {
+    static LivroResponseDTO toResponseDTO(Livro entity) {
         LivroResponseDTO dto = new LivroResponseDTO();
         dto.setId(entity.getId());
         dto.setTitulo(entity.getTitulo());
         dto.setAutor(entity.getAutor());
         dto.setGenero(entity.getGenero());
         dto.setAnoPublicacao(entity.getAnoPublicacao());
-        dto.setIsbn(entity.getIsbn());
+        dto.setIsbn(Isbn.formatar(entity.getIsbn()));
+        dto.setVersao(entity.getVersao());
         return dto;
     }
 
@@ -47,53 +103,280 @@ public class LivroService {
     @Transactional
     public LivroResponseDTO criarLivro(LivroRequestDTO livroRequestDTO) {
         Livro livro = toEntity(livroRequestDTO);
-        // Aqui você poderia adicionar lógicas de negócio, como verificar se ISBN já existe
-        // if (livroRepository.findByIsbn(livro.getIsbn()).isPresent()) {
-        //     throw new IllegalArgumentException("Livro com este ISBN já existe.");
-        // }
+        // ISBN duplicado não é verificado com um SELECT antes: o índice único do banco rejeita o INSERT
+        // e a violação vira 409, então o cadastro continua sendo um único comando
         Livro livroSalvo = livroRepository.save(livro);
-        return toResponseDTO(livroSalvo);
+        gravarVerificandoIsbn(livro.getIsbn());
+        livroCache.invalidar(livroSalvo.getId()); // O ID pode ter sido consultado antes (e estar no cache de 404)
+        LivroResponseDTO livroCriado = toResponseDTO(livroSalvo);
+        eventPublisher.publishEvent(LivroAlteradoEvent.salvo(livroCriado));
+        return livroCriado;
     }
 
     // Metodo para BUSCAR todos os livros
     @Transactional(readOnly = true)
-    public Page<LivroResponseDTO> buscarTodosLivros(Pageable pageable) {
-        Page<Livro> paginaDeLivrosEntidade = livroRepository.findAll(pageable);
-        // O objeto Page tem um metodo .map() que facilita a conversão do conteúdo da página
-        return paginaDeLivrosEntidade.map(this::toResponseDTO); // Mapeia cada Livro para LivroResponseDTO
+    public PaginaDTO<LivroResponseDTO> buscarTodosLivros(Pageable pageable, boolean comTotal) {
+        // Projeção direto para o DTO: sem entidades gerenciadas nem toResponseDTO para cada item da página
+        if (comTotal && !contagemLivros.isHabilitada()) {
+            Page<LivroResponseDTO> pagina = livroRepository.findAllProjetado(pageable); // Página e COUNT(*)
+            return PaginaDTO.de(pagina.getContent(), pagina.getNumber(), pagina.getSize(), pagina.getTotalElements());
+        }
+        Slice<LivroResponseDTO> fatia = livroRepository.findSliceProjetado(pageable);
+        if (!comTotal) {
+            return PaginaDTO.semTotal(fatia.getContent(), fatia.getNumber(), fatia.getSize(), fatia.hasNext());
+        }
+        // Total em cache, ajustado para não contradizer a própria página se estiver atrasado.
+        // Na última página o total exato é conhecido sem contar.
+        long vistos = pageable.getOffset() + fatia.getNumberOfElements();
+        long total = fatia.hasNext() ? Math.max(contagemLivros.total(), vistos + 1)
+                : fatia.hasContent() || pageable.getOffset() == 0 ? vistos
+                : Math.min(contagemLivros.total(), pageable.getOffset()); // Página depois do fim
+        return PaginaDTO.de(fatia.getContent(), fatia.getNumber(), fatia.getSize(), total, fatia.hasNext());
     }
 
-    // Metodo para BUSCAR um livro por ID
+    // Metodo para BUSCAR livros com paginação por cursor (keyset)
+    // Sem OFFSET e sem COUNT(*): a latência é a mesma na primeira página ou na milésima.
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<LivroResponseDTO> buscarLivrosPorCursor(String cursor, Pageable pageable) {
+        int tamanho = pageable.getPageSize();
+        LivroCursor atual = cursor != null && !cursor.isBlank() ? LivroCursor.decodificar(cursor) : null;
+
+        // Sem ordenação explícita usamos o id; com cursor, a ordenação pedida precisa ser a mesma do token
+        Sort.Order ordem = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (pageable.getSort().stream().count() > 1 || !LivroCursor.campoSuportado(ordem.getProperty())) {
+            throw new CursorInvalidoException(
+                    "Paginação por cursor aceita apenas uma ordenação por id, titulo, autor ou anoPublicacao.");
+        }
+        if (atual != null && pageable.getSort().isSorted()
+                && (!atual.getCampo().equals(ordem.getProperty()) || atual.getDirecao() != ordem.getDirection())) {
+            throw new CursorInvalidoException("O cursor informado não corresponde à ordenação solicitada.");
+        }
+        String campo = atual != null ? atual.getCampo() : ordem.getProperty();
+        Sort.Direction direcao = atual != null ? atual.getDirecao() : ordem.getDirection();
+
+        // Busca um livro a mais só para saber se existe próxima página
+        List<Livro> livros = livroRepository.buscarAposCursor(campo, direcao,
+                atual != null ? atual.getValor() : null,
+                atual != null ? atual.getId() : null,
+                tamanho + 1);
+
+        boolean temProxima = livros.size() > tamanho;
+        List<Livro> pagina = temProxima ? livros.subList(0, tamanho) : livros;
+        String proximo = temProxima
+                ? LivroCursor.depoisDe(pagina.get(pagina.size() - 1), campo, direcao).codificar()
+                : null;
+
+        return new PaginaCursorDTO<>(pagina.stream().map(LivroService::toResponseDTO).toList(), tamanho, proximo);
+    }
+
+    // Metodo para BUSCAR livros por texto em titulo, autor e genero, ordenados por relevância
+    // O índice em memória resolve a consulta e a paginação; o banco só é consultado para os IDs da página.
     @Transactional(readOnly = true)
+    public PaginaDTO<LivroResponseDTO> buscarLivrosPorTexto(String consulta, Pageable pageable) {
+        IndiceLivros.ResultadoBusca resultado =
+                indiceLivros.buscar(consulta, pageable.getPageNumber(), pageable.getPageSize());
+        Map<Long, Livro> livrosPorId = new HashMap<>();
+        livroRepository.findAllById(resultado.ids()).forEach(livro -> livrosPorId.put(livro.getId(), livro));
+
+        List<LivroResponseDTO> conteudo = resultado.ids().stream()
+                .map(livrosPorId::get)
+                .filter(Objects::nonNull) // Removido do banco depois de a busca ser resolvida
+                .map(LivroService::toResponseDTO)
+                .toList();
+        // Na última página, livros removidos depois da busca também saem do total
+        long total = resultado.total();
+        if (!conteudo.isEmpty() && pageable.getOffset() + pageable.getPageSize() > total) {
+            total = pageable.getOffset() + conteudo.size();
+        }
+        return PaginaDTO.de(conteudo, pageable.getPageNumber(), pageable.getPageSize(), total);
+    }
+
+    // Metodo para BUSCAR um livro pelo ISBN (ISBN-10 ou ISBN-13, em qualquer formatação aceita no cadastro)
+    @Transactional(readOnly = true)
+    public LivroResponseDTO buscarLivroPorIsbn(String isbn) {
+        Long canonico = Isbn.normalizar(isbn);
+        if (canonico == null) {
+            throw new IsbnInvalidoException("Formato de ISBN inválido: " + isbn);
+        }
+        return livroRepository.findByIsbn(canonico)
+                .map(LivroService::toResponseDTO)
+                .orElseThrow(() -> new LivroNaoEncontradoException("Livro não encontrado com ISBN: " + Isbn.formatar(canonico)));
+    }
+
+    // Metodo para BUSCAR um livro por ID
+    // Sem @Transactional de propósito: quando o livro está no cache nenhuma conexão é obtida do pool.
+    // Na falta, o findById roda na transação somente leitura do próprio repositório, sempre no banco principal:
+    // com réplicas, um valor atrasado lido logo depois de uma invalidação ficaria no cache até expirar.
     public LivroResponseDTO buscarLivroPorId(Long id) {
-        Livro livro = livroRepository.findById(id)
+        return livroCache.buscar(id, chave -> RoteamentoLeitura.noPrimario(() -> livroRepository.findProjetadoById(chave)))
                 .orElseThrow(() -> new LivroNaoEncontradoException("Livro não encontrado com ID: " + id));
-        return toResponseDTO(livro);
+    }
+
+    // Metodo para BUSCAR só a versão atual de um livro (usada para responder If-None-Match)
+    // Usa o DTO do cache quando houver; senão, consulta apenas a coluna de versão.
+    public Long buscarVersaoLivro(Long id) {
+        Optional<Long> versao = livroCache.consultar(id).map(LivroResponseDTO::getVersao);
+        if (versao.isEmpty() && !livroCache.naoEncontrado(id)) {
+            versao = livroRepository.findVersaoById(id);
+        }
+        return versao.orElseThrow(() -> new LivroNaoEncontradoException("Livro não encontrado com ID: " + id));
+    }
+
+    // Metodo para CONTAR livros por gênero, década e autor (facetas), opcionalmente filtrados
+    // Sai dos contadores mantidos pelo índice de busca, sem consultar o banco
+    public FacetasDTO buscarFacetas(String consulta, String genero, int limiteAutores) {
+        return indiceLivros.facetas(consulta, genero, limiteAutores);
+    }
+
+    public EstatisticasCacheDTO buscarEstatisticasCache() {
+        return livroCache.estatisticas();
     }
 
     // Metodo para ATUALIZAR um livro existente
     @Transactional
     public LivroResponseDTO atualizarLivro(Long id, LivroRequestDTO livroRequestDTO) {
+        return atualizarLivro(id, livroRequestDTO, null);
+    }
+
+    // Metodo para ATUALIZAR um livro existente somente se ele ainda estiver na versão esperada (If-Match).
+    // Com versaoEsperada nula, qualquer versão é aceita, mas a atualização continua protegida pelo @Version:
+    // se outra transação alterar o livro entre a leitura e o UPDATE, nada é sobrescrito.
+    @Transactional
+    public LivroResponseDTO atualizarLivro(Long id, LivroRequestDTO livroRequestDTO, Long versaoEsperada) {
         Livro livroExistente = livroRepository.findById(id)
                 .orElseThrow(() -> new LivroNaoEncontradoException("Livro não encontrado com ID: " + id));
+        if (versaoEsperada != null && !versaoEsperada.equals(livroExistente.getVersao())) {
+            throw new VersaoConflitanteException("O livro com ID " + id + " foi alterado por outra requisição " +
+                    "(versão atual: " + livroExistente.getVersao() + ", esperada: " + versaoEsperada + ").");
+        }
 
         // Atualiza os campos da entidade com os valores do DTO
         livroExistente.setTitulo(livroRequestDTO.getTitulo());
         livroExistente.setAutor(livroRequestDTO.getAutor());
         livroExistente.setGenero(livroRequestDTO.getGenero());
         livroExistente.setAnoPublicacao(livroRequestDTO.getAnoPublicacao());
-        livroExistente.setIsbn(livroRequestDTO.getIsbn());
+        livroExistente.setIsbn(Isbn.normalizar(livroRequestDTO.getIsbn()));
 
         Livro livroAtualizado = livroRepository.save(livroExistente);
-        return toResponseDTO(livroAtualizado);
+        try {
+            // Executa o UPDATE ... WHERE versao = ? agora, para a resposta já trazer a nova versão
+            gravarVerificandoIsbn(livroExistente.getIsbn());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (versaoEsperada != null) {
+                throw new VersaoConflitanteException("O livro com ID " + id + " foi alterado por outra requisição.");
+            }
+            throw e;
+        }
+        livroCache.invalidar(id);
+        LivroResponseDTO resposta = toResponseDTO(livroAtualizado);
+        eventPublisher.publishEvent(LivroAlteradoEvent.salvo(resposta));
+        return resposta;
+    }
+
+    // Metodo para ATUALIZAR parcialmente um livro (PATCH com JSON Merge Patch, RFC 7396)
+    // Só os campos presentes no patch mudam; um campo com null é apagado. Vai ao banco um único UPDATE com
+    // as colunas alteradas, que já devolve a linha nova: sem SELECT antes, sem carregar a entidade e sem
+    // reescrever as colunas que o cliente não mandou.
+    @Transactional
+    public LivroResponseDTO atualizarLivroParcialmente(Long id, Map<String, Object> patch, Long versaoEsperada) {
+        Map<String, Object> campos = validarPatch(patch);
+        if (campos.isEmpty()) {
+            // Patch vazio não altera nada (nem a versão)
+            LivroResponseDTO atual = buscarLivroPorId(id);
+            if (versaoEsperada != null && !versaoEsperada.equals(atual.getVersao())) {
+                throw new VersaoConflitanteException("O livro com ID " + id + " foi alterado por outra requisição " +
+                        "(versão atual: " + atual.getVersao() + ", esperada: " + versaoEsperada + ").");
+            }
+            return atual;
+        }
+
+        Optional<LivroResponseDTO> atualizado;
+        try {
+            atualizado = livroRepository.atualizarCampos(id, campos, versaoEsperada);
+        } catch (DataIntegrityViolationException e) {
+            Long isbn = (Long) campos.get("isbn");
+            if (isbn == null || !isbnDuplicado(e)) {
+                throw e;
+            }
+            throw new LivroDuplicadoException("Já existe um livro com o ISBN " + Isbn.formatar(isbn) + ".");
+        }
+        if (atualizado.isEmpty()) {
+            // Nenhuma linha alterada: o livro não existe ou, com If-Match, está em outra versão.
+            // Só neste caso (raro) uma consulta a mais descobre qual dos dois.
+            Long versaoAtual = livroRepository.findVersaoById(id)
+                    .orElseThrow(() -> new LivroNaoEncontradoException("Livro não encontrado com ID: " + id));
+            throw new VersaoConflitanteException("O livro com ID " + id + " foi alterado por outra requisição " +
+                    "(versão atual: " + versaoAtual + ", esperada: " + versaoEsperada + ").");
+        }
+
+        livroCache.invalidar(id);
+        eventPublisher.publishEvent(LivroAlteradoEvent.salvo(atualizado.get()));
+        return atualizado.get();
+    }
+
+    // Confere cada campo do patch com as mesmas regras do cadastro (anotações de LivroRequestDTO e de Livro)
+    // e devolve os valores já no tipo da entidade (o ISBN na forma canônica). Também usado pelas operações em massa.
+    Map<String, Object> validarPatch(Map<String, Object> patch) {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        List<String> erros = new ArrayList<>();
+        (patch != null ? patch : Map.<String, Object>of()).forEach((campo, valor) -> {
+            Object convertido;
+            switch (campo) {
+                case "titulo", "autor", "genero", "isbn" -> {
+                    if (valor != null && !(valor instanceof String)) {
+                        erros.add(campo + ": deve ser um texto.");
+                        return;
+                    }
+                    convertido = "isbn".equals(campo) ? Isbn.normalizar((String) valor) : valor;
+                }
+                case "anoPublicacao" -> {
+                    if (valor != null && !(valor instanceof Integer)) {
+                        erros.add(campo + ": deve ser um número inteiro.");
+                        return;
+                    }
+                    convertido = valor;
+                }
+                default -> {
+                    erros.add(campo + ": campo desconhecido ou que não pode ser alterado.");
+                    return;
+                }
+            }
+            Set<String> mensagens = new TreeSet<>();
+            validator.validateValue(LivroRequestDTO.class, campo, valor).forEach(v -> mensagens.add(v.getMessage()));
+            validator.validateValue(Livro.class, campo, convertido).forEach(v -> mensagens.add(v.getMessage()));
+            if (mensagens.isEmpty()) {
+                campos.put(campo, convertido);
+            } else {
+                mensagens.forEach(mensagem -> erros.add(campo + ": " + mensagem));
+            }
+        });
+        if (!erros.isEmpty()) {
+            erros.sort(null);
+            throw new PatchInvalidoException(erros);
+        }
+        return campos;
+    }
+
+    // Envia ao banco o INSERT/UPDATE pendente e traduz a violação do índice único de ISBN para 409
+    private void gravarVerificandoIsbn(Long isbn) {
+        try {
+            livroRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isbn == null || !isbnDuplicado(e)) {
+                throw e;
+            }
+            throw new LivroDuplicadoException("Já existe um livro com o ISBN " + Isbn.formatar(isbn) + ".");
+        }
     }
 
     // Metodo para DELETAR um livro por ID
+    // Um único DELETE: a quantidade de linhas apagadas diz se o livro existia, sem SELECT antes
     @Transactional
     public void deletarLivro(Long id) {
-        if (!livroRepository.existsById(id)) {
+        if (livroRepository.deletarPorId(id) == 0) {
             throw new LivroNaoEncontradoException("Livro não encontrado com ID: " + id);
         }
-        livroRepository.deleteById(id);
+        livroCache.invalidar(id);
+        eventPublisher.publishEvent(LivroAlteradoEvent.removido(id));
     }
 }
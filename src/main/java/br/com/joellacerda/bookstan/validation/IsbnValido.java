@@ -0,0 +1,23 @@
+package br.com.joellacerda.bookstan.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Valida que o texto é um ISBN-10 ou ISBN-13 com dígito verificador correto (null é aceito: o ISBN é opcional)
+@Documented
+@Constraint(validatedBy = IsbnValidoValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IsbnValido {
+    String message() default "Formato de ISBN inválido.";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,13 @@
+package br.com.joellacerda.bookstan.validation;
+
+import br.com.joellacerda.bookstan.model.Isbn;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class IsbnValidoValidator implements ConstraintValidator<IsbnValido, String> {
+
+    @Override
+    public boolean isValid(String valor, ConstraintValidatorContext context) {
+        return valor == null || Isbn.normalizar(valor) != null;
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.joellacerda.bookstan.benchmark;
+
+import java.util.Arrays;
+
+// Latências (em nanossegundos) coletadas por uma thread cliente dos benchmarks, sem boxing
+final class Amostras {
+
+    private long[] valores = new long[1024];
+    private int tamanho;
+    private long[] ordenados; // Calculado sob demanda para os percentis
+
+    void adicionar(long valor) {
+        if (tamanho == valores.length) {
+            valores = Arrays.copyOf(valores, tamanho * 2);
+        }
+        valores[tamanho++] = valor;
+        ordenados = null;
+    }
+
+    void adicionarTodos(Amostras outras) {
+        for (int i = 0; i < outras.tamanho; i++) {
+            adicionar(outras.valores[i]);
+        }
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    // Percentil p (entre 0 e 1) em milissegundos
+    double percentilMs(double p) {
+        if (tamanho == 0) {
+            return 0;
+        }
+        if (ordenados == null) {
+            ordenados = Arrays.copyOf(valores, tamanho);
+            Arrays.sort(ordenados);
+        }
+        return ordenados[(int) Math.min(tamanho - 1, Math.floor(p * tamanho))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.joellacerda.bookstan.benchmark;
+
+import br.com.joellacerda.bookstan.BookstanApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Sobe a aplicação para os benchmarks: perfil h2, banco em memória próprio e as configurações comuns a todos
+// (porta livre, sem log de SQL, sem indexação da busca na inicialização, sem o limitador de concorrência, que
+// recusaria parte da carga com 503). Cada benchmark acrescenta ou sobrescreve propriedades em "ajustes".
+final class AplicacaoBenchmark {
+
+    private static final Map<String, String> PADRAO = Map.of(
+            "server.port", "0",
+            "spring.jpa.show-sql", "false",
+            "bookstan.busca.indexar-na-inicializacao", "false",
+            "bookstan.limite-concorrencia.habilitado", "false",
+            "spring.devtools.restart.enabled", "false",
+            "logging.level.root", "WARN");
+
+    private AplicacaoBenchmark() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String banco, Map<String, String> ajustes) {
+        Map<String, String> propriedades = new LinkedHashMap<>(PADRAO);
+        propriedades.put("spring.datasource.url", "jdbc:h2:mem:" + banco + ";DB_CLOSE_DELAY=-1");
+        propriedades.putAll(ajustes); // Por chave: repetida na linha de comando, a propriedade juntaria os valores
+        // Como argumentos de linha de comando, para terem precedência sobre application-h2.properties
+        String[] argumentos = propriedades.entrySet().stream()
+                .map(propriedade -> "--" + propriedade.getKey() + "=" + propriedade.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(BookstanApplication.class).profiles("h2").run(argumentos);
+    }
+
+    // URL da API de livros na porta escolhida pelo servidor
+    static String urlLivros(ConfigurableApplicationContext contexto) {
+        return "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api/livros";
+    }
+}
@@ -0,0 +1,286 @@
+package br.com.joellacerda.bookstan.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Teste de carga de ponta a ponta (não roda no "mvn test").
+//
+// Sobe a aplicação no perfil h2, popula o banco com bookstan.carga.livros livros direto por SQL (segundos mesmo
+// para 1 milhão) e dispara uma carga mista pela pilha HTTP real: leitura por ID, páginas profundas da listagem,
+// cadastro, atualização e exclusão. Ao final mostra vazão e p50/p95/p99/p999 por operação e grava o resultado
+// em target/carga/resultado.json.
+//
+// Se existir um baseline (bookstan.carga.baseline), compara com ele e falha apontando as operações cuja vazão
+// caiu ou cujo p99 subiu além da tolerância. Para gravar o resultado atual como baseline, use
+// -Dbookstan.carga.salvar-baseline=true. O baseline só vale para a mesma máquina e os mesmos parâmetros.
+//
+// Rodar:
+//   mvn test -Dgroups=benchmark -DexcludedGroups= -Dtest=CargaBenchmark -Dbookstan.carga.livros=1000000
+// Parâmetros (valor padrão):
+//   bookstan.carga.livros (100000), bookstan.carga.clientes (32), bookstan.carga.duracao-s (30),
+//   bookstan.carga.aquecimento-s (10), bookstan.carga.baseline (src/test/resources/carga/baseline.json),
+//   bookstan.carga.tolerancia (0.20 = 20%), bookstan.carga.salvar-baseline (false)
+@Tag("benchmark")
+public class CargaBenchmark {
+
+    private static final int LIVROS = Integer.getInteger("bookstan.carga.livros", 100_000);
+    private static final int CLIENTES = Integer.getInteger("bookstan.carga.clientes", 32);
+    private static final int DURACAO_S = Integer.getInteger("bookstan.carga.duracao-s", 30);
+    private static final int AQUECIMENTO_S = Integer.getInteger("bookstan.carga.aquecimento-s", 10);
+    private static final Path BASELINE = Path.of(System.getProperty("bookstan.carga.baseline",
+            "src/test/resources/carga/baseline.json"));
+    private static final double TOLERANCIA = Double.parseDouble(System.getProperty("bookstan.carga.tolerancia", "0.20"));
+    private static final boolean SALVAR_BASELINE = Boolean.getBoolean("bookstan.carga.salvar-baseline");
+    private static final int TAMANHO_PAGINA = 20;
+
+    // Operações da carga e o peso de cada uma (em %)
+    enum Operacao {
+        BUSCAR_POR_ID(50), LISTAR_PAGINA_PROFUNDA(15), CRIAR(15), ATUALIZAR(10), EXCLUIR(10);
+
+        final int peso;
+
+        Operacao(int peso) {
+            this.peso = peso;
+        }
+
+        static Operacao sortear(ThreadLocalRandom aleatorio) {
+            int valor = aleatorio.nextInt(100);
+            for (Operacao operacao : values()) {
+                valor -= operacao.peso;
+                if (valor < 0) {
+                    return operacao;
+                }
+            }
+            return BUSCAR_POR_ID;
+        }
+    }
+
+    // Latências das requisições bem-sucedidas e quantidade de erros de uma operação
+    private static final class Medicao {
+        final Amostras latencias = new Amostras();
+        int erros;
+
+        void somar(Medicao outra) {
+            latencias.adicionarTodos(outra.latencias);
+            erros += outra.erros;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    // Livros criados pela carga: as exclusões usam estes, para não esvaziar o catálogo populado
+    private final ConcurrentLinkedQueue<Long> criados = new ConcurrentLinkedQueue<>();
+    private String base;
+
+    @Test
+    @DisplayName("Carga mista pela API HTTP com comparação contra o baseline")
+    void executarCargaMista() throws Exception {
+        try (ConfigurableApplicationContext contexto = AplicacaoBenchmark.iniciar("carga", Map.of())) {
+
+            long inicio = System.nanoTime();
+            popular(contexto.getBean(JdbcTemplate.class));
+            System.out.printf("Banco populado com %d livros em %d ms%n", LIVROS, (System.nanoTime() - inicio) / 1_000_000);
+
+            base = AplicacaoBenchmark.urlLivros(contexto);
+            executar(AQUECIMENTO_S);
+            ObjectNode resultado = relatorio(executar(DURACAO_S));
+            Path destino = Path.of("target", "carga", "resultado.json");
+            Files.createDirectories(destino.getParent());
+            objectMapper.writeValue(destino.toFile(), resultado);
+            if (SALVAR_BASELINE) {
+                Files.createDirectories(BASELINE.toAbsolutePath().getParent());
+                objectMapper.writeValue(BASELINE.toFile(), resultado);
+                System.out.println("Baseline gravado em " + BASELINE);
+            } else if (Files.exists(BASELINE)) {
+                List<String> regressoes = comparar(objectMapper.readTree(BASELINE.toFile()), resultado);
+                regressoes.forEach(regressao -> System.out.println("REGRESSÃO: " + regressao));
+                assertTrue(regressoes.isEmpty(), "Regressões em relação a " + BASELINE + ": " + regressoes);
+            } else {
+                System.out.println("Sem baseline em " + BASELINE + "; use -Dbookstan.carga.salvar-baseline=true para criar");
+            }
+        }
+    }
+
+    // INSERT ... SELECT do H2: gera todas as linhas dentro do banco, sem passar pelo JPA
+    private static void popular(JdbcTemplate jdbc) {
+        jdbc.update("insert into livros (id, titulo, autor, genero, ano_publicacao, versao) "
+                + "select x, concat('Livro ', x), concat('Autor ', mod(x, 5000)), concat('Gênero ', mod(x, 20)), "
+                + "1900 + mod(x, 125), 0 from system_range(1, ?)", LIVROS);
+        // A sequence reserva blocos de 50 (allocationSize): recomeça bem acima do último ID populado
+        jdbc.execute("alter sequence livros_seq restart with " + (LIVROS + 1000));
+    }
+
+    private Map<Operacao, Medicao> executar(int segundos) throws Exception {
+        long fim = System.nanoTime() + Duration.ofSeconds(segundos).toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTES);
+        try {
+            List<Future<Map<Operacao, Medicao>>> futuros = new ArrayList<>(CLIENTES);
+            for (int c = 0; c < CLIENTES; c++) {
+                futuros.add(executor.submit(() -> {
+                    Map<Operacao, Medicao> porOperacao = novoMapa();
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    while (System.nanoTime() < fim) {
+                        Operacao operacao = Operacao.sortear(aleatorio);
+                        Long excluir = null;
+                        if (operacao == Operacao.EXCLUIR) {
+                            excluir = criados.poll();
+                            if (excluir == null) {
+                                // Nenhum livro criado para excluir: a vez vira um cadastro, medido como cadastro
+                                operacao = Operacao.CRIAR;
+                            }
+                        }
+                        long inicio = System.nanoTime();
+                        boolean sucesso = executar(operacao, excluir, aleatorio);
+                        long duracao = System.nanoTime() - inicio;
+                        Medicao medicao = porOperacao.get(operacao);
+                        if (sucesso) {
+                            medicao.latencias.adicionar(duracao);
+                        } else {
+                            medicao.erros++;
+                        }
+                    }
+                    return porOperacao;
+                }));
+            }
+            Map<Operacao, Medicao> total = novoMapa();
+            for (Future<Map<Operacao, Medicao>> futuro : futuros) {
+                futuro.get().forEach((operacao, medicao) -> total.get(operacao).somar(medicao));
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // "excluir" é o livro a excluir na operação EXCLUIR (um dos criados pela carga)
+    private boolean executar(Operacao operacao, Long excluir, ThreadLocalRandom aleatorio) {
+        long idPopulado = 1 + aleatorio.nextInt(LIVROS);
+        return switch (operacao) {
+            case BUSCAR_POR_ID -> enviar(HttpRequest.newBuilder(URI.create(base + "/" + idPopulado)).GET()) == 200;
+            case LISTAR_PAGINA_PROFUNDA -> enviar(HttpRequest.newBuilder(URI.create(
+                    base + "?size=" + TAMANHO_PAGINA + "&page=" + aleatorio.nextInt(LIVROS / TAMANHO_PAGINA))).GET()) == 200;
+            case CRIAR -> criar(aleatorio);
+            case ATUALIZAR -> enviar(HttpRequest.newBuilder(URI.create(base + "/" + idPopulado))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(corpo("Livro " + idPopulado + " (revisado)", aleatorio)))) == 200;
+            case EXCLUIR -> enviar(HttpRequest.newBuilder(URI.create(base + "/" + excluir)).DELETE()) == 204;
+        };
+    }
+
+    private boolean criar(ThreadLocalRandom aleatorio) {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo("Novo livro " + aleatorio.nextInt(), aleatorio)))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            HttpResponse<String> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofString());
+            if (resposta.statusCode() != 201) {
+                return false;
+            }
+            criados.add(objectMapper.readTree(resposta.body()).get("id").asLong());
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String corpo(String titulo, ThreadLocalRandom aleatorio) {
+        return "{\"titulo\":\"" + titulo + "\",\"autor\":\"Autor " + aleatorio.nextInt(5000)
+                + "\",\"genero\":\"Carga\",\"anoPublicacao\":" + (1900 + aleatorio.nextInt(125)) + "}";
+    }
+
+    private int enviar(HttpRequest.Builder requisicao) {
+        try {
+            return cliente.send(requisicao.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private ObjectNode relatorio(Map<Operacao, Medicao> medicoes) {
+        ObjectNode resultado = objectMapper.createObjectNode();
+        resultado.put("livros", LIVROS);
+        resultado.put("clientes", CLIENTES);
+        resultado.put("duracaoSegundos", DURACAO_S);
+        ObjectNode operacoes = resultado.putObject("operacoes");
+
+        System.out.printf("%n%-24s %9s %9s %9s %9s %9s %9s %7s%n",
+                "operação", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "total", "erros");
+        medicoes.forEach((operacao, medicao) -> {
+            Amostras sucessos = medicao.latencias;
+            int erros = medicao.erros;
+            double vazao = (double) sucessos.tamanho() / DURACAO_S;
+            ObjectNode linha = operacoes.putObject(operacao.name());
+            linha.put("vazao", vazao);
+            linha.put("p50", sucessos.percentilMs(0.50));
+            linha.put("p95", sucessos.percentilMs(0.95));
+            linha.put("p99", sucessos.percentilMs(0.99));
+            linha.put("p999", sucessos.percentilMs(0.999));
+            linha.put("total", sucessos.tamanho());
+            linha.put("erros", erros);
+            System.out.printf("%-24s %9.1f %9.2f %9.2f %9.2f %9.2f %9d %7d%n", operacao, vazao,
+                    sucessos.percentilMs(0.50), sucessos.percentilMs(0.95), sucessos.percentilMs(0.99),
+                    sucessos.percentilMs(0.999), sucessos.tamanho(), erros);
+        });
+        return resultado;
+    }
+
+    private static List<String> comparar(JsonNode baseline, JsonNode atual) {
+        List<String> regressoes = new ArrayList<>();
+        atual.get("operacoes").fields().forEachRemaining(entrada -> {
+            JsonNode anterior = baseline.path("operacoes").path(entrada.getKey());
+            if (anterior.isMissingNode()) {
+                return;
+            }
+            JsonNode agora = entrada.getValue();
+            if (agora.get("vazao").asDouble() < anterior.get("vazao").asDouble() * (1 - TOLERANCIA)) {
+                regressoes.add(String.format("%s: vazão %.1f req/s (baseline %.1f)", entrada.getKey(),
+                        agora.get("vazao").asDouble(), anterior.get("vazao").asDouble()));
+            }
+            if (agora.get("p99").asDouble() > anterior.get("p99").asDouble() * (1 + TOLERANCIA)) {
+                regressoes.add(String.format("%s: p99 %.2f ms (baseline %.2f ms)", entrada.getKey(),
+                        agora.get("p99").asDouble(), anterior.get("p99").asDouble()));
+            }
+            if (agora.get("erros").asLong() > 0 && anterior.get("erros").asLong() == 0) {
+                regressoes.add(entrada.getKey() + ": " + agora.get("erros").asLong() + " erros (baseline sem erros)");
+            }
+        });
+        return regressoes;
+    }
+
+    private static Map<Operacao, Medicao> novoMapa() {
+        Map<Operacao, Medicao> mapa = new EnumMap<>(Operacao.class);
+        for (Operacao operacao : Operacao.values()) {
+            mapa.put(operacao, new Medicao());
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,24 @@
+package br.com.joellacerda.bookstan.benchmark;
+
+import br.com.joellacerda.bookstan.metricas.InspetorSql;
+
+// Simula a latência de rede de um banco remoto: cada comando SQL preparado pelo Hibernate espera alguns
+// milissegundos antes de ir para o H2 em memória (que sozinho responde em microssegundos e esconderia o
+// tempo que as threads passam bloqueadas no JDBC). Usado só pelos benchmarks, no lugar do InspetorSql
+// (o Hibernate aceita um único StatementInspector), por isso continua contando os comandos.
+public class LatenciaBancoSimulada extends InspetorSql {
+
+    static volatile long latenciaMs = 0; // Desligada durante a carga inicial dos dados
+
+    @Override
+    public String inspect(String sql) {
+        if (latenciaMs > 0) {
+            try {
+                Thread.sleep(latenciaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return super.inspect(sql);
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.joellacerda.bookstan.benchmark;
+
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.model.Isbn;
+import br.com.joellacerda.bookstan.model.Livro;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import br.com.joellacerda.bookstan.service.LivroService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Leitura por entidade x projeção para DTO (não roda no "mvn test").
+//
+// Compara, na mesma JVM e no mesmo banco, o caminho antigo (findAll/findById carregando Livro e copiando campo a
+// campo para o DTO) com o atual (consultas "select new LivroResponseDTO(...)" do LivroRepository), para uma página
+// de 1000 livros e para o detalhe por ID sem cache. Mede os bytes alocados pela thread em cada chamada
+// (ThreadMXBean; o H2 em memória roda na própria thread) e p50/p99 da latência. O cache de segundo nível fica
+// desligado: as duas versões vão ao banco em toda chamada.
+//
+// Rodar:
+//   mvn test -Dgroups=benchmark -DexcludedGroups= -Dtest=ProjecaoBenchmark
+// Parâmetros: -Dbookstan.benchmark.aquecimento=300 -Dbookstan.benchmark.medicoes=500
+@Tag("benchmark")
+public class ProjecaoBenchmark {
+
+    private static final int AQUECIMENTO = Integer.getInteger("bookstan.benchmark.aquecimento", 300);
+    private static final int MEDICOES = Integer.getInteger("bookstan.benchmark.medicoes", 500);
+    private static final int LIVROS = 1000;
+
+    @Test
+    @DisplayName("Entidade x projeção: bytes alocados, p50 e p99 da página de 1000 e do detalhe por ID")
+    void compararEntidadeEProjecao() {
+        try (ConfigurableApplicationContext contexto = AplicacaoBenchmark.iniciar("benchmark-projecao", Map.of(
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache", "false",
+                "spring.jpa.properties.hibernate.cache.use_query_cache", "false"))) {
+
+            LivroRepository repositorio = contexto.getBean(LivroRepository.class);
+            LivroService servico = contexto.getBean(LivroService.class);
+            TransactionTemplate leitura = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+            leitura.setReadOnly(true);
+
+            List<Long> ids = popular(repositorio);
+            Pageable pagina = PageRequest.of(0, LIVROS);
+
+            Resultado paginaEntidade = medir("página de 1000, entidade", () ->
+                    leitura.execute(status -> repositorio.findAll(pagina).map(ProjecaoBenchmark::paraDTO)));
+            Resultado paginaProjecao = medir("página de 1000, projeção", () ->
+                    servico.buscarTodosLivros(pagina, true));
+
+            int[] proximo = {0};
+            Resultado detalheEntidade = medir("detalhe por ID, entidade", () ->
+                    repositorio.findById(ids.get(proximo[0]++ % ids.size())).map(ProjecaoBenchmark::paraDTO));
+            Resultado detalheProjecao = medir("detalhe por ID, projeção", () ->
+                    repositorio.findProjetadoById(ids.get(proximo[0]++ % ids.size())));
+
+            System.out.println(paginaEntidade);
+            System.out.println(paginaProjecao);
+            System.out.println(detalheEntidade);
+            System.out.println(detalheProjecao);
+
+            // Só a alocação da página é verificada: a latência e o detalhe (dominado pela ida ao banco) variam
+            // demais entre máquinas para um limite fixo
+            assertTrue(paginaProjecao.bytesPorChamada() < paginaEntidade.bytesPorChamada(),
+                    "A projeção deveria alocar menos que a leitura por entidade na página de 1000");
+        }
+    }
+
+    private static List<Long> popular(LivroRepository repositorio) {
+        List<Livro> livros = new ArrayList<>(LIVROS);
+        for (int i = 0; i < LIVROS; i++) {
+            livros.add(new Livro(null, "Livro " + i, "Autor " + (i % 100), "Gênero " + (i % 10), 1900 + i % 120, null));
+        }
+        return repositorio.saveAll(livros).stream().map(Livro::getId).toList();
+    }
+
+    // Cópia campo a campo que o LivroService fazia antes das projeções
+    private static LivroResponseDTO paraDTO(Livro livro) {
+        LivroResponseDTO dto = new LivroResponseDTO();
+        dto.setId(livro.getId());
+        dto.setTitulo(livro.getTitulo());
+        dto.setAutor(livro.getAutor());
+        dto.setGenero(livro.getGenero());
+        dto.setAnoPublicacao(livro.getAnoPublicacao());
+        dto.setIsbn(Isbn.formatar(livro.getIsbn()));
+        dto.setVersao(livro.getVersao());
+        return dto;
+    }
+
+    private static Resultado medir(String nome, Supplier<?> chamada) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            consumir(chamada.get());
+        }
+        Amostras latencias = new Amostras();
+        long alocadosAntes = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEDICOES; i++) {
+            long inicio = System.nanoTime();
+            consumir(chamada.get());
+            latencias.adicionar(System.nanoTime() - inicio);
+        }
+        long alocados = threads.getThreadAllocatedBytes(thread) - alocadosAntes;
+        return new Resultado(nome, alocados / MEDICOES, latencias);
+    }
+
+    // Usa o resultado, para que o JIT não descarte a chamada
+    private static void consumir(Object resultado) {
+        if (resultado == null || resultado instanceof Page<?> pagina && pagina.isEmpty()) {
+            throw new IllegalStateException("Consulta sem resultado");
+        }
+    }
+
+    private record Resultado(String nome, long bytesPorChamada, Amostras latencias) {
+
+        @Override
+        public String toString() {
+            return String.format("%-28s | %8.1f KB/chamada | p50 %7.2f ms | p99 %7.2f ms",
+                    nome, bytesPorChamada / 1024.0, latencias.percentilMs(0.50), latencias.percentilMs(0.99));
+        }
+    }
+}
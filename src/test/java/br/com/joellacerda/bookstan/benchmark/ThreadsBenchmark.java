@@ -0,0 +1,154 @@
+package br.com.joellacerda.bookstan.benchmark;
+
+import br.com.joellacerda.bookstan.model.Livro;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Compara threads de plataforma e virtual threads sob alta concorrência (não roda no "mvn test").
+//
+// Sobe a aplicação duas vezes (perfil h2, mesmo pool de conexões) e dispara requisições de muitos clientes
+// simultâneos por um tempo fixo. A carga mistura 80% de GET /api/livros/{id} que saem do cache (sem banco) com
+// 20% de GET /api/livros paginado, que espera a latência simulada do banco (LatenciaBancoSimulada).
+// Com o pool de 200 threads do Tomcat ocupado por requisições esperando conexão, até as leituras do cache
+// ficam na fila; com virtual threads elas não dependem de uma thread livre.
+//
+// Rodar (o modo virtual exige JDK 21):
+//   mvn test -Dgroups=benchmark -DexcludedGroups= -Dtest=ThreadsBenchmark
+// Parâmetros: -Dbookstan.benchmark.clientes=1000 -Dbookstan.benchmark.duracao-s=15 -Dbookstan.benchmark.latencia-ms=20
+@Tag("benchmark")
+public class ThreadsBenchmark {
+
+    private static final int CLIENTES = Integer.getInteger("bookstan.benchmark.clientes", 1000);
+    private static final int DURACAO_S = Integer.getInteger("bookstan.benchmark.duracao-s", 15);
+    private static final long LATENCIA_MS = Long.getLong("bookstan.benchmark.latencia-ms", 20);
+    private static final int LIVROS = 2000;
+    private static final int LIVROS_EM_CACHE = 200;
+
+    @Test
+    @DisplayName("Threads de plataforma x virtual threads: vazão e p99 com carga mista")
+    void compararPlataformaEVirtual() throws Exception {
+        Resultado plataforma = executar(false);
+        System.out.println(plataforma);
+
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads exigem JDK 21; só o modo plataforma foi medido");
+        Resultado virtual = executar(true);
+        System.out.println(virtual);
+    }
+
+    private Resultado executar(boolean virtualThreads) throws Exception {
+        String modo = virtualThreads ? "virtual" : "plataforma";
+        LatenciaBancoSimulada.latenciaMs = 0;
+        try (ConfigurableApplicationContext contexto = AplicacaoBenchmark.iniciar("benchmark-" + modo, Map.of(
+                "spring.threads.virtual.enabled", Boolean.toString(virtualThreads),
+                "spring.datasource.hikari.maximum-pool-size", "40",
+                "spring.datasource.hikari.connection-timeout", "10000",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                LatenciaBancoSimulada.class.getName()))) {
+
+            List<Long> ids = popular(contexto.getBean(LivroRepository.class));
+            String base = AplicacaoBenchmark.urlLivros(contexto);
+            HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            for (Long id : ids.subList(0, LIVROS_EM_CACHE)) {
+                enviar(cliente, base + "/" + id); // Aquece o cache dos livros mais lidos
+            }
+
+            LatenciaBancoSimulada.latenciaMs = LATENCIA_MS;
+            executarCarga(cliente, base, ids, 3); // Aquecimento do JIT e das conexões HTTP
+            return executarCarga(cliente, base, ids, DURACAO_S).comModo(modo);
+        } finally {
+            LatenciaBancoSimulada.latenciaMs = 0;
+        }
+    }
+
+    private static List<Long> popular(LivroRepository repositorio) {
+        List<Livro> livros = new ArrayList<>(LIVROS);
+        for (int i = 0; i < LIVROS; i++) {
+            livros.add(new Livro(null, "Livro " + i, "Autor " + (i % 100), "Gênero " + (i % 10), 1900 + i % 120, null));
+        }
+        return repositorio.saveAll(livros).stream().map(Livro::getId).toList();
+    }
+
+    private static Resultado executarCarga(HttpClient cliente, String base, List<Long> ids, int segundos) throws Exception {
+        long fim = System.nanoTime() + Duration.ofSeconds(segundos).toNanos();
+        AtomicLong erros = new AtomicLong();
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        try {
+            List<Future<Amostras[]>> futuros = new ArrayList<>(CLIENTES);
+            for (int c = 0; c < CLIENTES; c++) {
+                futuros.add(clientes.submit(() -> {
+                    Amostras cache = new Amostras();
+                    Amostras banco = new Amostras();
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    while (System.nanoTime() < fim) {
+                        boolean leituraCache = aleatorio.nextInt(100) < 80;
+                        String url = leituraCache
+                                ? base + "/" + ids.get(aleatorio.nextInt(LIVROS_EM_CACHE))
+                                : base + "?size=20&page=" + aleatorio.nextInt(LIVROS / 20);
+                        long inicio = System.nanoTime();
+                        if (enviar(cliente, url) != 200) {
+                            erros.incrementAndGet();
+                        }
+                        (leituraCache ? cache : banco).adicionar(System.nanoTime() - inicio);
+                    }
+                    return new Amostras[]{cache, banco};
+                }));
+            }
+            Amostras cache = new Amostras();
+            Amostras banco = new Amostras();
+            for (Future<Amostras[]> futuro : futuros) {
+                Amostras[] amostras = futuro.get();
+                cache.adicionarTodos(amostras[0]);
+                banco.adicionarTodos(amostras[1]);
+            }
+            return new Resultado(null, segundos, cache, banco, erros.get());
+        } finally {
+            clientes.shutdownNow();
+        }
+    }
+
+    private static int enviar(HttpClient cliente, String url) {
+        try {
+            return cliente.send(HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private record Resultado(String modo, int segundos, Amostras cache, Amostras banco, long erros) {
+
+        Resultado comModo(String modo) {
+            return new Resultado(modo, segundos, cache, banco, erros);
+        }
+
+        @Override
+        public String toString() {
+            Amostras todos = new Amostras();
+            todos.adicionarTodos(cache);
+            todos.adicionarTodos(banco);
+            return String.format("%-10s | %d clientes | %8.0f req/s | p50 %7.1f ms | p99 %7.1f ms"
+                            + " | p99 cache %7.1f ms | p99 banco %7.1f ms | erros %d",
+                    modo, CLIENTES, (double) todos.tamanho() / segundos, todos.percentilMs(0.50),
+                    todos.percentilMs(0.99), cache.percentilMs(0.99), banco.percentilMs(0.99), erros);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package br.com.joellacerda.bookstan.busca;
+
+import br.com.joellacerda.bookstan.dto.ContagemFacetaDTO;
+import br.com.joellacerda.bookstan.dto.FacetasDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceLivrosTest {
+
+    private IndiceLivros indice;
+
+    @BeforeEach
+    void setUp() {
+        // Sem repositório: os testes alimentam o índice diretamente
+        indice = new IndiceLivros(null, null, false, Duration.ofHours(1));
+        indice.indexar(1L, 0L, "O Senhor dos Anéis", "J.R.R. Tolkien", "Fantasia", 1954);
+        indice.indexar(2L, 0L, "O Hobbit", "J.R.R. Tolkien", "Fantasia", 1937);
+        indice.indexar(3L, 0L, "Tolkien: Uma Biografia", "Humphrey Carpenter", "Biografia", 1977);
+        indice.indexar(4L, 0L, "1984", "George Orwell", "Distopia", 1949);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar acentos e maiúsculas/minúsculas")
+    void buscar_ignoraAcentosEMaiusculas() {
+        assertEquals(List.of(1L), indice.buscar("ANEIS", 0, 10).ids());
+        assertEquals(List.of(1L), indice.buscar("anéis", 0, 10).ids());
+    }
+
+    @Test
+    @DisplayName("Deve exigir todos os termos e aceitar prefixos")
+    void buscar_exigeTodosOsTermosEAceitaPrefixos() {
+        IndiceLivros.ResultadoBusca resultado = indice.buscar("tolk hobb", 0, 10);
+
+        assertEquals(List.of(2L), resultado.ids());
+        assertEquals(1, resultado.total());
+        assertTrue(indice.buscar("tolkien distopia", 0, 10).ids().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve dar mais relevância a um termo no título do que no autor")
+    void buscar_tituloPesaMaisQueAutor() {
+        List<Long> ids = indice.buscar("tolkien", 0, 10).ids();
+
+        assertEquals(3, ids.size());
+        assertEquals(3L, ids.get(0)); // "Tolkien" no título
+    }
+
+    @Test
+    @DisplayName("Deve paginar mantendo o total de resultados")
+    void buscar_paginaResultados() {
+        IndiceLivros.ResultadoBusca primeira = indice.buscar("tolkien", 0, 2);
+        IndiceLivros.ResultadoBusca segunda = indice.buscar("tolkien", 1, 2);
+
+        assertEquals(2, primeira.ids().size());
+        assertEquals(1, segunda.ids().size());
+        assertEquals(3, segunda.total());
+        assertFalse(primeira.ids().contains(segunda.ids().get(0)));
+    }
+
+    @Test
+    @DisplayName("Deve refletir atualização e remoção de livros")
+    void indexarERemover_atualizamOIndice() {
+        indice.indexar(4L, 1L, "Mil Novecentos e Oitenta e Quatro", "George Orwell", "Distopia", 1949);
+        assertTrue(indice.buscar("1984", 0, 10).ids().isEmpty());
+        assertEquals(List.of(4L), indice.buscar("oitenta", 0, 10).ids());
+
+        // Um evento atrasado com versão antiga não desfaz a atualização
+        indice.indexar(4L, 0L, "1984", "George Orwell", "Distopia", 1949);
+        assertEquals(List.of(4L), indice.buscar("oitenta", 0, 10).ids());
+
+        indice.remover(4L);
+        assertTrue(indice.buscar("orwell", 0, 10).ids().isEmpty());
+        assertEquals(3, indice.totalDocumentos());
+    }
+
+    @Test
+    @DisplayName("Uma gravação que chega depois da remoção não deve trazer o livro de volta")
+    void indexar_depoisDaRemocao_eIgnorado() {
+        indice.remover(4L);
+
+        // Evento atrasado de um PUT concorrente (versão nova) ou leitura da reconstrução (mesma versão)
+        indice.indexar(4L, 1L, "1984", "George Orwell", "Distopia", 1949);
+        indice.indexar(4L, 0L, "1984", "George Orwell", "Distopia", 1949);
+
+        assertTrue(indice.buscar("orwell", 0, 10).ids().isEmpty());
+        assertEquals(3, indice.facetas(null, null, 10).getTotal());
+        assertTrue(indice.facetas(null, null, 10).getGeneros().stream().noneMatch(c -> c.getValor().equals("Distopia")));
+    }
+
+    @Test
+    @DisplayName("Deve retornar vazio para consulta sem termos relevantes")
+    void buscar_consultaVazia_retornaVazio() {
+        assertEquals(0, indice.buscar("  o, de ", 0, 10).total());
+        assertEquals(0, indice.buscar(null, 0, 10).total());
+    }
+
+    @Test
+    @DisplayName("Deve contar gêneros, décadas e autores a partir dos contadores")
+    void facetas_semFiltro_usamContadores() {
+        FacetasDTO facetas = indice.facetas(null, null, 1);
+
+        assertEquals(4, facetas.getTotal());
+        assertEquals(new ContagemFacetaDTO("Fantasia", 2), facetas.getGeneros().get(0));
+        assertEquals(List.of("1930", "1940", "1950", "1970"),
+                facetas.getDecadas().stream().map(ContagemFacetaDTO::getValor).toList());
+        assertEquals(List.of(new ContagemFacetaDTO("J.R.R. Tolkien", 2)), facetas.getAutores());
+    }
+
+    @Test
+    @DisplayName("Deve manter as facetas em dia ao atualizar e remover livros")
+    void facetas_acompanhamAtualizacaoERemocao() {
+        indice.indexar(2L, 1L, "O Hobbit", "J.R.R. Tolkien", "Infantojuvenil", 1937);
+        indice.remover(4L);
+
+        FacetasDTO facetas = indice.facetas(null, null, 10);
+
+        assertEquals(3, facetas.getTotal());
+        assertTrue(facetas.getGeneros().contains(new ContagemFacetaDTO("Fantasia", 1)));
+        assertTrue(facetas.getGeneros().contains(new ContagemFacetaDTO("Infantojuvenil", 1)));
+        assertTrue(facetas.getGeneros().stream().noneMatch(c -> c.getValor().equals("Distopia")));
+        assertTrue(facetas.getDecadas().stream().noneMatch(c -> c.getValor().equals("1940")));
+    }
+
+    @Test
+    @DisplayName("Deve calcular as facetas só sobre os livros filtrados")
+    void facetas_comFiltro_contamApenasOsLivrosQueCasam() {
+        FacetasDTO porBusca = indice.facetas("tolkien", null, 10);
+        FacetasDTO porGenero = indice.facetas(null, "fantasia", 10);
+
+        assertEquals(3, porBusca.getTotal());
+        assertTrue(porBusca.getGeneros().contains(new ContagemFacetaDTO("Biografia", 1)));
+        assertEquals(2, porGenero.getTotal());
+        assertEquals(List.of(new ContagemFacetaDTO("J.R.R. Tolkien", 2)), porGenero.getAutores());
+    }
+
+    @Test
+    @DisplayName("Deve manter os contadores por gênero em dia ao trocar o gênero de um livro")
+    void facetas_porGenero_acompanhamAtualizacao() {
+        indice.indexar(2L, 1L, "O Hobbit", "J.R.R. Tolkien", "Infantojuvenil", 1937);
+        indice.remover(4L);
+
+        assertEquals(1, indice.facetas(null, "FANTASIA", 10).getTotal());
+        assertEquals(List.of(new ContagemFacetaDTO("1930", 1)), indice.facetas(null, "infantojuvenil", 10).getDecadas());
+        assertEquals(0, indice.facetas(null, "Distopia", 10).getTotal());
+        assertEquals(1, indice.facetas("hobbit", "Infantojuvenil", 10).getTotal());
+        assertEquals(0, indice.facetas("hobbit", "Fantasia", 10).getTotal());
+    }
+}
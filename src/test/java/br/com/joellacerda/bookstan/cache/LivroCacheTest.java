@@ -0,0 +1,62 @@
+package br.com.joellacerda.bookstan.cache;
+
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LivroCacheTest {
+
+    private final LivroCache livroCache = new LivroCache(100, Duration.ofMinutes(10), 100, Duration.ofSeconds(30));
+
+    @Test
+    @DisplayName("Um carregamento em andamento durante a invalidação não deve guardar o valor antigo")
+    void buscar_invalidadoDuranteCarregamento_naoGuardaValor() throws Exception {
+        // Arrange: o carregador leu a versão 0 e fica parado antes de devolvê-la
+        LivroResponseDTO antigo = new LivroResponseDTO(1L, "Dom Casmurro", "Machado de Assis", null, 1899, null, 0L);
+        CountDownLatch leu = new CountDownLatch(1);
+        CountDownLatch devolver = new CountDownLatch(1);
+        CompletableFuture<Optional<LivroResponseDTO>> leitura = CompletableFuture.supplyAsync(() ->
+                livroCache.buscar(1L, id -> {
+                    leu.countDown();
+                    aguardar(devolver);
+                    return Optional.of(antigo);
+                }));
+        assertTrue(leu.await(5, TimeUnit.SECONDS));
+
+        // Act: a escrita commita e invalida enquanto a leitura ainda não terminou
+        livroCache.invalidar(1L);
+        devolver.countDown();
+
+        // Assert: quem leu recebe o que leu, mas o cache não fica com a versão antiga
+        assertEquals(Optional.of(antigo), leitura.get(5, TimeUnit.SECONDS));
+        assertTrue(livroCache.consultar(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Sem invalidação, o valor carregado deve ficar no cache")
+    void buscar_semInvalidacao_guardaValor() {
+        LivroResponseDTO livro = new LivroResponseDTO(2L, "1984", "George Orwell", null, 1949, null, 0L);
+
+        livroCache.buscar(2L, id -> Optional.of(livro));
+
+        assertEquals(Optional.of(livro), livroCache.consultar(2L));
+        assertEquals(Optional.of(livro), livroCache.buscar(2L, id -> fail("Não deveria ir ao banco")));
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
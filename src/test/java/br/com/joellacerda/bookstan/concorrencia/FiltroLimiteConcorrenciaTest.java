@@ -0,0 +1,65 @@
+package br.com.joellacerda.bookstan.concorrencia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FiltroLimiteConcorrenciaTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private FiltroLimiteConcorrencia filtro;
+
+    @BeforeEach
+    void setUp() {
+        filtro = new FiltroLimiteConcorrencia(meterRegistry, new ObjectMapper(),
+                50, 200, Duration.ofMillis(200), 20, 100, Duration.ofMillis(500), 2, 0.9, 0.05, 2.0);
+    }
+
+    @Test
+    @DisplayName("503 da fila cheia do cadastro assíncrono não deve reduzir o limite das escritas")
+    void doFilter_filaCheia_naoReduzLimite() throws Exception {
+        // Arrange: resposta como a do handler de FilaCheiaException, sem o sinal de banco sobrecarregado
+        FilterChain filaCheia = (request, response) ->
+                ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+        // Act: uma rajada de recusas rápidas
+        for (int i = 0; i < 30; i++) {
+            filtro.doFilter(new MockHttpServletRequest("POST", "/api/livros/async"), new MockHttpServletResponse(), filaCheia);
+        }
+
+        // Assert
+        assertEquals(20, limiteEscritas());
+    }
+
+    @Test
+    @DisplayName("Banco sobrecarregado (sinalizado pelo RestExceptionHandler) deve reduzir o limite das escritas")
+    void doFilter_bancoSobrecarregado_reduzLimite() throws Exception {
+        // Arrange
+        FilterChain bancoIndisponivel = (request, response) -> {
+            request.setAttribute(FiltroLimiteConcorrencia.ATRIBUTO_BANCO_SOBRECARREGADO, Boolean.TRUE);
+            ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        };
+
+        // Act
+        filtro.doFilter(new MockHttpServletRequest("PUT", "/api/livros/1"), new MockHttpServletResponse(), bancoIndisponivel);
+
+        // Assert
+        assertTrue(limiteEscritas() < 20);
+    }
+
+    private double limiteEscritas() {
+        return meterRegistry.get("bookstan.concorrencia.limite").tag("tipo", "escrita").gauge().value();
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.joellacerda.bookstan.concorrencia;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatenciaBaseTest {
+
+    private static final long ALVO = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long IMPORTACAO = TimeUnit.SECONDS.toNanos(30);
+
+    @Test
+    @DisplayName("Um endpoint lento por natureza deve ser julgado pela sua própria latência de referência")
+    void alvo_endpointLento_usaAReferencia() {
+        LatenciaBase importacao = new LatenciaBase(0.5, 2.0);
+
+        // A primeira resposta vira a referência e não é lenta
+        assertTrue(IMPORTACAO <= importacao.alvo(IMPORTACAO, ALVO));
+        assertEquals(2 * IMPORTACAO, importacao.alvo(IMPORTACAO, ALVO));
+        // Um endpoint rápido continua com a latência alvo configurada
+        LatenciaBase cadastro = new LatenciaBase(0.5, 2.0);
+        cadastro.alvo(TimeUnit.MILLISECONDS.toNanos(5), ALVO);
+        assertEquals(ALVO, cadastro.alvo(TimeUnit.MILLISECONDS.toNanos(5), ALVO));
+    }
+
+    @Test
+    @DisplayName("Respostas lentas não devem subir a referência")
+    void alvo_respostasLentas_naoEntramNaMedia() {
+        LatenciaBase importacao = new LatenciaBase(0.5, 2.0);
+        importacao.alvo(IMPORTACAO, ALVO);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(2 * IMPORTACAO, importacao.alvo(10 * IMPORTACAO, ALVO));
+        }
+    }
+}
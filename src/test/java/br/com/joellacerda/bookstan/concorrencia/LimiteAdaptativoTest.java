@@ -0,0 +1,76 @@
+package br.com.joellacerda.bookstan.concorrencia;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LimiteAdaptativoTest {
+
+    private static final long ALVO = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long RAPIDA = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long LENTA = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    @DisplayName("Deve recusar vagas acima do limite e liberá-las ao registrar")
+    void tentarAdquirir_acimaDoLimite_recusa() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(2, 1, 10, ALVO, 0.5);
+
+        assertTrue(limite.tentarAdquirir());
+        assertTrue(limite.tentarAdquirir());
+        assertFalse(limite.tentarAdquirir());
+
+        limite.registrar(0, RAPIDA, false);
+        assertEquals(1, limite.getEmVoo());
+        assertTrue(limite.tentarAdquirir());
+    }
+
+    @Test
+    @DisplayName("Respostas lentas devem reduzir o limite, no máximo uma vez por intervalo de latência")
+    void registrar_respostaLenta_reduzLimite() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(20, 2, 100, ALVO, 0.5);
+        long agora = System.nanoTime() + LENTA;
+
+        limite.tentarAdquirir();
+        limite.tentarAdquirir();
+        limite.registrar(agora - LENTA, agora, false);
+        assertEquals(10, limite.getLimite());
+
+        // Outra resposta da mesma rajada lenta, terminada logo depois: não reduz de novo
+        limite.registrar(agora - LENTA, agora + RAPIDA, false);
+        assertEquals(10, limite.getLimite());
+
+        // Passada uma latência inteira, a sobrecarga volta a reduzir (sem descer do mínimo)
+        for (int i = 1; i <= 10; i++) {
+            long fim = agora + i * LENTA;
+            limite.tentarAdquirir();
+            limite.registrar(fim - RAPIDA, fim, true);
+        }
+        assertEquals(2, limite.getLimite());
+    }
+
+    @Test
+    @DisplayName("Respostas rápidas com o limite em uso devem aumentá-lo aos poucos, até o máximo")
+    void registrar_respostasRapidas_aumentaLimite() {
+        LimiteAdaptativo limite = new LimiteAdaptativo(4, 1, 6, ALVO, 0.5);
+
+        // Com 4 vagas ocupadas, cada resposta rápida soma 1/limite: umas 4 respostas para +1
+        for (int i = 0; i < 100; i++) {
+            while (limite.tentarAdquirir()) {
+                // Ocupa todas as vagas
+            }
+            limite.registrar(0, RAPIDA, false);
+        }
+        assertEquals(6, limite.getLimite());
+
+        // Limite ocioso (uma requisição por vez) não cresce
+        LimiteAdaptativo ocioso = new LimiteAdaptativo(4, 1, 6, ALVO, 0.5);
+        for (int i = 0; i < 100; i++) {
+            ocioso.tentarAdquirir();
+            ocioso.registrar(0, RAPIDA, false);
+        }
+        assertEquals(4, ocioso.getLimite());
+    }
+}
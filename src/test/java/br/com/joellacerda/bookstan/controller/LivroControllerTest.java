@@ -1,9 +1,21 @@
 package br.com.joellacerda.bookstan.controller;
 
+import br.com.joellacerda.bookstan.busca.IndiceLivros;
+import br.com.joellacerda.bookstan.dto.ImportacaoResultadoDTO;
 import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.model.Isbn;
 import br.com.joellacerda.bookstan.model.Livro;
 import br.com.joellacerda.bookstan.repository.LivroRepository;
+import br.com.joellacerda.bookstan.repository.MigracaoLivros;
+import br.com.joellacerda.bookstan.service.FormatoArquivo;
+import br.com.joellacerda.bookstan.service.LivroAlteracoesService;
+import br.com.joellacerda.bookstan.service.LivroImportacaoService;
+import br.com.joellacerda.bookstan.service.LivroService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,13 +23,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -38,6 +67,27 @@ public class LivroControllerTest {
     @Autowired
     private LivroRepository livroRepository; // Para manipular dados no banco diretamente para setup de testes
 
+    @Autowired
+    private IndiceLivros indiceLivros;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private LivroAlteracoesService livroAlteracoesService;
+
+    @Autowired
+    private LivroImportacaoService livroImportacaoService;
+
+    @Autowired
+    private MigracaoLivros migracaoLivros;
+
+    @Autowired
+    private DataSource dataSource;
+
     private Livro livroExemplo1;
     private Livro livroExemplo2;
     private Livro livroExemplo3;
@@ -53,9 +103,9 @@ public class LivroControllerTest {
         livroRepository.deleteAll();
 
         // Configura alguns livros de exemplo
-        livroExemplo1 = new Livro(null, "A Revolução dos Bichos", "George Orwell", "Sátira Política", 1945, "978-8535902776");
-        livroExemplo2 = new Livro(null, "1984", "George Orwell", "Distopia", 1949, "978-0451524935");
-        livroExemplo3 = new Livro(null, "O Hobbit", "J.R.R. Tolkien", "Fantasia", 1937, "978-0547928227");
+        livroExemplo1 = new Livro(null, "A Revolução dos Bichos", "George Orwell", "Sátira Política", 1945, 9788535909555L);
+        livroExemplo2 = new Livro(null, "1984", "George Orwell", "Distopia", 1949, 9780451524935L);
+        livroExemplo3 = new Livro(null, "O Hobbit", "J.R.R. Tolkien", "Fantasia", 1937, 9780547928227L);
 
         // DTO para usar nas requisições POST/PUT
         livroRequestExemplo = new LivroRequestDTO();
@@ -82,6 +132,58 @@ public class LivroControllerTest {
                 .andExpect(jsonPath("$.autor", is(livroRequestExemplo.getAutor())));
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // A gravação acontece na thread gravadora
+    @DisplayName("POST /api/livros/async - Deve aceitar o livro com 202 e gravá-lo em seguida")
+    void criarLivroAssincrono_quandoDadosValidos_retorna202EGrava() throws Exception {
+        try {
+            // Act
+            String corpo = mockMvc.perform(post("/api/livros/async")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", startsWith("/api/livros/async/")))
+                    .andExpect(jsonPath("$.estado", is("PENDENTE")))
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            String protocolo = objectMapper.readTree(corpo).get("protocolo").asText();
+
+            // Assert: consulta a situação até o lote ser gravado
+            JsonNode situacao = null;
+            for (int tentativa = 0; tentativa < 100; tentativa++) {
+                String resposta = mockMvc.perform(get("/api/livros/async/" + protocolo))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+                situacao = objectMapper.readTree(resposta);
+                if (!"PENDENTE".equals(situacao.get("estado").asText())) {
+                    break;
+                }
+                Thread.sleep(50);
+            }
+            assertEquals("CRIADO", situacao.get("estado").asText());
+            assertTrue(livroRepository.findById(situacao.get("id").asLong()).isPresent());
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("POST /api/livros/async - Deve validar o livro antes de aceitá-lo")
+    void criarLivroAssincrono_quandoTituloEmBranco_retornaStatusBadRequest() throws Exception {
+        livroRequestExemplo.setTitulo("");
+
+        mockMvc.perform(post("/api/livros/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/async/{protocolo} - Deve retornar 404 para protocolo desconhecido")
+    void buscarCriacaoAssincrona_protocoloDesconhecido_retornaStatusNotFound() throws Exception {
+        mockMvc.perform(get("/api/livros/async/inexistente"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("POST /api/livros - Deve retornar status 400 quando dados inválidos (título em branco)")
     void criarLivro_quandoTituloEmBranco_retornaStatusBadRequest() throws Exception {
@@ -90,7 +192,7 @@ public class LivroControllerTest {
         livroInvalidoRequest.setTitulo(""); // Título inválido
         livroInvalidoRequest.setAutor("Autor Válido");
         livroInvalidoRequest.setAnoPublicacao(2000);
-        livroInvalidoRequest.setIsbn("978-0451524936"); // ISBN válido para focar no erro do título
+        livroInvalidoRequest.setIsbn("978-0451524935"); // ISBN válido para focar no erro do título
         // Outros campos válidos para isolar o erro do título
         livroInvalidoRequest.setGenero("Qualquer");
 
@@ -106,6 +208,627 @@ public class LivroControllerTest {
                 .andExpect(jsonPath("$.messages", hasItem("titulo: O título deve ter entre 2 e 100 caracteres.")));
     }
 
+    @Test
+    @DisplayName("POST /api/livros - Deve retornar status 409 quando o ISBN já existe em outra formatação")
+    void criarLivro_quandoIsbnJaCadastrado_retornaStatusConflict() throws Exception {
+        // Arrange: o mesmo ISBN do Hobbit, mas na forma ISBN-10 com prefixo
+        livroRepository.saveAndFlush(livroExemplo3);
+        livroRequestExemplo.setIsbn("ISBN-10: 0-547-92822-X");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/livros")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is("Já existe um livro com o ISBN 9780547928227.")));
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/isbn/{isbn} - Deve encontrar o livro por ISBN-10 ou ISBN-13")
+    void buscarLivroPorIsbn_emQualquerFormato_retornaLivro() throws Exception {
+        // Arrange
+        Livro salvo = livroRepository.save(livroExemplo3);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/isbn/{isbn}", "978-0-547-92822-7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(salvo.getId().intValue())))
+                .andExpect(jsonPath("$.isbn", is("9780547928227")));
+        mockMvc.perform(get("/api/livros/isbn/{isbn}", "054792822X"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titulo", is("O Hobbit")));
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/isbn/{isbn} - Deve retornar 400 para ISBN inválido e 404 para ISBN não cadastrado")
+    void buscarLivroPorIsbn_quandoInvalidoOuInexistente_retornaErro() throws Exception {
+        mockMvc.perform(get("/api/livros/isbn/{isbn}", "978-0547928228"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/livros/isbn/{isbn}", "978-0451524935"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("Livro não encontrado com ISBN: 9780451524935")));
+    }
+
+    @Test
+    @DisplayName("POST /api/livros/batch - Deve criar os itens válidos e reportar os rejeitados")
+    void criarLivros_comItensValidosEInvalidos_retornaResultadoPorItem() throws Exception {
+        // Arrange: um livro já cadastrado para provocar ISBN duplicado
+        livroRepository.save(livroExemplo1);
+
+        LivroRequestDTO valido = new LivroRequestDTO();
+        valido.setTitulo("Dom Casmurro");
+        valido.setAutor("Machado de Assis");
+        valido.setAnoPublicacao(1899);
+        valido.setIsbn("978-8535914849");
+
+        LivroRequestDTO semTitulo = new LivroRequestDTO();
+        semTitulo.setAutor("Autor Válido");
+        semTitulo.setAnoPublicacao(2000);
+
+        LivroRequestDTO isbnJaCadastrado = new LivroRequestDTO();
+        isbnJaCadastrado.setTitulo("Outra Edição");
+        isbnJaCadastrado.setAutor("George Orwell");
+        isbnJaCadastrado.setAnoPublicacao(1945);
+        isbnJaCadastrado.setIsbn(Isbn.formatar(livroExemplo1.getIsbn()));
+
+        String loteJson = objectMapper.writeValueAsString(
+                Arrays.asList(valido, semTitulo, isbnJaCadastrado, livroRequestExemplo));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/livros/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(loteJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(4)))
+                .andExpect(jsonPath("$.criados", is(2)))
+                .andExpect(jsonPath("$.rejeitados", is(2)))
+                .andExpect(jsonPath("$.itens[0].status", is("CRIADO")))
+                .andExpect(jsonPath("$.itens[0].id").exists())
+                .andExpect(jsonPath("$.itens[1].status", is("INVALIDO")))
+                .andExpect(jsonPath("$.itens[1].erros", hasItem("titulo: O título não pode estar em branco.")))
+                .andExpect(jsonPath("$.itens[2].status", is("DUPLICADO")))
+                .andExpect(jsonPath("$.itens[3].status", is("CRIADO")));
+
+        assertEquals(3, livroRepository.count());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // O ALTER SEQUENCE encerra a transação no H2
+    @DisplayName("POST /api/livros/batch - Depois da migração, ids novos não devem repetir os já gravados")
+    void criarLivros_comSequenciaAtrasada_naoRepeteIds() throws Exception {
+        // Arrange: um livro gravado fora da sequence (como nos bancos da época do IDENTITY), bem à frente dela
+        long idAntigo = 1_000_000L;
+        new JdbcTemplate(dataSource).update(
+                "insert into livros (id, titulo, autor, versao) values (?, 'Livro Antigo', 'Autor Antigo', 0)", idAntigo);
+        List<LivroRequestDTO> lote = IntStream.range(0, 2 * Livro.TAMANHO_ALOCACAO_ID).mapToObj(i -> {
+            LivroRequestDTO livro = new LivroRequestDTO();
+            livro.setTitulo("Livro " + i);
+            livro.setAutor("Autor " + i);
+            livro.setAnoPublicacao(2000);
+            return livro;
+        }).toList();
+
+        try {
+            // Act: a migração que roda na inicialização, depois um lote que esgota o bloco de ids já reservado
+            migracaoLivros.afterSingletonsInstantiated();
+            mockMvc.perform(post("/api/livros/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(lote)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.criados", is(lote.size())))
+                    .andExpect(jsonPath("$.itens[*].status", everyItem(is("CRIADO"))));
+
+            // Assert
+            assertTrue(livroRepository.findAll().stream().anyMatch(livro -> livro.getId() > idAntigo));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // O ALTER TABLE encerra a transação no H2
+    @DisplayName("Migração - Deve copiar o ISBN antigo para isbn13 e manter na coluna antiga só os inválidos ou repetidos")
+    void migracao_comIsbnNaColunaAntiga_copiaParaIsbn13() throws Exception {
+        // Arrange: a coluna de texto livre da versão anterior, com um ISBN-10 válido, um inválido e um repetido
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("alter table livros add column isbn varchar(255) unique");
+        String inserir = "insert into livros (id, titulo, autor, versao, isbn) values (?, 'Livro Antigo', 'Autor Antigo', 0, ?)";
+        jdbc.update(inserir, 2_000_001L, "0-306-40615-2");
+        jdbc.update(inserir, 2_000_002L, "ISBN 123");
+        jdbc.update(inserir, 2_000_003L, "978-0-306-40615-7");
+
+        try {
+            // Act
+            migracaoLivros.afterSingletonsInstantiated();
+
+            // Assert: o ISBN-10 virou o ISBN-13 canônico; o inválido e o repetido continuam só na coluna antiga
+            mockMvc.perform(get("/api/livros/isbn/{isbn}", "9780306406157"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(2_000_001)));
+            assertEquals(2, jdbc.queryForObject("select count(*) from livros where isbn is not null and isbn13 is null",
+                    Integer.class));
+
+            // Com a coluna antiga vazia, a próxima inicialização a remove
+            jdbc.update("update livros set isbn = null");
+            migracaoLivros.afterSingletonsInstantiated();
+            assertEquals(0, jdbc.queryForObject("select count(*) from information_schema.columns"
+                    + " where lower(table_name) = 'livros' and lower(column_name) = 'isbn'", Integer.class));
+        } finally {
+            jdbc.execute("alter table livros drop column if exists isbn");
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("POST /api/livros/batch - Deve retornar status 400 quando lote vazio")
+    void criarLivros_quandoLoteVazio_retornaStatus400() throws Exception {
+        mockMvc.perform(post("/api/livros/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("O lote deve conter pelo menos um livro.")));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // O corpo é escrito em outra thread: os dados precisam estar commitados
+    @DisplayName("GET /api/livros/export - Deve exportar todos os livros em NDJSON")
+    void exportarLivros_emNdjson_retornaUmLivroPorLinha() throws Exception {
+        // Arrange
+        livroRepository.saveAll(Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3));
+
+        try {
+            // Act
+            MvcResult resultado = mockMvc.perform(get("/api/livros/export").param("formato", "ndjson"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Assert
+            String corpo = mockMvc.perform(asyncDispatch(resultado))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-ndjson"))
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            String[] linhas = corpo.split("\n");
+            assertEquals(3, linhas.length);
+            assertEquals("A Revolução dos Bichos", objectMapper.readTree(linhas[0]).get("titulo").asText());
+            assertEquals("O Hobbit", objectMapper.readTree(linhas[2]).get("titulo").asText());
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("GET /api/livros/export - Deve exportar em CSV escapando vírgulas")
+    void exportarLivros_emCsv_retornaCabecalhoELinhas() throws Exception {
+        // Arrange
+        livroRepository.save(new Livro(null, "Memórias, Sonhos, Reflexões", "C. G. Jung", null, 1961, null));
+
+        try {
+            // Act
+            MvcResult resultado = mockMvc.perform(get("/api/livros/export").param("formato", "CSV"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Assert
+            String corpo = mockMvc.perform(asyncDispatch(resultado))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            String[] linhas = corpo.split("\r\n");
+            assertEquals("id,titulo,autor,genero,anoPublicacao,isbn", linhas[0]);
+            assertTrue(linhas[1].endsWith(",\"Memórias, Sonhos, Reflexões\",C. G. Jung,,1961,"));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("GET /api/livros/export - Deve escolher o CBOR pelo Accept quando não há parâmetro formato")
+    void exportarLivros_comAcceptCbor_retornaSequenciaCbor() throws Exception {
+        // Arrange
+        livroRepository.saveAll(Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3));
+
+        try {
+            // Act
+            MvcResult resultado = mockMvc.perform(get("/api/livros/export").accept("application/cbor-seq"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Assert
+            byte[] corpo = mockMvc.perform(asyncDispatch(resultado))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/cbor-seq"))
+                    .andExpect(header().string("Content-Disposition", containsString("livros.cbor")))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            List<JsonNode> livros = new CBORMapper().readerFor(JsonNode.class).<JsonNode>readValues(corpo).readAll();
+            assertEquals(3, livros.size());
+            assertEquals("A Revolução dos Bichos", livros.get(0).get("titulo").asText());
+            assertEquals("9780547928227", livros.get(2).get("isbn").asText());
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // O log de alterações só é gravado no commit
+    @DisplayName("GET /api/livros/changes - Deve listar criação, atualização e remoção em ordem, em lotes")
+    void buscarAlteracoes_retornaUpsertsETombstoneEmOrdem() throws Exception {
+        // Arrange
+        String inicio = livroAlteracoesService.tokenAtual();
+        Long id = livroService.criarLivro(livroRequestExemplo).getId();
+        livroRequestExemplo.setGenero("Fantasia Épica");
+        livroService.atualizarLivro(id, livroRequestExemplo);
+        livroService.deletarLivro(id);
+
+        try {
+            // Act
+            MvcResult primeiro = mockMvc.perform(get("/api/livros/changes").param("since", inicio).param("limit", "2"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Assert
+            String corpo = mockMvc.perform(asyncDispatch(primeiro))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(2)))
+                    .andExpect(jsonPath("$.changes[0].tipo", is("UPSERT")))
+                    .andExpect(jsonPath("$.changes[0].livro.genero", is("Fantasia")))
+                    .andExpect(jsonPath("$.changes[1].livro.genero", is("Fantasia Épica")))
+                    .andExpect(jsonPath("$.hasMore", is(true)))
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            String proximo = objectMapper.readTree(corpo).get("next").asText();
+
+            MvcResult segundo = mockMvc.perform(get("/api/livros/changes").param("since", proximo))
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(segundo))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(1)))
+                    .andExpect(jsonPath("$.changes[0].tipo", is("DELETE")))
+                    .andExpect(jsonPath("$.changes[0].id", is(id.intValue())))
+                    .andExpect(jsonPath("$.changes[0].livro").doesNotExist())
+                    .andExpect(jsonPath("$.hasMore", is(false)));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("GET /api/livros/changes - Com wait, deve esperar e responder com a próxima alteração")
+    void buscarAlteracoes_comEspera_respondeAoCommit() throws Exception {
+        // Arrange
+        String inicio = livroAlteracoesService.tokenAtual();
+
+        try {
+            // Act: sem alterações novas, a requisição fica à espera
+            MvcResult resultado = mockMvc.perform(get("/api/livros/changes").param("since", inicio).param("wait", "10"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            assertThrows(IllegalStateException.class, () -> resultado.getAsyncResult(200));
+            livroService.criarLivro(livroRequestExemplo);
+
+            // Assert
+            mockMvc.perform(asyncDispatch(resultado))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(1)))
+                    .andExpect(jsonPath("$.changes[0].livro.titulo", is("O Hobbit")));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("GET /api/livros/changes - Deve retornar 410 para token anterior aos registros guardados")
+    void buscarAlteracoes_tokenAnteriorARetencao_retornaStatusGone() throws Exception {
+        // Arrange: duas alterações, e a primeira apagada como faria a retenção
+        long inicio = Long.parseLong(livroAlteracoesService.tokenAtual());
+        livroService.criarLivro(livroRequestExemplo);
+        livroRequestExemplo.setIsbn("978-0451524935");
+        livroService.criarLivro(livroRequestExemplo);
+        new JdbcTemplate(dataSource).update("delete from livros_alteracoes where seq <= ?", inicio + 1);
+
+        try {
+            // Act & Assert
+            mockMvc.perform(get("/api/livros/changes").param("since", Long.toString(inicio)))
+                    .andExpect(status().isGone());
+
+            MvcResult emDia = mockMvc.perform(get("/api/livros/changes").param("since", Long.toString(inicio + 1)))
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(emDia))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(1)));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/changes - Deve retornar 400 para token inválido")
+    void buscarAlteracoes_tokenInvalido_retornaStatusBadRequest() throws Exception {
+        mockMvc.perform(get("/api/livros/changes").param("since", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/{id} - Deve responder em CBOR com Accept: application/cbor")
+    void buscarLivroPorId_comAcceptCbor_retornaCbor() throws Exception {
+        // Arrange
+        Livro salvo = livroRepository.save(livroExemplo3);
+
+        // Act
+        byte[] corpo = mockMvc.perform(get("/api/livros/{id}", salvo.getId()).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"" + salvo.getVersao() + "-cbor\""))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        JsonNode livro = new CBORMapper().readTree(corpo);
+        assertEquals(salvo.getId(), livro.get("id").asLong());
+        assertEquals("O Hobbit", livro.get("titulo").asText());
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/{id} - O ETag do JSON não valida a cópia em CBOR (e vice-versa)")
+    void buscarLivroPorId_comEtagDeOutroFormato_retornaCorpo() throws Exception {
+        // Arrange
+        Livro salvo = livroRepository.saveAndFlush(livroExemplo3);
+        String etagJson = "\"" + salvo.getVersao() + "\"";
+        String etagCbor = "\"" + salvo.getVersao() + "-cbor\"";
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/{id}", salvo.getId()).accept(MediaType.APPLICATION_CBOR)
+                        .header("If-None-Match", etagJson))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/livros/{id}", salvo.getId()).accept(MediaType.APPLICATION_CBOR)
+                        .header("If-None-Match", etagCbor))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etagCbor))
+                .andExpect(header().string("Vary", "Accept"));
+        mockMvc.perform(get("/api/livros/{id}", salvo.getId()).header("If-None-Match", etagCbor))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etagJson));
+        // O If-Match aceita o ETag de qualquer formato da versão atual
+        mockMvc.perform(patch("/api/livros/{id}", salvo.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("If-Match", etagCbor)
+                        .content("{\"genero\": \"Fantasia\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /api/livros - Deve responder em CBOR, menor que o JSON, e continuar em JSON sem Accept")
+    void buscarTodosLivros_comAcceptCbor_retornaPaginaMenorQueJson() throws Exception {
+        // Arrange
+        livroRepository.saveAll(Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3));
+
+        // Act
+        byte[] json = mockMvc.perform(get("/api/livros"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] cbor = mockMvc.perform(get("/api/livros").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert: os mesmos dados, em menos bytes
+        assertEquals(objectMapper.readTree(json), new CBORMapper().readTree(cbor));
+        assertTrue(cbor.length < json.length, "CBOR (" + cbor.length + " bytes) menor que JSON (" + json.length + ")");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // O índice de busca só é atualizado depois do commit
+    @DisplayName("GET /api/livros/search - Deve buscar ignorando acentos e ordenar por relevância")
+    void buscarLivrosPorTexto_retornaLivrosOrdenadosPorRelevancia() throws Exception {
+        indiceLivros.reconstruir(); // Descarta o que outros testes gravaram e removeram direto pelo repositório
+        // Arrange: cadastra pela API para que o índice receba os eventos de alteração
+        for (Livro livro : Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3)) {
+            LivroRequestDTO requisicao = new LivroRequestDTO();
+            requisicao.setTitulo(livro.getTitulo());
+            requisicao.setAutor(livro.getAutor());
+            requisicao.setGenero(livro.getGenero());
+            requisicao.setAnoPublicacao(livro.getAnoPublicacao());
+            requisicao.setIsbn(Isbn.formatar(livro.getIsbn()));
+            mockMvc.perform(post("/api/livros")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(requisicao)))
+                    .andExpect(status().isCreated());
+        }
+
+        try {
+            // Act & Assert: "revolucao" sem acento e "orw" como prefixo de "orwell"
+            mockMvc.perform(get("/api/livros/search").param("q", "revolucao orw"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements", is(1)))
+                    .andExpect(jsonPath("$.content[0].titulo", is("A Revolução dos Bichos")));
+
+            // Os dois livros de Orwell casam, mas a página de tamanho 1 traz só um
+            mockMvc.perform(get("/api/livros/search").param("q", "orwell").param("size", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements", is(2)))
+                    .andExpect(jsonPath("$.content", hasSize(1)));
+
+            mockMvc.perform(get("/api/livros/search").param("q", "tolkien inexistente"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements", is(0)));
+        } finally {
+            livroRepository.deleteAll();
+            indiceLivros.reconstruir();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Os contadores só são atualizados depois do commit
+    @DisplayName("GET /api/livros/facetas - Deve contar livros por gênero, década e autor")
+    void buscarFacetas_retornaContagensAtualizadas() throws Exception {
+        // Arrange
+        indiceLivros.reconstruir(); // Descarta o que outros testes gravaram e removeram direto pelo repositório
+        MvcResult criado = mockMvc.perform(post("/api/livros")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(criado.getResponse().getContentAsString()).get("id").asLong();
+
+        try {
+            // Act & Assert
+            mockMvc.perform(get("/api/livros/facetas").param("q", "hobbit"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total", is(1)))
+                    .andExpect(jsonPath("$.generos[0].valor", is("Fantasia")))
+                    .andExpect(jsonPath("$.decadas[0].valor", is("1930")))
+                    .andExpect(jsonPath("$.autores[0].valor", is("J.R.R. Tolkien")));
+
+            // Depois de excluído, o livro sai das contagens
+            mockMvc.perform(delete("/api/livros/{id}", id)).andExpect(status().isNoContent());
+            mockMvc.perform(get("/api/livros/facetas").param("genero", "fantasia"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total", is(0)))
+                    .andExpect(jsonPath("$.generos", hasSize(0)));
+        } finally {
+            livroRepository.deleteAll();
+            indiceLivros.reconstruir();
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/export - Deve retornar status 400 quando formato não suportado")
+    void exportarLivros_quandoFormatoInvalido_retornaStatus400() throws Exception {
+        mockMvc.perform(get("/api/livros/export").param("formato", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // A gravação acontece em outra thread, em transações próprias
+    @DisplayName("POST /api/livros/import - Deve importar NDJSON e reportar os registros rejeitados")
+    void importarLivros_emNdjson_importaValidosERejeitaInvalidos() throws Exception {
+        // Arrange
+        String ndjson = String.join("\n",
+                "{\"titulo\":\"Dom Casmurro\",\"autor\":\"Machado de Assis\",\"anoPublicacao\":1899}",
+                "{\"titulo\":\"\",\"autor\":\"Sem Título\",\"anoPublicacao\":2000}",
+                "isto não é json",
+                "",
+                objectMapper.writeValueAsString(livroRequestExemplo));
+
+        try {
+            // Act & Assert
+            mockMvc.perform(post("/api/livros/import")
+                            .param("formato", "ndjson")
+                            .contentType("application/x-ndjson")
+                            .content(ndjson))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.estado", is("CONCLUIDA")))
+                    .andExpect(jsonPath("$.lidos", is(4)))
+                    .andExpect(jsonPath("$.importados", is(2)))
+                    .andExpect(jsonPath("$.rejeitados", is(2)))
+                    .andExpect(jsonPath("$.rejeicoes[*].registro", containsInAnyOrder(2, 3)));
+
+            assertEquals(2, livroRepository.count());
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("POST /api/livros/import - Deve rejeitar uma linha acima do tamanho máximo e seguir com as demais")
+    void importarLivros_comLinhaGrandeDemais_rejeitaSoEssaLinha() throws Exception {
+        // Arrange: um array JSON inteiro numa linha só, entre dois livros válidos (com quebras \r\n)
+        String arrayInteiro = objectMapper.writeValueAsString(
+                Collections.nCopies(1000, livroRequestExemplo));
+        assertTrue(arrayInteiro.length() > 65536);
+        String ndjson = String.join("\r\n",
+                "{\"titulo\":\"Dom Casmurro\",\"autor\":\"Machado de Assis\",\"anoPublicacao\":1899}",
+                arrayInteiro,
+                objectMapper.writeValueAsString(livroRequestExemplo));
+
+        try {
+            // Act & Assert
+            mockMvc.perform(post("/api/livros/import")
+                            .param("formato", "ndjson")
+                            .contentType("application/x-ndjson")
+                            .content(ndjson))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.lidos", is(3)))
+                    .andExpect(jsonPath("$.importados", is(2)))
+                    .andExpect(jsonPath("$.rejeicoes[0].registro", is(2)))
+                    .andExpect(jsonPath("$.rejeicoes[0].erros[0]", is("Registro maior que o limite de 65536 caracteres.")));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("POST /api/livros/import - Deve importar CSV com campos entre aspas")
+    void importarLivros_emCsv_importaRegistros() throws Exception {
+        // Arrange
+        String csv = "titulo,autor,anoPublicacao,genero\r\n"
+                + "\"Memórias, Sonhos, Reflexões\",C. G. Jung,1961,Psicologia\r\n"
+                + "O Alienista,Machado de Assis,mil oitocentos,Conto\r\n";
+
+        try {
+            // Act & Assert
+            mockMvc.perform(post("/api/livros/import")
+                            .param("formato", "csv")
+                            .contentType("text/csv")
+                            .content(csv.getBytes(StandardCharsets.UTF_8)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.importados", is(1)))
+                    .andExpect(jsonPath("$.rejeicoes[0].registro", is(2)))
+                    .andExpect(jsonPath("$.rejeicoes[0].erros[0]", startsWith("anoPublicacao")));
+
+            mockMvc.perform(get("/api/livros/import"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].formato", is("csv")));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("POST /api/livros/import - Deve marcar como falha a importação cuja leitura lança um erro inesperado")
+    void importarLivros_quandoLeituraFalhaInesperadamente_marcaFalhou() {
+        // Arrange: um livro válido e depois um corpo que falha com uma exceção não verificada
+        InputStream quebrado = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("conexão perdida");
+            }
+        };
+        InputStream corpo = new SequenceInputStream(
+                new ByteArrayInputStream("{\"titulo\":\"Dom Casmurro\",\"autor\":\"Machado de Assis\",\"anoPublicacao\":1899}\n"
+                        .getBytes(StandardCharsets.UTF_8)),
+                quebrado);
+
+        try {
+            // Act
+            ImportacaoResultadoDTO resultado = livroImportacaoService.importar(FormatoArquivo.NDJSON, corpo);
+
+            // Assert: a importação não fica EM_ANDAMENTO (nem o gravador parado à espera do próximo bloco)
+            assertEquals(ImportacaoResultadoDTO.Estado.FALHOU, resultado.getEstado());
+            assertEquals(ImportacaoResultadoDTO.Estado.FALHOU, livroImportacaoService.listarImportacoes().get(0).getEstado());
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("POST /api/livros/import - Deve retornar status 400 quando cabeçalho CSV incompleto")
+    void importarLivros_quandoCabecalhoCsvIncompleto_retornaStatus400() throws Exception {
+        mockMvc.perform(post("/api/livros/import")
+                        .param("formato", "csv")
+                        .contentType("text/csv")
+                        .content("nome,ano\r\nAlgo,2000\r\n"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("GET /api/livros/{id} - Deve retornar livro quando ID existente e status 200")
     void buscarLivroPorId_quandoIdExistente_retornaLivroComStatus200() throws Exception {
@@ -121,6 +844,24 @@ public class LivroControllerTest {
                 .andExpect(jsonPath("$.titulo", is(livroExemplo1.getTitulo())));
     }
 
+    @Test
+    @DisplayName("GET /api/livros/{id} - Deve retornar 304 quando If-None-Match corresponde à versão atual")
+    void buscarLivroPorId_quandoIfNoneMatchAtual_retornaStatus304SemCorpo() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.saveAndFlush(livroExemplo1);
+        String etag = mockMvc.perform(get("/api/livros/{id}", livroSalvo.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/{id}", livroSalvo.getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+    }
+
     @Test
     @DisplayName("GET /api/livros/{id} - Deve retornar status 404 quando ID inexistente")
     void buscarLivroPorId_quandoIdInexistente_retornaStatus404() throws Exception {
@@ -134,6 +875,69 @@ public class LivroControllerTest {
                 .andExpect(jsonPath("$.message", is("Livro não encontrado com ID: " + idInexistente)));
     }
 
+    @Test
+    @DisplayName("GET /api/livros/{id} - Deve registrar a latência por método do controller e status")
+    void buscarLivroPorId_registraMetricaPorMetodoEStatus() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.save(livroExemplo1);
+        double encontradosAntes = contagemRequisicoes("buscarLivroPorId", "200");
+        double naoEncontradosAntes = contagemRequisicoes("buscarLivroPorId", "404");
+
+        // Act
+        mockMvc.perform(get("/api/livros/{id}", livroSalvo.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/livros/{id}", 999L)).andExpect(status().isNotFound());
+
+        // Assert
+        assertEquals(encontradosAntes + 1, contagemRequisicoes("buscarLivroPorId", "200"));
+        assertEquals(naoEncontradosAntes + 1, contagemRequisicoes("buscarLivroPorId", "404"));
+        assertNotNull(meterRegistry.find("hibernate.statements").functionCounter(), "Estatísticas do Hibernate exportadas");
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer(), "Métricas do pool exportadas");
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/{id} - Deve informar nos cabeçalhos os comandos SQL da requisição")
+    void buscarLivroPorId_retornaCabecalhosDeSql() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.saveAndFlush(livroExemplo1);
+
+        // Act & Assert: uma consulta na falta do cache, nenhuma no acerto
+        mockMvc.perform(get("/api/livros/{id}", livroSalvo.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-SQL-Statements", "1"))
+                .andExpect(header().exists("X-SQL-Tempo-Ms"));
+        mockMvc.perform(get("/api/livros/{id}", livroSalvo.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-SQL-Statements", "0"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("GET /api/livros/export - Resposta assíncrona não deve trazer os cabeçalhos de SQL")
+    void exportarLivros_naoRetornaCabecalhosDeSql() throws Exception {
+        // Arrange
+        livroRepository.save(livroExemplo1);
+
+        try {
+            // Act: o SQL da exportação roda depois de a requisição sair do filtro
+            MvcResult resultado = mockMvc.perform(get("/api/livros/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Assert
+            mockMvc.perform(asyncDispatch(resultado))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("X-SQL-Statements"))
+                    .andExpect(header().doesNotExist("X-SQL-Tempo-Ms"));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    private double contagemRequisicoes(String metodo, String status) {
+        Timer timer = meterRegistry.find("http.server.requests").tag("metodo", metodo).tag("status", status).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
     @Test
     @DisplayName("GET /api/livros -  Deve retornar primeira página de livros ordenada por título ASC e status 200")
     void buscarTodosLivros_comPaginacaoEOrdenacaoPorTituloAsc_retornaPrimeiraPaginaComStatus200() throws Exception {
@@ -178,6 +982,26 @@ public class LivroControllerTest {
                 .andExpect(jsonPath("$.number", is(1)));      // Página atual é a 1
     }
 
+    @Test
+    @DisplayName("GET /api/livros?withTotal=false - Deve retornar a página sem totais, com hasNext")
+    void buscarTodosLivros_semTotal_retornaPaginaSemTotais() throws Exception {
+        // Arrange
+        livroRepository.saveAll(Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros")
+                        .param("withTotal", "false")
+                        .param("size", "2")
+                        .param("sort", "titulo,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].titulo", is("1984")))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist())
+                .andExpect(jsonPath("$.pageable").doesNotExist()); // Só o envelope enxuto, sem o Page do Spring Data
+    }
+
     @Test
     @DisplayName("GET /api/livros - Deve usar paginação padrão se nenhum parâmetro for fornecido")
     void buscarTodosLivros_semParametrosDePaginacao_usaPaginacaoPadrao() throws Exception {
@@ -197,6 +1021,130 @@ public class LivroControllerTest {
                 .andExpect(jsonPath("$.size", is(20))); // Tamanho padrão da página
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // O cache de consultas só guarda resultados depois do commit
+    @DisplayName("GET /api/livros/cache/segundo-nivel - Deve listar as regiões do cache do Hibernate com acertos e faltas")
+    void buscarEstatisticasSegundoNivel_retornaRegioes() throws Exception {
+        // Arrange: a mesma página duas vezes (falta e acerto no cache de consultas)
+        livroRepository.saveAll(Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3));
+
+        try {
+            mockMvc.perform(get("/api/livros?sort=titulo")).andExpect(status().isOk());
+            mockMvc.perform(get("/api/livros?sort=titulo")).andExpect(status().isOk());
+
+            // Act & Assert
+            mockMvc.perform(get("/api/livros/cache/segundo-nivel"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].regiao", hasItems("livro", "livros-paginas")))
+                    .andExpect(jsonPath("$[?(@.regiao == 'livros-paginas')].acertos", hasItem(greaterThanOrEqualTo(1))))
+                    .andExpect(jsonPath("$[?(@.regiao == 'livros-paginas')].faltas", hasItem(greaterThanOrEqualTo(1))));
+        } finally {
+            livroRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/cursor - Deve percorrer todos os livros usando o cursor next")
+    void buscarLivrosPorCursor_seguindoNext_percorreTodosOsLivrosSemRepetir() throws Exception {
+        // Arrange
+        livroRepository.saveAll(Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3));
+
+        // Act & Assert: primeira página
+        String primeiraPagina = mockMvc.perform(get("/api/livros/cursor")
+                        .param("size", "2")
+                        .param("sort", "titulo,asc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].titulo", is("1984")))
+                .andExpect(jsonPath("$.content[1].titulo", is("A Revolução dos Bichos")))
+                .andExpect(jsonPath("$.next").isNotEmpty())
+                .andExpect(jsonPath("$.totalElements").doesNotExist()) // Modo cursor não faz COUNT(*)
+                .andReturn().getResponse().getContentAsString();
+
+        String next = objectMapper.readTree(primeiraPagina).get("next").asText();
+
+        // Segunda (e última) página
+        mockMvc.perform(get("/api/livros/cursor")
+                        .param("size", "2")
+                        .param("sort", "titulo,asc")
+                        .param("cursor", next)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].titulo", is("O Hobbit")))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/cursor - Deve ordenar por ano DESC desempatando pelo id")
+    void buscarLivrosPorCursor_ordenadoPorAnoDesc_retornaOrdemCorreta() throws Exception {
+        // Arrange
+        livroRepository.saveAll(Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/cursor")
+                        .param("size", "5")
+                        .param("sort", "anoPublicacao,desc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].anoPublicacao", contains(1949, 1945, 1937)))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/cursor - Deve percorrer livros sem ano, nos dois sentidos, sem perder nenhum")
+    void buscarLivrosPorCursor_comAnosNulos_percorreTodosOsLivros() throws Exception {
+        // Arrange: dois livros sem ano de publicação (nulos ficam depois dos anos no ASC e antes no DESC)
+        livroExemplo2.setAnoPublicacao(null);
+        livroExemplo3.setAnoPublicacao(null);
+        Livro semIsbn = new Livro(null, "Dom Casmurro", "Machado de Assis", "Romance", 1899, null);
+        livroRepository.saveAll(Arrays.asList(livroExemplo1, livroExemplo2, livroExemplo3, semIsbn));
+
+        // Act & Assert: uma página por livro, para o cursor cair em cada um deles
+        for (String direcao : List.of("asc", "desc")) {
+            List<Object> anos = new ArrayList<>();
+            String next = null;
+            do {
+                var requisicao = get("/api/livros/cursor")
+                        .param("size", "1")
+                        .param("sort", "anoPublicacao," + direcao)
+                        .accept(MediaType.APPLICATION_JSON);
+                if (next != null) {
+                    requisicao.param("cursor", next);
+                }
+                JsonNode pagina = objectMapper.readTree(mockMvc.perform(requisicao)
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString());
+                pagina.get("content").forEach(livro -> anos.add(livro.get("anoPublicacao").isNull()
+                        ? null : livro.get("anoPublicacao").asInt()));
+                next = pagina.get("next").isNull() ? null : pagina.get("next").asText();
+            } while (next != null);
+
+            assertEquals(direcao.equals("asc") ? Arrays.asList(1899, 1945, null, null) : Arrays.asList(null, null, 1945, 1899),
+                    anos);
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/cursor - Deve retornar status 400 quando cursor inválido")
+    void buscarLivrosPorCursor_quandoCursorInvalido_retornaStatus400() throws Exception {
+        mockMvc.perform(get("/api/livros/cursor")
+                        .param("cursor", "isto-nao-e-um-cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Cursor inválido.")));
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/cursor - Deve retornar status 400 quando ordenação não suportada")
+    void buscarLivrosPorCursor_quandoOrdenacaoNaoSuportada_retornaStatus400() throws Exception {
+        mockMvc.perform(get("/api/livros/cursor")
+                        .param("sort", "genero,asc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("PUT /api/livros/{id} - Deve retornar livro atualizado e status 200")
     void atualizarLivro_quandoIdExistente_retornaLivroComStatus200() throws Exception {
@@ -209,7 +1157,7 @@ public class LivroControllerTest {
         dadosAtualizacao.setAutor(livroSalvo.getAutor());
         dadosAtualizacao.setGenero("Fábula Política");
         dadosAtualizacao.setAnoPublicacao(livroSalvo.getAnoPublicacao());
-        dadosAtualizacao.setIsbn(livroSalvo.getIsbn());
+        dadosAtualizacao.setIsbn(Isbn.formatar(livroSalvo.getIsbn()));
 
         String livroAtualizadoJson = objectMapper.writeValueAsString(dadosAtualizacao);
 
@@ -223,6 +1171,82 @@ public class LivroControllerTest {
                 .andExpect(jsonPath("$.genero", is(dadosAtualizacao.getGenero())));
     }
 
+    @Test
+    @DisplayName("PUT /api/livros/{id} - Deve atualizar quando If-Match corresponde e retornar o novo ETag")
+    void atualizarLivro_quandoIfMatchAtual_atualizaERetornaNovoEtag() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.saveAndFlush(livroExemplo1);
+        String etagOriginal = "\"" + livroSalvo.getVersao() + "\"";
+
+        // Act & Assert
+        mockMvc.perform(put("/api/livros/{id}", livroSalvo.getId())
+                        .header("If-Match", etagOriginal)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etagOriginal)));
+    }
+
+    @Test
+    @DisplayName("PUT /api/livros/{id} - Deve retornar status 412 quando If-Match desatualizado")
+    void atualizarLivro_quandoIfMatchDesatualizado_retornaStatus412() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.saveAndFlush(livroExemplo1);
+        String etagAntigo = "\"" + (livroSalvo.getVersao() + 7) + "\"";
+
+        // Act & Assert
+        mockMvc.perform(put("/api/livros/{id}", livroSalvo.getId())
+                        .header("If-Match", etagAntigo)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PUT /api/livros/{id} - Deve atualizar quando a versão atual está na lista de If-Match")
+    void atualizarLivro_quandoIfMatchEmListaContemVersaoAtual_atualiza() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.saveAndFlush(livroExemplo1);
+        String ifMatch = "\"" + (livroSalvo.getVersao() + 7) + "\", W/\"abc\", \"" + livroSalvo.getVersao() + "-cbor\"";
+
+        // Act & Assert
+        mockMvc.perform(put("/api/livros/{id}", livroSalvo.getId())
+                        .header("If-Match", ifMatch)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("PUT /api/livros/{id} - Deve retornar status 412 quando nenhum ETag da lista de If-Match corresponde")
+    void atualizarLivro_quandoIfMatchEmListaSemVersaoAtual_retornaStatus412() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.saveAndFlush(livroExemplo1);
+        String ifMatch = "\"" + (livroSalvo.getVersao() + 7) + "\", \"" + (livroSalvo.getVersao() + 8) + "\"";
+
+        // Act & Assert
+        mockMvc.perform(put("/api/livros/{id}", livroSalvo.getId())
+                        .header("If-Match", ifMatch)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PUT /api/livros/{id} - Deve retornar status 400 quando If-Match malformado")
+    void atualizarLivro_quandoIfMatchMalformado_retornaStatus400() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.saveAndFlush(livroExemplo1);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/livros/{id}", livroSalvo.getId())
+                        .header("If-Match", livroSalvo.getVersao().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroRequestExemplo)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("If-Match inválido")));
+    }
+
     @Test
     @DisplayName("PUT /api/livros/{id} - Deve retornar status 404 quando ID inexistente")
     void atualizarLivro_quandoIdInexistente_retornaStatus404() throws Exception {
@@ -268,6 +1292,161 @@ public class LivroControllerTest {
                         "isbn: Formato de ISBN inválido.")));
     }
 
+    @Test
+    @DisplayName("PATCH /api/livros/{id} - Deve alterar só os campos enviados e retornar a nova versão")
+    void atualizarLivroParcialmente_alteraSoOsCamposEnviados() throws Exception {
+        // Arrange
+        Livro livroSalvo = livroRepository.save(livroExemplo1);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/livros/{id}", livroSalvo.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"genero\": \"Fábula\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.genero", is("Fábula")))
+                .andExpect(jsonPath("$.titulo", is(livroExemplo1.getTitulo())))
+                .andExpect(jsonPath("$.anoPublicacao", is(1945)))
+                .andExpect(jsonPath("$.isbn", is("9788535909555")));
+
+        mockMvc.perform(get("/api/livros/{id}", livroSalvo.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.genero", is("Fábula")))
+                .andExpect(jsonPath("$.autor", is(livroExemplo1.getAutor())));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/livros/{id} - Deve apagar o campo enviado com null")
+    void atualizarLivroParcialmente_quandoCampoNulo_apagaOCampo() throws Exception {
+        Livro livroSalvo = livroRepository.save(livroExemplo1);
+
+        mockMvc.perform(patch("/api/livros/{id}", livroSalvo.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"genero\": null, \"isbn\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.genero").value(nullValue()))
+                .andExpect(jsonPath("$.isbn").value(nullValue()));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/livros/{id} - Deve retornar 404 quando ID inexistente")
+    void atualizarLivroParcialmente_quandoIdInexistente_retornaStatus404() throws Exception {
+        mockMvc.perform(patch("/api/livros/{id}", 999L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"genero\": \"Fábula\"}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("Livro não encontrado com ID: 999")));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/livros/{id} - Deve retornar 400 com os erros de cada campo")
+    void atualizarLivroParcialmente_quandoPatchInvalido_retornaStatus400() throws Exception {
+        Livro livroSalvo = livroRepository.save(livroExemplo1);
+
+        mockMvc.perform(patch("/api/livros/{id}", livroSalvo.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"autor\": \"\", \"anoPublicacao\": \"1945\", \"id\": 5}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Validation Error")))
+                .andExpect(jsonPath("$.messages", hasItems(
+                        "anoPublicacao: deve ser um número inteiro.",
+                        "id: campo desconhecido ou que não pode ser alterado.")))
+                .andExpect(jsonPath("$.messages", hasItem(startsWith("autor: "))));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/livros/{id} - Deve retornar 412 quando If-Match desatualizado")
+    void atualizarLivroParcialmente_quandoIfMatchDesatualizado_retornaStatus412() throws Exception {
+        Livro livroSalvo = livroRepository.save(livroExemplo1);
+
+        mockMvc.perform(patch("/api/livros/{id}", livroSalvo.getId())
+                        .header("If-Match", "\"7\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"genero\": \"Fábula\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PATCH /api/livros/{id} - Deve retornar 409 quando o ISBN já pertence a outro livro")
+    void atualizarLivroParcialmente_quandoIsbnDuplicado_retornaStatus409() throws Exception {
+        livroRepository.save(livroExemplo2);
+        Livro livroSalvo = livroRepository.save(livroExemplo1);
+
+        mockMvc.perform(patch("/api/livros/{id}", livroSalvo.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"isbn\": \"0-451-52493-4\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("POST /api/livros/bulk-delete - Deve remover só os livros que atendem ao filtro")
+    void deletarLivros_porAutorEFaixaDeAno_removeSoOsQueAtendem() throws Exception {
+        // Arrange: dois livros do Orwell (1945 e 1949) e um do Tolkien
+        Livro revolucao = livroRepository.save(livroExemplo1);
+        Livro orwell1984 = livroRepository.save(livroExemplo2);
+        Livro hobbit = livroRepository.save(livroExemplo3);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/livros/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"autor\": \"George Orwell\", \"anoFinal\": 1946}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.afetados", is(1)))
+                .andExpect(jsonPath("$.blocos", is(1)));
+
+        // existsById consulta o banco (findById devolveria a entidade ainda guardada na transação do teste)
+        assertFalse(livroRepository.existsById(revolucao.getId()));
+        assertTrue(livroRepository.existsById(orwell1984.getId()));
+        assertTrue(livroRepository.existsById(hobbit.getId()));
+    }
+
+    @Test
+    @DisplayName("POST /api/livros/bulk-delete - Deve recusar filtro vazio com 400")
+    void deletarLivros_quandoFiltroVazio_retornaStatus400() throws Exception {
+        livroRepository.save(livroExemplo1);
+
+        mockMvc.perform(post("/api/livros/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+        assertEquals(1, livroRepository.count());
+    }
+
+    @Test
+    @DisplayName("POST /api/livros/bulk-update - Deve alterar os livros do filtro e mudar suas versões")
+    void atualizarLivros_porIds_alteraGeneroEVersao() throws Exception {
+        // Arrange
+        Livro revolucao = livroRepository.save(livroExemplo1);
+        Livro orwell1984 = livroRepository.save(livroExemplo2);
+        Livro hobbit = livroRepository.save(livroExemplo3);
+        String corpo = "{\"filtro\": {\"ids\": [" + revolucao.getId() + ", " + orwell1984.getId() + "]}, "
+                + "\"alteracoes\": {\"genero\": \"Clássico\"}}";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/livros/bulk-update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.afetados", is(2)));
+
+        mockMvc.perform(get("/api/livros/{id}", orwell1984.getId()))
+                .andExpect(jsonPath("$.genero", is("Clássico")))
+                .andExpect(jsonPath("$.titulo", is("1984")))
+                .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(get("/api/livros/{id}", hobbit.getId()))
+                .andExpect(jsonPath("$.genero", is("Fantasia")));
+    }
+
+    @Test
+    @DisplayName("POST /api/livros/bulk-update - Deve recusar alteração de ISBN com 400")
+    void atualizarLivros_quandoAlteraIsbn_retornaStatus400() throws Exception {
+        mockMvc.perform(post("/api/livros/bulk-update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filtro\": {\"genero\": \"Fantasia\"}, \"alteracoes\": {\"isbn\": null}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.messages[0]", is("isbn: não pode ser alterado em massa.")));
+    }
+
     @Test
     @DisplayName("DELETE /api/livros/{id} - Deve retornar status 204 quando livro deletado")
     void deletarLivro_quandoIdExistente_retornaStatus204() throws Exception {
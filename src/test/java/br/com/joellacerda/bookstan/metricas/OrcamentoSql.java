@@ -0,0 +1,40 @@
+package br.com.joellacerda.bookstan.metricas;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Verifica nos testes de integração que uma operação não passa de um número máximo de comandos SQL.
+// Pega N+1 e idas ao banco desnecessárias antes de chegarem à produção; na falha, lista os comandos executados.
+//
+//   LivroResponseDTO livro = OrcamentoSql.verificar("buscarLivroPorId", 1, () -> livroService.buscarLivroPorId(id));
+public final class OrcamentoSql {
+
+    private OrcamentoSql() {
+    }
+
+    public static <T> T verificar(String operacao, int maximoStatements, Supplier<T> acao) {
+        ContadorSql.iniciar();
+        T resultado;
+        ContadorSql.Medicao medicao;
+        try {
+            resultado = acao.get();
+        } finally {
+            medicao = ContadorSql.finalizar();
+        }
+        // Só depois de a ação terminar normalmente: se ela lançou, a exceção original chega ao teste sem ser
+        // trocada pela falha do orçamento
+        if (medicao.getStatements() > maximoStatements) {
+            fail(operacao + " executou " + medicao.getStatements() + " comandos SQL (orçamento: "
+                    + maximoStatements + "):\n  " + String.join("\n  ", medicao.getResumo()));
+        }
+        return resultado;
+    }
+
+    public static void verificar(String operacao, int maximoStatements, Runnable acao) {
+        verificar(operacao, maximoStatements, () -> {
+            acao.run();
+            return null;
+        });
+    }
+}
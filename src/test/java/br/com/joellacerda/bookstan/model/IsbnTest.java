@@ -0,0 +1,48 @@
+package br.com.joellacerda.bookstan.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IsbnTest {
+
+    @Test
+    @DisplayName("Deve normalizar as várias formas do mesmo ISBN-13 para o mesmo número")
+    void normalizar_isbn13EmVariasFormas_retornaMesmoValor() {
+        assertEquals(9780261102217L, Isbn.normalizar("9780261102217"));
+        assertEquals(9780261102217L, Isbn.normalizar("978-0-261-10221-7"));
+        assertEquals(9780261102217L, Isbn.normalizar("978 0261102217"));
+        assertEquals(9780261102217L, Isbn.normalizar("ISBN-13: 978-0-261-10221-7"));
+        assertEquals(9780261102217L, Isbn.normalizar("isbn 9780261102217"));
+    }
+
+    @Test
+    @DisplayName("Deve converter ISBN-10 para o ISBN-13 equivalente")
+    void normalizar_isbn10_converteParaIsbn13() {
+        assertEquals(9780261102217L, Isbn.normalizar("0-261-10221-4"));
+        assertEquals(9780261102217L, Isbn.normalizar("ISBN-10: 0261102214"));
+        assertEquals(9780306406157L, Isbn.normalizar("0-306-40615-2"));
+        assertEquals(9780803902459L, Isbn.normalizar("080390245x")); // Dígito verificador X
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar dígito verificador errado, tamanho errado e caracteres inválidos")
+    void normalizar_isbnInvalido_retornaNull() {
+        assertNull(Isbn.normalizar("978-0261102218"));  // Dígito verificador errado
+        assertNull(Isbn.normalizar("0-261-10221-5"));
+        assertNull(Isbn.normalizar("12345INVALIDO"));
+        assertNull(Isbn.normalizar("97802611022"));
+        assertNull(Isbn.normalizar("X261102214"));      // X fora da última posição
+        assertNull(Isbn.normalizar("1234567890128"));   // ISBN-13 precisa começar com 978 ou 979
+        assertNull(Isbn.normalizar(""));
+        assertNull(Isbn.normalizar(null));
+    }
+
+    @Test
+    @DisplayName("Deve formatar com 13 dígitos")
+    void formatar_retornaTrezeDigitos() {
+        assertEquals("9780261102217", Isbn.formatar(9780261102217L));
+        assertNull(Isbn.formatar(null));
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.joellacerda.bookstan.reativo;
+
+import br.com.joellacerda.bookstan.busca.IndiceLivros;
+import br.com.joellacerda.bookstan.cache.LivroCache;
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import br.com.joellacerda.bookstan.service.LivroService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// API reativa de ponta a ponta: servidor Reactor Netty numa porta livre e R2DBC no mesmo H2 do JPA.
+// Sem @Transactional: o R2DBC usa outras conexões e só enxerga o que o JPA já gravou.
+@SpringBootTest(properties = {
+        "bookstan.reativo.habilitado=true",
+        "bookstan.reativo.porta=0",
+        "bookstan.reativo.threads=2",
+        "spring.datasource.url=jdbc:h2:mem:reativo;DB_CLOSE_DELAY=-1",
+        "bookstan.reativo.r2dbc.url=r2dbc:h2:mem:///reativo;DB_CLOSE_DELAY=-1",
+        "bookstan.reativo.r2dbc.username=sa"
+})
+public class LivroReativoTest {
+
+    @Autowired
+    private ServidorReativo servidorReativo;
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private LivroCache livroCache;
+
+    @Autowired
+    private IndiceLivros indiceLivros;
+
+    private WebTestClient cliente;
+
+    @BeforeEach
+    void setUp() {
+        livroRepository.deleteAll();
+        livroCache.limpar();
+        indiceLivros.limpar(); // O deleteAll não publica eventos: o índice ficaria com livros de outros testes
+        cliente = WebTestClient.bindToServer().baseUrl("http://localhost:" + servidorReativo.getPorta()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        livroRepository.deleteAll();
+        livroCache.limpar();
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/{id}: livro com ETag, 304 com If-None-Match e 404 no formato da API bloqueante")
+    void buscarLivroPorId() {
+        LivroResponseDTO livro = livroService.criarLivro(requisicao("Dom Casmurro", "Machado de Assis", 1899));
+
+        cliente.get().uri("/api/livros/{id}", livro.getId()).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"" + livro.getVersao() + "\"")
+                .expectBody()
+                .jsonPath("$.titulo").isEqualTo("Dom Casmurro")
+                .jsonPath("$.autor").isEqualTo("Machado de Assis")
+                .jsonPath("$.versao").doesNotExist();
+
+        cliente.get().uri("/api/livros/{id}", livro.getId())
+                .header("If-None-Match", "\"" + livro.getVersao() + "\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        cliente.get().uri("/api/livros/{id}", livro.getId() + 1000).exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Livro não encontrado com ID: " + (livro.getId() + 1000))
+                .jsonPath("$.path").isEqualTo("/api/livros/" + (livro.getId() + 1000));
+
+        cliente.get().uri("/api/livros/abc").exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("GET /api/livros: página ordenada com total; ordenação fora da lista retorna 400")
+    void buscarTodosLivros() {
+        IntStream.range(0, 5).forEach(i -> livroService.criarLivro(requisicao("Livro " + i, "Autor", 1900 + i)));
+
+        cliente.get().uri("/api/livros?page=1&size=2&sort=anoPublicacao,desc").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.content[0].titulo").isEqualTo("Livro 2")
+                .jsonPath("$.content[1].titulo").isEqualTo("Livro 1")
+                .jsonPath("$.number").isEqualTo(1)
+                .jsonPath("$.totalElements").isEqualTo(5)
+                .jsonPath("$.totalPages").isEqualTo(3);
+
+        cliente.get().uri("/api/livros?sort=isbn13;drop").exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Bad Request");
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/search: livros na ordem de relevância do índice")
+    void buscarLivrosPorTexto() {
+        livroService.criarLivro(requisicao("Memórias Póstumas de Brás Cubas", "Machado de Assis", 1881));
+        livroService.criarLivro(requisicao("Dom Casmurro", "Machado de Assis", 1899));
+        livroService.criarLivro(requisicao("O Cortiço", "Aluísio Azevedo", 1890));
+
+        cliente.get().uri("/api/livros/search?q=casmurro").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.content[0].titulo").isEqualTo("Dom Casmurro")
+                .jsonPath("$.totalElements").isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GET /api/livros/stream: o catálogo inteiro em NDJSON, em ordem de ID")
+    void streamLivros() {
+        List<Long> ids = IntStream.range(0, 30)
+                .mapToObj(i -> livroService.criarLivro(requisicao("Livro " + i, "Autor", 1900)).getId())
+                .toList();
+
+        List<LivroResponseDTO> livros = cliente.get().uri("/api/livros/stream").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(LivroResponseDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(ids, livros.stream().map(LivroResponseDTO::getId).toList());
+    }
+
+    private static LivroRequestDTO requisicao(String titulo, String autor, int ano) {
+        LivroRequestDTO requisicao = new LivroRequestDTO();
+        requisicao.setTitulo(titulo);
+        requisicao.setAutor(autor);
+        requisicao.setGenero("Romance");
+        requisicao.setAnoPublicacao(ano);
+        return requisicao;
+    }
+}
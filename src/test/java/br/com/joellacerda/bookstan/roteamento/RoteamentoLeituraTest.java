@@ -0,0 +1,143 @@
+package br.com.joellacerda.bookstan.roteamento;
+
+import br.com.joellacerda.bookstan.cache.LivroCache;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import com.jayway.jsonpath.JsonPath;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Dois H2 em memória no papel de principal e réplica, mais uma réplica que nunca responde.
+// A "replicação" é feita pelo próprio teste (SCRIPT do principal executado na réplica), então dá para ver
+// de qual banco cada leitura veio. Sem @Transactional: uma transação de teste prenderia tudo no principal.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primario;DB_CLOSE_DELAY=-1",
+        "bookstan.replicas.urls=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1,jdbc:h2:mem:replica-fora;IFEXISTS=TRUE",
+        "bookstan.replicas.username=sa",
+        "bookstan.replicas.intervalo-verificacao=1h",
+        // A réplica ainda não tem as tabelas quando a aplicação sobe
+        "bookstan.busca.indexar-na-inicializacao=false"
+})
+@AutoConfigureMockMvc
+public class RoteamentoLeituraTest {
+
+    private static final String URL_REPLICA = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private LivroCache livroCache;
+
+    @Autowired
+    private DataSourceReplicas dataSourceReplicas;
+
+    @Autowired
+    @Qualifier("dataSourcePrimario")
+    private DataSource dataSourcePrimario;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        livroRepository.deleteAll();
+        livroCache.limpar();
+        replicar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        livroRepository.deleteAll();
+        livroCache.limpar();
+    }
+
+    @Test
+    @DisplayName("Leituras somente leitura vão à réplica; com o token da escrita, ao principal")
+    void leituraNaReplica_eLeituraPropriaNoPrimario() throws Exception {
+        MockHttpServletResponse resposta = mockMvc.perform(post("/api/livros")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"titulo\": \"Dom Casmurro\", \"autor\": \"Machado de Assis\", \"anoPublicacao\": 1899}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse();
+        String token = resposta.getHeader(FiltroLeituraPropria.CABECALHO_TOKEN);
+        Long id = JsonPath.parse(resposta.getContentAsString()).read("$.id", Long.class);
+
+        // A réplica ainda não recebeu o livro (nas duas leituras o rodízio passa pela réplica fora do ar)
+        mockMvc.perform(get("/api/livros")).andExpect(jsonPath("$.totalElements", is(0)));
+        mockMvc.perform(get("/api/livros")).andExpect(jsonPath("$.totalElements", is(0)));
+        assertEquals(List.of("replica-1"), dataSourceReplicas.getReplicasSaudaveis());
+
+        // Quem escreveu lê do principal
+        mockMvc.perform(get("/api/livros").header(FiltroLeituraPropria.CABECALHO_TOKEN, token))
+                .andExpect(jsonPath("$.totalElements", is(1)));
+        // Token vencido: volta para a réplica
+        mockMvc.perform(get("/api/livros").header(FiltroLeituraPropria.CABECALHO_TOKEN, "1"))
+                .andExpect(jsonPath("$.totalElements", is(0)));
+
+        // O cache é sempre carregado do principal
+        mockMvc.perform(get("/api/livros/{id}", id)).andExpect(status().isOk());
+
+        replicar();
+        mockMvc.perform(get("/api/livros")).andExpect(jsonPath("$.totalElements", is(1)));
+    }
+
+    @Test
+    @DisplayName("Sem nenhuma réplica saudável, a conexão vem do principal")
+    void semReplicaSaudavel_usaOPrimario() throws Exception {
+        HikariDataSource fora = new HikariDataSource();
+        fora.setPoolName("fora");
+        fora.setJdbcUrl("jdbc:h2:mem:outra-replica-fora;IFEXISTS=TRUE");
+        fora.setConnectionTimeout(250);
+        fora.setInitializationFailTimeout(-1);
+
+        try (DataSourceReplicas replicas = new DataSourceReplicas(List.of(fora), dataSourcePrimario, Duration.ofHours(1));
+             Connection conexao = replicas.getConnection()) {
+            assertTrue(conexao.getMetaData().getURL().contains("primario"));
+            assertTrue(replicas.getReplicasSaudaveis().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Com as credenciais das réplicas, getConnection(usuario, senha) também usa o rodízio")
+    void conexaoComCredenciais_usaAsReplicas() throws Exception {
+        try (Connection conexao = dataSourceReplicas.getConnection("sa", "")) {
+            assertTrue(conexao.getMetaData().getURL().contains("replica"));
+        }
+    }
+
+    // Copia o estado atual do principal (esquema e dados) para a réplica
+    private void replicar() throws Exception {
+        List<String> script = new JdbcTemplate(dataSourcePrimario).queryForList("SCRIPT", String.class);
+        try (Connection conexao = DriverManager.getConnection(URL_REPLICA, "sa", "")) {
+            JdbcTemplate replica = new JdbcTemplate(new SingleConnectionDataSource(conexao, true));
+            replica.execute("DROP ALL OBJECTS");
+            script.forEach(replica::execute);
+        }
+    }
+}
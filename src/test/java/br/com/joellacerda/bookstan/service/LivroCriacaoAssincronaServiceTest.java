@@ -0,0 +1,150 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.dto.CriacaoAssincronaDTO;
+import br.com.joellacerda.bookstan.dto.ItemLoteResultadoDTO;
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.exception.FilaCheiaException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LivroCriacaoAssincronaServiceTest {
+
+    @Mock
+    private LivroLoteService livroLoteService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LivroCriacaoAssincronaService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null && service.isRunning()) {
+            service.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Pedidos que chegam juntos devem ser gravados num único lote")
+    void enfileirar_pedidosProximos_gravaEmUmLote() {
+        // Arrange: espera longa pelo lote, para os três pedidos caberem nele
+        service = new LivroCriacaoAssincronaService(livroLoteService, meterRegistry, 100, 50,
+                Duration.ofMillis(300), Duration.ofMinutes(1), 1000);
+        when(livroLoteService.gravarValidados(anyList())).thenAnswer(invocacao -> {
+            List<?> itens = invocacao.getArgument(0);
+            return IntStream.range(0, itens.size())
+                    .mapToObj(i -> new ItemLoteResultadoDTO(i, ItemLoteResultadoDTO.Status.CRIADO, 10L + i, List.of()))
+                    .toList();
+        });
+        service.start();
+
+        // Act
+        List<String> protocolos = IntStream.range(0, 3)
+                .mapToObj(i -> service.enfileirar(requisicao("Livro " + i)).getProtocolo())
+                .toList();
+        service.stop(); // Esvazia a fila antes de terminar
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LivroRequestDTO>> lote = ArgumentCaptor.forClass(List.class);
+        verify(livroLoteService, times(1)).gravarValidados(lote.capture());
+        assertEquals(3, lote.getValue().size());
+        CriacaoAssincronaDTO ultimo = service.consultar(protocolos.get(2));
+        assertEquals(CriacaoAssincronaDTO.Estado.CRIADO, ultimo.getEstado());
+        assertEquals(12L, ultimo.getId());
+        assertEquals(1, meterRegistry.get("bookstan.criacao.gravacao").timer().count());
+    }
+
+    @Test
+    @DisplayName("Com a fila cheia, o pedido deve ser recusado na hora")
+    void enfileirar_filaCheia_lancaFilaCheiaException() throws InterruptedException {
+        // Arrange: a gravadora fica presa no primeiro lote e a fila comporta só mais um pedido
+        service = new LivroCriacaoAssincronaService(livroLoteService, meterRegistry, 1, 1,
+                Duration.ZERO, Duration.ofMinutes(1), 1000);
+        CountDownLatch gravando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(livroLoteService.gravarValidados(anyList())).thenAnswer(invocacao -> {
+            gravando.countDown();
+            liberar.await();
+            return List.of(new ItemLoteResultadoDTO(0, ItemLoteResultadoDTO.Status.CRIADO, 1L, List.of()));
+        });
+        service.start();
+        service.enfileirar(requisicao("Primeiro"));
+        assertTrue(gravando.await(5, TimeUnit.SECONDS));
+        service.enfileirar(requisicao("Segundo"));
+
+        // Act & Assert
+        assertThrows(FilaCheiaException.class, () -> service.enfileirar(requisicao("Terceiro")));
+        assertEquals(1, meterRegistry.get("bookstan.criacao.fila").gauge().value());
+        assertEquals(1, meterRegistry.get("bookstan.criacao.recusados").counter().count());
+        liberar.countDown();
+    }
+
+    @Test
+    @DisplayName("Protocolos ainda na fila não devem ser descartados pelo limite de situações guardadas")
+    void consultar_pendentesAcimaDoMaximoDeSituacoes_encontraTodos() throws InterruptedException {
+        // Arrange: a gravadora fica presa no primeiro lote e o cache guarda só uma situação final
+        service = new LivroCriacaoAssincronaService(livroLoteService, meterRegistry, 100, 1,
+                Duration.ZERO, Duration.ofMinutes(1), 1);
+        CountDownLatch gravando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(livroLoteService.gravarValidados(anyList())).thenAnswer(invocacao -> {
+            gravando.countDown();
+            liberar.await();
+            return List.of(new ItemLoteResultadoDTO(0, ItemLoteResultadoDTO.Status.CRIADO, 1L, List.of()));
+        });
+        service.start();
+        service.enfileirar(requisicao("Primeiro"));
+        assertTrue(gravando.await(5, TimeUnit.SECONDS));
+
+        // Act
+        List<String> protocolos = IntStream.range(0, 50)
+                .mapToObj(i -> service.enfileirar(requisicao("Livro " + i)).getProtocolo())
+                .toList();
+
+        // Assert
+        protocolos.forEach(protocolo ->
+                assertEquals(CriacaoAssincronaDTO.Estado.PENDENTE, service.consultar(protocolo).getEstado()));
+        liberar.countDown();
+    }
+
+    @Test
+    @DisplayName("Depois do encerramento, o pedido deve ser recusado e o protocolo não deve ficar pendente")
+    void enfileirar_depoisDoStop_lancaFilaCheiaException() {
+        // Arrange
+        service = new LivroCriacaoAssincronaService(livroLoteService, meterRegistry, 100, 50,
+                Duration.ZERO, Duration.ofMinutes(1), 1000);
+        service.start();
+        service.stop();
+
+        // Act & Assert
+        assertThrows(FilaCheiaException.class, () -> service.enfileirar(requisicao("Atrasado")));
+        assertEquals(0, meterRegistry.get("bookstan.criacao.fila").gauge().value());
+        assertEquals(1, meterRegistry.get("bookstan.criacao.recusados").counter().count());
+        verifyNoInteractions(livroLoteService);
+    }
+
+    private static LivroRequestDTO requisicao(String titulo) {
+        LivroRequestDTO requisicao = new LivroRequestDTO();
+        requisicao.setTitulo(titulo);
+        requisicao.setAutor("Machado de Assis");
+        requisicao.setAnoPublicacao(1899);
+        return requisicao;
+    }
+}
@@ -0,0 +1,261 @@
+package br.com.joellacerda.bookstan.service;
+
+import br.com.joellacerda.bookstan.busca.IndiceLivros;
+import br.com.joellacerda.bookstan.cache.LivroCache;
+import br.com.joellacerda.bookstan.dto.AtualizacaoEmMassaDTO;
+import br.com.joellacerda.bookstan.dto.FiltroLivrosDTO;
+import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
+import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.dto.LoteResultadoDTO;
+import br.com.joellacerda.bookstan.dto.OperacaoEmMassaResultadoDTO;
+import br.com.joellacerda.bookstan.dto.PaginaDTO;
+import br.com.joellacerda.bookstan.exception.LivroNaoEncontradoException;
+import br.com.joellacerda.bookstan.metricas.OrcamentoSql;
+import br.com.joellacerda.bookstan.model.Livro;
+import br.com.joellacerda.bookstan.repository.LivroRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Orçamento de comandos SQL de cada operação do serviço, contra o banco de verdade (H2).
+// Sem @Transactional: os comandos só vão ao banco no flush/commit, que num teste revertido não acontecem.
+@SpringBootTest
+public class LivroServiceSqlTest {
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private LivroLoteService livroLoteService;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private LivroCache livroCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private IndiceLivros indiceLivros;
+
+    @Autowired
+    private Validator validator;
+
+    @BeforeEach
+    void setUp() {
+        livroRepository.deleteAll();
+        livroCache.limpar();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @AfterEach
+    void tearDown() {
+        livroRepository.deleteAll();
+        livroCache.limpar();
+    }
+
+    @Test
+    @DisplayName("Cadastro: sequence (no máximo uma vez a cada 50 IDs), INSERT e o registro no log de alterações")
+    void criarLivro_cabeNoOrcamento() {
+        // Log de alterações: o UPDATE do contador (que já devolve a sequência) e o INSERT, em toda escrita
+        OrcamentoSql.verificar("criarLivro", 2 + 2, () -> livroService.criarLivro(requisicao("Dom Casmurro")));
+    }
+
+    @Test
+    @DisplayName("Busca por ID: uma consulta na falta do cache e nenhuma no acerto")
+    void buscarLivroPorId_cabeNoOrcamento() {
+        Long id = livroService.criarLivro(requisicao("Dom Casmurro")).getId();
+
+        OrcamentoSql.verificar("buscarLivroPorId (falta)", 1, () -> livroService.buscarLivroPorId(id));
+        OrcamentoSql.verificar("buscarLivroPorId (acerto)", 0, () -> livroService.buscarLivroPorId(id));
+    }
+
+    @Test
+    @DisplayName("Listagem paginada: página e contagem, independente do tamanho da página")
+    void buscarTodosLivros_cabeNoOrcamento() {
+        IntStream.range(0, 30).forEach(i -> livroService.criarLivro(requisicao("Livro " + i)));
+
+        PaginaDTO<LivroResponseDTO> pagina = OrcamentoSql.verificar("buscarTodosLivros", 2,
+                () -> livroService.buscarTodosLivros(PageRequest.of(1, 10), true));
+        assertEquals(10, pagina.getContent().size());
+
+        // Sem total: só a página, com um livro a mais para saber se há próxima
+        PaginaDTO<LivroResponseDTO> semTotal = OrcamentoSql.verificar("buscarTodosLivros (sem total)", 1,
+                () -> livroService.buscarTodosLivros(PageRequest.of(2, 10), false));
+        assertEquals(10, semTotal.getContent().size());
+        assertFalse(semTotal.isHasNext());
+    }
+
+    @Test
+    @DisplayName("Listagem com total em cache: COUNT só na primeira leitura; a última página traz o total exato")
+    void buscarTodosLivros_comTotalEmCache_cabeNoOrcamento() {
+        IntStream.range(0, 30).forEach(i -> livroService.criarLivro(requisicao("Livro " + i)));
+        // Intervalo longo: o total guardado não é recalculado durante o teste
+        LivroService comTotalEmCache = new LivroService(livroRepository, livroCache, indiceLivros, eventPublisher,
+                validator, new ContagemLivros(livroRepository, true, Duration.ofHours(1)));
+
+        PaginaDTO<LivroResponseDTO> primeira = OrcamentoSql.verificar("primeira página (conta)", 2,
+                () -> comTotalEmCache.buscarTodosLivros(PageRequest.of(0, 10), true));
+        assertEquals(30, primeira.getTotalElements());
+
+        IntStream.range(0, 5).forEach(i -> livroService.criarLivro(requisicao("Livro novo " + i)));
+        PaginaDTO<LivroResponseDTO> segunda = OrcamentoSql.verificar("segunda página (total guardado)", 1,
+                () -> comTotalEmCache.buscarTodosLivros(PageRequest.of(1, 10), true));
+        assertEquals(30, segunda.getTotalElements(), "Total guardado, ainda sem os livros novos");
+        PaginaDTO<LivroResponseDTO> ultima = OrcamentoSql.verificar("última página (total exato)", 1,
+                () -> comTotalEmCache.buscarTodosLivros(PageRequest.of(3, 10), true));
+        assertEquals(35, ultima.getTotalElements());
+        assertEquals(4, ultima.getTotalPages());
+    }
+
+    @Test
+    @DisplayName("Cache de segundo nível: findById repetido não vai ao banco; o PATCH tira o livro do cache")
+    void findById_usaCacheDeSegundoNivel() {
+        Long id = livroService.criarLivro(requisicao("Dom Casmurro")).getId();
+        entityManagerFactory.getCache().evict(Livro.class);
+
+        OrcamentoSql.verificar("findById (falta)", 1, () -> livroRepository.findById(id));
+        OrcamentoSql.verificar("findById (acerto)", 0, () -> livroRepository.findById(id));
+
+        livroService.atualizarLivroParcialmente(id, Map.of("genero", "Realismo"), null);
+        Optional<Livro> atualizado = OrcamentoSql.verificar("findById (depois do PATCH)", 1,
+                () -> livroRepository.findById(id));
+        assertEquals("Realismo", atualizado.orElseThrow().getGenero());
+    }
+
+    @Test
+    @DisplayName("Cache de segundo nível: a exclusão tira do cache só o livro removido")
+    void deletarLivro_mantemOsOutrosLivrosNoCache() {
+        Long id = livroService.criarLivro(requisicao("Dom Casmurro")).getId();
+        Long outroId = livroService.criarLivro(requisicao("Quincas Borba")).getId();
+        livroRepository.findById(id);
+        livroRepository.findById(outroId);
+
+        livroService.deletarLivro(id);
+
+        OrcamentoSql.verificar("findById (outro livro)", 0, () -> livroRepository.findById(outroId));
+        Optional<Livro> removido = OrcamentoSql.verificar("findById (removido)", 1, () -> livroRepository.findById(id));
+        assertTrue(removido.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Cache de consultas: a mesma página com a mesma ordenação não vai ao banco até a próxima escrita")
+    void buscarTodosLivros_usaCacheDeConsultas() {
+        IntStream.range(0, 30).forEach(i -> livroService.criarLivro(requisicao("Livro " + (char) ('A' + i))));
+        PageRequest primeiraPorTitulo = PageRequest.of(0, 10, Sort.by("titulo"));
+
+        OrcamentoSql.verificar("primeira página (falta)", 2, () -> livroService.buscarTodosLivros(primeiraPorTitulo, true));
+        OrcamentoSql.verificar("primeira página (acerto)", 0, () -> livroService.buscarTodosLivros(primeiraPorTitulo, true));
+        // Outra ordenação é outra entrada do cache
+        OrcamentoSql.verificar("primeira página por ano (falta)", 2,
+                () -> livroService.buscarTodosLivros(PageRequest.of(0, 10, Sort.by("anoPublicacao").descending()), true));
+
+        // Qualquer escrita na tabela invalida as páginas, inclusive o UPDATE nativo do PATCH
+        Long id = livroService.buscarTodosLivros(primeiraPorTitulo, true).getContent().get(0).getId();
+        livroService.atualizarLivroParcialmente(id, Map.of("titulo", "Livro ZZ"), null);
+        PaginaDTO<LivroResponseDTO> pagina = OrcamentoSql.verificar("primeira página (depois do PATCH)", 2,
+                () -> livroService.buscarTodosLivros(primeiraPorTitulo, true));
+        assertEquals("Livro B", pagina.getContent().get(0).getTitulo());
+        assertEquals(30, pagina.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Atualização: SELECT e UPDATE, mais o log de alterações")
+    void atualizarLivro_cabeNoOrcamento() {
+        Long id = livroService.criarLivro(requisicao("Dom Casmurro")).getId();
+
+        OrcamentoSql.verificar("atualizarLivro", 2 + 2,
+                () -> livroService.atualizarLivro(id, requisicao("Dom Casmurro (edição revista)")));
+    }
+
+    @Test
+    @DisplayName("Atualização parcial: um único UPDATE, que já devolve a linha nova, mais o log de alterações")
+    void atualizarLivroParcialmente_cabeNoOrcamento() {
+        Long id = livroService.criarLivro(requisicao("Dom Casmurro")).getId();
+
+        LivroResponseDTO atualizado = OrcamentoSql.verificar("atualizarLivroParcialmente", 1 + 2,
+                () -> livroService.atualizarLivroParcialmente(id, Map.of("genero", "Realismo"), null));
+        assertEquals("Realismo", atualizado.getGenero());
+        assertEquals("Dom Casmurro", atualizado.getTitulo());
+    }
+
+    @Test
+    @DisplayName("Operações em massa: comandos por bloco, não por livro")
+    void operacoesEmMassa_cabemNoOrcamento() {
+        IntStream.range(0, 25).forEach(i -> livroService.criarLivro(requisicao("Livro " + i)));
+        // Blocos de 10: 3 blocos para 25 livros
+        LivroEmMassaService emMassa = new LivroEmMassaService(livroRepository, livroService, livroCache,
+                eventPublisher, transactionManager, 10, 100);
+        FiltroLivrosDTO filtro = new FiltroLivrosDTO("Machado de Assis", null, 1890, 1900, null);
+
+        // Por bloco: IDs do bloco, UPDATE, a leitura dos livros alterados para o índice de busca
+        // e o log de alterações (contador e um INSERT em lote)
+        OperacaoEmMassaResultadoDTO atualizacao = OrcamentoSql.verificar("atualizarLivros", 3 * 5,
+                () -> emMassa.atualizarLivros(new AtualizacaoEmMassaDTO(filtro, Map.of("genero", "Realismo"))));
+        assertEquals(25, atualizacao.getAfetados());
+        assertEquals(3, atualizacao.getBlocos());
+
+        // Por bloco: IDs do bloco, DELETE e o log de alterações
+        OperacaoEmMassaResultadoDTO remocao = OrcamentoSql.verificar("deletarLivros", 3 * 4,
+                () -> emMassa.deletarLivros(filtro));
+        assertEquals(25, remocao.getAfetados());
+        assertEquals(0, livroRepository.count());
+    }
+
+    @Test
+    @DisplayName("Exclusão: um único DELETE (mais o log de alterações), inclusive para ID inexistente")
+    void deletarLivro_cabeNoOrcamento() {
+        Long id = livroService.criarLivro(requisicao("Dom Casmurro")).getId();
+
+        OrcamentoSql.verificar("deletarLivro", 1 + 2, () -> livroService.deletarLivro(id));
+        OrcamentoSql.verificar("deletarLivro (inexistente)", 1,
+                () -> assertThrows(LivroNaoEncontradoException.class, () -> livroService.deletarLivro(id)));
+    }
+
+    @Test
+    @DisplayName("Lote: consultas por bloco, não por livro")
+    void criarLivros_cabeNoOrcamento() {
+        List<LivroRequestDTO> lote = IntStream.range(0, 200).mapToObj(i -> requisicao("Livro " + i)).toList();
+
+        // Por bloco de 500: ISBNs existentes (só quando há ISBN), sequence a cada 50 IDs e um INSERT por lote JDBC,
+        // mais o contador e os INSERTs (também em lotes) do log de alterações
+        LoteResultadoDTO resultado = OrcamentoSql.verificar("criarLivros (200 itens)", 10 + 5,
+                () -> livroLoteService.criarLivros(lote));
+        assertEquals(200, resultado.getCriados());
+    }
+
+    private static LivroRequestDTO requisicao(String titulo) {
+        LivroRequestDTO requisicao = new LivroRequestDTO();
+        requisicao.setTitulo(titulo);
+        requisicao.setAutor("Machado de Assis");
+        requisicao.setGenero("Romance");
+        requisicao.setAnoPublicacao(1899);
+        return requisicao;
+    }
+}
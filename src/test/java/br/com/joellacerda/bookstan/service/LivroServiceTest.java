@@ -1,10 +1,19 @@
 package br.com.joellacerda.bookstan.service;
 
+import br.com.joellacerda.bookstan.busca.IndiceLivros;
+import br.com.joellacerda.bookstan.cache.LivroCache;
 import br.com.joellacerda.bookstan.dto.LivroRequestDTO;
 import br.com.joellacerda.bookstan.dto.LivroResponseDTO;
+import br.com.joellacerda.bookstan.dto.PaginaDTO;
+import br.com.joellacerda.bookstan.event.LivroAlteradoEvent;
+import br.com.joellacerda.bookstan.exception.LivroDuplicadoException;
 import br.com.joellacerda.bookstan.exception.LivroNaoEncontradoException;
+import br.com.joellacerda.bookstan.exception.PatchInvalidoException;
+import br.com.joellacerda.bookstan.model.Isbn;
 import br.com.joellacerda.bookstan.model.Livro;
 import br.com.joellacerda.bookstan.repository.LivroRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,11 +21,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +44,21 @@ public class LivroServiceTest {
     @Mock // Cria um mock (simulação) do LivroRepository
     private LivroRepository livroRepository;
 
+    @Spy // Cache real (não é mock): os testes de busca passam por ele como em produção
+    private LivroCache livroCache = new LivroCache(100, Duration.ofMinutes(10), 100, Duration.ofSeconds(30));
+
+    @Mock
+    private IndiceLivros indiceLivros;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy // Validador real: o PATCH usa as mesmas anotações do cadastro
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock // Desligada (isHabilitada() = false): a listagem conta os livros a cada página
+    private ContagemLivros contagemLivros;
+
     @InjectMocks // Cria uma instância de LivroService e injeta os mocks (como livroRepository) nela
     private LivroService livroService;
 
@@ -50,7 +81,7 @@ public class LivroServiceTest {
                 livroRequestDTO.getAutor(),
                 livroRequestDTO.getGenero(),
                 livroRequestDTO.getAnoPublicacao(),
-                livroRequestDTO.getIsbn()
+                Isbn.normalizar(livroRequestDTO.getIsbn())
         );
 
         // Entidade como seria retornada do repo após o save (com ID)
@@ -60,7 +91,7 @@ public class LivroServiceTest {
                 livroRequestDTO.getAutor(),
                 livroRequestDTO.getGenero(),
                 livroRequestDTO.getAnoPublicacao(),
-                livroRequestDTO.getIsbn()
+                Isbn.normalizar(livroRequestDTO.getIsbn())
         );
     }
 
@@ -96,8 +127,9 @@ public class LivroServiceTest {
     void buscarLivroPorId_quandoIdExistente_retornaLivroResponseDTO() {
         // Arrange
         Long idExistente = 1L;
-        // O repositório retorna a entidade com ID
-        when(livroRepository.findById(idExistente)).thenReturn(Optional.of(livroEntidadeComId));
+        // O repositório retorna o DTO já projetado (sem entidade)
+        when(livroRepository.findProjetadoById(idExistente))
+                .thenReturn(Optional.of(LivroService.toResponseDTO(livroEntidadeComId)));
 
         // Act
         LivroResponseDTO responseDTO = livroService.buscarLivroPorId(idExistente);
@@ -106,7 +138,7 @@ public class LivroServiceTest {
         assertNotNull(responseDTO);
         assertEquals(idExistente, responseDTO.getId());
         assertEquals(livroEntidadeComId.getTitulo(), responseDTO.getTitulo());
-        verify(livroRepository, times(1)).findById(idExistente);
+        verify(livroRepository, times(1)).findProjetadoById(idExistente);
     }
 
 
@@ -115,7 +147,7 @@ public class LivroServiceTest {
     void buscarLivroPorId_quandoIdInexistente_lancaLivroNaoEncontradoException() {
         // Arrange
         Long idInexistente = 99L;
-        when(livroRepository.findById(idInexistente)).thenReturn(Optional.empty());
+        when(livroRepository.findProjetadoById(idInexistente)).thenReturn(Optional.empty());
 
         // Act & Assert
         LivroNaoEncontradoException exception = assertThrows(
@@ -123,25 +155,81 @@ public class LivroServiceTest {
                 () -> livroService.buscarLivroPorId(idInexistente)
         );
         assertEquals("Livro não encontrado com ID: " + idInexistente, exception.getMessage());
-        verify(livroRepository, times(1)).findById(idInexistente);
+        verify(livroRepository, times(1)).findProjetadoById(idInexistente);
+    }
+
+    @Test
+    @DisplayName("Deve buscar no banco apenas uma vez quando o mesmo ID é consultado repetidamente")
+    void buscarLivroPorId_quandoConsultadoDuasVezes_usaCacheNaSegunda() {
+        // Arrange
+        Long idExistente = 1L;
+        when(livroRepository.findProjetadoById(idExistente))
+                .thenReturn(Optional.of(LivroService.toResponseDTO(livroEntidadeComId)));
+
+        // Act
+        LivroResponseDTO primeira = livroService.buscarLivroPorId(idExistente);
+        LivroResponseDTO segunda = livroService.buscarLivroPorId(idExistente);
+
+        // Assert
+        assertEquals(primeira, segunda);
+        verify(livroRepository, times(1)).findProjetadoById(idExistente);
+        assertEquals(1, livroCache.estatisticas().getAcertos());
     }
 
     @Test
-    @DisplayName("Deve retornar Page de LivroResponseDTO ao buscar todos os livros com paginação")
-    void buscarTodosLivros_comPageable_retornaPageDeLivroResponseDTO() {
+    @DisplayName("Deve guardar o 404 no cache negativo e não consultar o banco de novo")
+    void buscarLivroPorId_quandoIdInexistenteConsultadoDuasVezes_consultaBancoUmaVez() {
         // Arrange
-        Livro outroLivroEntidade = new Livro(2L, "1984", "George Orwell", "Distopia", 1949, "978-0451524935");
-        List<Livro> listaDeEntidades = Arrays.asList(livroEntidadeComId, outroLivroEntidade);
+        Long idInexistente = 99L;
+        when(livroRepository.findProjetadoById(idInexistente)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(LivroNaoEncontradoException.class, () -> livroService.buscarLivroPorId(idInexistente));
+        assertThrows(LivroNaoEncontradoException.class, () -> livroService.buscarLivroPorId(idInexistente));
+        verify(livroRepository, times(1)).findProjetadoById(idInexistente);
+        assertEquals(1, livroCache.estatisticas().getAcertosNaoEncontrados());
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao atualizar um livro")
+    void atualizarLivro_quandoLivroEstaNoCache_invalidaEntrada() {
+        // Arrange
+        Long idExistente = 1L;
+        Livro livroAtualizado = new Livro(idExistente, "O Hobbit (Revisado)", "J.R.R. Tolkien", "Fantasia", 1937, 9780547928227L);
+        when(livroRepository.findProjetadoById(idExistente))
+                .thenReturn(Optional.of(LivroService.toResponseDTO(livroEntidadeComId)))
+                .thenReturn(Optional.of(LivroService.toResponseDTO(livroAtualizado)));
+        when(livroRepository.findById(idExistente)).thenReturn(Optional.of(livroEntidadeComId));
+        when(livroRepository.save(any(Livro.class))).thenReturn(livroAtualizado);
+        livroService.buscarLivroPorId(idExistente); // Popula o cache
+
+        // Act
+        livroService.atualizarLivro(idExistente, livroRequestDTO);
+        LivroResponseDTO aposAtualizar = livroService.buscarLivroPorId(idExistente);
+
+        // Assert
+        assertEquals("O Hobbit (Revisado)", aposAtualizar.getTitulo());
+        verify(livroCache).invalidar(idExistente);
+    }
+
+    @Test
+    @DisplayName("Deve retornar PaginaDTO de LivroResponseDTO ao buscar todos os livros com paginação")
+    void buscarTodosLivros_comPageable_retornaPaginaDeLivroResponseDTO() {
+        // Arrange
+        Livro outroLivroEntidade = new Livro(2L, "1984", "George Orwell", "Distopia", 1949, 9780451524935L);
+        // O repositório devolve os DTOs já projetados pela consulta
+        List<LivroResponseDTO> listaDeDTOs = Arrays.asList(
+                LivroService.toResponseDTO(livroEntidadeComId), LivroService.toResponseDTO(outroLivroEntidade));
         // Define o Pageable que seria passado para o serviço
         Pageable pageable = PageRequest.of(0, 5, Sort.by("titulo").ascending());
-        // Cria um objeto Page<Livro> para ser retornado pelo mock do repositório
+        // Cria um objeto Page<LivroResponseDTO> para ser retornado pelo mock do repositório
         // Parâmetros: conteúdo da página, pageable da requisição, total de elementos no banco
-        Page<Livro> paginaDeEntidadesMock = new PageImpl<>(listaDeEntidades, pageable, listaDeEntidades.size());
+        Page<LivroResponseDTO> paginaMock = new PageImpl<>(listaDeDTOs, pageable, listaDeDTOs.size());
         // Configura o mock do repositório
-        when(livroRepository.findAll(pageable)).thenReturn(paginaDeEntidadesMock);
+        when(livroRepository.findAllProjetado(pageable)).thenReturn(paginaMock);
 
         // Act
-        Page<LivroResponseDTO> resultPage = livroService.buscarTodosLivros(pageable);
+        PaginaDTO<LivroResponseDTO> resultPage = livroService.buscarTodosLivros(pageable, true);
 
         // Assert
         assertNotNull(resultPage);
@@ -149,10 +237,57 @@ public class LivroServiceTest {
         assertEquals(1, resultPage.getTotalPages(), "Total de páginas deve ser 1 para 2 elementos com size 5");
         assertEquals(0, resultPage.getNumber(), "Número da página atual deve ser 0");
         assertEquals(2, resultPage.getContent().size(), "Conteúdo da página deve ter 2 livros");
+        assertFalse(resultPage.isHasNext());
         assertEquals(livroEntidadeComId.getTitulo(), resultPage.getContent().get(0).getTitulo());
         assertEquals(outroLivroEntidade.getTitulo(), resultPage.getContent().get(1).getTitulo());
 
-        verify(livroRepository, times(1)).findAll(pageable);
+        verify(livroRepository, times(1)).findAllProjetado(pageable);
+    }
+
+    @Test
+    @DisplayName("Sem total: usa Slice (sem COUNT) e informa só se há próxima página")
+    void buscarTodosLivros_semTotal_usaSlice() {
+        // Arrange
+        Pageable pageable = PageRequest.of(1, 1);
+        List<LivroResponseDTO> conteudo = List.of(LivroService.toResponseDTO(livroEntidadeComId));
+        when(livroRepository.findSliceProjetado(pageable)).thenReturn(new SliceImpl<>(conteudo, pageable, true));
+
+        // Act
+        PaginaDTO<LivroResponseDTO> pagina = livroService.buscarTodosLivros(pageable, false);
+
+        // Assert
+        assertEquals(1, pagina.getNumber());
+        assertTrue(pagina.isHasNext());
+        assertNull(pagina.getTotalElements());
+        assertNull(pagina.getTotalPages());
+        verify(livroRepository, never()).findAllProjetado(any());
+        verifyNoInteractions(contagemLivros);
+    }
+
+    @Test
+    @DisplayName("Total em cache: usa o valor guardado, sem deixá-lo contradizer a página, e o exato na última página")
+    void buscarTodosLivros_comTotalEmCache_ajustaPelaPagina() {
+        // Arrange: o total guardado (5) está atrasado em relação ao banco
+        when(contagemLivros.isHabilitada()).thenReturn(true);
+        when(contagemLivros.total()).thenReturn(5L);
+        List<LivroResponseDTO> dezLivros = Collections.nCopies(10, LivroService.toResponseDTO(livroEntidadeComId));
+        List<LivroResponseDTO> tresLivros = Collections.nCopies(3, LivroService.toResponseDTO(livroEntidadeComId));
+        when(livroRepository.findSliceProjetado(PageRequest.of(0, 10)))
+                .thenReturn(new SliceImpl<>(dezLivros, PageRequest.of(0, 10), true));
+        when(livroRepository.findSliceProjetado(PageRequest.of(1, 10)))
+                .thenReturn(new SliceImpl<>(tresLivros, PageRequest.of(1, 10), false));
+
+        // Act
+        PaginaDTO<LivroResponseDTO> primeira = livroService.buscarTodosLivros(PageRequest.of(0, 10), true);
+        PaginaDTO<LivroResponseDTO> ultima = livroService.buscarTodosLivros(PageRequest.of(1, 10), true);
+
+        // Assert
+        assertEquals(11, primeira.getTotalElements(), "Pelo menos os 10 da página e mais um");
+        assertEquals(2, primeira.getTotalPages());
+        assertTrue(primeira.isHasNext());
+        assertEquals(13, ultima.getTotalElements(), "A última página revela o total exato");
+        assertFalse(ultima.isHasNext());
+        verify(livroRepository, never()).findAllProjetado(any());
     }
 
 
@@ -170,10 +305,10 @@ public class LivroServiceTest {
         atualizacaoRequestDTO.setIsbn("978-0547928227");
 
         // Entidade existente no banco (antes da atualização)
-        Livro livroExistenteNoBanco = new Livro(idExistente, "O Hobbit", "J.R.R. Tolkien", "Fantasia", 1937, "978-0547928227");
+        Livro livroExistenteNoBanco = new Livro(idExistente, "O Hobbit", "J.R.R. Tolkien", "Fantasia", 1937, 9780547928227L);
 
         // Entidade como ela deve ficar após a atualização e ser salva
-        Livro livroEsperadoAposSalvar = new Livro(idExistente, atualizacaoRequestDTO.getTitulo(), atualizacaoRequestDTO.getAutor(), atualizacaoRequestDTO.getGenero(), atualizacaoRequestDTO.getAnoPublicacao(), atualizacaoRequestDTO.getIsbn());
+        Livro livroEsperadoAposSalvar = new Livro(idExistente, atualizacaoRequestDTO.getTitulo(), atualizacaoRequestDTO.getAutor(), atualizacaoRequestDTO.getGenero(), atualizacaoRequestDTO.getAnoPublicacao(), Isbn.normalizar(atualizacaoRequestDTO.getIsbn()));
 
         when(livroRepository.findById(idExistente)).thenReturn(Optional.of(livroExistenteNoBanco));
         when(livroRepository.save(any(Livro.class))).thenReturn(livroEsperadoAposSalvar); // O save retorna a entidade atualizada
@@ -215,20 +350,73 @@ public class LivroServiceTest {
     }
 
 
+    @Test
+    @DisplayName("Deve atualizar parcialmente com um único UPDATE, sem ler o livro antes")
+    void atualizarLivroParcialmente_enviaSoOsCamposAlterados() {
+        // Arrange
+        Long id = 1L;
+        LivroResponseDTO atualizado = new LivroResponseDTO(id, "O Hobbit", "J.R.R. Tolkien", "Fantasia Clássica",
+                1937, 9780547928227L, 1L);
+        when(livroRepository.atualizarCampos(id, Map.of("genero", "Fantasia Clássica"), null))
+                .thenReturn(Optional.of(atualizado));
+
+        // Act
+        LivroResponseDTO resultado = livroService.atualizarLivroParcialmente(id, Map.of("genero", "Fantasia Clássica"), null);
+
+        // Assert
+        assertEquals("Fantasia Clássica", resultado.getGenero());
+        assertEquals(1L, resultado.getVersao());
+        verify(livroRepository, never()).findById(anyLong()); // Sem SELECT antes do UPDATE
+        verify(livroRepository, never()).findVersaoById(anyLong());
+        verify(eventPublisher).publishEvent(LivroAlteradoEvent.salvo(atualizado));
+    }
+
+    @Test
+    @DisplayName("Deve lançar LivroNaoEncontradoException quando o PATCH não altera nenhuma linha e o livro não existe")
+    void atualizarLivroParcialmente_quandoIdInexistente_lancaLivroNaoEncontradoException() {
+        // Arrange
+        Long idInexistente = 99L;
+        when(livroRepository.atualizarCampos(eq(idInexistente), anyMap(), isNull())).thenReturn(Optional.empty());
+        when(livroRepository.findVersaoById(idInexistente)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        LivroNaoEncontradoException exception = assertThrows(LivroNaoEncontradoException.class,
+                () -> livroService.atualizarLivroParcialmente(idInexistente, Map.of("genero", "Fantasia"), null));
+        assertEquals("Livro não encontrado com ID: " + idInexistente, exception.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar PATCH com campo desconhecido ou valor inválido sem ir ao banco")
+    void atualizarLivroParcialmente_quandoPatchInvalido_lancaPatchInvalidoException() {
+        // Arrange: merge patch com null apaga o campo, mas título é obrigatório
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("titulo", null);
+        patch.put("paginas", 300);
+        patch.put("isbn", "123");
+
+        // Act & Assert
+        PatchInvalidoException exception = assertThrows(PatchInvalidoException.class,
+                () -> livroService.atualizarLivroParcialmente(1L, patch, null));
+        assertEquals(3, exception.getErros().size());
+        assertTrue(exception.getErros().contains("paginas: campo desconhecido ou que não pode ser alterado."));
+        assertTrue(exception.getErros().contains("titulo: O título não pode estar em branco."));
+        verifyNoInteractions(livroRepository);
+    }
+
     @Test
     @DisplayName("Deve deletar livro quando ID existente é fornecido")
     void deletarLivro_quandoIdExistente_naoDeveLancarExcecao() {
         // Arrange
         Long idExistente = 1L;
-        when(livroRepository.existsById(idExistente)).thenReturn(true);
-        // void não retorna nada, então usamos doNothing() para o mock de deleteById
-        doNothing().when(livroRepository).deleteById(idExistente);
+        when(livroRepository.deletarPorId(idExistente)).thenReturn(1); // Uma linha apagada
 
         // Act & Assert
         assertDoesNotThrow(() -> livroService.deletarLivro(idExistente));
 
-        verify(livroRepository, times(1)).existsById(idExistente);
-        verify(livroRepository, times(1)).deleteById(idExistente);
+        verify(livroRepository, times(1)).deletarPorId(idExistente);
+        verify(livroRepository, never()).existsById(anyLong()); // Sem SELECT antes do DELETE
+        verify(eventPublisher).publishEvent(LivroAlteradoEvent.removido(idExistente)); // Tira o livro do índice de busca
     }
 
     @Test
@@ -236,7 +424,7 @@ public class LivroServiceTest {
     void deletarLivro_quandoIdInexistente_lancaLivroNaoEncontradoException() {
         // Arrange
         Long idInexistente = 99L;
-        when(livroRepository.existsById(idInexistente)).thenReturn(false);
+        when(livroRepository.deletarPorId(idInexistente)).thenReturn(0); // Nenhuma linha apagada
 
         // Act & Assert
         LivroNaoEncontradoException exception = assertThrows(
@@ -244,7 +432,44 @@ public class LivroServiceTest {
                 () -> livroService.deletarLivro(idInexistente)
         );
         assertEquals("Livro não encontrado com ID: " + idInexistente, exception.getMessage());
-        verify(livroRepository, times(1)).existsById(idInexistente);
-        verify(livroRepository, never()).deleteById(anyLong()); // Garante que deleteById não foi chamado
+        verify(livroRepository, times(1)).deletarPorId(idInexistente);
+        verifyNoInteractions(eventPublisher); // Nada a tirar do índice de busca
+    }
+
+    @Test
+    @DisplayName("Deve lançar LivroDuplicadoException quando o banco rejeita o ISBN repetido")
+    void criarLivro_quandoIsbnDuplicado_lancaLivroDuplicadoException() {
+        // Arrange: sem SELECT prévio, a duplicidade só aparece no flush do INSERT
+        when(livroRepository.save(any(Livro.class))).thenReturn(livroEntidadeComId);
+        doThrow(new DataIntegrityViolationException(
+                "duplicate key value violates unique constraint \"uk_livros_isbn13\"")).when(livroRepository).flush();
+
+        // Act & Assert
+        LivroDuplicadoException exception = assertThrows(
+                LivroDuplicadoException.class,
+                () -> livroService.criarLivro(livroRequestDTO)
+        );
+        assertEquals("Já existe um livro com o ISBN 9780547928227.", exception.getMessage());
+        verify(livroRepository, never()).findByIsbn(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Deve buscar por texto mantendo a ordem de relevância do índice")
+    void buscarLivrosPorTexto_deveManterOrdemDoIndice() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        Livro primeiro = new Livro(2L, "O Hobbit", "J.R.R. Tolkien", "Fantasia", 1937, 9780261102217L);
+        Livro segundo = new Livro(1L, "O Senhor dos Anéis", "J.R.R. Tolkien", "Fantasia", 1954, 9780618640157L);
+        when(indiceLivros.buscar("tolkien", 0, 10)).thenReturn(new IndiceLivros.ResultadoBusca(List.of(2L, 1L, 3L), 3));
+        // O banco devolve em outra ordem e o livro 3 foi removido depois da busca
+        when(livroRepository.findAllById(List.of(2L, 1L, 3L))).thenReturn(List.of(segundo, primeiro));
+
+        // Act
+        PaginaDTO<LivroResponseDTO> resultado = livroService.buscarLivrosPorTexto("tolkien", pageable);
+
+        // Assert
+        assertEquals(List.of(2L, 1L), resultado.getContent().stream().map(LivroResponseDTO::getId).toList());
+        assertEquals(2, resultado.getTotalElements()); // Na última página o total é ajustado ao que foi encontrado
     }
 }